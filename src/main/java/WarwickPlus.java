@@ -55,6 +55,9 @@ public class WarwickPlus {
         options.addOption(Option.builder().longOpt("ratings").argName("ratings csv file")
                                 .hasArg().desc("The ratings csv file to be used")
                                 .build());
+        options.addOption(Option.builder().longOpt("mapped-movies").argName("movies store path")
+                                .hasArg().desc("Keep the films in memory-mapped files at this path, reopening them if they were written before")
+                                .build());
         options.addOption(Option.builder("n").argName("number of movies").hasArg()
                                 .desc("The number of movies to load in (and thereby loading in less of the other files too)")
                                 .build());
@@ -67,6 +70,7 @@ public class WarwickPlus {
         String movieMetadataPath = Constants.defaultMovieMetadataPath;
         String ratingsPath       = Constants.defaultRatingsPath;
         Integer numMovies        = null;
+        String mappedMoviesPath  = null;
 
         CommandLineParser cliParser = new DefaultParser();
         try{
@@ -81,6 +85,7 @@ public class WarwickPlus {
             if (line.hasOption("keywords")) { keywordsPath = line.getOptionValue("keywords"); }
             if (line.hasOption("movies"))   { movieMetadataPath = line.getOptionValue("movies"); }
             if (line.hasOption("ratings"))  { ratingsPath  = line.getOptionValue("ratings"); }
+            if (line.hasOption("mapped-movies")) { mappedMoviesPath = line.getOptionValue("mapped-movies"); }
             if (line.hasOption("n")) 
             { 
                 String optionString = line.getOptionValue("n");
@@ -103,8 +108,29 @@ public class WarwickPlus {
             return;
         }
 
-        AbstractStores stores = new Stores();
-        
+        Stores stores;
+        if (mappedMoviesPath == null){
+            stores = new Stores();
+        }
+        else {
+            try{
+                stores = new Stores(mappedMoviesPath);
+            }
+            catch (IOException e){
+                System.err.println("Unable to open the movies store at \"" + mappedMoviesPath + "\": " + e.getMessage());
+                return;
+            }
+        }
+        // Closing the window exits, so the mapped files are written out on the way down
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try{
+                stores.close();
+            }
+            catch (IOException e){
+                System.err.println("Unable to close the movies store: " + e.getMessage());
+            }
+        }));
+
         start(stores, creditsPath, keywordsPath, movieMetadataPath, ratingsPath, numMovies);
     }
 
@@ -160,7 +186,9 @@ public class WarwickPlus {
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
         try{
-            LoadData loading = new LoadData(loadingBar, loadingText, creditsPath, keywordsPath, movieMetadataPath, ratingsPath);
+            // A mapped movies store reopened from an earlier run may already hold these films
+            boolean skipMetadata = LoadData.holdsMovies(stores, movieMetadataPath, numMovies);
+            LoadData loading = new LoadData(loadingBar, loadingText, creditsPath, keywordsPath, movieMetadataPath, ratingsPath, skipMetadata);
             //Populate the student stores
             if (numMovies == null){
                 loading.populate(stores);
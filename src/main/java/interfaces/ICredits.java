@@ -7,6 +7,7 @@ import stores.Person;
 public interface ICredits{
     public boolean add(CastCredit[] cast, CrewCredit[] crew, int filmID);
     public boolean remove(int filmID);
+    public void presize(int numFilms);
     
     public CastCredit[] getFilmCast(int filmID);
     public CrewCredit[] getFilmCrew(int filmID);
@@ -29,5 +30,11 @@ public interface ICredits{
     public Person[] findCast(String searchTerm);
     public Person[] findCrew(String searchTerm);
 
+    public int[] getFrequentCoStars(int castID, int numResults);
+    public int[] getFrequentDirectors(int castID, int numResults);
+    public int[] getFrequentCast(int crewID, int numResults);
+    public int[] getCastCollaborationPath(int fromCastID, int toCastID);
+    public int getCastCollaborationGroupSize(int castID);
+
     public int size();
 }
\ No newline at end of file
@@ -4,10 +4,12 @@ import java.time.LocalDate;
 
 import stores.Company;
 import stores.Genre;
+import structures.RankedIds;
 
 public interface IMovies {
     public boolean add(int id, String title, String originalTitle, String overview, String tagline, String status, Genre[] genres, LocalDate release, long budget, long revenue, String[] languages, String originalLanguage, double runtime, String homepage, boolean adult, boolean video, String poster);
     public boolean remove(int id);
+    public void presize(int numFilms);
 
     public int[] getAllIDs();
     public int[] getAllIDsReleasedInRange(LocalDate start, LocalDate end);
@@ -52,6 +54,8 @@ public interface IMovies {
     public String[] getProductionCountries(int movieId);
 
     public int[] findFilms(String searchTerm);
+    public int[] findFilms(String searchTerm, int[] skip, int maxResults);
+    public RankedIds searchFilms(String query, boolean matchAll);
 
     public int size();
 }
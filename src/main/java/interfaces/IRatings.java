@@ -5,14 +5,22 @@ import java.time.LocalDateTime;
 public interface IRatings {
     public boolean add(int userID, int movieID, float rating, LocalDateTime timestamp);
 
+    public int addAll(int[] userIDs, int[] movieIDs, float[] ratings, long[] epochSeconds, int len);
+
     public boolean remove(int userID, int movieID);
 
+    public void presize(int numRatings);
+
     public boolean set(int userID, int movieID, float rating, LocalDateTime timestamp);
 
     public float[] getMovieRatings(int movieID);
     public float[] getUserRatings(int userID);
     public float getMovieAverageRating(int movieID);
     public float getUserAverageRating(int userID);
+    public float getMovieRatingVariance(int movieID);
+    public float getUserRatingVariance(int userID);
+
+    public boolean setApproximateCounts(double epsilon, double delta);
 
     public int[] getMostRatedMovies(int numResults);
     public int[] getMostRatedUsers(int numResults);
@@ -20,5 +28,13 @@ public interface IRatings {
 
     public int[] getTopAverageRatedMovies(int numResults);
 
+    public float[] getMovieRatingsBetween(int movieID, LocalDateTime from, LocalDateTime to);
+    public float getMovieMovingAverage(int movieID, LocalDateTime end, int days);
+    public int[] getMostRatedMoviesBetween(LocalDateTime from, LocalDateTime to, int numResults);
+    public LocalDateTime getLatestRatingTime();
+
+    public int[] getSimilarMovies(int movieID, int numResults);
+    public int[] getAlsoRatedMovies(int movieID, int numResults);
+
     public int size();
 }
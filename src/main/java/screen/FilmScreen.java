@@ -271,18 +271,69 @@ public class FilmScreen {
         }
         stats.setForeground(Constants.getFontColor());
         stats.setBackground(Constants.getHighlight());
-        statsPanel.setBounds(5, (int) (panel.getHeight() * 0.2) + 60, (int) (panel.getWidth() * 0.4) - 10, (int) (panel.getHeight() * 0.4) + 5);
-        statsScroll.setMinimumSize(new Dimension((int) (panel.getWidth() * 0.4) - 25, (int) (panel.getHeight() * 0.4) - 30));
-        statsScroll.setPreferredSize(new Dimension((int) (panel.getWidth() * 0.4) - 25, (int) (panel.getHeight() * 0.4) - 30));
-        statsScroll.getViewport().setMinimumSize(new Dimension((int) (panel.getWidth() * 0.4) - 25, (int) (panel.getHeight() * 0.4) - 30));
-        statsScroll.getViewport().setPreferredSize(new Dimension((int) (panel.getWidth() * 0.4) - 25, (int) (panel.getHeight() * 0.4) - 30));
+        statsPanel.setBounds(5, (int) (panel.getHeight() * 0.2) + 60, (int) (panel.getWidth() * 0.4) - 10, (int) (panel.getHeight() * 0.25) + 5);
+        statsScroll.setMinimumSize(new Dimension((int) (panel.getWidth() * 0.4) - 25, (int) (panel.getHeight() * 0.25) - 30));
+        statsScroll.setPreferredSize(new Dimension((int) (panel.getWidth() * 0.4) - 25, (int) (panel.getHeight() * 0.25) - 30));
+        statsScroll.getViewport().setMinimumSize(new Dimension((int) (panel.getWidth() * 0.4) - 25, (int) (panel.getHeight() * 0.25) - 30));
+        statsScroll.getViewport().setPreferredSize(new Dimension((int) (panel.getWidth() * 0.4) - 25, (int) (panel.getHeight() * 0.25) - 30));
         statsScroll.setBorder(null);
-        stats.setSize(new Dimension((int) (panel.getWidth() * 0.4) - 25, (int) (panel.getHeight() * 0.4) - 10));
+        stats.setSize(new Dimension((int) (panel.getWidth() * 0.4) - 25, (int) (panel.getHeight() * 0.25) - 10));
         stats.setEditable(false);
         statsPanel.setBorder(statsBorder);
         statsPanel.add(statsScroll);
         System.out.println("\tStats/Key Infomation built");
 
+        //Add similar films, or the films rated by the same people if none are similar enough
+        IRatings ratings = stores.getRatings();
+        String similarTitle = "Similar Films";
+        int[] similarIDs = ratings.getSimilarMovies(filmID, 10);
+        if (similarIDs.length == 0) {
+            similarTitle = "People Who Rated This Also Rated";
+            similarIDs = ratings.getAlsoRatedMovies(filmID, 10);
+        }
+        TitledBorder similarBorder;
+        similarBorder = BorderFactory.createTitledBorder(BorderFactory.createLineBorder(Constants.getFontColor()), similarTitle);
+        similarBorder.setTitleJustification(TitledBorder.CENTER);
+        similarBorder.setTitleColor(Constants.getFontColor());
+        JPanel similarPanel = new JPanel();
+        similarPanel.setBackground(Constants.getHighlight());
+        similarPanel.setBorder(similarBorder);
+        similarPanel.setBounds(5, (int) (panel.getHeight() * 0.45) + 70, (int) (panel.getWidth() * 0.4) - 10, (int) (panel.getHeight() * 0.25) - 75);
+        if (similarIDs.length == 0) {
+            similarPanel.setLayout(new GridBagLayout());
+            JLabel tmpLabel = new JLabel("No similar films known", JLabel.CENTER);
+            tmpLabel.setForeground(Constants.getFontColor());
+            similarPanel.add(tmpLabel);
+        } else {
+            JPanel similarInnerPanel = new JPanel();
+            similarInnerPanel.setLayout(new BoxLayout(similarInnerPanel, BoxLayout.Y_AXIS));
+            similarInnerPanel.setBackground(Constants.getHighlight());
+            JScrollPane similarScroll = new JScrollPane(similarInnerPanel);
+            similarScroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+            similarScroll.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
+            similarScroll.setPreferredSize(new Dimension((int) (panel.getWidth() * 0.4) - 25, (int) (panel.getHeight() * 0.25) - 105));
+            similarScroll.setBorder(null);
+            for (int i = 0; i < similarIDs.length; i++) {
+                int similarID = similarIDs[i];
+                JLabel tmpLabel = new JLabel(movies.getTitle(similarID));
+                tmpLabel.setForeground(Constants.getFontColor());
+                tmpLabel.addMouseListener(new MouseInputAdapter() {
+                    @Override
+                    public void mouseClicked(MouseEvent e) {
+                        SwingUtilities.invokeLater(new Runnable() {
+                            @Override
+                            public void run() {
+                                FilmScreen.createPanel(panel, similarID, stores);
+                            }
+                        });
+                    }
+                });
+                similarInnerPanel.add(tmpLabel);
+            }
+            similarPanel.add(similarScroll);
+        }
+        System.out.println("\tSimilar films built");
+
         //Add Genres section
         TitledBorder genresBorder;
         genresBorder = BorderFactory.createTitledBorder(BorderFactory.createLineBorder(Constants.getFontColor()), "Genres");
@@ -623,6 +674,7 @@ public class FilmScreen {
         panel.add(tagline);
         panel.add(overview);
         panel.add(statsPanel);
+        panel.add(similarPanel);
         panel.add(genres);
         panel.add(languages);
         panel.add(collection);
@@ -3,6 +3,7 @@ package screen;
 import java.awt.Dimension;
 import java.awt.*;
 import java.text.DecimalFormat;
+import java.time.LocalDateTime;
 
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
@@ -54,6 +55,10 @@ public class HomeScreen {
         reels.add(topAverageRatedMovies);
         SwingUtilities.invokeLater(topAverageRatedMovies);
         
+        MovieReel trendingMovies = new TrendingMovies(panel, stores);
+        reels.add(trendingMovies);
+        SwingUtilities.invokeLater(trendingMovies);
+
         MovieReel mostKeywordMovies = new MostKeywordMovies(panel, stores);
         reels.add(mostKeywordMovies);
         SwingUtilities.invokeLater(mostKeywordMovies);
@@ -226,6 +231,41 @@ class TopAverageRatedMovies extends MovieReel {
     }
 }
 
+class TrendingMovies extends MovieReel {
+    private static final long serialVersionUID = 1L;
+
+    public TrendingMovies(JPanel screenPanel, AbstractStores stores){
+        super(screenPanel, stores, "Trending Movies", "Searching Trending Movies...");
+    }
+
+    public void run(){
+        System.out.println("Running Trending Movie Reel");
+        // The data ends well before today, so the window ends just after the newest rating
+        LocalDateTime latest = stores.getRatings().getLatestRatingTime();
+        LocalDateTime end = (latest == null) ? null : latest.plusSeconds(1);
+        int[] movieResults = null;
+        if (end != null) {
+            movieResults = stores.getRatings().getMostRatedMoviesBetween(end.minusDays(Constants.trendingDays),
+                                                                         end, Constants.topMoviesCount);
+        }
+
+        if (movieResults == null || movieResults.length == 0){
+            String message = "No trending movies found";
+            System.out.println("\t" + message);
+            this.add(new JLabel(message));
+        }
+        else{
+            String[] labels = new String[movieResults.length];
+            for (int i = 0; i < movieResults.length; i++){
+                labels[i] = String.format("%s (%.2f ★)", stores.getMovies().getTitle(movieResults[i]),
+                                                     stores.getRatings().getMovieMovingAverage(movieResults[i], end, Constants.trendingDays));
+            }
+            displayItems(movieResults, labels);
+            System.out.println("Finished running Trending Movie Reel");
+        }
+    }
+}
+
 class MostKeywordMovies extends MovieReel {
     public MostKeywordMovies(JPanel screenPanel, AbstractStores stores){
         super(screenPanel, stores, "Most Keywords Movies", "Searching Most Keywords Movies...");
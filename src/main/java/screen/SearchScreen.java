@@ -5,9 +5,11 @@ import javax.swing.border.TitledBorder;
 import javax.swing.event.MouseInputAdapter;
 
 import interfaces.*;
+import structures.RankedIds;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
+import java.util.Arrays;
 
 import utils.Constants;
 
@@ -193,6 +195,8 @@ class MovieSearchRunnable implements Runnable {
     private JLabel loadingText;
     private String searchTerm;
     private AbstractStores stores;
+    // The most films shown for one search, best ranked first
+    private static final int maxResults = 200;
 
     public MovieSearchRunnable(JPanel masterPane, JScrollPane scrollPane, JPanel resultsPane, AbstractStores stores, String searchTerm) {
         this.masterPane = masterPane;
@@ -215,7 +219,26 @@ class MovieSearchRunnable implements Runnable {
 
     @Override
     public void run() {
-        int[] idResults = stores.getMovies().findFilms(searchTerm);
+        // Films with every word come first, then films with any of the words
+        RankedIds ranked = stores.getMovies().searchFilms(searchTerm, true);
+        if (!ranked.hasNext()) {
+            ranked = stores.getMovies().searchFilms(searchTerm, false);
+        }
+
+        // Only the best hits are taken off the ranking. Films that only have the
+        // search as part of a word, like "star" in "Starship", come after them, and
+        // only as many are looked for as there is room left for
+        int[] wordResults = ranked.next(maxResults);
+        boolean cut = ranked.hasNext();
+        int room = maxResults - wordResults.length;
+        int[] partResults = new int[0];
+        if (!cut) {
+            // One more than there is room for, to tell whether any were left out
+            partResults = stores.getMovies().findFilms(searchTerm, wordResults, room + 1);
+            cut = partResults.length > room;
+        }
+        int[] idResults = Arrays.copyOf(wordResults, wordResults.length + Math.min(room, partResults.length));
+        System.arraycopy(partResults, 0, idResults, wordResults.length, idResults.length - wordResults.length);
 
         scrollPane.setVisible(false);
 
@@ -236,6 +259,15 @@ class MovieSearchRunnable implements Runnable {
         resultsPane.setLayout(new BoxLayout(resultsPane, BoxLayout.Y_AXIS));
         resultsPane.setSize(scrollPane.getWidth()-40, idResults.length*(itemHeight+((new JSeparator()).getHeight())));
 
+        // Says when there were more films than are shown, rather than leaving them out quietly
+        if (cut) {
+            JLabel cutText = new JLabel("Showing the best " + maxResults + " films, search for more words to narrow it down");
+            cutText.setForeground(Constants.getFontColor());
+            cutText.setAlignmentX(Component.CENTER_ALIGNMENT);
+            resultsPane.add(cutText);
+            System.out.println("\tOnly the best " + maxResults + " Films shown");
+        }
+
 
         for (int i = 0; i < idResults.length; i++) {
             JPanel resultItem = new JPanel();
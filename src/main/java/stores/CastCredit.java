@@ -7,19 +7,33 @@ public class CastCredit implements interfaces.ICastCredit  {
     private int elementID = -1;
     private String character = null;
     private String creditID = null;
-    private int id = -1;
-    private String name = null;
+    // Who the credit is for. Once the film is added to the credits store it is
+    // shared with every other credit with the same id, name and profile path
+    private Person person = null;
     private int order = -1;
-    private String profilePath = null;
 
     public CastCredit (int elementID, String character, String creditID, int id, String name, int order, String profilePath) {
+        this(elementID, character, creditID, new Person(id, name, profilePath), order);
+    }
+
+    /**
+     * Makes a credit for a Person that is already made, so that a loader can give
+     * every credit of the same person the one object
+     */
+    public CastCredit (int elementID, String character, String creditID, Person person, int order) {
         this.elementID = elementID;
         this.character = character;
         this.creditID = creditID;
-        this.id = id;
-        this.name = name;
+        this.person = person;
         this.order = order;
-        this.profilePath = profilePath;
+    }
+
+    Person getPerson() {
+        return person;
+    }
+
+    void setPerson(Person person) {
+        this.person = person;
     }
 
     @Override
@@ -39,12 +53,12 @@ public class CastCredit implements interfaces.ICastCredit  {
 
     @Override
     public int getID() {
-        return id;
+        return person.getID();
     }
 
     @Override
     public String getName() {
-        return name;
+        return person.getName();
     }
 
     @Override
@@ -59,22 +73,23 @@ public class CastCredit implements interfaces.ICastCredit  {
 
     @Override
     public String getProfilePath() {
-        return profilePath;
+        return person.getProfilePath();
     }
 
     @Override
     public void setProfilePath(String profilePath) {
-        this.profilePath = profilePath;        
+        // The person may be shared, so this credit gets its own
+        this.person = new Person(person.getID(), person.getName(), profilePath);
     }
 
     @Override
     public int compareTo(ICastCredit o) {
-        return ((Integer) id).compareTo(o.getID());
+        return ((Integer) getID()).compareTo(o.getID());
     }
 
     @Override
     public String toString() {
-        return "Element ID: " + elementID + "\tName: " + name + "\tCharacter: " + character + "\tCredit ID" + creditID + "\tID: " + id + "\tOrder: " + order + "\tProfile Path: " + profilePath;
+        return "Element ID: " + elementID + "\tName: " + getName() + "\tCharacter: " + character + "\tCredit ID" + creditID + "\tID: " + getID() + "\tOrder: " + order + "\tProfile Path: " + getProfilePath();
     }
     
 }
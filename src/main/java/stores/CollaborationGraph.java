@@ -0,0 +1,561 @@
+package stores;
+
+import structures.IntIntMap;
+import structures.IntObjectMap;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The people of a credits store joined by the films they made together. Two
+ * people are linked when they are in the same film, weighted by the number of
+ * films they share, so the graph holds both co-stars and the actors a director
+ * has worked with. A film's members are its cast billed above max_billing and
+ * its directors. The rest of a big cast or crew would tie hundreds of people
+ * together who never met, and dominate the cost.
+ *
+ * Cast and crew ids are kept apart, as the same id is not always the same person
+ * in both: the cast are nodes [0, numCast) and the directors come after them.
+ *
+ * The links are kept in compressed sparse rows: the neighbours of every person
+ * sit one after another in a single array, with each person's start in an
+ * offsets array. A row holds its cast neighbours and then its directors, each
+ * heaviest first. The rows are worked out in parallel on the common fork/join
+ * pool, each one in a single pass over the person's films. Chains and groups
+ * only follow co-star links, and the groups are found with a union-find over the
+ * films' cast.
+ *
+ * The graph is built on the first query and built again on the first query
+ * after any film is added or removed.
+ */
+public class CollaborationGraph {
+    // Cast credits with an order this high or higher are left out of the graph
+    private static final int max_billing = 50;
+    // The crew job that takes part in the graph
+    private static final String director_job = "Director";
+    // The fewest people a fork/join task works out without splitting
+    private static final int grain = 256;
+
+    private final Credits credits;
+    // The store's change count at the last build, -1 before the first
+    private long builtChanges = -1;
+
+    // The id of each node: the cast in increasing id order, then the directors
+    private int[] personIds;
+    private IntIntMap castNodes;
+    private IntIntMap crewNodes;
+    private int numCast;
+    private int numNodes;
+    // Film f's members, as nodes, are at [filmOffsets[f], filmOffsets[f + 1])
+    private int[] filmOffsets;
+    private int[] filmMembers;
+    // Node n's films are at [nodeFilmOffsets[n], nodeFilmOffsets[n + 1])
+    private int[] nodeFilmOffsets;
+    private int[] nodeFilms;
+    // Node n's neighbours and the number of films shared with each are at
+    // [offsets[n], offsets[n + 1]). The cast among them come first and end at
+    // castEnds[n], and each part has the most shared films first
+    private int[] offsets;
+    private int[] castEnds;
+    private int[] neighbours;
+    private int[] weights;
+    // Each row on its own while the rows are being worked out
+    private int[][] rowNeighbours;
+    private int[][] rowWeights;
+    private int[] rowCastCounts;
+    // The root node of each cast node's group, and the number of people in each group by root
+    private int[] components;
+    private int[] componentSizes;
+
+    // Working arrays for the searches, one set for each direction. A node has
+    // been reached in a search when its stamp is the current search's
+    private int[][] stamps;
+    private int[][] parents;
+    private int[][] distances;
+    private int[][] queues;
+    private int stamp;
+
+    // Working arrays for one thread, sized to the nodes
+    private static final class Scratch {
+        private int[] counts;
+        private int[] touched;
+        private long[] keys;
+
+        private Scratch(int numNodes) {
+            counts = new int[numNodes];
+            touched = new int[numNodes];
+            keys = new long[numNodes];
+        }
+    }
+
+    private final ThreadLocal<Scratch> scratch = new ThreadLocal<>();
+
+    /**
+     * @param credits The store to read the credits from
+     */
+    public CollaborationGraph(Credits credits) {
+        this.credits = credits;
+    }
+
+    /**
+     * Finds the cast members who have been in the most films with a given cast member
+     *
+     * @param castID     The cast member's ID
+     * @param numResults The number of cast members that should be returned
+     * @return A sorted array of cast IDs, most films shared first, ties going to
+     *         the lower id. If the cast member cannot be found, return an empty array
+     */
+    public int[] getFrequentCoStars(int castID, int numResults) {
+        int n = refresh(false, castID);
+        if (n < 0) {
+            return new int[0];
+        }
+        return toIds(offsets[n], castEnds[n], numResults);
+    }
+
+    /**
+     * Finds the directors who have directed a given cast member most often
+     *
+     * @param castID     The cast member's ID
+     * @param numResults The number of directors that should be returned
+     * @return A sorted array of crew IDs, most films first, ties going to the lower
+     *         id. If the cast member cannot be found, return an empty array
+     */
+    public int[] getFrequentDirectors(int castID, int numResults) {
+        int n = refresh(false, castID);
+        if (n < 0) {
+            return new int[0];
+        }
+        return toIds(castEnds[n], offsets[n + 1], numResults);
+    }
+
+    /**
+     * Finds the cast members a given director has directed most often
+     *
+     * @param crewID     The director's crew ID
+     * @param numResults The number of cast members that should be returned
+     * @return A sorted array of cast IDs, most films first, ties going to the lower
+     *         id. If the director cannot be found, return an empty array
+     */
+    public int[] getFrequentCast(int crewID, int numResults) {
+        int n = refresh(true, crewID);
+        if (n < 0) {
+            return new int[0];
+        }
+        return toIds(offsets[n], castEnds[n], numResults);
+    }
+
+    private int[] toIds(int from, int to, int numResults) {
+        int[] arr = new int[Math.max(0, Math.min(numResults, to - from))];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = personIds[neighbours[from + i]];
+        }
+        return arr;
+    }
+
+    /**
+     * Gets the number of films two cast members have been in together
+     *
+     * @param castID  The first cast member's ID
+     * @param otherID The second cast member's ID
+     * @return The number of films shared, 0 if they have none or either cannot be found
+     */
+    public int getNumCoStarred(int castID, int otherID) {
+        int n = refresh(false, castID);
+        int other = castNodes.getOrDefault(otherID, -1);
+        if (n < 0 || other < 0) {
+            return 0;
+        }
+        for (int i = offsets[n]; i < castEnds[n]; i++) {
+            if (neighbours[i] == other) {
+                return weights[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Finds the shortest chain of co-stars from one cast member to another
+     *
+     * @param fromCastID The cast ID to start from
+     * @param toCastID   The cast ID to end at
+     * @return The cast IDs along the chain, fromCastID first and toCastID last, so
+     *         the degrees of separation are one less than its length. If either
+     *         cannot be found, or nothing links them, return an empty array
+     */
+    public int[] getCollaborationPath(int fromCastID, int toCastID) {
+        int from = refresh(false, fromCastID);
+        int to = castNodes.getOrDefault(toCastID, -1);
+        if (from < 0 || to < 0 || components[from] != components[to]) {
+            return new int[0];
+        }
+        if (from == to) {
+            return new int[] {fromCastID};
+        }
+        return search(from, to);
+    }
+
+    /**
+     * Gets the number of cast members a given cast member is linked to through any
+     * chain of co-stars, themselves included
+     *
+     * @param castID The cast member's ID
+     * @return The size of their group, or -1 if they cannot be found
+     */
+    public int getComponentSize(int castID) {
+        int n = refresh(false, castID);
+        if (n < 0) {
+            return -1;
+        }
+        return componentSizes[components[n]];
+    }
+
+    /**
+     * Rebuilds the graph if the credits have changed since it was last built
+     * @param crew true if personID is a crew id, false if it is a cast id
+     * @return the person's node, or -1 if they are not in the graph
+     */
+    private int refresh(boolean crew, int personID) {
+        if (builtChanges != credits.changes()) {
+            rebuild();
+        }
+        return (crew ? crewNodes : castNodes).getOrDefault(personID, -1);
+    }
+
+    private void rebuild() {
+        builtChanges = credits.changes();
+        gather();
+        linkFilms();
+        findComponents();
+
+        rowNeighbours = new int[numNodes][];
+        rowWeights = new int[numNodes][];
+        rowCastCounts = new int[numNodes];
+        ForkJoinPool.commonPool().invoke(new Build(0, numNodes));
+
+        offsets = new int[numNodes + 1];
+        castEnds = new int[numNodes];
+        for (int n = 0; n < numNodes; n++) {
+            offsets[n + 1] = offsets[n] + rowNeighbours[n].length;
+            castEnds[n] = offsets[n] + rowCastCounts[n];
+        }
+        neighbours = new int[offsets[numNodes]];
+        weights = new int[offsets[numNodes]];
+        for (int n = 0; n < numNodes; n++) {
+            System.arraycopy(rowNeighbours[n], 0, neighbours, offsets[n], rowNeighbours[n].length);
+            System.arraycopy(rowWeights[n], 0, weights, offsets[n], rowWeights[n].length);
+        }
+        rowNeighbours = null;
+        rowWeights = null;
+        rowCastCounts = null;
+
+        stamps = new int[][] {new int[numNodes], new int[numNodes]};
+        parents = new int[][] {new int[numNodes], new int[numNodes]};
+        distances = new int[][] {new int[numNodes], new int[numNodes]};
+        queues = new int[][] {new int[numNodes], new int[numNodes]};
+        stamp = 0;
+    }
+
+    /**
+     * Reads the members of every film, each person once a film in each role, and
+     * gives every person a node
+     */
+    private void gather() {
+        filmOffsets = new int[credits.castMap.size() + 1];
+        // A member is their role in the top half, 1 for a director, and their id in the bottom half
+        long[] members = new long[1024];
+        int count = 0;
+        int f = 0;
+        IntIntMap castPeople = new IntIntMap();
+        IntIntMap crewPeople = new IntIntMap();
+        IntObjectMap<CastCredit[]>.EntryCursor cursor = credits.castMap.entryCursor();
+        while (cursor.advance()) {
+            CastCredit[] cast = cursor.value();
+            CrewCredit[] crew = credits.crewMap.get(cursor.key());
+            int needed = count + ((cast == null) ? 0 : cast.length) + ((crew == null) ? 0 : crew.length);
+            if (needed > members.length) {
+                members = Arrays.copyOf(members, Math.max(needed, members.length * 2));
+            }
+            int start = count;
+            if (cast != null) {
+                for (CastCredit credit : cast) {
+                    if (credit.getOrder() < max_billing) {
+                        members[count] = credit.getID() & 0xFFFFFFFFL;
+                        count = count + 1;
+                    }
+                }
+            }
+            if (crew != null) {
+                for (CrewCredit credit : crew) {
+                    if (director_job.equals(credit.getJob())) {
+                        members[count] = (1L << 32) | (credit.getID() & 0xFFFFFFFFL);
+                        count = count + 1;
+                    }
+                }
+            }
+            // Someone with two roles in the cast, or two directing credits, is a
+            // member once. The cast sort before the directors
+            Arrays.sort(members, start, count);
+            int unique = start;
+            for (int i = start; i < count; i++) {
+                if (unique == start || members[unique - 1] != members[i]) {
+                    members[unique] = members[i];
+                    unique = unique + 1;
+                    (((members[i] >>> 32) == 0) ? castPeople : crewPeople).put((int) members[i], 1);
+                }
+            }
+            count = unique;
+            f = f + 1;
+            filmOffsets[f] = count;
+        }
+
+        int[] castIds = castPeople.keyArray();
+        int[] crewIds = crewPeople.keyArray();
+        Arrays.sort(castIds);
+        Arrays.sort(crewIds);
+        numCast = castIds.length;
+        numNodes = numCast + crewIds.length;
+        personIds = new int[numNodes];
+        System.arraycopy(castIds, 0, personIds, 0, numCast);
+        System.arraycopy(crewIds, 0, personIds, numCast, crewIds.length);
+        castNodes = new IntIntMap(numCast);
+        crewNodes = new IntIntMap(crewIds.length);
+        for (int n = 0; n < numNodes; n++) {
+            ((n < numCast) ? castNodes : crewNodes).put(personIds[n], n);
+        }
+        filmMembers = new int[count];
+        for (int i = 0; i < count; i++) {
+            IntIntMap roleNodes = ((members[i] >>> 32) == 0) ? castNodes : crewNodes;
+            filmMembers[i] = roleNodes.getOrDefault((int) members[i], -1);
+        }
+    }
+
+    /**
+     * Turns the films' members round into each node's films
+     */
+    private void linkFilms() {
+        int numFilms = filmOffsets.length - 1;
+        nodeFilmOffsets = new int[numNodes + 1];
+        for (int i = 0; i < filmOffsets[numFilms]; i++) {
+            nodeFilmOffsets[filmMembers[i] + 1]++;
+        }
+        for (int n = 0; n < numNodes; n++) {
+            nodeFilmOffsets[n + 1] = nodeFilmOffsets[n + 1] + nodeFilmOffsets[n];
+        }
+        nodeFilms = new int[nodeFilmOffsets[numNodes]];
+        int[] next = Arrays.copyOf(nodeFilmOffsets, numNodes);
+        for (int f = 0; f < numFilms; f++) {
+            for (int i = filmOffsets[f]; i < filmOffsets[f + 1]; i++) {
+                int n = filmMembers[i];
+                nodeFilms[next[n]] = f;
+                next[n] = next[n] + 1;
+            }
+        }
+    }
+
+    /**
+     * Joins the cast of each film into one group, then counts the people in each
+     */
+    private void findComponents() {
+        components = new int[numCast];
+        for (int n = 0; n < numCast; n++) {
+            components[n] = n;
+        }
+        int numFilms = filmOffsets.length - 1;
+        for (int f = 0; f < numFilms; f++) {
+            for (int i = filmOffsets[f] + 1; i < filmOffsets[f + 1]; i++) {
+                // The cast come first in each film, so the first director ends them
+                if (filmMembers[i] >= numCast) {
+                    break;
+                }
+                int a = root(filmMembers[filmOffsets[f]]);
+                int b = root(filmMembers[i]);
+                if (a != b) {
+                    // The lower root is kept, which is enough to stop long chains here
+                    components[Math.max(a, b)] = Math.min(a, b);
+                }
+            }
+        }
+        componentSizes = new int[numCast];
+        for (int n = 0; n < numCast; n++) {
+            components[n] = root(n);
+            componentSizes[components[n]]++;
+        }
+    }
+
+    /**
+     * Finds the root of a node's group, halving the path on the way
+     */
+    private int root(int n) {
+        while (components[n] != n) {
+            components[n] = components[components[n]];
+            n = components[n];
+        }
+        return n;
+    }
+
+    private final class Build extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        private Build(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                Scratch s = scratch();
+                for (int n = from; n < to; n++) {
+                    computeRow(n, s);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Build(from, mid), new Build(mid, to));
+        }
+    }
+
+    /**
+     * Gets this thread's working arrays, making them again if the nodes have grown
+     */
+    private Scratch scratch() {
+        Scratch s = scratch.get();
+        if (s == null || s.counts.length < numNodes) {
+            s = new Scratch(numNodes);
+            scratch.set(s);
+        }
+        return s;
+    }
+
+    /**
+     * Works out one node's row: counts the films it shares with everyone in any
+     * of its films, then sorts them by that count
+     */
+    private void computeRow(int n, Scratch s) {
+        int numTouched = 0;
+        for (int i = nodeFilmOffsets[n]; i < nodeFilmOffsets[n + 1]; i++) {
+            int f = nodeFilms[i];
+            for (int j = filmOffsets[f]; j < filmOffsets[f + 1]; j++) {
+                int other = filmMembers[j];
+                if (other == n) {
+                    continue;
+                }
+                if (s.counts[other] == 0) {
+                    s.touched[numTouched] = other;
+                    numTouched = numTouched + 1;
+                }
+                s.counts[other] = s.counts[other] + 1;
+            }
+        }
+        // The cast first, then most films, then the lower node, which is the lower id
+        int numCastTouched = 0;
+        for (int t = 0; t < numTouched; t++) {
+            int other = s.touched[t];
+            long role = 1;
+            if (other < numCast) {
+                role = 0;
+                numCastTouched = numCastTouched + 1;
+            }
+            s.keys[t] = (role << 62) | ((long) (Integer.MAX_VALUE - s.counts[other]) << 31) | other;
+            s.counts[other] = 0;
+        }
+        Arrays.sort(s.keys, 0, numTouched);
+        int[] row = new int[numTouched];
+        int[] rowWeight = new int[numTouched];
+        for (int t = 0; t < numTouched; t++) {
+            row[t] = (int) (s.keys[t] & Integer.MAX_VALUE);
+            rowWeight[t] = Integer.MAX_VALUE - (int) ((s.keys[t] >>> 31) & Integer.MAX_VALUE);
+        }
+        rowNeighbours[n] = row;
+        rowWeights[n] = rowWeight;
+        rowCastCounts[n] = numCastTouched;
+    }
+
+    /**
+     * Finds a shortest path of co-star links between two cast nodes in the same
+     * group by searching out from both ends at once. The side with the smaller frontier takes the next
+     * step, so neither search gets far from its end. The step where the two first
+     * meet is finished before stopping, and the shortest join found in it is used
+     */
+    private int[] search(int from, int to) {
+        stamp = stamp + 1;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(stamps[0], 0);
+            Arrays.fill(stamps[1], 0);
+            stamp = 1;
+        }
+        int[] ends = {from, to};
+        // Each side's queue holds [head, tail), and the current level ends at levelEnd
+        int[] heads = new int[2];
+        int[] tails = new int[2];
+        for (int side = 0; side < 2; side++) {
+            stamps[side][ends[side]] = stamp;
+            parents[side][ends[side]] = -1;
+            distances[side][ends[side]] = 0;
+            queues[side][0] = ends[side];
+            tails[side] = 1;
+        }
+
+        while (heads[0] < tails[0] && heads[1] < tails[1]) {
+            int side = (tails[0] - heads[0] <= tails[1] - heads[1]) ? 0 : 1;
+            int other = 1 - side;
+            int[] queue = queues[side];
+            int levelEnd = tails[side];
+            int best = Integer.MAX_VALUE;
+            int bestNear = -1;
+            int bestFar = -1;
+            while (heads[side] < levelEnd) {
+                int n = queue[heads[side]];
+                heads[side] = heads[side] + 1;
+                for (int i = offsets[n]; i < castEnds[n]; i++) {
+                    int next = neighbours[i];
+                    if (stamps[other][next] == stamp) {
+                        int length = distances[side][n] + 1 + distances[other][next];
+                        if (length < best) {
+                            best = length;
+                            bestNear = n;
+                            bestFar = next;
+                        }
+                    }
+                    else if (stamps[side][next] != stamp) {
+                        stamps[side][next] = stamp;
+                        parents[side][next] = n;
+                        distances[side][next] = distances[side][n] + 1;
+                        queue[tails[side]] = next;
+                        tails[side] = tails[side] + 1;
+                    }
+                }
+            }
+            if (bestNear >= 0) {
+                return (side == 0) ? joinPath(bestNear, bestFar, best) : joinPath(bestFar, bestNear, best);
+            }
+        }
+        // The groups said the two are linked, so the searches always meet first
+        return new int[0];
+    }
+
+    /**
+     * Walks back from the two nodes where the searches met to their ends
+     * @param near the node on the from side
+     * @param far the node on the to side, a neighbour of near
+     */
+    private int[] joinPath(int near, int far, int length) {
+        int[] path = new int[length + 1];
+        int i = distances[0][near];
+        for (int n = near; n != -1; n = parents[0][n]) {
+            path[i] = personIds[n];
+            i = i - 1;
+        }
+        i = distances[0][near] + 1;
+        for (int n = far; n != -1; n = parents[1][n]) {
+            path[i] = personIds[n];
+            i = i + 1;
+        }
+        return path;
+    }
+}
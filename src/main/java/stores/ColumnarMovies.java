@@ -0,0 +1,677 @@
+package stores;
+
+import java.time.LocalDate;
+
+import interfaces.IMovies;
+import structures.*;
+
+/**
+ * A movies store laid out as columns (struct of arrays) rather than one Movie
+ * object per film. Row i of every array belongs to the same film, and the rows
+ * are kept packed with no gaps, so a query over one field reads one dense
+ * primitive array from start to end instead of following a reference to a
+ * Movie and then to a LocalDate for every film.
+ *
+ * Release dates are stored as epoch days, with NO_DATE for a film that has none.
+ * The id to row lookup is an IntIntMap. Removing a film moves the last row into
+ * its place so the columns stay packed.
+ */
+public class ColumnarMovies implements IMovies {
+    Stores stores;
+
+    private static final int initial_cap = 16;
+    // The release day of a film with no date. Lower than any real day, so it never falls in a range
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    // Film id to row
+    private IntIntMap rows;
+    private int size;
+
+    // Numeric columns
+    private int[] ids;
+    private int[] releaseDay;
+    private long[] budget;
+    private long[] revenue;
+    private double[] runtime;
+    private double[] popularity;
+    private boolean[] popularitySet;
+    private double[] voteAverage;
+    private int[] voteCount;
+    private boolean[] adult;
+    private boolean[] video;
+    // -1 when the film is not in a collection
+    private int[] collectionID;
+
+    // Reference columns, only read when a single film is asked for, or by findFilms
+    private String[] title;
+    private String[] originalTitle;
+    private String[] overview;
+    private String[] tagline;
+    private String[] status;
+    private String[] originalLanguage;
+    private String[] homepage;
+    private String[] poster;
+    private String[] imdb;
+    private Genre[][] genres;
+    private String[][] languages;
+    private Company[][] companies;
+    private String[][] countries;
+
+    // Collection id to collection
+    private IntObjectMap<Collection> collections;
+
+    /**
+     * The constructor for the columnar movies store
+     * @param stores An object storing all the different key stores
+     */
+    public ColumnarMovies(Stores stores) {
+        this.stores = stores;
+        rows = new IntIntMap();
+        collections = new IntObjectMap<>();
+        allocate(initial_cap);
+    }
+
+    /**
+     * Makes every column the given length, keeping the rows already stored
+     * @param capacity the new number of rows
+     */
+    private void allocate(int capacity) {
+        ids = copyOf(ids, new int[capacity]);
+        releaseDay = copyOf(releaseDay, new int[capacity]);
+        budget = copyOf(budget, new long[capacity]);
+        revenue = copyOf(revenue, new long[capacity]);
+        runtime = copyOf(runtime, new double[capacity]);
+        popularity = copyOf(popularity, new double[capacity]);
+        popularitySet = copyOf(popularitySet, new boolean[capacity]);
+        voteAverage = copyOf(voteAverage, new double[capacity]);
+        voteCount = copyOf(voteCount, new int[capacity]);
+        adult = copyOf(adult, new boolean[capacity]);
+        video = copyOf(video, new boolean[capacity]);
+        collectionID = copyOf(collectionID, new int[capacity]);
+
+        title = copyOf(title, new String[capacity]);
+        originalTitle = copyOf(originalTitle, new String[capacity]);
+        overview = copyOf(overview, new String[capacity]);
+        tagline = copyOf(tagline, new String[capacity]);
+        status = copyOf(status, new String[capacity]);
+        originalLanguage = copyOf(originalLanguage, new String[capacity]);
+        homepage = copyOf(homepage, new String[capacity]);
+        poster = copyOf(poster, new String[capacity]);
+        imdb = copyOf(imdb, new String[capacity]);
+        genres = copyOf(genres, new Genre[capacity][]);
+        languages = copyOf(languages, new String[capacity][]);
+        companies = copyOf(companies, new Company[capacity][]);
+        countries = copyOf(countries, new String[capacity][]);
+    }
+
+    // Copies the used rows of an old column into a new one. The old column is null the first time
+    private <A> A copyOf(A old, A column) {
+        if (old != null) {
+            System.arraycopy(old, 0, column, 0, size);
+        }
+        return column;
+    }
+
+    /**
+     * Copies every column of one row to another
+     */
+    private void moveRow(int from, int to) {
+        ids[to] = ids[from];
+        releaseDay[to] = releaseDay[from];
+        budget[to] = budget[from];
+        revenue[to] = revenue[from];
+        runtime[to] = runtime[from];
+        popularity[to] = popularity[from];
+        popularitySet[to] = popularitySet[from];
+        voteAverage[to] = voteAverage[from];
+        voteCount[to] = voteCount[from];
+        adult[to] = adult[from];
+        video[to] = video[from];
+        collectionID[to] = collectionID[from];
+
+        title[to] = title[from];
+        originalTitle[to] = originalTitle[from];
+        overview[to] = overview[from];
+        tagline[to] = tagline[from];
+        status[to] = status[from];
+        originalLanguage[to] = originalLanguage[from];
+        homepage[to] = homepage[from];
+        poster[to] = poster[from];
+        imdb[to] = imdb[from];
+        genres[to] = genres[from];
+        languages[to] = languages[from];
+        companies[to] = companies[from];
+        countries[to] = countries[from];
+    }
+
+    /**
+     * Clears the references in a row so the objects can be garbage collected
+     */
+    private void clearRow(int row) {
+        title[row] = null;
+        originalTitle[row] = null;
+        overview[row] = null;
+        tagline[row] = null;
+        status[row] = null;
+        originalLanguage[row] = null;
+        homepage[row] = null;
+        poster[row] = null;
+        imdb[row] = null;
+        genres[row] = null;
+        languages[row] = null;
+        companies[row] = null;
+        countries[row] = null;
+    }
+
+    /**
+     * Turns a date bound into an int day, clamped so that the comparison with an int column is still right
+     */
+    private static int toDay(LocalDate date) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, date.toEpochDay()));
+    }
+
+    /**
+     * Grows the columns so that the given number of films can be added without any resizing
+     *
+     * @param numFilms The number of films about to be added
+     */
+    @Override
+    public void presize(int numFilms) {
+        if (size + numFilms > ids.length) {
+            allocate(size + numFilms);
+        }
+        rows.ensureCapacity(size + numFilms);
+    }
+
+    /**
+     * Adds data about a film to the data structure
+     *
+     * @param id               The unique ID for the film
+     * @param title            The English title of the film
+     * @param originalTitle    The original language title of the film
+     * @param overview         An overview of the film
+     * @param tagline          The tagline for the film (empty string if there is no
+     *                         tagline)
+     * @param status           Current status of the film
+     * @param genres           An array of Genre objects related to the film
+     * @param release          The release date for the film
+     * @param budget           The budget of the film in US Dollars
+     * @param revenue          The revenue of the film in US Dollars
+     * @param languages        An array of ISO 639 language codes for the film
+     * @param originalLanguage An ISO 639 language code for the original language of
+     *                         the film
+     * @param runtime          The runtime of the film in minutes
+     * @param homepage         The URL to the homepage of the film
+     * @param adult            Whether the film is an adult film
+     * @param video            Whether the film is a "direct-to-video" film
+     * @param poster           The unique part of the URL of the poster (empty if
+     *                         the URL is not known)
+     * @return TRUE if the data able to be added, FALSE otherwise
+     */
+    @Override
+    public boolean add(int id, String title, String originalTitle, String overview, String tagline, String status, Genre[] genres, LocalDate release, long budget, long revenue, String[] languages, String originalLanguage, double runtime, String homepage, boolean adult, boolean video, String poster) {
+        // If a movie with this id already exists, returns false
+        if (rows.hasKey(id)) {
+            return false;
+        }
+        if (size == ids.length) {
+            allocate(size * 2);
+        }
+
+        int row = size;
+        this.ids[row] = id;
+        this.releaseDay[row] = (release == null) ? NO_DATE : (int) release.toEpochDay();
+        this.budget[row] = budget;
+        this.revenue[row] = revenue;
+        this.runtime[row] = runtime;
+        this.popularity[row] = 0;
+        this.popularitySet[row] = false;
+        this.voteAverage[row] = 0;
+        this.voteCount[row] = 0;
+        this.adult[row] = adult;
+        this.video[row] = video;
+        this.collectionID[row] = -1;
+
+        this.title[row] = title;
+        this.originalTitle[row] = originalTitle;
+        this.overview[row] = overview;
+        this.tagline[row] = tagline;
+        this.status[row] = status;
+        this.originalLanguage[row] = originalLanguage;
+        this.homepage[row] = homepage;
+        this.poster[row] = poster;
+        this.imdb[row] = null;
+        this.genres[row] = genres;
+        this.languages[row] = languages;
+        this.companies[row] = new Company[0];
+        this.countries[row] = new String[0];
+
+        rows.put(id, row);
+        size = size + 1;
+        return true;
+    }
+
+    /**
+     * Removes a film from the data structure, and any data
+     * added through this class related to the film
+     *
+     * @param id The film ID
+     * @return TRUE if the film has been removed successfully, FALSE otherwise
+     */
+    @Override
+    public boolean remove(int id) {
+        int row = rows.getOrDefault(id, -1);
+        if (row < 0) {
+            return false;
+        }
+        rows.remove(id);
+
+        // Takes the film out of its collection, and drops the collection once it has no films left
+        if (collectionID[row] >= 0) {
+            Collection collection = collections.get(collectionID[row]);
+            collection.removeFilmID(id);
+            if (collection.getFilmIDs().length == 0) {
+                collections.remove(collectionID[row]);
+            }
+        }
+
+        // Fills the hole with the last row so the columns stay packed
+        int last = size - 1;
+        if (row != last) {
+            moveRow(last, row);
+            rows.put(ids[row], row);
+        }
+        clearRow(last);
+        size = last;
+        return true;
+    }
+
+    /**
+     * Gets all the IDs for all films
+     *
+     * @return An array of all film IDs stored
+     */
+    @Override
+    public int[] getAllIDs() {
+        int[] arr = new int[size];
+        System.arraycopy(ids, 0, arr, 0, size);
+        return arr;
+    }
+
+    /**
+     * Finds the film IDs of all films released within a given range. If a film is
+     * released either on the start or end dates, then that film should not be
+     * included
+     *
+     * @param start The start point of the range of dates
+     * @param end   The end point of the range of dates
+     * @return An array of film IDs that were released between start and end
+     */
+    @Override
+    public int[] getAllIDsReleasedInRange(LocalDate start, LocalDate end) {
+        int startDay = toDay(start);
+        int endDay = toDay(end);
+        int[] days = releaseDay;
+        int[] arr = new int[size];
+        int count = 0;
+        // One pass over two int columns. Films with no date hold NO_DATE, which is never after startDay
+        for (int i = 0; i < size; i++) {
+            int day = days[i];
+            if (day > startDay && day < endDay) {
+                arr[count] = ids[i];
+                count = count + 1;
+            }
+        }
+        int[] newArray = new int[count];
+        System.arraycopy(arr, 0, newArray, 0, count);
+        return newArray;
+    }
+
+    /**
+     * Adds up the revenue of every film released within a given range, not
+     * including films released on the start or end dates
+     *
+     * @param start The start point of the range of dates
+     * @param end   The end point of the range of dates
+     * @return The total revenue in US Dollars of the films released between start and end
+     */
+    public long getTotalRevenueReleasedInRange(LocalDate start, LocalDate end) {
+        int startDay = toDay(start);
+        int endDay = toDay(end);
+        int[] days = releaseDay;
+        long[] values = revenue;
+        long total = 0;
+        // Has no branches or stores inside the loop, so the JIT is free to vectorise it
+        for (int i = 0; i < size; i++) {
+            int day = days[i];
+            total = total + ((day > startDay && day < endDay) ? values[i] : 0);
+        }
+        return total;
+    }
+
+    @Override
+    public String getTitle(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return (row < 0) ? null : title[row];
+    }
+
+    @Override
+    public String getOriginalTitle(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return (row < 0) ? null : originalTitle[row];
+    }
+
+    @Override
+    public String getOverview(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return (row < 0) ? null : overview[row];
+    }
+
+    @Override
+    public String getTagline(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return (row < 0) ? null : tagline[row];
+    }
+
+    @Override
+    public String getStatus(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return (row < 0) ? null : status[row];
+    }
+
+    @Override
+    public Genre[] getGenres(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return (row < 0) ? null : genres[row];
+    }
+
+    @Override
+    public LocalDate getRelease(int id) {
+        int row = rows.getOrDefault(id, -1);
+        if (row < 0 || releaseDay[row] == NO_DATE) {
+            return null;
+        }
+        return LocalDate.ofEpochDay(releaseDay[row]);
+    }
+
+    @Override
+    public long getBudget(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return (row < 0) ? -1 : budget[row];
+    }
+
+    @Override
+    public long getRevenue(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return (row < 0) ? -1 : revenue[row];
+    }
+
+    @Override
+    public String[] getLanguages(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return (row < 0) ? null : languages[row];
+    }
+
+    @Override
+    public String getOriginalLanguage(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return (row < 0) ? null : originalLanguage[row];
+    }
+
+    @Override
+    public double getRuntime(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return (row < 0) ? -1 : runtime[row];
+    }
+
+    @Override
+    public String getHomepage(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return (row < 0) ? null : homepage[row];
+    }
+
+    @Override
+    public boolean getAdult(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return row >= 0 && adult[row];
+    }
+
+    @Override
+    public boolean getVideo(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return row >= 0 && video[row];
+    }
+
+    @Override
+    public String getPoster(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return (row < 0) ? null : poster[row];
+    }
+
+    @Override
+    public boolean setVote(int id, double voteAverage, int voteCount) {
+        int row = rows.getOrDefault(id, -1);
+        if (row < 0) {
+            return false;
+        }
+        this.voteAverage[row] = voteAverage;
+        this.voteCount[row] = voteCount;
+        return true;
+    }
+
+    @Override
+    public double getVoteAverage(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return (row < 0) ? -1 : voteAverage[row];
+    }
+
+    @Override
+    public int getVoteCount(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return (row < 0) ? -1 : voteCount[row];
+    }
+
+    @Override
+    public boolean addToCollection(int filmID, int collectionID, String collectionName, String collectionPosterPath, String collectionBackdropPath) {
+        int row = rows.getOrDefault(filmID, -1);
+        if (row < 0) {
+            return false;
+        }
+        // Finds the collection, creating it the first time the collection ID is seen
+        Collection collection = collections.computeIfAbsent(collectionID, key -> new Collection(key, collectionName, collectionPosterPath, collectionBackdropPath));
+        collection.addFilmID(filmID);
+        this.collectionID[row] = collectionID;
+        return true;
+    }
+
+    @Override
+    public int[] getFilmsInCollection(int collectionID) {
+        Collection collection = collections.get(collectionID);
+        if (collection == null) {
+            return new int[0];
+        }
+        return collection.getFilmIDs();
+    }
+
+    @Override
+    public String getCollectionName(int collectionID) {
+        Collection collection = collections.get(collectionID);
+        return (collection == null) ? null : collection.getCollectionName();
+    }
+
+    @Override
+    public String getCollectionPoster(int collectionID) {
+        Collection collection = collections.get(collectionID);
+        return (collection == null) ? null : collection.getCollectionPosterPath();
+    }
+
+    @Override
+    public String getCollectionBackdrop(int collectionID) {
+        Collection collection = collections.get(collectionID);
+        return (collection == null) ? null : collection.getCollectionBackdropPath();
+    }
+
+    @Override
+    public int getCollectionID(int filmID) {
+        int row = rows.getOrDefault(filmID, -1);
+        return (row < 0) ? -1 : collectionID[row];
+    }
+
+    @Override
+    public boolean setIMDB(int filmID, String imdbID) {
+        int row = rows.getOrDefault(filmID, -1);
+        if (row < 0) {
+            return false;
+        }
+        imdb[row] = imdbID;
+        return true;
+    }
+
+    @Override
+    public String getIMDB(int filmID) {
+        int row = rows.getOrDefault(filmID, -1);
+        return (row < 0) ? null : imdb[row];
+    }
+
+    @Override
+    public boolean setPopularity(int id, double popularity) {
+        int row = rows.getOrDefault(id, -1);
+        if (row < 0) {
+            return false;
+        }
+        this.popularity[row] = popularity;
+        popularitySet[row] = true;
+        return true;
+    }
+
+    @Override
+    public double getPopularity(int id) {
+        int row = rows.getOrDefault(id, -1);
+        if (row < 0) {
+            return -1.0;
+        }
+        // Gives back 0.0 if the popularity has not been set
+        return popularitySet[row] ? popularity[row] : 0.0;
+    }
+
+    @Override
+    public boolean addProductionCompany(int id, Company company) {
+        int row = rows.getOrDefault(id, -1);
+        if (row < 0) {
+            return false;
+        }
+        Company[] old = companies[row];
+        Company[] newArr = new Company[old.length + 1];
+        System.arraycopy(old, 0, newArr, 0, old.length);
+        newArr[old.length] = company;
+        companies[row] = newArr;
+        return true;
+    }
+
+    @Override
+    public boolean addProductionCountry(int id, String country) {
+        int row = rows.getOrDefault(id, -1);
+        if (row < 0) {
+            return false;
+        }
+        String[] old = countries[row];
+        String[] newArr = new String[old.length + 1];
+        System.arraycopy(old, 0, newArr, 0, old.length);
+        newArr[old.length] = country;
+        countries[row] = newArr;
+        return true;
+    }
+
+    @Override
+    public Company[] getProductionCompanies(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return (row < 0) ? null : companies[row];
+    }
+
+    @Override
+    public String[] getProductionCountries(int id) {
+        int row = rows.getOrDefault(id, -1);
+        return (row < 0) ? null : countries[row];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Produces a list of movie IDs that have the search term in their title,
+     * original title or their overview. Upper and lower case letters match each other
+     *
+     * @param searchTerm The term that needs to be checked
+     * @return An array of movie IDs that have the search term in their title,
+     *         original title or their overview. If no movies have this search term,
+     *         then an empty array should be returned
+     */
+    @Override
+    public int[] findFilms(String searchTerm) {
+        return findFilms(searchTerm, new int[0], Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds films with the search term in their title, original title or overview,
+     * stopping once enough have been found. Upper and lower case letters match each other
+     *
+     * @param searchTerm The term that needs to be checked
+     * @param skip       Films to leave out, for example ones already shown
+     * @param maxResults The most films to give back
+     * @return Up to maxResults movie IDs, none of them in skip
+     */
+    @Override
+    public int[] findFilms(String searchTerm, int[] skip, int maxResults) {
+        IntIntMap skipped = new IntIntMap(skip.length);
+        for (int id : skip) {
+            skipped.put(id, 1);
+        }
+        // Ignores case in the same way as Movies
+        String folded = TextIndex.fold(searchTerm);
+        int[] arr = new int[Math.min(size, maxResults)];
+        int count = 0;
+        for (int i = 0; i < size && count < arr.length; i++) {
+            if (skipped.hasKey(ids[i])) {
+                continue;
+            }
+            if (TextIndex.containsFolded(title[i], folded) || TextIndex.containsFolded(originalTitle[i], folded) || TextIndex.containsFolded(overview[i], folded)) {
+                arr[count] = ids[i];
+                count = count + 1;
+            }
+        }
+        int[] newArray = new int[count];
+        System.arraycopy(arr, 0, newArray, 0, count);
+        return newArray;
+    }
+
+    /**
+     * Searches for films by the words in their title, original title or overview.
+     * Each word of the query has to match a whole word of the film, ignoring case
+     *
+     * @param query    The words to search for
+     * @param matchAll TRUE if a film must have every word, FALSE if any one word is enough
+     * @return The matching films, handed out with the most words matched first, then
+     *         the most popular
+     */
+    @Override
+    public RankedIds searchFilms(String query, boolean matchAll) {
+        String[] terms = TextIndex.queryTerms(query);
+        int[] arr = new int[size];
+        int[] matches = new int[size];
+        double[] scores = new double[size];
+        int count = 0;
+        // There is no word index here, so every film is split into words and checked
+        for (int i = 0; terms.length > 0 && i < size; i++) {
+            int found = TextIndex.countTerms(terms, title[i], originalTitle[i], overview[i]);
+            if (found == terms.length || (!matchAll && found > 0)) {
+                arr[count] = ids[i];
+                matches[count] = found;
+                scores[count] = popularitySet[i] ? popularity[i] : 0.0;
+                count = count + 1;
+            }
+        }
+        return new RankedIds(arr, matches, scores, count);
+    }
+}
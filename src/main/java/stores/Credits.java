@@ -6,8 +6,37 @@ import interfaces.ICredits;
 
 public class Credits implements ICredits{
     Stores stores;
-    MyHashMap<Integer, CastCredit[]> castMap;
-    MyHashMap<Integer, CrewCredit[]> crewMap;
+    IntObjectMap<CastCredit[]> castMap;
+    IntObjectMap<CrewCredit[]> crewMap;
+
+    // The one Person for each cast and each crew id, as first added. Every credit
+    // with the same id, name and profile path is pointed at it when its film is
+    // added, so those are stored once however many films the person is in. A credit
+    // that names the id differently keeps its own Person. Cast and crew ids are
+    // kept apart, as the same id is not always the same person in both
+    IntObjectMap<Person> castPeople;
+    IntObjectMap<Person> crewPeople;
+    // Each person to the films they are credited in, so the person queries never
+    // scan the films. Built as films are added and removed
+    IntObjectMap<FilmCredits> castCredits;
+    IntObjectMap<FilmCredits> crewCredits;
+    // The names of the people in each registry, so a name search only checks the
+    // few people the index says could match
+    TextIndex castNames;
+    TextIndex crewNames;
+    // The cast ranked by their number of credits, moved on every add and remove
+    Leaderboard mostCastCredits;
+    // Who has worked with who, made on the first query that needs it
+    private CollaborationGraph collaborations;
+    // The number of films added and removed, so the graph knows when it is out of date
+    private long changes;
+
+    // The order a cast credit must be below to count as a starring role
+    private static final int star_billing = 3;
+
+    // Shared empty arrays given back for films that cannot be found
+    private static final CastCredit[] EMPTY_CAST = new CastCredit[0];
+    private static final CrewCredit[] EMPTY_CREW = new CrewCredit[0];
 
     /**
      * The constructor for the Credits data store. This is where you should
@@ -19,8 +48,27 @@ public class Credits implements ICredits{
     public Credits (Stores stores) {
         this.stores = stores;
         // Creates seperate hash maps for the cast and the crew
-        castMap = new MyHashMap<>();
-        crewMap = new MyHashMap<>();
+        castMap = new IntObjectMap<>();
+        crewMap = new IntObjectMap<>();
+        castPeople = new IntObjectMap<>();
+        crewPeople = new IntObjectMap<>();
+        castCredits = new IntObjectMap<>();
+        crewCredits = new IntObjectMap<>();
+        castNames = new TextIndex();
+        crewNames = new TextIndex();
+        mostCastCredits = new Leaderboard();
+    }
+
+    /**
+     * Grows the data structures so that the given number of films can be added
+     * without any resizing. Called before a bulk load
+     * 
+     * @param numFilms The number of films about to be added
+     */
+    @Override
+    public void presize(int numFilms) {
+        castMap.ensureCapacity(castMap.size() + numFilms);
+        crewMap.ensureCapacity(crewMap.size() + numFilms);
     }
 
     /**
@@ -35,17 +83,124 @@ public class Credits implements ICredits{
     @Override
     public boolean add(CastCredit[] cast, CrewCredit[] crew, int id) {
         // Doesn't add the cast or crew if the id is not unique
-        if (castMap.hasKey(id) || crewMap.hasKey(id)){
+        // Both maps always hold the same ids, so checking and adding the cast is usually done in one probe.
+        // A film stored with a null cast also gives back null, so the crew map settles those
+        if (castMap.putIfAbsent(id, cast) != null || crewMap.hasKey(id)){
             return false;}
-        // As the id is unique, the cast and crew are added to their respective hash maps 
+        // As the id is unique, the crew is added to its hash map too 
         // Then true is returned
         else {
-            castMap.put(id, cast);
             crewMap.put(id, crew);
+            indexFilm(cast, crew, id);
+            changes++;
             return true;
         }
     }
 
+    /**
+     * Adds a film's credits to the lists of the people in it, and points each
+     * credit at the registry's Person if it matches, registering the person the
+     * first time they are seen
+     */
+    private void indexFilm(CastCredit[] cast, CrewCredit[] crew, int id) {
+        if (cast != null) {
+            for (CastCredit credit : cast) {
+                credit.setPerson(register(castPeople, castNames, credit.getPerson()));
+                FilmCredits films = castCredits.computeIfAbsent(credit.getID(), k -> new FilmCredits());
+                films.add(id, credit.getOrder());
+                mostCastCredits.set(credit.getID(), films.size());
+            }
+        }
+        if (crew != null) {
+            for (CrewCredit credit : crew) {
+                credit.setPerson(register(crewPeople, crewNames, credit.getPerson()));
+                crewCredits.computeIfAbsent(credit.getID(), k -> new FilmCredits()).add(id, 0);
+            }
+        }
+    }
+
+    /**
+     * Finds the Person a credit should point at. The registry's Person is shared
+     * if its id, name and profile path all match the credit's. Otherwise the
+     * credit keeps its own details, and if the id is new they are registered and
+     * their name indexed. Strings are interned, which shares them with anyone else
+     * of the same name or profile path, so someone who is both cast and crew only
+     * has their strings stored once
+     */
+    private Person register(IntObjectMap<Person> registry, TextIndex names, Person person) {
+        Person known = registry.get(person.getID());
+        if (known != null && (known == person || known.sameAs(person))) {
+            return known;
+        }
+        Person canonical = interned(person);
+        if (known == null) {
+            registry.put(person.getID(), canonical);
+            names.add(canonical.getID(), canonical.getName());
+        }
+        return canonical;
+    }
+
+    /**
+     * Gives back the person with their strings interned, only making a new Person
+     * if a string was not interned already
+     */
+    private static Person interned(Person person) {
+        String name = intern(person.getName());
+        String profilePath = intern(person.getProfilePath());
+        if (name == person.getName() && profilePath == person.getProfilePath()) {
+            return person;
+        }
+        return new Person(person.getID(), name, profilePath);
+    }
+
+    /**
+     * Takes a person out of a registry and its name out of the index
+     */
+    private static void forget(IntObjectMap<Person> registry, TextIndex names, int personID) {
+        Person person = registry.get(personID);
+        if (person != null) {
+            names.remove(personID, person.getName());
+            registry.remove(personID);
+        }
+    }
+
+    private static String intern(String s) {
+        return (s == null) ? null : s.intern();
+    }
+
+    /**
+     * Takes a film's credits back out of the lists of the people in it. People
+     * left with no credits are forgotten
+     */
+    private void unindexFilm(CastCredit[] cast, CrewCredit[] crew, int id) {
+        if (cast != null) {
+            for (CastCredit credit : cast) {
+                FilmCredits films = castCredits.get(credit.getID());
+                // A second role in the same film finds its credits already gone
+                if (films == null || films.removeFilm(id) == 0) {
+                    continue;
+                }
+                if (films.size() == 0) {
+                    castCredits.remove(credit.getID());
+                    forget(castPeople, castNames, credit.getID());
+                    mostCastCredits.remove(credit.getID());
+                }
+                else {
+                    mostCastCredits.set(credit.getID(), films.size());
+                }
+            }
+        }
+        if (crew != null) {
+            for (CrewCredit credit : crew) {
+                FilmCredits films = crewCredits.get(credit.getID());
+                if (films != null && films.removeFilm(id) > 0 && films.size() == 0) {
+                    crewCredits.remove(credit.getID());
+                    forget(crewPeople, crewNames, credit.getID());
+                }
+            }
+        }
+    }
+
     /**
      * Remove a given films data from the data structure
      * 
@@ -54,15 +209,16 @@ public class Credits implements ICredits{
      */
     @Override
     public boolean remove(int id) {
-        // Checks if the movie id exists in the data structures and if it doesn't, there is nothing to be removed
-        if (castMap.hasKey(id) == false && crewMap.hasKey(id) == false) {
-            return false;}
-        // If the movie id is found, the cast and crew on that movie id are removed
-        else {
-            castMap.remove(id);
-            crewMap.remove(id);
-            return true;
+        // Takes the film out of the people's lists while its credits can still be found
+        unindexFilm(castMap.get(id), crewMap.get(id), id);
+        // Removes the cast and crew on that movie id
+        // If the movie id doesn't exist in either data structure, there is nothing to be removed
+        boolean castRemoved = castMap.remove(id);
+        boolean crewRemoved = crewMap.remove(id);
+        if (castRemoved || crewRemoved) {
+            changes++;
         }
+        return castRemoved || crewRemoved;
     }
 
     /**
@@ -77,13 +233,9 @@ public class Credits implements ICredits{
     @Override
     public CastCredit[] getFilmCast(int filmID) {
         // If there is no film with the given id in the cast hashmap, then an empty array is returned
-        CastCredit[] array = new CastCredit[0];
-        if (castMap.get(filmID) == null) {
-            return array;
-        }
         // Otherwise gives the list of CastCredit objects is returned
         // This will also return the empty list if there are no cast members attached to the film
-        return castMap.get(filmID);
+        return castMap.getOrDefault(filmID, EMPTY_CAST);
     }
 
     /**
@@ -98,13 +250,9 @@ public class Credits implements ICredits{
     @Override
     public CrewCredit[] getFilmCrew(int filmID) {
         // If there is no film with the given id in the crew hashmap, then an empty array is returned
-        CrewCredit[] array = new CrewCredit[0];
-        if (crewMap.get(filmID) == null) {
-            return array;
-        }
         // Otherwise gives the list of CrewCredit objects is returned
         // This will also return the empty list if there are no crew members attached to the film
-        return crewMap.get(filmID);
+        return crewMap.getOrDefault(filmID, EMPTY_CREW);
     }
 
     /**
@@ -116,12 +264,13 @@ public class Credits implements ICredits{
      */
     @Override
     public int sizeOfCast(int filmID) {
+        CastCredit[] cast = castMap.get(filmID);
         // If the film cannot be found 
-        if (castMap.hasKey(filmID) == false){
+        if (cast == null){
             return -1;}
         // Gives back the length of the array
         else {
-            return getFilmCast(filmID).length;
+            return cast.length;
         }
     }
 
@@ -134,12 +283,13 @@ public class Credits implements ICredits{
      */
     @Override
     public int sizeofCrew(int filmID) {
+        CrewCredit[] crew = crewMap.get(filmID);
         // If the film cannot be found 
-        if (crewMap.hasKey(filmID) == false){
+        if (crew == null){
             return -1;}
         // Gives back the length of the array
         else {
-            return getFilmCrew(filmID).length;
+            return crew.length;
         }
     }
 
@@ -163,8 +313,8 @@ public class Credits implements ICredits{
      */
     @Override
     public Person[] getUniqueCast() {
-        // TODO Implement this function
-        return null;
+        // Every person is in the registry once, so nothing needs removing
+        return peopleIn(castPeople);
     }
 
     /**
@@ -175,8 +325,22 @@ public class Credits implements ICredits{
      */
     @Override
     public Person[] getUniqueCrew() {
-        // TODO Implement this function
-        return null;
+        // Every person is in the registry once, so nothing needs removing
+        return peopleIn(crewPeople);
+    }
+
+    /**
+     * Gives back every Person in a registry
+     */
+    private Person[] peopleIn(IntObjectMap<Person> registry) {
+        Person[] arr = new Person[registry.size()];
+        int count = 0;
+        IntObjectMap<Person>.EntryCursor cursor = registry.entryCursor();
+        while (cursor.advance()) {
+            arr[count] = cursor.value();
+            count = count + 1;
+        }
+        return arr;
     }
 
     /**
@@ -184,12 +348,12 @@ public class Credits implements ICredits{
      * 
      * @param cast The string that needs to be found
      * @return An array of unique Person objects of all cast members that have the 
-     *         requested string in their name
+     *         requested string in their name, the most credited first. Upper and
+     *         lower case letters match each other
      */
     @Override
     public Person[] findCast(String cast) {
-        // TODO Implement this function
-        return null;
+        return findPeople(cast, castPeople, castNames, castCredits);
     }
 
     /**
@@ -197,12 +361,49 @@ public class Credits implements ICredits{
      * 
      * @param crew The string that needs to be found
      * @return An array of unique Person objects of all crew members that have the 
-     *         requested string in their name
+     *         requested string in their name, the most credited first. Upper and
+     *         lower case letters match each other
      */
     @Override
     public Person[] findCrew(String crew) {
-        // TODO Implement this function
-        return null;
+        return findPeople(crew, crewPeople, crewNames, crewCredits);
+    }
+
+    /**
+     * Finds the people in a registry with the search term in their name, ranked
+     * by their number of credits, ties going to the lower id
+     */
+    private static Person[] findPeople(String searchTerm, IntObjectMap<Person> registry, TextIndex names, IntObjectMap<FilmCredits> credits) {
+        // The search ignores case
+        String folded = TextIndex.fold(searchTerm);
+
+        // Asks the name index for the people that could match
+        int[] candidates = names.candidates(folded);
+
+        // The index can not help with an empty search, or a very short one with spaces or
+        // punctuation in it, so everyone is checked
+        if (candidates == null) {
+            candidates = registry.keyArray();
+        }
+
+        // Checks the real name of each candidate, keeping their credit count to rank on
+        int[] ids = new int[candidates.length];
+        int[] counts = new int[candidates.length];
+        int count = 0;
+        for (int id : candidates) {
+            if (TextIndex.containsFolded(registry.get(id).getName(), folded)) {
+                ids[count] = id;
+                counts[count] = credits.get(id).size();
+                count++;
+            }
+        }
+
+        int[] ranked = new RankedIds(ids, counts, new double[count], count).next(count);
+        Person[] found = new Person[ranked.length];
+        for (int i = 0; i < ranked.length; i++) {
+            found[i] = registry.get(ranked[i]);
+        }
+        return found;
     }
 
     /**
@@ -214,8 +415,8 @@ public class Credits implements ICredits{
      */
     @Override
     public Person getCast(int castID) {
-        // TODO Implement this function
-        return null;
+        // Gives back null if the person has no cast credits
+        return castPeople.get(castID);
     }
 
     /**
@@ -227,8 +428,8 @@ public class Credits implements ICredits{
      */
     @Override
     public Person getCrew(int crewID){
-        // TODO Implement this function
-        return null;
+        // Gives back null if the person has no crew credits
+        return crewPeople.get(crewID);
     }
 
     
@@ -242,8 +443,14 @@ public class Credits implements ICredits{
      */
     @Override
     public int[] getCastFilms(int castID){
-        // TODO Implement this function
-        return null;
+        FilmCredits films = castCredits.get(castID);
+        // If the person cannot be found
+        if (films == null){
+            return new int[0];}
+        // Each film once, even with more than one role in it
+        else {
+            return films.films();
+        }
     }
 
     /**
@@ -256,8 +463,14 @@ public class Credits implements ICredits{
      */
     @Override
     public int[] getCrewFilms(int crewID) {
-        // TODO Implement this function
-        return null;
+        FilmCredits films = crewCredits.get(crewID);
+        // If the person cannot be found
+        if (films == null){
+            return new int[0];}
+        // Each film once, even with more than one job on it
+        else {
+            return films.films();
+        }
     }
 
     /**
@@ -272,8 +485,14 @@ public class Credits implements ICredits{
      */
     @Override
     public int[] getCastStarsInFilms(int castID){
-        // TODO Implement this function
-        return null;
+        FilmCredits films = castCredits.get(castID);
+        // If the person cannot be found
+        if (films == null){
+            return new int[0];}
+        // Only the films where one of their roles is in the top 3 billing
+        else {
+            return films.filmsBilledAbove(star_billing);
+        }
     }
     
     /**
@@ -291,8 +510,13 @@ public class Credits implements ICredits{
      */
     @Override
     public Person[] getMostCastCredits(int numResults) {
-        // TODO Implement this function
-        return null;
+        // The board is kept in order as films are added, so only the top is read
+        int[] ids = mostCastCredits.top(numResults);
+        Person[] arr = new Person[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            arr[i] = castPeople.get(ids[i]);
+        }
+        return arr;
     }
 
     /**
@@ -307,8 +531,95 @@ public class Credits implements ICredits{
      */
     @Override
     public int getNumCastCredits(int castID) {
-        // TODO Implement this function
-        return -1;
+        FilmCredits films = castCredits.get(castID);
+        // If the person cannot be found
+        if (films == null){
+            return -1;}
+        // Every role counts as a credit
+        else {
+            return films.size();
+        }
+    }
+
+    //==========================================================================================================================
+    // Collaborations
+
+    /**
+     * Finds the cast members who have been in the most films with a given cast
+     * member, counting the top billed cast of each film
+     *
+     * @param castID     The cast member's ID
+     * @param numResults The number of cast members that should be returned
+     * @return A sorted array of cast IDs, most films together first. If the cast
+     *         member cannot be found, return an empty array
+     */
+    @Override
+    public int[] getFrequentCoStars(int castID, int numResults) {
+        return collaborations().getFrequentCoStars(castID, numResults);
     }
 
+    /**
+     * Finds the directors who have most often directed a given cast member, counting
+     * the top billed cast of each film
+     *
+     * @param castID     The cast member's ID
+     * @param numResults The number of directors that should be returned
+     * @return A sorted array of crew IDs, most films together first. If the cast
+     *         member cannot be found, return an empty array
+     */
+    @Override
+    public int[] getFrequentDirectors(int castID, int numResults) {
+        return collaborations().getFrequentDirectors(castID, numResults);
+    }
+
+    /**
+     * Finds the cast members a given director has most often directed, counting the
+     * top billed cast of each film
+     *
+     * @param crewID     The director's crew ID
+     * @param numResults The number of cast members that should be returned
+     * @return A sorted array of cast IDs, most films together first. If the crew
+     *         member has directed nothing, return an empty array
+     */
+    @Override
+    public int[] getFrequentCast(int crewID, int numResults) {
+        return collaborations().getFrequentCast(crewID, numResults);
+    }
+
+    /**
+     * Finds the shortest chain of co-stars linking two cast members, counting the
+     * top billed cast of each film
+     *
+     * @param fromCastID The cast ID to start from
+     * @param toCastID   The cast ID to end at
+     * @return The cast IDs along the chain, fromCastID first and toCastID last. If
+     *         either cannot be found, or nothing links them, return an empty array
+     */
+    @Override
+    public int[] getCastCollaborationPath(int fromCastID, int toCastID) {
+        return collaborations().getCollaborationPath(fromCastID, toCastID);
+    }
+
+    /**
+     * Gets the number of cast members a given cast member is linked to by any chain
+     * of co-stars, themselves included
+     *
+     * @param castID The cast member's ID
+     * @return The number of cast members, or -1 if the cast member cannot be found
+     */
+    @Override
+    public int getCastCollaborationGroupSize(int castID) {
+        return collaborations().getComponentSize(castID);
+    }
+
+    private CollaborationGraph collaborations() {
+        if (collaborations == null) {
+            collaborations = new CollaborationGraph(this);
+        }
+        return collaborations;
+    }
+
+    long changes() {
+        return changes;
+    }
 }
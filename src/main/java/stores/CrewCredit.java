@@ -6,18 +6,32 @@ public class CrewCredit implements interfaces.ICrewCredit {
 
     private String elementID = null;
     private String department = null;
-    private int id = -1;
     private String job = null;
-    private String name = null;
-    private String profilePath = null;
+    // Who the credit is for. Once the film is added to the credits store it is
+    // shared with every other credit with the same id, name and profile path
+    private Person person = null;
 
     public CrewCredit(String elementID, String department, int id, String job, String name, String profilePath) {
+        this(elementID, department, new Person(id, name, profilePath), job);
+    }
+
+    /**
+     * Makes a credit for a Person that is already made, so that a loader can give
+     * every credit of the same person the one object
+     */
+    public CrewCredit(String elementID, String department, Person person, String job) {
         this.elementID = elementID;
         this.department = department;
-        this.id = id;
         this.job = job;
-        this.name = name;
-        this.profilePath = profilePath;
+        this.person = person;
+    }
+
+    Person getPerson() {
+        return person;
+    }
+
+    void setPerson(Person person) {
+        this.person = person;
     }
 
     @Override
@@ -32,7 +46,7 @@ public class CrewCredit implements interfaces.ICrewCredit {
 
     @Override
     public int getID() {
-        return id;
+        return person.getID();
     }
 
     @Override
@@ -42,27 +56,28 @@ public class CrewCredit implements interfaces.ICrewCredit {
 
     @Override
     public String getName() {
-        return name;
+        return person.getName();
     }
 
     @Override
     public String getProfilePath() {
-        return profilePath;
+        return person.getProfilePath();
     }
 
     @Override
     public void setProfilePath(String profilePath) {
-        this.profilePath = profilePath;        
+        // The person may be shared, so this credit gets its own
+        this.person = new Person(person.getID(), person.getName(), profilePath);
     }
 
     @Override
     public int compareTo(ICrewCredit o) {
-        return ((Integer) id).compareTo(o.getID());
+        return ((Integer) getID()).compareTo(o.getID());
     }
 
     @Override
     public String toString() {
-        return "Element ID: " + elementID + "\tName: " + name + "\tDepartment : " + department + "\tJob: " + job + "\tID: " + id + "\tProfile Path: " + profilePath;
+        return "Element ID: " + elementID + "\tName: " + getName() + "\tDepartment : " + department + "\tJob: " + job + "\tID: " + getID() + "\tProfile Path: " + getProfilePath();
     }
     
 }
@@ -0,0 +1,984 @@
+package stores;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+import interfaces.IMovies;
+import structures.*;
+
+/**
+ * A movies store that keeps every film off the Java heap, in a pair of
+ * memory-mapped files, instead of as Movie objects.
+ *
+ * "path.rec" holds a small header followed by one fixed-width record per film
+ * (id, flags, budget, revenue, runtime, release day, votes, popularity and
+ * collection id), plus references into "path.str". That second file is an
+ * append-only heap of length-prefixed UTF-8 strings, which also holds the
+ * genre, language, company and country arrays in a packed form.
+ *
+ * Opening a path that was written before reopens the catalogue straight from
+ * the files. Only the id to slot index and the collection index are rebuilt,
+ * by one pass over the records, so nothing has to be parsed from the csv.
+ * Strings that are replaced (for example when a production company is added)
+ * are left behind in the heap rather than reclaimed.
+ *
+ * The header can also name the source the films were loaded from, so a loader
+ * can tell whether the files still match what it would load.
+ */
+public class MappedMovies implements IMovies {
+    Stores stores;
+
+    // Header of the record file
+    private static final int MAGIC = 0x57504D56;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_SLOTS = 8;
+    private static final int H_HEAP_USED = 16;
+    // Reference to the source string in the heap, added in version 2
+    private static final int H_SOURCE = 24;
+
+    // Layout of one fixed-width record
+    private static final int RECORD_SIZE = 192;
+    private static final int R_ID = 0;
+    private static final int R_FLAGS = 4;
+    private static final int R_BUDGET = 8;
+    private static final int R_REVENUE = 16;
+    private static final int R_RUNTIME = 24;
+    private static final int R_RELEASE = 32;
+    private static final int R_VOTE_COUNT = 36;
+    private static final int R_VOTE_AVERAGE = 40;
+    private static final int R_POPULARITY = 48;
+    private static final int R_COLLECTION_ID = 56;
+    // References into the string heap, 8 bytes each, -1 for null
+    private static final int R_TITLE = 64;
+    private static final int R_ORIGINAL_TITLE = 72;
+    private static final int R_OVERVIEW = 80;
+    private static final int R_TAGLINE = 88;
+    private static final int R_STATUS = 96;
+    private static final int R_ORIGINAL_LANGUAGE = 104;
+    private static final int R_HOMEPAGE = 112;
+    private static final int R_POSTER = 120;
+    private static final int R_IMDB = 128;
+    private static final int R_GENRES = 136;
+    private static final int R_LANGUAGES = 144;
+    private static final int R_COMPANIES = 152;
+    private static final int R_COUNTRIES = 160;
+    private static final int R_COLLECTION_NAME = 168;
+    private static final int R_COLLECTION_POSTER = 176;
+    private static final int R_COLLECTION_BACKDROP = 184;
+
+    // Bits of the flags field
+    private static final int F_LIVE = 1;
+    private static final int F_ADULT = 2;
+    private static final int F_VIDEO = 4;
+    private static final int F_POPULARITY_SET = 8;
+    private static final int F_HAS_RELEASE = 16;
+    private static final int F_HAS_COLLECTION = 32;
+
+    private static final long NULL_REF = -1;
+
+    private FileChannel recordChannel;
+    private FileChannel heapChannel;
+    private MappedByteBuffer records;
+    private MappedByteBuffer heap;
+
+    // The number of record slots used, including removed films
+    private int slots;
+    // The number of bytes of the string heap used
+    private int heapUsed;
+    // Reference to the name of what the films were loaded from, or NULL_REF
+    private long sourceRef;
+
+    // Film id to record slot
+    private IntIntMap index;
+    // Collection id to collection, rebuilt from the records when the files are opened
+    private IntObjectMap<Collection> collections;
+
+    /**
+     * Opens, or creates, a memory-mapped movies store
+     * @param stores An object storing all the different key stores
+     * @param path   The path of the store, without the ".rec"/".str" endings
+     * @throws IOException if the files can not be opened or are not a movies store
+     */
+    public MappedMovies(Stores stores, String path) throws IOException {
+        this.stores = stores;
+        Path recordPath = Paths.get(path + ".rec");
+        Path heapPath = Paths.get(path + ".str");
+        recordChannel = FileChannel.open(recordPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        heapChannel = FileChannel.open(heapPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        boolean existing = recordChannel.size() >= HEADER_SIZE;
+        records = recordChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(recordChannel.size(), HEADER_SIZE + 1024L * RECORD_SIZE));
+        heap = heapChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(heapChannel.size(), 1 << 20));
+
+        index = new IntIntMap();
+        collections = new IntObjectMap<>();
+
+        if (existing) {
+            int version = records.getInt(H_VERSION);
+            if (records.getInt(H_MAGIC) != MAGIC || version < 1 || version > VERSION) {
+                close();
+                throw new IOException(recordPath + " is not a movies store");
+            }
+            slots = records.getInt(H_SLOTS);
+            heapUsed = (int) records.getLong(H_HEAP_USED);
+            // A version 1 store does not say where its films came from
+            sourceRef = (version == 1) ? NULL_REF : records.getLong(H_SOURCE);
+            records.putInt(H_VERSION, VERSION);
+            writeHeader();
+            rebuildIndexes();
+        }
+        else {
+            records.putInt(H_MAGIC, MAGIC);
+            records.putInt(H_VERSION, VERSION);
+            sourceRef = NULL_REF;
+            writeHeader();
+        }
+    }
+
+    /**
+     * Rebuilds the id and collection indexes with one pass over the records
+     */
+    private void rebuildIndexes() {
+        index.ensureCapacity(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            int base = recordBase(slot);
+            int flags = records.getInt(base + R_FLAGS);
+            if ((flags & F_LIVE) == 0) {
+                continue;
+            }
+            int id = records.getInt(base + R_ID);
+            index.put(id, slot);
+            if ((flags & F_HAS_COLLECTION) != 0) {
+                collectionFor(base).addFilmID(id);
+            }
+        }
+    }
+
+    /**
+     * Writes the slot count, heap size and source into the header
+     */
+    private void writeHeader() {
+        records.putInt(H_SLOTS, slots);
+        records.putLong(H_HEAP_USED, heapUsed);
+        records.putLong(H_SOURCE, sourceRef);
+    }
+
+    /**
+     * @return the source the films were loaded from, as given to setSource, or
+     *         null if none was given
+     */
+    public String getSource() {
+        return readString(sourceRef);
+    }
+
+    /**
+     * Records what the films were loaded from, for example a csv path and the
+     * section of it, so that it can be checked when the files are reopened
+     * @param source the name of the source, or null to clear it
+     */
+    public void setSource(String source) {
+        sourceRef = writeString(source);
+        writeHeader();
+    }
+
+    /**
+     * Removes every film, ready for the store to be loaded again. The files keep
+     * their size, and are written over as films are added
+     */
+    public void clear() {
+        slots = 0;
+        heapUsed = 0;
+        sourceRef = NULL_REF;
+        index = new IntIntMap();
+        collections = new IntObjectMap<>();
+        writeHeader();
+    }
+
+    /**
+     * Writes everything to disk
+     */
+    public void flush() {
+        writeHeader();
+        records.force();
+        heap.force();
+    }
+
+    /**
+     * Writes everything to disk and closes the files. The store must not be used afterwards
+     * @throws IOException if the files can not be closed
+     */
+    public void close() throws IOException {
+        flush();
+        recordChannel.close();
+        heapChannel.close();
+    }
+
+    //==========================================================================================================================
+    // Low level access to the two files
+
+    private static int recordBase(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    /**
+     * Finds the start of the record for a film
+     * @param id The movie ID
+     * @return the offset of the record, or -1 if the film is not stored
+     */
+    private int baseOf(int id) {
+        int slot = index.getOrDefault(id, -1);
+        if (slot < 0) {
+            return -1;
+        }
+        return recordBase(slot);
+    }
+
+    /**
+     * Maps a bigger region of a file, doubling until it is at least the needed size
+     */
+    private static MappedByteBuffer grow(FileChannel channel, MappedByteBuffer buffer, long needed) {
+        long size = buffer.capacity();
+        if (needed <= size) {
+            return buffer;
+        }
+        while (size < needed) {
+            size = size * 2;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("A mapped movies file can not be larger than 2GB");
+        }
+        try {
+            buffer.force();
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reserves space at the end of the string heap
+     * @param length the number of bytes needed
+     * @return the position of the space
+     */
+    private int allocate(int length) {
+        heap = grow(heapChannel, heap, (long) heapUsed + length);
+        int pos = heapUsed;
+        heapUsed = heapUsed + length;
+        // Kept in the header straight away, so that setters writing strings outside of
+        // add are not written over after a crash and a reopen
+        writeHeader();
+        return pos;
+    }
+
+    /**
+     * Writes a block of bytes to the heap with its length in front
+     * @return the reference to the block
+     */
+    private long writeBlob(byte[] bytes) {
+        int pos = allocate(4 + bytes.length);
+        heap.putInt(pos, bytes.length);
+        heap.put(pos + 4, bytes);
+        return pos;
+    }
+
+    private long writeString(String value) {
+        if (value == null) {
+            return NULL_REF;
+        }
+        return writeBlob(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a string from the heap
+     * @param ref the reference stored in the record
+     * @return the string, or null for a null reference
+     */
+    private String readString(long ref) {
+        if (ref < 0) {
+            return null;
+        }
+        int pos = (int) ref;
+        byte[] bytes = new byte[heap.getInt(pos)];
+        heap.get(pos + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Packs an array of strings as a count followed by length-prefixed strings (-1 for null)
+     */
+    private long writeStringArray(String[] values) {
+        if (values == null) {
+            return NULL_REF;
+        }
+        byte[][] encoded = new byte[values.length][];
+        int total = 4;
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = values[i] == null ? null : values[i].getBytes(StandardCharsets.UTF_8);
+            total = total + 4 + (encoded[i] == null ? 0 : encoded[i].length);
+        }
+        ByteBuffer out = ByteBuffer.allocate(total);
+        out.putInt(values.length);
+        for (byte[] bytes : encoded) {
+            out.putInt(bytes == null ? -1 : bytes.length);
+            if (bytes != null) {
+                out.put(bytes);
+            }
+        }
+        return writeBlob(out.array());
+    }
+
+    private String[] readStringArray(long ref) {
+        if (ref < 0) {
+            return null;
+        }
+        int pos = (int) ref + 4;
+        String[] values = new String[heap.getInt(pos)];
+        pos = pos + 4;
+        for (int i = 0; i < values.length; i++) {
+            int length = heap.getInt(pos);
+            pos = pos + 4;
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                heap.get(pos, bytes);
+                values[i] = new String(bytes, StandardCharsets.UTF_8);
+                pos = pos + length;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Packs (id, name) pairs, used for both genres and companies
+     */
+    private long writeIdNameArray(int[] ids, String[] names) {
+        if (ids == null) {
+            return NULL_REF;
+        }
+        byte[][] encoded = new byte[names.length][];
+        int total = 4;
+        for (int i = 0; i < names.length; i++) {
+            encoded[i] = names[i] == null ? null : names[i].getBytes(StandardCharsets.UTF_8);
+            total = total + 8 + (encoded[i] == null ? 0 : encoded[i].length);
+        }
+        ByteBuffer out = ByteBuffer.allocate(total);
+        out.putInt(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            out.putInt(ids[i]);
+            out.putInt(encoded[i] == null ? -1 : encoded[i].length);
+            if (encoded[i] != null) {
+                out.put(encoded[i]);
+            }
+        }
+        return writeBlob(out.array());
+    }
+
+    private long writeGenres(Genre[] genres) {
+        if (genres == null) {
+            return NULL_REF;
+        }
+        int[] ids = new int[genres.length];
+        String[] names = new String[genres.length];
+        for (int i = 0; i < genres.length; i++) {
+            ids[i] = genres[i].getID();
+            names[i] = genres[i].getName();
+        }
+        return writeIdNameArray(ids, names);
+    }
+
+    private long writeCompanies(Company[] companies) {
+        int[] ids = new int[companies.length];
+        String[] names = new String[companies.length];
+        for (int i = 0; i < companies.length; i++) {
+            ids[i] = companies[i].getID();
+            names[i] = companies[i].getName();
+        }
+        return writeIdNameArray(ids, names);
+    }
+
+    /**
+     * Reads back (id, name) pairs
+     * @param ref the reference stored in the record
+     * @param genres true to make Genre objects, false to make Company objects
+     */
+    private Object[] readIdNameArray(long ref, boolean genres) {
+        int pos = (int) ref + 4;
+        int count = heap.getInt(pos);
+        Object[] values = genres ? new Genre[count] : new Company[count];
+        pos = pos + 4;
+        for (int i = 0; i < count; i++) {
+            int id = heap.getInt(pos);
+            int length = heap.getInt(pos + 4);
+            pos = pos + 8;
+            String name = null;
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                heap.get(pos, bytes);
+                name = new String(bytes, StandardCharsets.UTF_8);
+                pos = pos + length;
+            }
+            values[i] = genres ? new Genre(id, name) : new Company(id, name);
+        }
+        return values;
+    }
+
+    /**
+     * Finds the in-memory collection for a record, making it from the record's fields the first time
+     */
+    private Collection collectionFor(int base) {
+        int collectionID = records.getInt(base + R_COLLECTION_ID);
+        return collections.computeIfAbsent(collectionID, key -> new Collection(key,
+                readString(records.getLong(base + R_COLLECTION_NAME)),
+                readString(records.getLong(base + R_COLLECTION_POSTER)),
+                readString(records.getLong(base + R_COLLECTION_BACKDROP))));
+    }
+
+    //==========================================================================================================================
+
+    /**
+     * Grows the files so that the given number of films can be added without remapping
+     *
+     * @param numFilms The number of films about to be added
+     */
+    @Override
+    public void presize(int numFilms) {
+        records = grow(recordChannel, records, recordBase(slots + numFilms));
+        index.ensureCapacity(index.size() + numFilms);
+    }
+
+    /**
+     * Adds data about a film to the data structure
+     *
+     * @param id               The unique ID for the film
+     * @param title            The English title of the film
+     * @param originalTitle    The original language title of the film
+     * @param overview         An overview of the film
+     * @param tagline          The tagline for the film (empty string if there is no
+     *                         tagline)
+     * @param status           Current status of the film
+     * @param genres           An array of Genre objects related to the film
+     * @param release          The release date for the film
+     * @param budget           The budget of the film in US Dollars
+     * @param revenue          The revenue of the film in US Dollars
+     * @param languages        An array of ISO 639 language codes for the film
+     * @param originalLanguage An ISO 639 language code for the original language of
+     *                         the film
+     * @param runtime          The runtime of the film in minutes
+     * @param homepage         The URL to the homepage of the film
+     * @param adult            Whether the film is an adult film
+     * @param video            Whether the film is a "direct-to-video" film
+     * @param poster           The unique part of the URL of the poster (empty if
+     *                         the URL is not known)
+     * @return TRUE if the data able to be added, FALSE otherwise
+     */
+    @Override
+    public boolean add(int id, String title, String originalTitle, String overview, String tagline, String status, Genre[] genres, LocalDate release, long budget, long revenue, String[] languages, String originalLanguage, double runtime, String homepage, boolean adult, boolean video, String poster) {
+        // If a movie with this id already exists, returns false
+        if (index.hasKey(id)) {
+            return false;
+        }
+
+        // Takes the next free slot, growing the record file if it is full
+        int slot = slots;
+        records = grow(recordChannel, records, recordBase(slot + 1));
+        int base = recordBase(slot);
+
+        int flags = F_LIVE;
+        if (adult) { flags = flags | F_ADULT; }
+        if (video) { flags = flags | F_VIDEO; }
+        if (release != null) { flags = flags | F_HAS_RELEASE; }
+
+        records.putInt(base + R_ID, id);
+        records.putInt(base + R_FLAGS, flags);
+        records.putLong(base + R_BUDGET, budget);
+        records.putLong(base + R_REVENUE, revenue);
+        records.putDouble(base + R_RUNTIME, runtime);
+        records.putInt(base + R_RELEASE, release == null ? 0 : (int) release.toEpochDay());
+        records.putInt(base + R_VOTE_COUNT, 0);
+        records.putDouble(base + R_VOTE_AVERAGE, 0);
+        records.putDouble(base + R_POPULARITY, 0);
+        records.putInt(base + R_COLLECTION_ID, -1);
+
+        records.putLong(base + R_TITLE, writeString(title));
+        records.putLong(base + R_ORIGINAL_TITLE, writeString(originalTitle));
+        records.putLong(base + R_OVERVIEW, writeString(overview));
+        records.putLong(base + R_TAGLINE, writeString(tagline));
+        records.putLong(base + R_STATUS, writeString(status));
+        records.putLong(base + R_ORIGINAL_LANGUAGE, writeString(originalLanguage));
+        records.putLong(base + R_HOMEPAGE, writeString(homepage));
+        records.putLong(base + R_POSTER, writeString(poster));
+        records.putLong(base + R_IMDB, NULL_REF);
+        records.putLong(base + R_GENRES, writeGenres(genres));
+        records.putLong(base + R_LANGUAGES, writeStringArray(languages));
+        records.putLong(base + R_COMPANIES, writeCompanies(new Company[0]));
+        records.putLong(base + R_COUNTRIES, writeStringArray(new String[0]));
+        records.putLong(base + R_COLLECTION_NAME, NULL_REF);
+        records.putLong(base + R_COLLECTION_POSTER, NULL_REF);
+        records.putLong(base + R_COLLECTION_BACKDROP, NULL_REF);
+
+        slots = slots + 1;
+        index.put(id, slot);
+        writeHeader();
+        return true;
+    }
+
+    /**
+     * Removes a film from the data structure, and any data
+     * added through this class related to the film
+     *
+     * @param id The film ID
+     * @return TRUE if the film has been removed successfully, FALSE otherwise
+     */
+    @Override
+    public boolean remove(int id) {
+        int base = baseOf(id);
+        if (base < 0) {
+            return false;
+        }
+        // The slot is marked as dead rather than reused, so it is skipped when the files are reopened
+        int flags = records.getInt(base + R_FLAGS);
+        records.putInt(base + R_FLAGS, flags & ~F_LIVE);
+        index.remove(id);
+        // Takes the film out of its collection as reopening would, dropping the collection once it is empty
+        if ((flags & F_HAS_COLLECTION) != 0) {
+            Collection collection = collections.get(records.getInt(base + R_COLLECTION_ID));
+            collection.removeFilmID(id);
+            if (collection.getFilmIDs().length == 0) {
+                collections.remove(collection.getCollectionID());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets all the IDs for all films
+     *
+     * @return An array of all film IDs stored
+     */
+    @Override
+    public int[] getAllIDs() {
+        return index.keyArray();
+    }
+
+    /**
+     * Finds the film IDs of all films released within a given range. If a film is
+     * released either on the start or end dates, then that film should not be
+     * included
+     *
+     * @param start The start point of the range of dates
+     * @param end   The end point of the range of dates
+     * @return An array of film IDs that were released between start and end
+     */
+    @Override
+    public int[] getAllIDsReleasedInRange(LocalDate start, LocalDate end) {
+        long startDay = start.toEpochDay();
+        long endDay = end.toEpochDay();
+        int[] arr = new int[index.size()];
+        int count = 0;
+        // Scans the fixed-width records directly, no strings or dates are made
+        for (int slot = 0; slot < slots; slot++) {
+            int base = recordBase(slot);
+            int flags = records.getInt(base + R_FLAGS);
+            if ((flags & F_LIVE) == 0 || (flags & F_HAS_RELEASE) == 0) {
+                continue;
+            }
+            int day = records.getInt(base + R_RELEASE);
+            if (day > startDay && day < endDay) {
+                arr[count] = records.getInt(base + R_ID);
+                count = count + 1;
+            }
+        }
+        int[] newArray = new int[count];
+        System.arraycopy(arr, 0, newArray, 0, count);
+        return newArray;
+    }
+
+    // Reads a string field of a film, or null if the film cannot be found
+    private String stringField(int id, int field) {
+        int base = baseOf(id);
+        if (base < 0) {
+            return null;
+        }
+        return readString(records.getLong(base + field));
+    }
+
+    @Override
+    public String getTitle(int id) {
+        return stringField(id, R_TITLE);
+    }
+
+    @Override
+    public String getOriginalTitle(int id) {
+        return stringField(id, R_ORIGINAL_TITLE);
+    }
+
+    @Override
+    public String getOverview(int id) {
+        return stringField(id, R_OVERVIEW);
+    }
+
+    @Override
+    public String getTagline(int id) {
+        return stringField(id, R_TAGLINE);
+    }
+
+    @Override
+    public String getStatus(int id) {
+        return stringField(id, R_STATUS);
+    }
+
+    @Override
+    public Genre[] getGenres(int id) {
+        int base = baseOf(id);
+        if (base < 0) {
+            return null;
+        }
+        long ref = records.getLong(base + R_GENRES);
+        if (ref < 0) {
+            return null;
+        }
+        return (Genre[]) readIdNameArray(ref, true);
+    }
+
+    @Override
+    public LocalDate getRelease(int id) {
+        int base = baseOf(id);
+        if (base < 0 || (records.getInt(base + R_FLAGS) & F_HAS_RELEASE) == 0) {
+            return null;
+        }
+        return LocalDate.ofEpochDay(records.getInt(base + R_RELEASE));
+    }
+
+    @Override
+    public long getBudget(int id) {
+        int base = baseOf(id);
+        if (base < 0) {
+            return -1;
+        }
+        return records.getLong(base + R_BUDGET);
+    }
+
+    @Override
+    public long getRevenue(int id) {
+        int base = baseOf(id);
+        if (base < 0) {
+            return -1;
+        }
+        return records.getLong(base + R_REVENUE);
+    }
+
+    @Override
+    public String[] getLanguages(int id) {
+        int base = baseOf(id);
+        if (base < 0) {
+            return null;
+        }
+        return readStringArray(records.getLong(base + R_LANGUAGES));
+    }
+
+    @Override
+    public String getOriginalLanguage(int id) {
+        return stringField(id, R_ORIGINAL_LANGUAGE);
+    }
+
+    @Override
+    public double getRuntime(int id) {
+        int base = baseOf(id);
+        if (base < 0) {
+            return -1;
+        }
+        return records.getDouble(base + R_RUNTIME);
+    }
+
+    @Override
+    public String getHomepage(int id) {
+        return stringField(id, R_HOMEPAGE);
+    }
+
+    @Override
+    public boolean getAdult(int id) {
+        int base = baseOf(id);
+        return base >= 0 && (records.getInt(base + R_FLAGS) & F_ADULT) != 0;
+    }
+
+    @Override
+    public boolean getVideo(int id) {
+        int base = baseOf(id);
+        return base >= 0 && (records.getInt(base + R_FLAGS) & F_VIDEO) != 0;
+    }
+
+    @Override
+    public String getPoster(int id) {
+        return stringField(id, R_POSTER);
+    }
+
+    @Override
+    public boolean setVote(int id, double voteAverage, int voteCount) {
+        int base = baseOf(id);
+        if (base < 0) {
+            return false;
+        }
+        records.putDouble(base + R_VOTE_AVERAGE, voteAverage);
+        records.putInt(base + R_VOTE_COUNT, voteCount);
+        return true;
+    }
+
+    @Override
+    public double getVoteAverage(int id) {
+        int base = baseOf(id);
+        if (base < 0) {
+            return -1;
+        }
+        return records.getDouble(base + R_VOTE_AVERAGE);
+    }
+
+    @Override
+    public int getVoteCount(int id) {
+        int base = baseOf(id);
+        if (base < 0) {
+            return -1;
+        }
+        return records.getInt(base + R_VOTE_COUNT);
+    }
+
+    @Override
+    public boolean addToCollection(int filmID, int collectionID, String collectionName, String collectionPosterPath, String collectionBackdropPath) {
+        int base = baseOf(filmID);
+        if (base < 0) {
+            return false;
+        }
+        // The collection details are kept with the film so the collection index can be rebuilt on reopening
+        records.putInt(base + R_COLLECTION_ID, collectionID);
+        records.putLong(base + R_COLLECTION_NAME, writeString(collectionName));
+        records.putLong(base + R_COLLECTION_POSTER, writeString(collectionPosterPath));
+        records.putLong(base + R_COLLECTION_BACKDROP, writeString(collectionBackdropPath));
+        records.putInt(base + R_FLAGS, records.getInt(base + R_FLAGS) | F_HAS_COLLECTION);
+
+        collectionFor(base).addFilmID(filmID);
+        return true;
+    }
+
+    @Override
+    public int[] getFilmsInCollection(int collectionID) {
+        Collection collection = collections.get(collectionID);
+        if (collection == null) {
+            return new int[0];
+        }
+        return collection.getFilmIDs();
+    }
+
+    @Override
+    public String getCollectionName(int collectionID) {
+        Collection collection = collections.get(collectionID);
+        return collection == null ? null : collection.getCollectionName();
+    }
+
+    @Override
+    public String getCollectionPoster(int collectionID) {
+        Collection collection = collections.get(collectionID);
+        return collection == null ? null : collection.getCollectionPosterPath();
+    }
+
+    @Override
+    public String getCollectionBackdrop(int collectionID) {
+        Collection collection = collections.get(collectionID);
+        return collection == null ? null : collection.getCollectionBackdropPath();
+    }
+
+    @Override
+    public int getCollectionID(int filmID) {
+        int base = baseOf(filmID);
+        if (base < 0 || (records.getInt(base + R_FLAGS) & F_HAS_COLLECTION) == 0) {
+            return -1;
+        }
+        return records.getInt(base + R_COLLECTION_ID);
+    }
+
+    @Override
+    public boolean setIMDB(int filmID, String imdbID) {
+        int base = baseOf(filmID);
+        if (base < 0) {
+            return false;
+        }
+        records.putLong(base + R_IMDB, writeString(imdbID));
+        return true;
+    }
+
+    @Override
+    public String getIMDB(int filmID) {
+        return stringField(filmID, R_IMDB);
+    }
+
+    @Override
+    public boolean setPopularity(int id, double popularity) {
+        int base = baseOf(id);
+        if (base < 0) {
+            return false;
+        }
+        records.putDouble(base + R_POPULARITY, popularity);
+        records.putInt(base + R_FLAGS, records.getInt(base + R_FLAGS) | F_POPULARITY_SET);
+        return true;
+    }
+
+    @Override
+    public double getPopularity(int id) {
+        int base = baseOf(id);
+        if (base < 0) {
+            return -1.0;
+        }
+        // Gives back 0.0 if the popularity has not been set
+        if ((records.getInt(base + R_FLAGS) & F_POPULARITY_SET) == 0) {
+            return 0.0;
+        }
+        return records.getDouble(base + R_POPULARITY);
+    }
+
+    @Override
+    public boolean addProductionCompany(int id, Company company) {
+        int base = baseOf(id);
+        if (base < 0) {
+            return false;
+        }
+        // Repacks the array with the new company on the end
+        Company[] old = (Company[]) readIdNameArray(records.getLong(base + R_COMPANIES), false);
+        Company[] companies = new Company[old.length + 1];
+        System.arraycopy(old, 0, companies, 0, old.length);
+        companies[old.length] = company;
+        records.putLong(base + R_COMPANIES, writeCompanies(companies));
+        return true;
+    }
+
+    @Override
+    public boolean addProductionCountry(int id, String country) {
+        int base = baseOf(id);
+        if (base < 0) {
+            return false;
+        }
+        // Repacks the array with the new country on the end
+        String[] old = readStringArray(records.getLong(base + R_COUNTRIES));
+        String[] countries = new String[old.length + 1];
+        System.arraycopy(old, 0, countries, 0, old.length);
+        countries[old.length] = country;
+        records.putLong(base + R_COUNTRIES, writeStringArray(countries));
+        return true;
+    }
+
+    @Override
+    public Company[] getProductionCompanies(int id) {
+        int base = baseOf(id);
+        if (base < 0) {
+            return null;
+        }
+        return (Company[]) readIdNameArray(records.getLong(base + R_COMPANIES), false);
+    }
+
+    @Override
+    public String[] getProductionCountries(int id) {
+        int base = baseOf(id);
+        if (base < 0) {
+            return null;
+        }
+        return readStringArray(records.getLong(base + R_COUNTRIES));
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Produces a list of movie IDs that have the search term in their title,
+     * original title or their overview. Upper and lower case letters match each other
+     *
+     * @param searchTerm The term that needs to be checked
+     * @return An array of movie IDs that have the search term in their title,
+     *         original title or their overview. If no movies have this search term,
+     *         then an empty array should be returned
+     */
+    @Override
+    public int[] findFilms(String searchTerm) {
+        return findFilms(searchTerm, new int[0], Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds films with the search term in their title, original title or overview,
+     * stopping once enough have been found. Upper and lower case letters match each other
+     *
+     * @param searchTerm The term that needs to be checked
+     * @param skip       Films to leave out, for example ones already shown
+     * @param maxResults The most films to give back
+     * @return Up to maxResults movie IDs, none of them in skip
+     */
+    @Override
+    public int[] findFilms(String searchTerm, int[] skip, int maxResults) {
+        IntIntMap skipped = new IntIntMap(skip.length);
+        for (int id : skip) {
+            skipped.put(id, 1);
+        }
+        // Ignores case in the same way as Movies
+        String folded = TextIndex.fold(searchTerm);
+        int[] arr = new int[Math.min(index.size(), maxResults)];
+        int count = 0;
+        for (int slot = 0; slot < slots && count < arr.length; slot++) {
+            int base = recordBase(slot);
+            if ((records.getInt(base + R_FLAGS) & F_LIVE) == 0 || skipped.hasKey(records.getInt(base + R_ID))) {
+                continue;
+            }
+            if (contains(records.getLong(base + R_TITLE), folded) || contains(records.getLong(base + R_ORIGINAL_TITLE), folded) || contains(records.getLong(base + R_OVERVIEW), folded)) {
+                arr[count] = records.getInt(base + R_ID);
+                count = count + 1;
+            }
+        }
+        int[] newArray = new int[count];
+        System.arraycopy(arr, 0, newArray, 0, count);
+        return newArray;
+    }
+
+    private boolean contains(long ref, String foldedTerm) {
+        return TextIndex.containsFolded(readString(ref), foldedTerm);
+    }
+
+    /**
+     * Searches for films by the words in their title, original title or overview.
+     * Each word of the query has to match a whole word of the film, ignoring case
+     *
+     * @param query    The words to search for
+     * @param matchAll TRUE if a film must have every word, FALSE if any one word is enough
+     * @return The matching films, handed out with the most words matched first, then
+     *         the most popular
+     */
+    @Override
+    public RankedIds searchFilms(String query, boolean matchAll) {
+        String[] terms = TextIndex.queryTerms(query);
+        int[] arr = new int[index.size()];
+        int[] matches = new int[arr.length];
+        double[] scores = new double[arr.length];
+        int count = 0;
+        // There is no word index here, so every film is split into words and checked
+        for (int slot = 0; terms.length > 0 && slot < slots; slot++) {
+            int base = recordBase(slot);
+            int flags = records.getInt(base + R_FLAGS);
+            if ((flags & F_LIVE) == 0) {
+                continue;
+            }
+            int found = TextIndex.countTerms(terms, readString(records.getLong(base + R_TITLE)), readString(records.getLong(base + R_ORIGINAL_TITLE)), readString(records.getLong(base + R_OVERVIEW)));
+            if (found == terms.length || (!matchAll && found > 0)) {
+                arr[count] = records.getInt(base + R_ID);
+                matches[count] = found;
+                scores[count] = (flags & F_POPULARITY_SET) != 0 ? records.getDouble(base + R_POPULARITY) : 0.0;
+                count = count + 1;
+            }
+        }
+        return new RankedIds(arr, matches, scores, count);
+    }
+}
@@ -0,0 +1,422 @@
+package stores;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The closest few neighbours of every film in a ratings store, by the cosine
+ * similarity of the films' rating vectors, together with the films that share
+ * the most users with it ("users who rated this also rated").
+ *
+ * A film's similarities to every other film are found in one pass over its
+ * users: each user's own row is walked, and their rating of the film times their
+ * rating of each other film is added to that film's dot product. Films no user
+ * shares are never touched, so the cost is the sum of the film's users' row
+ * lengths rather than the number of films. Users with more than max_user_ratings
+ * ratings are left out of the dot products, as they tie almost every pair of
+ * films together and dominate the cost. The adjusted cosine takes each user's
+ * average off their ratings first.
+ *
+ * Every film is worked out on the first query, split over the common fork/join
+ * pool. After that a film whose ratings have changed is worked out again on its
+ * own when it is next asked for, and the whole table is rebuilt once more than an
+ * eighth of the films have changed. Lists that point at a changed film are not
+ * redone until then, so they can be a little out of date in between.
+ */
+public class MovieSimilarity {
+    // Users with more ratings than this are skipped when adding up dot products
+    private static final int max_user_ratings = 1000;
+    // The number of users two films must share to count as neighbours
+    private static final int min_common = 2;
+    // The fewest films a fork/join task works out without splitting
+    private static final int grain = 32;
+    // The fewest changed films that make a full rebuild worth it
+    private static final int min_stale = 64;
+
+    private final Ratings ratings;
+    private final int k;
+    private final boolean adjusted;
+
+    // The number of movie rows the tables cover, 0 until the first build
+    private int rows;
+    // Row m's neighbours are movie rows at [m * k, m * k + similarCounts[m]), closest first
+    private int[] similar;
+    private float[] scores;
+    private int[] similarCounts;
+    // The same for the films sharing the most users
+    private int[] alsoRated;
+    private int[] alsoRatedCounts;
+    // The movie version each row was worked out at, -1 if it never has been
+    private int[] rowVersions;
+    // The length of each movie's rating vector, and the version it was worked out at
+    private double[] norms;
+    private int[] normVersions;
+    // The store's change count at the last full build
+    private long builtChanges;
+
+    // Working arrays for one thread, sized to the rows
+    private static final class Scratch {
+        private double[] dots;
+        private int[] common;
+        private int[] touched;
+        private int[] users = new int[16];
+        private float[] userValues = new float[16];
+        private int[] movies = new int[16];
+        private float[] movieValues = new float[16];
+        // The best k of the film being worked out, kept sorted
+        private int[] bestRows;
+        private double[] bestScores;
+        private int[] alsoRows;
+        private int[] alsoCounts;
+
+        private Scratch(int rows, int k) {
+            dots = new double[rows];
+            common = new int[rows];
+            touched = new int[rows];
+            bestRows = new int[k];
+            bestScores = new double[k];
+            alsoRows = new int[k];
+            alsoCounts = new int[k];
+        }
+    }
+
+    private final ThreadLocal<Scratch> scratch = new ThreadLocal<>();
+
+    /**
+     * @param ratings  The store to read the ratings from
+     * @param k        The number of neighbours kept for each film
+     * @param adjusted True for the adjusted cosine, which takes each user's average
+     *                 rating off their ratings, false for the plain cosine
+     */
+    public MovieSimilarity(Ratings ratings, int k, boolean adjusted) {
+        this.ratings = ratings;
+        this.k = Math.max(1, k);
+        this.adjusted = adjusted;
+    }
+
+    /**
+     * Finds the films most like a given film
+     *
+     * @param movieID    The movie ID
+     * @param numResults The number of films that should be returned, no more than k are
+     * @return A sorted array of movie IDs, most similar first, ties going to the lower id.
+     *         Only films at least min_common users rated alike are included. If the
+     *         film cannot be found, or has no such films, return an empty array
+     */
+    public int[] getSimilarMovies(int movieID, int numResults) {
+        int m = refresh(movieID);
+        if (m < 0) {
+            return new int[0];
+        }
+        return toIds(similar, m, similarCounts[m], numResults);
+    }
+
+    /**
+     * Finds how similar a given film is to each of the films getSimilarMovies returns
+     *
+     * @param movieID    The movie ID
+     * @param numResults The number of scores that should be returned
+     * @return The similarities, above 0 and up to 1, in the same order as getSimilarMovies
+     */
+    public float[] getSimilarityScores(int movieID, int numResults) {
+        int m = refresh(movieID);
+        if (m < 0) {
+            return new float[0];
+        }
+        float[] arr = new float[Math.max(0, Math.min(numResults, similarCounts[m]))];
+        System.arraycopy(scores, m * k, arr, 0, arr.length);
+        return arr;
+    }
+
+    /**
+     * Finds the films rated by the most users who also rated a given film
+     *
+     * @param movieID    The movie ID
+     * @param numResults The number of films that should be returned, no more than k are
+     * @return A sorted array of movie IDs, most shared users first, ties going to the
+     *         lower id. If the film cannot be found, or shares no users with another
+     *         film, return an empty array
+     */
+    public int[] getAlsoRatedMovies(int movieID, int numResults) {
+        int m = refresh(movieID);
+        if (m < 0) {
+            return new int[0];
+        }
+        return toIds(alsoRated, m, alsoRatedCounts[m], numResults);
+    }
+
+    private int[] toIds(int[] table, int m, int count, int numResults) {
+        int[] ids = new int[Math.max(0, Math.min(numResults, count))];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = ratings.movieIdOf(table[m * k + i]);
+        }
+        return ids;
+    }
+
+    /**
+     * Makes sure a film's lists are up to date, rebuilding everything if too much
+     * has changed since the last build
+     * @return the movie row, or -1 if the film has no row
+     */
+    private int refresh(int movieID) {
+        ratings.compactIfNeeded();
+        int m = ratings.movieRowOf(movieID);
+        if (m < 0) {
+            return -1;
+        }
+        long stale = ratings.movieChanges() - builtChanges;
+        if (rows == 0 || stale > Math.max(min_stale, rows >> 3)) {
+            rebuild();
+        }
+        else {
+            // Films added since the last build may be anyone's neighbours, not just
+            // this film, so the tables always cover every row before a row is redone
+            if (rows < ratings.numMovieRows()) {
+                grow(ratings.numMovieRows());
+            }
+            if (rowVersions[m] != ratings.movieVersion(m)) {
+                computeRow(m, scratch());
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Works out every film again, in parallel
+     */
+    private void rebuild() {
+        rows = 0;
+        grow(ratings.numMovieRows());
+        builtChanges = ratings.movieChanges();
+        // The lengths are all worked out first, so the tasks only read them
+        for (int m = 0; m < rows; m++) {
+            norm(m);
+        }
+        ForkJoinPool.commonPool().invoke(new Build(0, rows));
+    }
+
+    private final class Build extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        private Build(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                Scratch s = scratch();
+                for (int m = from; m < to; m++) {
+                    computeRow(m, s);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Build(from, mid), new Build(mid, to));
+        }
+    }
+
+    /**
+     * Makes the tables cover the given number of rows, marking the new rows as never worked out
+     */
+    private void grow(int numRows) {
+        if (rows == 0) {
+            similar = new int[numRows * k];
+            scores = new float[numRows * k];
+            similarCounts = new int[numRows];
+            alsoRated = new int[numRows * k];
+            alsoRatedCounts = new int[numRows];
+            rowVersions = new int[numRows];
+            norms = new double[numRows];
+            normVersions = new int[numRows];
+        }
+        else {
+            similar = copy(similar, numRows * k);
+            scores = copy(scores, numRows * k);
+            similarCounts = copy(similarCounts, numRows);
+            alsoRated = copy(alsoRated, numRows * k);
+            alsoRatedCounts = copy(alsoRatedCounts, numRows);
+            rowVersions = copy(rowVersions, numRows);
+            double[] newNorms = new double[numRows];
+            System.arraycopy(norms, 0, newNorms, 0, rows);
+            norms = newNorms;
+            normVersions = copy(normVersions, numRows);
+        }
+        for (int m = rows; m < numRows; m++) {
+            rowVersions[m] = -1;
+            normVersions[m] = -1;
+        }
+        rows = numRows;
+    }
+
+    private static int[] copy(int[] arr, int length) {
+        int[] newArr = new int[length];
+        System.arraycopy(arr, 0, newArr, 0, Math.min(arr.length, length));
+        return newArr;
+    }
+
+    private static float[] copy(float[] arr, int length) {
+        float[] newArr = new float[length];
+        System.arraycopy(arr, 0, newArr, 0, Math.min(arr.length, length));
+        return newArr;
+    }
+
+    /**
+     * Gets this thread's working arrays, making them again if the rows have grown
+     */
+    private Scratch scratch() {
+        Scratch s = scratch.get();
+        if (s == null || s.dots.length < rows || s.bestRows.length != k) {
+            s = new Scratch(rows, k);
+            scratch.set(s);
+        }
+        return s;
+    }
+
+    /**
+     * The amount taken off each of a user's ratings
+     */
+    private double centre(int u) {
+        return adjusted ? ratings.userMean(u) : 0;
+    }
+
+    /**
+     * Gets the length of a movie's rating vector, working it out again if the movie has changed
+     */
+    private double norm(int m) {
+        int version = ratings.movieVersion(m);
+        if (normVersions[m] != version) {
+            Scratch s = scratch();
+            int n = readMovie(m, s);
+            double squares = 0;
+            for (int i = 0; i < n; i++) {
+                double x = s.userValues[i] - centre(s.users[i]);
+                squares = squares + x * x;
+            }
+            norms[m] = Math.sqrt(squares);
+            normVersions[m] = version;
+        }
+        return norms[m];
+    }
+
+    private int readMovie(int m, Scratch s) {
+        int needed = ratings.movieRatingCount(m);
+        if (s.users.length < needed) {
+            s.users = new int[needed];
+            s.userValues = new float[needed];
+        }
+        return ratings.readMovieRow(m, s.users, s.userValues);
+    }
+
+    /**
+     * Works out one film's lists: adds up its dot product with every film one of
+     * its users has rated, then keeps the best k by cosine and by users shared
+     */
+    private void computeRow(int m, Scratch s) {
+        int version = ratings.movieVersion(m);
+        double norm = norm(m);
+        int n = readMovie(m, s);
+        int numTouched = 0;
+        for (int i = 0; i < n; i++) {
+            int u = s.users[i];
+            int needed = ratings.userRatingCount(u);
+            if (needed > max_user_ratings) {
+                continue;
+            }
+            double centre = centre(u);
+            double x = s.userValues[i] - centre;
+            if (s.movies.length < needed) {
+                s.movies = new int[needed];
+                s.movieValues = new float[needed];
+            }
+            int c = ratings.readUserRow(u, s.movies, s.movieValues);
+            for (int j = 0; j < c; j++) {
+                int other = s.movies[j];
+                if (other == m) {
+                    continue;
+                }
+                if (s.common[other] == 0) {
+                    s.touched[numTouched] = other;
+                    numTouched = numTouched + 1;
+                }
+                s.common[other] = s.common[other] + 1;
+                s.dots[other] = s.dots[other] + x * (s.movieValues[j] - centre);
+            }
+        }
+
+        int numBest = 0;
+        int numAlso = 0;
+        for (int t = 0; t < numTouched; t++) {
+            int other = s.touched[t];
+            int shared = s.common[other];
+            if (shared >= min_common) {
+                double lengths = norm * norm(other);
+                // Films rated the opposite way are not similar, however strongly
+                if (lengths > 0 && s.dots[other] > 0) {
+                    numBest = insert(s.bestRows, s.bestScores, numBest, other, s.dots[other] / lengths);
+                }
+            }
+            numAlso = insert(s.alsoRows, s.alsoCounts, numAlso, other, shared);
+            s.common[other] = 0;
+            s.dots[other] = 0;
+        }
+
+        int start = m * k;
+        for (int i = 0; i < numBest; i++) {
+            similar[start + i] = s.bestRows[i];
+            scores[start + i] = (float) s.bestScores[i];
+        }
+        System.arraycopy(s.alsoRows, 0, alsoRated, start, numAlso);
+        similarCounts[m] = numBest;
+        alsoRatedCounts[m] = numAlso;
+        rowVersions[m] = version;
+    }
+
+    /**
+     * Checks if a film ranks ahead of another, by score and then by lower id
+     */
+    private boolean ahead(int row, double score, int otherRow, double otherScore) {
+        if (score != otherScore) {
+            return score > otherScore;
+        }
+        return ratings.movieIdOf(row) < ratings.movieIdOf(otherRow);
+    }
+
+    /**
+     * Puts a film into a sorted best k list if it makes it
+     * @return the new length of the list
+     */
+    private int insert(int[] best, double[] bestScores, int count, int row, double score) {
+        if (count == k && !ahead(row, score, best[k - 1], bestScores[k - 1])) {
+            return count;
+        }
+        int i = Math.min(count, k - 1);
+        while (i > 0 && ahead(row, score, best[i - 1], bestScores[i - 1])) {
+            best[i] = best[i - 1];
+            bestScores[i] = bestScores[i - 1];
+            i = i - 1;
+        }
+        best[i] = row;
+        bestScores[i] = score;
+        return Math.min(count + 1, k);
+    }
+
+    private int insert(int[] best, int[] bestCounts, int count, int row, int shared) {
+        if (count == k && !ahead(row, shared, best[k - 1], bestCounts[k - 1])) {
+            return count;
+        }
+        int i = Math.min(count, k - 1);
+        while (i > 0 && ahead(row, shared, best[i - 1], bestCounts[i - 1])) {
+            best[i] = best[i - 1];
+            bestCounts[i] = bestCounts[i - 1];
+            i = i - 1;
+        }
+        best[i] = row;
+        bestCounts[i] = shared;
+        return Math.min(count + 1, k);
+    }
+}
@@ -7,8 +7,12 @@ import structures.*;
 
 public class Movies implements IMovies{
     Stores stores;
-    private MyHashMap<Integer, Movie> hashmap;
-    private MyHashMap<Integer, Collection> map;
+    private IntObjectMap<Movie> hashmap;
+    private IntObjectMap<Collection> map;
+    // Films with a release date, sorted by (epoch day << 32 | id), for range queries
+    private SortedLongIndex releaseIndex;
+    // Terms and trigrams of the title, original title and overview, for findFilms
+    private TextIndex textIndex;
 
     /**
      * The constructor for the Movies data store. This is where you should
@@ -19,9 +23,36 @@ public class Movies implements IMovies{
     public Movies(Stores stores) {
         this.stores = stores;
         // Creates a hash map that stores the id as a key and the other data in a Movie object
-        hashmap = new MyHashMap<>();
+        hashmap = new IntObjectMap<>();
         // Creates a hashmap that stores the collection id as a key and a collection object as a value
-        map = new MyHashMap<>();
+        map = new IntObjectMap<>();
+        // Creates the release date index. Films without a release date are left out of it
+        releaseIndex = new SortedLongIndex();
+        // Creates the text index used by the search
+        textIndex = new TextIndex();
+    }
+
+    /**
+     * Packs a release day and a film id into one key for the release index,
+     * so sorting the keys sorts by day
+     * @param day the release date as an epoch day
+     * @param id the film ID
+     * @return the key
+     */
+    private static long releaseKey(long day, int id) {
+        return (day << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Grows the data structures so that the given number of films can be added
+     * without any resizing. Called before a bulk load
+     * 
+     * @param numFilms The number of films about to be added
+     */
+    @Override
+    public void presize(int numFilms) {
+        hashmap.ensureCapacity(hashmap.size() + numFilms);
+        releaseIndex.ensureCapacity(releaseIndex.size() + numFilms);
     }
 
     /**
@@ -52,15 +83,21 @@ public class Movies implements IMovies{
     @Override
     public boolean add(int id, String title, String originalTitle, String overview, String tagline, String status, Genre[] genres, LocalDate release, long budget, long revenue, String[] languages, String originalLanguage, double runtime, String homepage, boolean adult, boolean video, String poster) {
         
-        // If a movie with this id already exists, returns false
-        if (hashmap.hasKey(id)) {
+        //Creates the movie object
+        Movie movie = new Movie(title, originalTitle, overview, tagline, status, genres, release, budget, revenue, languages, originalLanguage, runtime, homepage, adult, video, poster);
+
+        // Adds the id and movie to the hashmap in one probe
+        // If a movie with this id already exists, it is left alone and false is returned
+        if (hashmap.putIfAbsent(id, movie) != null) {
             return false;
         }
 
-        //Creates the movie object
-        Movie movie = new Movie(title, originalTitle, overview, tagline, status, genres, release, budget, revenue, languages, originalLanguage, runtime, homepage, adult, video, poster);
-        // Adds the id and movie to the hashmap and returns true
-        hashmap.put(id, movie);
+        // Adds the film to the release index if it has a date
+        if (release != null) {
+            releaseIndex.add(releaseKey(release.toEpochDay(), id));
+        }
+        // Adds the searchable text to the text index
+        textIndex.add(id, title, originalTitle, overview);
         return true;
     }
 
@@ -73,12 +110,25 @@ public class Movies implements IMovies{
      */
     @Override
     public boolean remove(int id) {
-        //  Removes the film with the given key and returns true if removed or false if not
-        boolean isRemoved = hashmap.remove(id);
-        if (isRemoved == true) {
-            return true; }
-        else {
+        Movie movie = hashmap.get(id);
+        // If the film is not stored, there is nothing to remove
+        if (movie == null) {
             return false; }
+
+        // Takes the film out of the release index, then out of the hashmap
+        if (movie.getRelease() != null) {
+            releaseIndex.remove(releaseKey(movie.getRelease().toEpochDay(), id));
+        }
+        textIndex.remove(id, movie.getTitle(), movie.getOriginalTitle(), movie.getOverview());
+        // Takes the film out of its collection, and drops the collection once it has no films left
+        Collection collection = movie.getCollection();
+        if (collection != null) {
+            collection.removeFilmID(id);
+            if (collection.getFilmIDs().length == 0) {
+                map.remove(collection.getCollectionID());
+            }
+        }
+        return hashmap.remove(id);
     }
 
     /**
@@ -88,7 +138,7 @@ public class Movies implements IMovies{
      */
     @Override
     public int[] getAllIDs() {
-        // Gives back the array of film IDs using the keyArray() method defined in MyHashMap
+        // Gives back the array of film IDs using the keyArray() method defined in IntObjectMap
         return hashmap.keyArray();
     }
 
@@ -103,39 +153,13 @@ public class Movies implements IMovies{
      */
     @Override
     public int[] getAllIDsReleasedInRange(LocalDate start, LocalDate end) {
-        // Creates an a new array with the maximum length of ids required
-        int [] arr = new int[getAllIDs().length];
+        // Clamps the days so that shifting them into the top half of a long can not overflow
+        long startDay = Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE - 1, start.toEpochDay()));
+        long endDay = Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, end.toEpochDay()));
 
-        //Is a count for the number of ids stored
-        int count = 0;
-
-        // Loops through the array of all of the ids stored
-        for (int id : getAllIDs()) {
-
-            //Gets the release date
-            LocalDate date = hashmap.get(id).getRelease();
-
-            //Checks that this date is after the starting data and before the end date
-            if (date.isAfter(start) == true && date.isBefore(end) == true) {
-                // Stores the id of this date in the array
-                arr[count] = id;
-                // Increments the count
-                count = count + 1;
-            }
-        }
-
-        // This creates a new array with exactly the number of ids needing to be stored
-        // This is done as the previous array is the maximum size of ids and may have wasted space 
-        int [] newArray = new int [count];
-
-        // Copies over each id from the old array to the new one
-        for (int i = 0; i < newArray.length; i++) {
-            newArray[i] = arr[i];
-        }
-
-        // Returns the new array
-        return newArray;
-        
+        // Films on the start or end dates are not included, so the range begins the day after start
+        // and stops before the first key on the end date. Films with no date are never in the index
+        return releaseIndex.lowBitsInRange(releaseKey(startDay + 1, 0), releaseKey(endDay, 0));
     }
 
     /**
@@ -147,12 +171,13 @@ public class Movies implements IMovies{
      */
     @Override
     public String getTitle(int id) {
+        Movie movie = hashmap.get(id);
         //If the film with the given id isn't in the hash map it returns null
-        if (hashmap.get(id) == null) {
+        if (movie == null) {
             return null; }
         // Else it finds the given film, uses .getTitle to get the title and returns it 
         else {
-            return hashmap.get(id).getTitle();
+            return movie.getTitle();
         }
     }
 
@@ -166,12 +191,13 @@ public class Movies implements IMovies{
      */
     @Override
     public String getOriginalTitle(int id) {
+        Movie movie = hashmap.get(id);
         //If the film with the given id isn't in the hash map it returns null
-        if (hashmap.get(id) == null) {
+        if (movie == null) {
             return null; }
         // Else it finds the given film, uses .getOriginalTitle to get the  original title and returns it 
         else {
-            return hashmap.get(id).getOriginalTitle(); 
+            return movie.getOriginalTitle(); 
         }
     }
 
@@ -184,12 +210,13 @@ public class Movies implements IMovies{
      */
     @Override
     public String getOverview(int id) {
+         Movie movie = hashmap.get(id);
          //If the film with the given id isn't in the hash map it returns null
-         if (hashmap.get(id) == null) {
+         if (movie == null) {
             return null; }
         // Else it finds the given film, uses .getOverview to get the overview and returns it 
         else {
-            return hashmap.get(id).getOverview(); 
+            return movie.getOverview(); 
         }
     }
 
@@ -202,12 +229,13 @@ public class Movies implements IMovies{
      */
     @Override
     public String getTagline(int id) {
+        Movie movie = hashmap.get(id);
         //If the film with the given id isn't in the hash map it returns null
-        if (hashmap.get(id) == null) {
+        if (movie == null) {
             return null; }
         // Else it finds the given film, uses .getTagline to get the tagline and returns it 
         else {
-            return hashmap.get(id).getTagline(); 
+            return movie.getTagline(); 
         }
     }
 
@@ -220,12 +248,13 @@ public class Movies implements IMovies{
      */
     @Override
     public String getStatus(int id) {
+        Movie movie = hashmap.get(id);
         //If the film with the given id isn't in the hash map it returns null
-        if (hashmap.get(id) == null) {
+        if (movie == null) {
             return null; }
         // Else it finds the given film, uses .getStatus to get the status and returns it 
         else {
-            return hashmap.get(id).getStatus(); 
+            return movie.getStatus(); 
         }
     }
 
@@ -238,12 +267,13 @@ public class Movies implements IMovies{
      */
     @Override
     public Genre[] getGenres(int id) {
+        Movie movie = hashmap.get(id);
         //If the film with the given id isn't in the hash map it returns null
-        if (hashmap.get(id) == null) {
+        if (movie == null) {
             return null; }
         // Else it finds the given film, uses .getGenres to get the genres and returns them
         else {
-            return hashmap.get(id).getGenres(); 
+            return movie.getGenres(); 
         }
     }
 
@@ -256,12 +286,13 @@ public class Movies implements IMovies{
      */
     @Override
     public LocalDate getRelease(int id) {
+        Movie movie = hashmap.get(id);
         //If the film with the given id isn't in the hash map it returns null
-        if (hashmap.get(id) == null) {
+        if (movie == null) {
             return null; }
         // Else it finds the given film, uses .getRelease to get the release date and returns it 
         else {
-            return hashmap.get(id).getRelease(); 
+            return movie.getRelease(); 
         }
     }
 
@@ -274,12 +305,13 @@ public class Movies implements IMovies{
      */
     @Override
     public long getBudget(int id) {
+        Movie movie = hashmap.get(id);
         //If the film with the given id isn't in the hash map it returns -1
-        if (hashmap.get(id) == null) {
+        if (movie == null) {
             return -1; }
         // Else it finds the given film, uses .getBudget to get the budget and returns it 
         else {
-            return hashmap.get(id).getBudget(); 
+            return movie.getBudget(); 
         }
     }
 
@@ -292,12 +324,13 @@ public class Movies implements IMovies{
      */
     @Override
     public long getRevenue(int id) {
+        Movie movie = hashmap.get(id);
         //If the film with the given id isn't in the hash map it returns -1
-        if (hashmap.get(id) == null) {
+        if (movie == null) {
             return -1; }
         // Else it finds the given film, uses .getRevenue to get the revenue and returns it 
         else {
-            return hashmap.get(id).getRevenue(); 
+            return movie.getRevenue(); 
         }
     }
 
@@ -310,12 +343,13 @@ public class Movies implements IMovies{
      */
     @Override
     public String[] getLanguages(int id) {
+        Movie movie = hashmap.get(id);
         //If the film with the given id isn't in the hash map it returns null
-        if (hashmap.get(id) == null) {
+        if (movie == null) {
             return null; }
         // Else it finds the given film, uses .getLanguages to get the languages and returns them
         else {
-            return hashmap.get(id).getLanguages(); 
+            return movie.getLanguages(); 
         }
     }
 
@@ -329,12 +363,13 @@ public class Movies implements IMovies{
      */
     @Override
     public String getOriginalLanguage(int id) {
+        Movie movie = hashmap.get(id);
         //If the film with the given id isn't in the hash map it returns null
-        if (hashmap.get(id) == null) {
+        if (movie == null) {
             return null; }
         // Else it finds the given film, uses .getOriginalLanguage to get the original language and returns it 
         else {
-            return hashmap.get(id).getOriginalLanguage(); 
+            return movie.getOriginalLanguage(); 
         }
     }
 
@@ -347,12 +382,13 @@ public class Movies implements IMovies{
      */
     @Override
     public double getRuntime(int id) {
+        Movie movie = hashmap.get(id);
         //If the film with the given id isn't in the hash map it returns -1
-        if (hashmap.get(id) == null) {
+        if (movie == null) {
             return -1; }
         // Else it finds the given film, uses .getRuntime to get the runtime and returns it 
         else {
-            return hashmap.get(id).getRuntime(); 
+            return movie.getRuntime(); 
         }
     }
 
@@ -365,12 +401,13 @@ public class Movies implements IMovies{
      */
     @Override
     public String getHomepage(int id) {
+        Movie movie = hashmap.get(id);
         //If the film with the given id isn't in the hash map it returns null
-        if (hashmap.get(id) == null) {
+        if (movie == null) {
             return null; }
         // Else it finds the given film, uses .getHomepage to get the homepage and returns it 
         else {
-            return hashmap.get(id).getHomepage(); 
+            return movie.getHomepage(); 
         }
     }
 
@@ -384,12 +421,13 @@ public class Movies implements IMovies{
      */
     @Override
     public boolean getAdult(int id) {
+        Movie movie = hashmap.get(id);
         //If the film with the given id isn't in the hash map it returns null
-        if (hashmap.get(id) == null) {
+        if (movie == null) {
             return false; }
         // Else it finds the given film, uses .getAdult to get the adult flag and returns it 
         else {
-            return hashmap.get(id).getAdult(); 
+            return movie.getAdult(); 
         }
     }
 
@@ -403,12 +441,13 @@ public class Movies implements IMovies{
      */
     @Override
     public boolean getVideo(int id) {
+        Movie movie = hashmap.get(id);
         //If the film with the given id isn't in the hash map it returns null
-        if (hashmap.get(id) == null) {
+        if (movie == null) {
             return false; }
         // Else it finds the given film, uses .getVideo to get the video flag and returns it 
         else {
-            return hashmap.get(id).getVideo(); 
+            return movie.getVideo(); 
         }
     }
 
@@ -421,12 +460,13 @@ public class Movies implements IMovies{
      */
     @Override
     public String getPoster(int id) {
+        Movie movie = hashmap.get(id);
         //If the film with the given id isn't in the hash map it returns null
-        if (hashmap.get(id) == null) {
+        if (movie == null) {
             return null; }
         // Else it finds the given film, uses .getPoster to get the poster and returns it 
         else {
-            return hashmap.get(id).getPoster(); 
+            return movie.getPoster(); 
         }
     }
 
@@ -467,12 +507,13 @@ public class Movies implements IMovies{
      */
     @Override
     public double getVoteAverage(int id) {
+        Movie movie = hashmap.get(id);
         // If the movie with the given id is not found
-        if (hashmap.get(id) == null){
+        if (movie == null) {
             return -1;}
         // Returns the average score for IMDb reviews
         else {
-            return hashmap.get(id).getVoteAverage();
+            return movie.getVoteAverage();
         }
     }
 
@@ -486,12 +527,13 @@ public class Movies implements IMovies{
      */
     @Override
     public int getVoteCount(int id) {
+        Movie movie = hashmap.get(id);
         // If the movie with the given id is not found
-        if (hashmap.get(id) == null){
+        if (movie == null) {
             return -1;}
         // Returns the number of IMDb reviews
         else {
-            return hashmap.get(id).getVoteCount();
+            return movie.getVoteCount();
         }
     }
 
@@ -510,22 +552,21 @@ public class Movies implements IMovies{
      */
     @Override
     public boolean addToCollection(int filmID, int collectionID, String collectionName, String collectionPosterPath, String collectionBackdropPath) {
-        // // If the filmId does not exist, the filmID is not added
-        if (hashmap.hasKey(filmID) != true) {
+        // If the filmId does not exist, the filmID is not added
+        Movie movie = hashmap.get(filmID);
+        if (movie == null) {
             return false;
         }
 
-        //Creates a new collection object
-        Collection collection = new Collection(collectionID, collectionName, collectionPosterPath, collectionBackdropPath);
+        // Finds the collection, creating it the first time the collection ID is seen
+        // so films added later are kept alongside the earlier ones
+        Collection collection = map.computeIfAbsent(collectionID, key -> new Collection(key, collectionName, collectionPosterPath, collectionBackdropPath));
 
         // Adds the filmID to the collection
         collection.addFilmID(filmID);
 
-        // Adds the collection ID as a key and the Collection object as a value to a hashmap
-        map.put(collectionID, collection);
-
         // Sets the collection as an attrubute to the movie
-        hashmap.get(filmID).setCollection(collection);
+        movie.setCollection(collection);
 
         // Returns true if the data is added
         return true;
@@ -544,12 +585,13 @@ public class Movies implements IMovies{
         // Creates an empty array
         int[] empty = new int[0];
 
+        Collection collection = map.get(collectionID);
         // If the collectionID leads to no movie being found in the map, it returns the empty list
-        if (map.get(collectionID) == null){
+        if (collection == null){
             return empty; }
         // If the collectionID is valid, it returns an array with the filmIDs for that list
         else{
-            return map.get(collectionID).getFilmIDs();
+            return collection.getFilmIDs();
         }
     }
 
@@ -562,12 +604,13 @@ public class Movies implements IMovies{
      */
     @Override
     public String getCollectionName(int collectionID) {
+        Collection collection = map.get(collectionID);
         // If the collection can't be found
-        if (map.get(collectionID) == null){
+        if (collection == null){
             return null; }
         // Otherwise, retrives the name of the collection
         else {
-            return map.get(collectionID).getCollectionName();
+            return collection.getCollectionName();
         }
     }
 
@@ -580,12 +623,13 @@ public class Movies implements IMovies{
      */
     @Override
     public String getCollectionPoster(int collectionID) {
+        Collection collection = map.get(collectionID);
         // If the collection can't be found
-        if (map.get(collectionID) == null){
+        if (collection == null){
             return null; }
         // Otherwise, retrives the poster of the collection
         else {
-            return map.get(collectionID).getCollectionPosterPath();
+            return collection.getCollectionPosterPath();
         }
     }
 
@@ -598,12 +642,13 @@ public class Movies implements IMovies{
      */
     @Override
     public String getCollectionBackdrop(int collectionID) {
+        Collection collection = map.get(collectionID);
         // If the collection can't be found
-        if (map.get(collectionID) == null){
+        if (collection == null){
             return null; }
         // Otherwise, retrives the backdrop of the collection
         else {
-            return map.get(collectionID).getCollectionBackdropPath();
+            return collection.getCollectionBackdropPath();
         }
     }
 
@@ -616,12 +661,13 @@ public class Movies implements IMovies{
      */
     @Override
     public int getCollectionID(int filmID) {
-        // If the requested film cannot be found
-        if (hashmap.hasKey(filmID) == false){
+        Movie movie = hashmap.get(filmID);
+        // If the requested film cannot be found, or it is not in a collection
+        if (movie == null || movie.getCollection() == null) {
             return -1;}
         // Finds the movie with that ID, then gets the relevant Collection object for that movie and then gets the ID of that Collection
         else {
-            return hashmap.get(filmID).getCollection().getCollectionID();
+            return movie.getCollection().getCollectionID();
         }
 
     }
@@ -635,12 +681,13 @@ public class Movies implements IMovies{
      */
     @Override
     public boolean setIMDB(int filmID, String imdbID) {
+        Movie movie = hashmap.get(filmID);
         // If the film with the given ID cannot be found, returns false
-        if (hashmap.hasKey(filmID) == false){
+        if (movie == null) {
             return false;}
         // Otherwise, sets the given imdbID to the film and returns true
         else {
-            hashmap.get(filmID).setimdbID(imdbID);
+            movie.setimdbID(imdbID);
             return true;
         }
     }
@@ -654,12 +701,13 @@ public class Movies implements IMovies{
      */
     @Override
     public String getIMDB(int filmID) {
+        Movie movie = hashmap.get(filmID);
         // If the film with the given ID cannot be found, returns false
-        if (hashmap.hasKey(filmID) == false){
+        if (movie == null) {
             return null;}
         // Returns the imdbID as a string for the given film
         else {
-            return hashmap.get(filmID).getimdbID();
+            return movie.getimdbID();
         }
     }
 
@@ -672,13 +720,14 @@ public class Movies implements IMovies{
      */
     @Override
     public boolean setPopularity(int id, double popularity) {
+        Movie movie = hashmap.get(id);
         //Checks if the movie exists
-        if (hashmap.hasKey(id) == false) {
+        if (movie == null) {
             return false; }
         // Sets the popularity
         // As this is done with classes, if there is a previously existing value it is already updated
         else {
-            hashmap.get(id).setPopularity(popularity);
+            movie.setPopularity(popularity);
             return true;
         } 
     }
@@ -692,14 +741,15 @@ public class Movies implements IMovies{
      */
     @Override
     public double getPopularity(int id) {
+        Movie movie = hashmap.get(id);
         // If the film cannot be found
-        if (hashmap.hasKey(id) == false) {
+        if (movie == null) {
             return -1.0; }
         // If the film can be found
         // Uses a flag in the Movie class which is updated when a value has been set
         // If the value is set, it is returned, otherwise 0.0 is given
         else {
-            return hashmap.get(id).getPopularity();
+            return movie.getPopularity();
         }
         
     }
@@ -714,12 +764,13 @@ public class Movies implements IMovies{
      */
     @Override
     public boolean addProductionCompany(int id, Company company) {
+        Movie movie = hashmap.get(id);
         // Checks that the given film exists and if it doesn't, returns false
-        if (hashmap.hasKey(id) == false) {
+        if (movie == null) {
             return false; }
         // Otherwise adds the company and returns true
         else {
-            hashmap.get(id).addProdCompany(company);
+            movie.addProdCompany(company);
             return true;
         }
         
@@ -734,12 +785,13 @@ public class Movies implements IMovies{
      */
     @Override
     public boolean addProductionCountry(int id, String country) {
+        Movie movie = hashmap.get(id);
         // Checks that the given film exists and if it doesn't, returns false
-        if (hashmap.hasKey(id) == false) {
+        if (movie == null) {
             return false; }
         // Otherwise adds the country and returns true
         else {
-            hashmap.get(id).addProdCountry(country);;
+            movie.addProdCountry(country);;
             return true;
         }
     }
@@ -754,12 +806,13 @@ public class Movies implements IMovies{
      */
     @Override
     public Company[] getProductionCompanies(int id) {
+        Movie movie = hashmap.get(id);
         // Checks that the given film exists and if it doesn't, returns null
-        if (hashmap.hasKey(id) == false) {
+        if (movie == null) {
             return null; }
         // Otherwise, gives an array of all of the companies
         else {
-            return hashmap.get(id).getCompanies();
+            return movie.getCompanies();
         }
     }
 
@@ -773,12 +826,13 @@ public class Movies implements IMovies{
      */
     @Override
     public String[] getProductionCountries(int id) {
+        Movie movie = hashmap.get(id);
         // Checks that the given film exists and if it doesn't, returns null
-        if (hashmap.hasKey(id) == false) {
+        if (movie == null) {
             return null; }
         // Otherwise, gives an array of all of the countries
         else {
-            return hashmap.get(id).getCountries();
+            return movie.getCountries();
         }
     }
 
@@ -794,7 +848,7 @@ public class Movies implements IMovies{
 
     /**
      * Produces a list of movie IDs that have the search term in their title,
-     * original title or their overview
+     * original title or their overview. Upper and lower case letters match each other
      * 
      * @param searchTerm The term that needs to be checked
      * @return An array of movie IDs that have the search term in their title,
@@ -803,36 +857,100 @@ public class Movies implements IMovies{
      */
     @Override
     public int[] findFilms(String searchTerm) {
+        return findFilms(searchTerm, new int[0], Integer.MAX_VALUE);
+    }
 
-        // To count the number of keys actually added
-        int count = 0;
+    /**
+     * Finds films with the search term in their title, original title or overview,
+     * stopping once enough have been found. Upper and lower case letters match each other
+     *
+     * @param searchTerm The term that needs to be checked
+     * @param skip       Films to leave out, for example ones already shown
+     * @param maxResults The most films to give back
+     * @return Up to maxResults movie IDs, none of them in skip
+     */
+    @Override
+    public int[] findFilms(String searchTerm, int[] skip, int maxResults) {
+        IntIntMap skipped = new IntIntMap(skip.length);
+        for (int id : skip) {
+            skipped.put(id, 1);
+        }
+        // The search ignores case
+        String folded = TextIndex.fold(searchTerm);
 
-        // To make an empty array
-        int[] newArr;
+        // Asks the text index for the films that could match
+        int[] candidates = textIndex.candidates(folded);
 
-        // The array of all of the keys
-        int[] allKeys = hashmap.keyArray();
+        // The index can not help with an empty search, or a very short one with spaces or
+        // punctuation in it, so every film is checked
+        if (candidates == null) {
+            candidates = hashmap.keyArray();
+        }
 
-        // Makes an array to store the keys linked to the movies with the required search term
+        // Makes an array to store the ids with the required search term
         // Makes this the maximum length it could be
-        int [] IDsWanted = new int[allKeys.length];
-
-        for (int i=0; i < allKeys.length; i++){
-            // Gets the movie associated with each key
-            Movie movie = hashmap.get(allKeys[i]);
-            // Checks if the search term is in any 
-            if (movie.getTitle().contains(searchTerm) || movie.getOriginalTitle().contains(searchTerm) || movie.getOverview().contains(searchTerm)) {
-                IDsWanted[count] = allKeys[i];
+        int[] IDsWanted = new int[Math.min(candidates.length, maxResults)];
+        int count = 0;
+
+        // Checks the real text of each candidate, until there are enough
+        for (int id : candidates) {
+            if (count == IDsWanted.length) {
+                break;
+            }
+            if (skipped.hasKey(id)) {
+                continue;
+            }
+            Movie movie = hashmap.get(id);
+            if (TextIndex.containsFolded(movie.getTitle(), folded) || TextIndex.containsFolded(movie.getOriginalTitle(), folded) || TextIndex.containsFolded(movie.getOverview(), folded)) {
+                IDsWanted[count] = id;
                 count++;
             }
         }
 
         // Makes the an array thats the length of the number of keys added
-        newArr = new int[count];
-        for (int i=0; i < newArr.length; i++) {
-            newArr[i] = IDsWanted[i];
+        int[] newArr = new int[count];
+        System.arraycopy(IDsWanted, 0, newArr, 0, count);
+        return newArr;
+    }
+
+    /**
+     * Searches for films by the words in their title, original title or overview.
+     * Each word of the query has to match a whole word of the film, ignoring case
+     * 
+     * @param query    The words to search for
+     * @param matchAll TRUE if a film must have every word, FALSE if any one word is enough
+     * @return The matching films, handed out with the most words matched first, then
+     *         the most popular
+     */
+    @Override
+    public RankedIds searchFilms(String query, boolean matchAll) {
+        String[] terms = TextIndex.queryTerms(query);
+        int[] ids;
+        int[] matches;
+
+        if (matchAll) {
+            // Intersects the posting lists of every word, so every film has matched all of them
+            ids = textIndex.matchAll(terms);
+            matches = new int[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                matches[i] = terms.length;
+            }
+        }
+        else {
+            // Counts how many of the words each film has
+            IntIntMap counts = textIndex.matchAny(terms);
+            ids = counts.keyArray();
+            matches = new int[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                matches[i] = counts.getOrDefault(ids[i], 0);
+            }
         }
 
-        return newArr;
+        // Ranks by popularity after the number of words matched
+        double[] popularity = new double[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            popularity[i] = hashmap.get(ids[i]).getPopularity();
+        }
+        return new RankedIds(ids, matches, popularity, ids.length);
     }
 }
@@ -1,5 +1,7 @@
 package stores;
 
+import java.util.Objects;
+
 import interfaces.IPerson;
 
 public class Person implements IPerson{
@@ -20,4 +22,11 @@ public class Person implements IPerson{
     public String getProfilePath() {
         return profilePath;
     }
+
+    /**
+     * @return true if the other person has the same id, name and profile path
+     */
+    public boolean sameAs(Person other) {
+        return id == other.id && Objects.equals(name, other.name) && Objects.equals(profilePath, other.profilePath);
+    }
 }
@@ -1,26 +1,137 @@
 package stores;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
 
 import interfaces.IRatings;
 import structures.*;
 
+/**
+ * The ratings store. Every user and every movie gets a row number, and the
+ * ratings are kept in two compressed sparse row (CSR) indexes made only of
+ * primitive arrays:
+ *  - by user: the ratings of user row u sit next to each other at
+ *    [userOffsets[u], userOffsets[u + 1]) in userMovies/userRatings,
+ *    sorted by movie row so one rating can be found by binary search
+ *  - by movie: the same for movie row m in movieUsers/movieRatings, sorted by
+ *    user row, with movieEntries pointing back at the rating in the user arrays
+ *
+ * The rating is kept in both, so reading a whole row on either side is one
+ * sequential pass over two arrays.
+ *
+ * The CSR arrays are only ever rebuilt whole. New ratings go into a delta buffer
+ * first, chained per user and per movie so reads can see them straight away, and
+ * are merged in by compact() once the buffer is big enough compared to the base.
+ * A bulk load is therefore a run of appends followed by one build. Removed base
+ * ratings are marked with REMOVED until the next build drops them.
+ *
+ * Each build also sorts the base by time, as epoch seconds, for the queries over
+ * a window of time: each movie row is copied out oldest first, and every rating
+ * goes into a B+-tree of (time, position) pairs for windows over all movies.
+ *
+ * The base is packed to keep a full history in a small heap. Ratings are a byte
+ * each in a RatingColumn, and the only copy of the base times is the oldest first
+ * movie rows, stored as varint coded differences and read back with a cursor.
+ *
+ * Every public method holds the store's lock, readers included, as reads may
+ * compact the base or work out similar films before they answer. A batch from
+ * RatingsIngest is applied under the same lock, so a reader on another thread
+ * waits for at most one batch and never sees one half applied.
+ */
 public class Ratings implements IRatings {
     Stores stores;
-    // The tree for userids
-    private MyAVLtree<Integer, Rating> uTree;
-    // The tree for movie ids
-    private MyAVLtree<Integer, Rating> mTree;
-    // The hashmaps for users and movies
-    private MyHashMap<Integer, MyAVLtree<Integer, Rating>> userMap;
-    private MyHashMap<Integer, MyAVLtree<Integer, Rating>> movieMap;
 
-    // The binary search tree 
-    private BinaryTree<Integer, Rating> moviesTree;
-    private BinaryTree<Integer, Rating> usersTree;
-    private MyHashMap<Integer, BinaryTree<Integer, Rating>> mMap;
-    private MyHashMap<Integer, BinaryTree<Integer, Rating>> uMap;
+    private static final int initial_cap = 16;
+    // The smallest delta buffer worth merging into the base arrays
+    private static final int min_delta = 1024;
+    // Stored in place of the rating once it has been removed
+    private static final float REMOVED = Float.NaN;
+    // Stored in place of the time when a rating has none
+    private static final long NO_TIME = Long.MIN_VALUE;
 
+    // User ids to rows and back
+    private IntIntMap userRows;
+    private int[] userIds;
+    private int numUsers;
+    // Movie ids to rows and back
+    private IntIntMap movieRows;
+    private int[] movieIds;
+    private int numMovies;
+    // The number of ratings each row has, delta included
+    private int[] userCounts;
+    private int[] movieCounts;
+    // The running sum and sum of squares of each row's ratings, so averages and
+    // variances never walk the row. Rebuilt exactly by every compact
+    private double[] userSums;
+    private double[] userSquares;
+    private double[] movieSums;
+    private double[] movieSquares;
+    // Rows with at least one rating, ranked for the top N lists and moved on every change
+    private Leaderboard mostRatedUsers;
+    private Leaderboard mostRatedMovies;
+    // Approximate counts that take the place of the two most rated boards when
+    // switched on, null otherwise. The boards are null while these are in use
+    private HeavyHitters approxUsers;
+    private HeavyHitters approxMovies;
+    private Leaderboard topAverageMovies;
+    // Bumped every time a movie row's ratings change, and the number of bumps so far,
+    // so results cached per movie can tell when they are stale
+    private int[] movieVersions;
+    private long movieChanges;
+    // The neighbours of each film, built on the first query
+    private MovieSimilarity similarMovies;
+
+    // The base index by user
+    private int baseUsers;
+    private int[] userOffsets;
+    private int[] userMovies;
+    private RatingColumn userRatings;
+
+    // The base index by movie
+    private int baseMovies;
+    private int[] movieOffsets;
+    private int[] movieUsers;
+    private RatingColumn movieRatings;
+    private int[] movieEntries;
+
+    // The number of entries in the base, removed ones included
+    private int baseSize;
+
+    // Each base movie row again, oldest first, at the same offsets as movieOffsets:
+    // the position of the rating in the user arrays, and its time in seconds since
+    // the epoch in UTC. The times of movie row m are coded differences at
+    // [movieTimeStarts[m], movieTimeStarts[m + 1]) in movieTimeBytes
+    private int[] movieTimeEntries;
+    private int[] movieTimeStarts;
+    private byte[] movieTimeBytes;
+    // Reset onto a row of times each time one is read
+    private VarLongCursor timeCursor;
+    // Every base rating that has a time, as (time, position in the user arrays)
+    private BPlusTree timeIndex;
+    // The latest time of any rating, NO_TIME if there is none
+    private long latestTime;
+
+    // The delta buffer, one entry per rating added since the last build
+    private int deltaSize;
+    private int[] deltaUser;
+    private int[] deltaMovie;
+    private float[] deltaRating;
+    private long[] deltaTime;
+    // The next entry for the same user/movie, newest first, -1 at the end
+    private int[] deltaNextByUser;
+    private int[] deltaNextByMovie;
+    // The newest delta entry of each row, -1 if it has none
+    private int[] userDeltaHead;
+    private int[] movieDeltaHead;
+    // (user id, movie id) to the delta entry holding it
+    private LongIntMap deltaIndex;
+
+    // The number of ratings stored
+    private int size;
+
+    // The number of neighbours kept for each film
+    private static final int similar_k = 20;
 
     /**
      * The constructor for the Ratings data store. This is where you should
@@ -30,23 +141,573 @@ public class Ratings implements IRatings {
      */
     public Ratings(Stores stores) {
         this.stores = stores;
-        //Create the trees and hashmaps 
-        uTree = new MyAVLtree<>();
-        mTree = new MyAVLtree<>();
-        userMap = new MyHashMap<>();
-        movieMap = new MyHashMap<>();
 
-        moviesTree = new BinaryTree<>();
-        usersTree = new BinaryTree<>();
-        mMap = new MyHashMap<>();
-        uMap = new MyHashMap<>();
+        userRows = new IntIntMap();
+        userIds = new int[initial_cap];
+        userCounts = new int[initial_cap];
+        userSums = new double[initial_cap];
+        userSquares = new double[initial_cap];
+        userDeltaHead = new int[initial_cap];
+        movieRows = new IntIntMap();
+        movieIds = new int[initial_cap];
+        movieCounts = new int[initial_cap];
+        movieSums = new double[initial_cap];
+        movieSquares = new double[initial_cap];
+        movieDeltaHead = new int[initial_cap];
+        movieVersions = new int[initial_cap];
+        mostRatedUsers = new Leaderboard();
+        mostRatedMovies = new Leaderboard();
+        topAverageMovies = new Leaderboard();
+
+        // Starts with an empty base
+        userOffsets = new int[1];
+        userMovies = new int[0];
+        userRatings = new RatingColumn(0);
+        movieOffsets = new int[1];
+        movieUsers = new int[0];
+        movieRatings = new RatingColumn(0);
+        movieEntries = new int[0];
+        movieTimeEntries = new int[0];
+        movieTimeStarts = new int[1];
+        movieTimeBytes = new byte[0];
+        timeCursor = new VarLongCursor();
+        timeIndex = new BPlusTree();
+        latestTime = NO_TIME;
+
+        deltaUser = new int[initial_cap];
+        deltaMovie = new int[initial_cap];
+        deltaRating = new float[initial_cap];
+        deltaTime = new long[initial_cap];
+        deltaNextByUser = new int[initial_cap];
+        deltaNextByMovie = new int[initial_cap];
+        deltaIndex = new LongIntMap();
+    }
 
+    /**
+     * Grows the data structures ahead of a bulk load of ratings. The whole load
+     * goes into the delta buffer and is built into the base on the first read.
+     * Every rated film is in the movies store, so the movie rows are sized from
+     * that. The number of distinct users is not known up front, so the user rows
+     * are left to grow
+     *
+     * @param numRatings The number of ratings about to be added
+     */
+    @Override
+    public synchronized void presize(int numRatings) {
+        growDelta(deltaSize + numRatings);
+        deltaIndex.ensureCapacity(deltaSize + numRatings);
+        movieRows.ensureCapacity(Math.min(numRatings, stores.getMovies().size()));
+    }
+
+    //==========================================================================================================================
+    // Rows, the delta buffer and building the base
+
+    private static long pairKey(int userID, int movieID) {
+        return ((long) userID << 32) | (movieID & 0xFFFFFFFFL);
+    }
+
+    private static long toSeconds(LocalDateTime timestamp) {
+        return (timestamp == null) ? NO_TIME : timestamp.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Finds the row of a user, giving the user a new row the first time they are seen
+     */
+    private int userRow(int userID) {
+        int row = userRows.getOrDefault(userID, -1);
+        if (row >= 0) {
+            return row;
+        }
+        if (numUsers == userIds.length) {
+            int cap = numUsers * 2;
+            userIds = copy(userIds, cap);
+            userCounts = copy(userCounts, cap);
+            userSums = copy(userSums, cap);
+            userSquares = copy(userSquares, cap);
+            userDeltaHead = copy(userDeltaHead, cap);
+        }
+        row = numUsers;
+        userIds[row] = userID;
+        userCounts[row] = 0;
+        userSums[row] = 0;
+        userSquares[row] = 0;
+        userDeltaHead[row] = -1;
+        userRows.put(userID, row);
+        numUsers = numUsers + 1;
+        return row;
+    }
+
+    /**
+     * Finds the row of a movie, giving the movie a new row the first time it is seen
+     */
+    private int movieRow(int movieID) {
+        int row = movieRows.getOrDefault(movieID, -1);
+        if (row >= 0) {
+            return row;
+        }
+        if (numMovies == movieIds.length) {
+            int cap = numMovies * 2;
+            movieIds = copy(movieIds, cap);
+            movieCounts = copy(movieCounts, cap);
+            movieSums = copy(movieSums, cap);
+            movieSquares = copy(movieSquares, cap);
+            movieDeltaHead = copy(movieDeltaHead, cap);
+            movieVersions = copy(movieVersions, cap);
+        }
+        row = numMovies;
+        movieIds[row] = movieID;
+        movieCounts[row] = 0;
+        movieSums[row] = 0;
+        movieSquares[row] = 0;
+        movieDeltaHead[row] = -1;
+        movieRows.put(movieID, row);
+        numMovies = numMovies + 1;
+        return row;
+    }
+
+    private static int[] copy(int[] arr, int length) {
+        int[] newArr = new int[length];
+        System.arraycopy(arr, 0, newArr, 0, Math.min(arr.length, length));
+        return newArr;
+    }
+
+    private static double[] copy(double[] arr, int length) {
+        double[] newArr = new double[length];
+        System.arraycopy(arr, 0, newArr, 0, Math.min(arr.length, length));
+        return newArr;
+    }
+
+    /**
+     * Adds a rating to the running totals of its user and movie rows. A rating is
+     * taken back out by passing its old value with a sign of -1
+     */
+    private void addToTotals(int u, int m, float rating, int sign) {
+        double r = rating;
+        userCounts[u] += sign;
+        userSums[u] += sign * r;
+        userSquares[u] += sign * r * r;
+        movieCounts[m] += sign;
+        movieSums[m] += sign * r;
+        movieSquares[m] += sign * r * r;
+    }
+
+    /**
+     * Moves a user and a movie to their new places on the leaderboards after their
+     * totals changed. Rows left with no ratings come off the boards
+     */
+    private void reposition(int u, int m) {
+        repositionUser(u);
+        repositionMovie(m);
+    }
+
+    private void repositionUser(int u) {
+        if (approxUsers != null) {
+            return;
+        }
+        if (userCounts[u] > 0) {
+            mostRatedUsers.set(userIds[u], userCounts[u]);
+        }
+        else {
+            mostRatedUsers.remove(userIds[u]);
+        }
+    }
+
+    private void repositionMovie(int m) {
+        movieVersions[m] = movieVersions[m] + 1;
+        movieChanges = movieChanges + 1;
+        if (movieCounts[m] > 0) {
+            if (approxMovies == null) {
+                mostRatedMovies.set(movieIds[m], movieCounts[m]);
+            }
+            topAverageMovies.set(movieIds[m], movieSums[m] / movieCounts[m]);
+        }
+        else {
+            if (approxMovies == null) {
+                mostRatedMovies.remove(movieIds[m]);
+            }
+            topAverageMovies.remove(movieIds[m]);
+        }
+    }
+
+    /**
+     * Passes a rating added (sign 1) or removed (sign -1) on to the approximate
+     * counts, if they are switched on
+     */
+    private void countApproximately(int u, int m, int sign) {
+        if (approxUsers != null) {
+            approxUsers.add(userIds[u], sign);
+            approxMovies.add(movieIds[m], sign);
+            // The table can overcount, so rows known to have no ratings left are taken out
+            if (userCounts[u] == 0) {
+                approxUsers.remove(userIds[u]);
+            }
+            if (movieCounts[m] == 0) {
+                approxMovies.remove(movieIds[m]);
+            }
+        }
+    }
+
+    /**
+     * Grows the delta arrays so they can hold the given number of entries
+     */
+    private void growDelta(int needed) {
+        if (needed <= deltaUser.length) {
+            return;
+        }
+        resizeDelta(Math.max(needed, deltaUser.length * 2));
+    }
+
+    /**
+     * Moves the delta entries into arrays of the given length, at least deltaSize
+     */
+    private void resizeDelta(int cap) {
+        deltaUser = copy(deltaUser, cap);
+        deltaMovie = copy(deltaMovie, cap);
+        deltaNextByUser = copy(deltaNextByUser, cap);
+        deltaNextByMovie = copy(deltaNextByMovie, cap);
+        float[] ratings = new float[cap];
+        System.arraycopy(deltaRating, 0, ratings, 0, deltaSize);
+        deltaRating = ratings;
+        long[] times = new long[cap];
+        System.arraycopy(deltaTime, 0, times, 0, deltaSize);
+        deltaTime = times;
+    }
+
+    /**
+     * Finds where a rating is stored
+     * @return the position in the base user arrays (0 or more), -2 - the position
+     *         in the delta buffer, or -1 if the user has not rated the movie
+     */
+    private int find(int userID, int movieID) {
+        int d = deltaIndex.getOrDefault(pairKey(userID, movieID), -1);
+        if (d >= 0) {
+            return -2 - d;
+        }
+        int u = userRows.getOrDefault(userID, -1);
+        int m = movieRows.getOrDefault(movieID, -1);
+        if (u < 0 || m < 0 || u >= baseUsers) {
+            return -1;
+        }
+        // The row is sorted by movie row, so a binary search finds the rating
+        int low = userOffsets[u];
+        int high = userOffsets[u + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (userMovies[mid] < m) {
+                low = mid + 1;
+            }
+            else if (userMovies[mid] > m) {
+                high = mid - 1;
+            }
+            else {
+                return Float.isNaN(userRatings.get(mid)) ? -1 : mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the copy of a base rating in the movie index
+     * @param p the position of the rating in the user arrays
+     * @param u the user row of the rating
+     * @return the position in the movie arrays
+     */
+    private int moviePosition(int p, int u) {
+        int m = userMovies[p];
+        // The row is sorted by user row
+        int low = movieOffsets[m];
+        int high = movieOffsets[m + 1] - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (movieUsers[mid] < u) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
     }
 
+    /**
+     * Merges the delta buffer into the base if it has grown big enough. Called at the
+     * start of every read, so the cost of a build is spread over the adds that caused it
+     */
+    void compactIfNeeded() {
+        if (deltaSize > Math.max(min_delta, baseSize >> 3)) {
+            compact();
+        }
+    }
+
+    /**
+     * Rebuilds both base indexes from every live rating, leaving the delta buffer empty.
+     * Uses counting sorts, so the whole build is O(ratings + users + movies)
+     */
+    private void compact() {
+        int n = size;
+        int[] eUser = new int[n];
+        int[] eMovie = new int[n];
+        float[] eRating = new float[n];
+        long[] eTime = new long[n];
+        int count = 0;
+
+        // Takes the live ratings out of the base
+        long[] baseTimes = baseTimes();
+        for (int u = 0; u < baseUsers; u++) {
+            for (int p = userOffsets[u]; p < userOffsets[u + 1]; p++) {
+                float rating = userRatings.get(p);
+                if (!Float.isNaN(rating)) {
+                    eUser[count] = u;
+                    eMovie[count] = userMovies[p];
+                    eRating[count] = rating;
+                    eTime[count] = baseTimes[p];
+                    count = count + 1;
+                }
+            }
+        }
+        // And out of the delta buffer
+        for (int d = 0; d < deltaSize; d++) {
+            if (!Float.isNaN(deltaRating[d])) {
+                eUser[count] = deltaUser[d];
+                eMovie[count] = deltaMovie[d];
+                eRating[count] = deltaRating[d];
+                eTime[count] = deltaTime[d];
+                count = count + 1;
+            }
+        }
+
+        // Sums every row again from scratch, so rounding from many adds and removes does not build up
+        for (int u = 0; u < numUsers; u++) {
+            userCounts[u] = 0;
+            userSums[u] = 0;
+            userSquares[u] = 0;
+        }
+        for (int m = 0; m < numMovies; m++) {
+            movieCounts[m] = 0;
+            movieSums[m] = 0;
+            movieSquares[m] = 0;
+        }
+        for (int e = 0; e < n; e++) {
+            addToTotals(eUser[e], eMovie[e], eRating[e], 1);
+        }
+        // The exact sums can move an average by a rounding error, the counts are unchanged
+        for (int m = 0; m < numMovies; m++) {
+            if (movieCounts[m] > 0) {
+                topAverageMovies.set(movieIds[m], movieSums[m] / movieCounts[m]);
+            }
+        }
+
+        // Orders by movie row, then (keeping that order within each user) by user row
+        int[] byMovie = countingSort(eMovie, null, n, numMovies, null);
+        int[] newUserOffsets = new int[numUsers + 1];
+        int[] byUser = countingSort(eUser, byMovie, n, numUsers, newUserOffsets);
+
+        userOffsets = newUserOffsets;
+        userMovies = new int[n];
+        userRatings = new RatingColumn(n);
+        // Only kept for the rest of the build, the times are stored coded below
+        long[] times = new long[n];
+        int[] entryUser = new int[n];
+        for (int p = 0; p < n; p++) {
+            int e = byUser[p];
+            userMovies[p] = eMovie[e];
+            userRatings.set(p, eRating[e]);
+            times[p] = eTime[e];
+            entryUser[p] = eUser[e];
+        }
+
+        // The movie index walks the user index in order, so each movie row ends up sorted by user row
+        movieOffsets = new int[numMovies + 1];
+        movieEntries = countingSort(userMovies, null, n, numMovies, movieOffsets);
+        movieUsers = new int[n];
+        movieRatings = new RatingColumn(n);
+        for (int q = 0; q < n; q++) {
+            movieUsers[q] = entryUser[movieEntries[q]];
+            movieRatings.set(q, userRatings.get(movieEntries[q]));
+        }
+
+        baseUsers = numUsers;
+        baseMovies = numMovies;
+        baseSize = n;
+
+        // The time indexes. A stable sort by time keeps the positions in order within each second
+        int[] byTime = sortByTime(times, n);
+        movieTimeEntries = countingSort(userMovies, byTime, n, numMovies, null);
+        // The entry arrays are finished with, so eTime holds the times in movie row order
+        for (int q = 0; q < n; q++) {
+            eTime[q] = times[movieTimeEntries[q]];
+        }
+        codeMovieTimes(eTime);
+        // Ratings with no time sort first and are left out of the tree
+        int first = 0;
+        while (first < n && times[byTime[first]] == NO_TIME) {
+            first = first + 1;
+        }
+        long[] treeTimes = new long[n - first];
+        int[] treePositions = new int[n - first];
+        for (int i = first; i < n; i++) {
+            treeTimes[i - first] = times[byTime[i]];
+            treePositions[i - first] = byTime[i];
+        }
+        timeIndex.bulkLoad(treeTimes, treePositions, n - first);
+        latestTime = (n > first) ? treeTimes[n - first - 1] : NO_TIME;
+
+        // Empties the delta buffer, giving back the room a bulk load left it with
+        deltaSize = 0;
+        int threshold = Math.max(min_delta, n >> 3);
+        if (deltaUser.length > 2 * threshold) {
+            resizeDelta(threshold);
+        }
+        deltaIndex = new LongIntMap();
+        for (int u = 0; u < numUsers; u++) {
+            userDeltaHead[u] = -1;
+        }
+        for (int m = 0; m < numMovies; m++) {
+            movieDeltaHead[m] = -1;
+        }
+    }
+
+    /**
+     * Codes the times of each movie row, oldest first, as differences from the time before
+     * @param times the times in the order of movieTimeEntries
+     */
+    private void codeMovieTimes(long[] times) {
+        movieTimeStarts = new int[numMovies + 1];
+        int length = 0;
+        for (int m = 0; m < numMovies; m++) {
+            long previous = 0;
+            for (int q = movieOffsets[m]; q < movieOffsets[m + 1]; q++) {
+                length = length + VarLongCursor.length(times[q] - previous);
+                previous = times[q];
+            }
+            movieTimeStarts[m + 1] = length;
+        }
+        movieTimeBytes = new byte[length];
+        int pos = 0;
+        for (int m = 0; m < numMovies; m++) {
+            long previous = 0;
+            for (int q = movieOffsets[m]; q < movieOffsets[m + 1]; q++) {
+                long time = times[q];
+                pos = VarLongCursor.write(movieTimeBytes, pos, time - previous);
+                previous = time;
+            }
+        }
+    }
+
+    /**
+     * Decodes the time of every base rating
+     * @return the time of each position in the user arrays
+     */
+    private long[] baseTimes() {
+        long[] times = new long[baseSize];
+        for (int m = 0; m < baseMovies; m++) {
+            timeCursor.reset(movieTimeBytes, movieTimeStarts[m], movieTimeStarts[m + 1]);
+            for (int q = movieOffsets[m]; q < movieOffsets[m + 1]; q++) {
+                times[movieTimeEntries[q]] = timeCursor.next();
+            }
+        }
+        return times;
+    }
+
+    /**
+     * Decodes the time of one base rating by reading along its movie row
+     * @param p the position of the rating in the user arrays
+     */
+    private long baseTime(int p) {
+        int m = userMovies[p];
+        timeCursor.reset(movieTimeBytes, movieTimeStarts[m], movieTimeStarts[m + 1]);
+        for (int q = movieOffsets[m]; q < movieOffsets[m + 1]; q++) {
+            long time = timeCursor.next();
+            if (movieTimeEntries[q] == p) {
+                return time;
+            }
+        }
+        return NO_TIME;
+    }
+
+    /**
+     * A stable radix sort of positions by time, 16 bits a pass. Times are taken
+     * from the smallest one, so only as many passes are made as the spread of the
+     * times needs
+     * @param times the time of each position
+     * @param n the number of positions
+     * @return the positions, oldest first
+     */
+    private static int[] sortByTime(long[] times, int n) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        if (n == 0) {
+            return order;
+        }
+        long min = times[0];
+        long max = times[0];
+        for (int i = 1; i < n; i++) {
+            min = Math.min(min, times[i]);
+            max = Math.max(max, times[i]);
+        }
+        // max - min may not fit in a signed long, but read as unsigned it is exact
+        long spread = max - min;
+
+        int[] next = new int[n];
+        int[] counts = new int[(1 << 16) + 1];
+        for (int shift = 0; shift < 64 && (spread >>> shift) != 0; shift += 16) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++) {
+                counts[(int) (((times[i] - min) >>> shift) & 0xFFFF) + 1]++;
+            }
+            for (int d = 0; d < (1 << 16); d++) {
+                counts[d + 1] = counts[d + 1] + counts[d];
+            }
+            for (int i = 0; i < n; i++) {
+                int e = order[i];
+                int digit = (int) (((times[e] - min) >>> shift) & 0xFFFF);
+                next[counts[digit]] = e;
+                counts[digit] = counts[digit] + 1;
+            }
+            int[] swap = order;
+            order = next;
+            next = swap;
+        }
+        return order;
+    }
+
+    /**
+     * A stable counting sort of entries by a row number
+     * @param rows the row of each entry
+     * @param order the order to read the entries in, or null for 0, 1, 2, ...
+     * @param n the number of entries
+     * @param numRows the number of rows
+     * @param offsets if not null, filled with the start of each row and n at the end
+     * @return the entries in row order
+     */
+    private static int[] countingSort(int[] rows, int[] order, int n, int numRows, int[] offsets) {
+        int[] starts = (offsets != null) ? offsets : new int[numRows + 1];
+        for (int i = 0; i < n; i++) {
+            starts[rows[i] + 1]++;
+        }
+        for (int r = 0; r < numRows; r++) {
+            starts[r + 1] = starts[r + 1] + starts[r];
+        }
+        int[] next = new int[numRows];
+        System.arraycopy(starts, 0, next, 0, numRows);
+        int[] sorted = new int[n];
+        for (int i = 0; i < n; i++) {
+            int e = (order == null) ? i : order[i];
+            int r = rows[e];
+            sorted[next[r]] = e;
+            next[r] = next[r] + 1;
+        }
+        return sorted;
+    }
+
+    //==========================================================================================================================
+
     /**
      * Adds a rating to the data structure. The rating is made unique by its user ID
      * and its movie ID
-     * 
+     *
      * @param userID    The user ID
      * @param movieID   The movie ID
      * @param rating    The rating gave to the film by this user (between 0 and 5
@@ -55,64 +716,124 @@ public class Ratings implements IRatings {
      * @return TRUE if the data able to be added, FALSE otherwise
      */
     @Override
-    public boolean add(int userid, int movieid, float rating, LocalDateTime timestamp) {
-        // If the userid/movieid is already in the hash map
-        // if (userMap.hasKey(userid) || movieMap.hasKey(movieid)){
-        //     return false;
-        // }
-
-        if (mMap.hasKey(movieid) || uMap.hasKey(userid)) {
+    public synchronized boolean add(int userid, int movieid, float rating, LocalDateTime timestamp) {
+        int d = append(userid, movieid, rating, toSeconds(timestamp));
+        if (d < 0) {
             return false;
         }
+        reposition(deltaUser[d], deltaMovie[d]);
+        return true;
+    }
 
-        Rating rate = new Rating(rating, timestamp);
-
-        // // Inserts the rating as nodes in the rating tree and movie tree
-        // uTree.insert(movieid, rate);
-        // mTree.insert(userid, rate);
-
-        // // Adds both of these to the hash map
-        // userMap.put(userid, uTree);
-        // movieMap.put(movieid, mTree);
+    /**
+     * Adds a batch of ratings to the data structure. Ratings already in the store,
+     * or repeated within the batch, are skipped. The leaderboards are only updated
+     * once per user and movie in the batch, and the indexes are built on the next
+     * read, so a batch costs little more than appending it
+     *
+     * @param users        The user ID of each rating
+     * @param movies       The movie ID of each rating
+     * @param ratings      The ratings (between 0 and 5 inclusive)
+     * @param epochSeconds The time of each rating in seconds since the epoch (UTC),
+     *                     or null if the ratings have no times
+     * @param len          The number of ratings used in the arrays
+     * @return The number of ratings added
+     */
+    @Override
+    public synchronized int addAll(int[] users, int[] movies, float[] ratings, long[] epochSeconds, int len) {
+        growDelta(deltaSize + len);
+        deltaIndex.ensureCapacity(deltaSize + len);
+        // The rows the batch touched, each moved once at the end
+        IntIntMap touchedUsers = new IntIntMap();
+        IntIntMap touchedMovies = new IntIntMap();
+        int added = 0;
+        for (int i = 0; i < len; i++) {
+            long seconds = (epochSeconds == null) ? NO_TIME : epochSeconds[i];
+            int d = append(users[i], movies[i], ratings[i], seconds);
+            if (d >= 0) {
+                touchedUsers.put(deltaUser[d], 1);
+                touchedMovies.put(deltaMovie[d], 1);
+                added = added + 1;
+            }
+        }
+        for (int u : touchedUsers.keyArray()) {
+            repositionUser(u);
+        }
+        for (int m : touchedMovies.keyArray()) {
+            repositionMovie(m);
+        }
+        return added;
+    }
 
-        // return true;
-        usersTree.inOrder();
-        usersTree.add(movieid, rate);
+    /**
+     * Appends a rating to the delta buffer and the running totals, leaving the
+     * leaderboards to the caller
+     * @return the delta entry holding it, or -1 if the user has already rated the movie
+     */
+    private int append(int userid, int movieid, float rating, long seconds) {
+        // A user can only rate each movie once
+        if (find(userid, movieid) != -1) {
+            return -1;
+        }
 
-        moviesTree.add(userid, rate);
+        int u = userRow(userid);
+        int m = movieRow(movieid);
 
-        uMap.put(userid, usersTree);
-        mMap.put(movieid, moviesTree);
+        // Appends to the delta buffer and puts the entry at the front of both chains
+        growDelta(deltaSize + 1);
+        int d = deltaSize;
+        deltaUser[d] = u;
+        deltaMovie[d] = m;
+        deltaRating[d] = rating;
+        deltaTime[d] = seconds;
+        latestTime = Math.max(latestTime, seconds);
+        deltaNextByUser[d] = userDeltaHead[u];
+        deltaNextByMovie[d] = movieDeltaHead[m];
+        userDeltaHead[u] = d;
+        movieDeltaHead[m] = d;
+        deltaIndex.put(pairKey(userid, movieid), d);
+        deltaSize = deltaSize + 1;
 
-        return true;
+        addToTotals(u, m, rating, 1);
+        countApproximately(u, m, 1);
+        size = size + 1;
+        return d;
     }
 
     /**
      * Removes a given rating, using the user ID and the movie ID as the unique
      * identifier
-     * 
+     *
      * @param userID  The user ID
      * @param movieID The movie ID
      * @return TRUE if the data was removed successfully, FALSE otherwise
      */
     @Override
-    public boolean remove(int userid, int movieid) {
-        // // If the userid or movie id cannot be found
-        // if (userMap.hasKey(userid) == false || movieMap.hasKey(movieid) == false) {
-        //     return false; }
-        // // If they can be found 
-        // else {
-        //     userMap.get(userid).remove(movieid);
-        //     movieMap.get(movieid).remove(userid); 
-        //     return true;}
-        // If the userid or movie id cannot be found
-        if (uMap.hasKey(userid) == false || mMap.hasKey(movieid) == false) {
-            return false; }
+    public synchronized boolean remove(int userid, int movieid) {
+        int loc = find(userid, movieid);
+        // If the user has not rated the movie
+        if (loc == -1) {
+            return false;
+        }
+
+        int u = userRows.getOrDefault(userid, -1);
+        int m = movieRows.getOrDefault(movieid, -1);
+        if (loc >= 0) {
+            addToTotals(u, m, userRatings.get(loc), -1);
+            // Marked rather than moved, the next build drops it
+            userRatings.set(loc, REMOVED);
+            movieRatings.set(moviePosition(loc, u), REMOVED);
+        }
         else {
-            uMap.get(userid).remove(movieid);
-            mMap.get(movieid).remove(userid);
-            return true; }
+            addToTotals(u, m, deltaRating[-2 - loc], -1);
+            deltaRating[-2 - loc] = REMOVED;
+            deltaIndex.remove(pairKey(userid, movieid));
+        }
+        countApproximately(u, m, -1);
+        reposition(u, m);
 
+        size = size - 1;
+        return true;
     }
 
     /**
@@ -120,7 +841,7 @@ public class Ratings implements IRatings {
      * user have already rated the given movie, the new data should overwrite the
      * existing rating. However, if the given user has not already rated the given
      * movie, then this rating should be added to the data structure
-     * 
+     *
      * @param userID    The user ID
      * @param movieID   The movie ID
      * @param rating    The new rating to be given to the film by this user (between
@@ -129,184 +850,626 @@ public class Ratings implements IRatings {
      * @return TRUE if the data able to be added/updated, FALSE otherwise
      */
     @Override
-    public boolean set(int userid, int movieid, float rating, LocalDateTime timestamp) {
-
-        // // If the user has already rated the movie, the rating is updated
-
-        // Rating rate = new Rating(rating, timestamp);
-
-        // // Inserts the rating as nodes in the rating tree and movie tree
-        // uTree.insert(movieid, rate);
-        // mTree.insert(userid, rate);
-
-        // // Adds both of these to the hash map
-        // userMap.put(userid, uTree);
-        // movieMap.put(movieid, mTree);
-        
-        // return true;
-        Rating rate = new Rating(rating, timestamp);
-        usersTree.set(movieid, rate);
-        moviesTree.set(userid, rate);
+    public synchronized boolean set(int userid, int movieid, float rating, LocalDateTime timestamp) {
+        int loc = find(userid, movieid);
+        // If the user has not rated the movie yet, it is added
+        if (loc == -1) {
+            return add(userid, movieid, rating, timestamp);
+        }
 
-        uMap.put(userid, usersTree);
-        mMap.put(movieid, moviesTree);
+        // The time indexes are only rebuilt by compact, so a base rating given a new
+        // time is taken out of the base and added again to the delta buffer
+        if (loc >= 0 && baseTime(loc) != toSeconds(timestamp)) {
+            remove(userid, movieid);
+            return add(userid, movieid, rating, timestamp);
+        }
 
+        // Otherwise it is overwritten where it is, swapping the old rating out of the totals
+        int u = userRows.getOrDefault(userid, -1);
+        int m = movieRows.getOrDefault(movieid, -1);
+        if (loc >= 0) {
+            addToTotals(u, m, userRatings.get(loc), -1);
+            userRatings.set(loc, rating);
+            movieRatings.set(moviePosition(loc, u), rating);
+        }
+        else {
+            addToTotals(u, m, deltaRating[-2 - loc], -1);
+            deltaRating[-2 - loc] = rating;
+            deltaTime[-2 - loc] = toSeconds(timestamp);
+            latestTime = Math.max(latestTime, deltaTime[-2 - loc]);
+        }
+        addToTotals(u, m, rating, 1);
+        reposition(u, m);
         return true;
-        
     }
 
     /**
      * Get all the ratings for a given film
-     * 
+     *
      * @param movieID The movie ID
      * @return An array of ratings. If there are no ratings or the film cannot be
      *         found, then return an empty array
      */
     @Override
-    public float[] getMovieRatings(int movieid) {
-        // TODO Implement this function
-        float[] empty = new float[0];
-        if (mMap.hasKey(movieid) == false) {
-            return empty; }
-        else {
-            Rating[] ratings = mMap.get(movieid).traverse();
-
-            mMap.get(movieid).traversalInOrder(); // For testing 
-
-            float [] newarr = new float[ratings.length];
+    public synchronized float[] getMovieRatings(int movieid) {
+        compactIfNeeded();
+        int m = movieRows.getOrDefault(movieid, -1);
+        if (m < 0) {
+            return new float[0];
+        }
 
-            for (int i = 0; i < ratings.length ; i++){
-                newarr[i] = ratings[i].getRating();
-                System.out.println(ratings[i].getRating());
+        float[] arr = new float[movieCounts[m]];
+        int count = 0;
+        // The base row first, then the newer ratings in the delta buffer
+        if (m < baseMovies) {
+            for (int q = movieOffsets[m]; q < movieOffsets[m + 1]; q++) {
+                float rating = movieRatings.get(q);
+                if (!Float.isNaN(rating)) {
+                    arr[count] = rating;
+                    count = count + 1;
+                }
             }
-            
-            return newarr;
         }
-    }   
+        for (int d = movieDeltaHead[m]; d >= 0; d = deltaNextByMovie[d]) {
+            if (!Float.isNaN(deltaRating[d])) {
+                arr[count] = deltaRating[d];
+                count = count + 1;
+            }
+        }
+        return arr;
+    }
 
     /**
      * Get all the ratings for a given user
-     * 
+     *
      * @param userID The user ID
      * @return An array of ratings. If there are no ratings or the user cannot be
      *         found, then return an empty array
      */
     @Override
-    public float[] getUserRatings(int userid) {
-        // TODO Implement this function
-        float[] empty = new float[0];
-        if (uMap.hasKey(userid) == false) {
-            return empty; }
-        else {
-            Rating[] ratings = uMap.get(userid).traverse();
-
-            uMap.get(userid).traversalInOrder(); // For testing 
-            
-            float [] newarr = new float[ratings.length];
+    public synchronized float[] getUserRatings(int userid) {
+        compactIfNeeded();
+        int u = userRows.getOrDefault(userid, -1);
+        if (u < 0) {
+            return new float[0];
+        }
 
-            for (int i = 0; i < ratings.length ; i++){
-                newarr[i] = ratings[i].getRating();
-                System.out.println(newarr[i]);
+        float[] arr = new float[userCounts[u]];
+        int count = 0;
+        // The base row first, then the newer ratings in the delta buffer
+        if (u < baseUsers) {
+            for (int p = userOffsets[u]; p < userOffsets[u + 1]; p++) {
+                float rating = userRatings.get(p);
+                if (!Float.isNaN(rating)) {
+                    arr[count] = rating;
+                    count = count + 1;
+                }
             }
-            
-            return newarr;
         }
+        for (int d = userDeltaHead[u]; d >= 0; d = deltaNextByUser[d]) {
+            if (!Float.isNaN(deltaRating[d])) {
+                arr[count] = deltaRating[d];
+                count = count + 1;
+            }
+        }
+        return arr;
+    }
+
+    /**
+     * Checks if the film is in the movies store
+     */
+    private boolean filmExists(int movieid) {
+        return stores.getMovies().getTitle(movieid) != null;
     }
 
     /**
      * Get the average rating for a given film
-     * 
+     *
      * @param movieID The movie ID
-     * @return Produces the average rating for a given film. 
-     *         If the film cannot be found in ratings, but does exist in the movies store, return 0.0f. 
+     * @return Produces the average rating for a given film.
+     *         If the film cannot be found in ratings, but does exist in the movies store, return 0.0f.
      *         If the film cannot be found in ratings or movies stores, return -1.0f.
      */
     @Override
-    public float getMovieAverageRating(int movieid) {
-        // TODO Implement this function
-        return -1;
+    public synchronized float getMovieAverageRating(int movieid) {
+        int m = movieRows.getOrDefault(movieid, -1);
+        if (m < 0 || movieCounts[m] == 0) {
+            return filmExists(movieid) ? 0.0f : -1.0f;
+        }
+        return (float) (movieSums[m] / movieCounts[m]);
     }
 
     /**
      * Get the average rating for a given user
-     * 
+     *
      * @param userID The user ID
      * @return Produces the average rating for a given user. If the user cannot be
      *         found, or there are no rating, return -1
      */
     @Override
-    public float getUserAverageRating(int userid) {
-        // TODO Implement this function
-        return -1;
+    public synchronized float getUserAverageRating(int userid) {
+        int u = userRows.getOrDefault(userid, -1);
+        if (u < 0 || userCounts[u] == 0) {
+            return -1;
+        }
+        return (float) (userSums[u] / userCounts[u]);
+    }
+
+    /**
+     * Works out a variance from a row's running totals
+     */
+    private static float variance(int count, double sum, double squares) {
+        double mean = sum / count;
+        // Rounding can leave a tiny negative where every rating is the same
+        return (float) Math.max(0, squares / count - mean * mean);
+    }
+
+    /**
+     * Get the variance of the ratings for a given film
+     *
+     * @param movieID The movie ID
+     * @return The population variance of the film's ratings. If the film has no
+     *         ratings, return -1
+     */
+    @Override
+    public synchronized float getMovieRatingVariance(int movieid) {
+        int m = movieRows.getOrDefault(movieid, -1);
+        if (m < 0 || movieCounts[m] == 0) {
+            return -1;
+        }
+        return variance(movieCounts[m], movieSums[m], movieSquares[m]);
+    }
+
+    /**
+     * Get the variance of the ratings made by a given user
+     *
+     * @param userID The user ID
+     * @return The population variance of the user's ratings. If the user cannot
+     *         be found, or there are no ratings, return -1
+     */
+    @Override
+    public synchronized float getUserRatingVariance(int userid) {
+        int u = userRows.getOrDefault(userid, -1);
+        if (u < 0 || userCounts[u] == 0) {
+            return -1;
+        }
+        return variance(userCounts[u], userSums[u], userSquares[u]);
+    }
+
+    /**
+     * Switches the most rated users and movies between exact and approximate counts.
+     * Exact counts keep every user and movie on a leaderboard, which is moved on
+     * every rating. Approximate counts keep a count-min sketch and a table of the
+     * 1 / epsilon users and movies with the most ratings instead, which take the
+     * same memory however many users there are. Any user or movie with more than
+     * epsilon times all the ratings is always found, and its count is at most
+     * epsilon times all the ratings too high, unless it is unlucky with a chance
+     * of at most delta. The counts of the ratings already in the store are carried
+     * over either way
+     *
+     * @param epsilon The error, as a share of all the ratings, from 0 to 1. 0
+     *                switches back to exact counts
+     * @param delta   The chance of a count being further out than that, from 0 to 1
+     * @return TRUE if the counts were switched, FALSE if the bounds are out of range
+     *         or would need a table or sketch too big to make
+     */
+    @Override
+    public synchronized boolean setApproximateCounts(double epsilon, double delta) {
+        if (epsilon == 0) {
+            if (approxUsers != null) {
+                approxUsers = null;
+                approxMovies = null;
+                mostRatedUsers = new Leaderboard();
+                mostRatedMovies = new Leaderboard();
+                for (int u = 0; u < numUsers; u++) {
+                    if (userCounts[u] > 0) {
+                        mostRatedUsers.set(userIds[u], userCounts[u]);
+                    }
+                }
+                for (int m = 0; m < numMovies; m++) {
+                    if (movieCounts[m] > 0) {
+                        mostRatedMovies.set(movieIds[m], movieCounts[m]);
+                    }
+                }
+            }
+            return true;
+        }
+        if (!(epsilon > 0 && epsilon < 1 && delta > 0 && delta < 1)) {
+            return false;
+        }
+        // A tiny epsilon or delta would ask for more counters than can be allocated
+        if (!HeavyHitters.fits(epsilon, delta)) {
+            return false;
+        }
+
+        approxUsers = new HeavyHitters(epsilon, delta);
+        approxMovies = new HeavyHitters(epsilon, delta);
+        for (int u = 0; u < numUsers; u++) {
+            if (userCounts[u] > 0) {
+                approxUsers.add(userIds[u], userCounts[u]);
+            }
+        }
+        for (int m = 0; m < numMovies; m++) {
+            if (movieCounts[m] > 0) {
+                approxMovies.add(movieIds[m], movieCounts[m]);
+            }
+        }
+        mostRatedUsers = null;
+        mostRatedMovies = null;
+        return true;
     }
 
     /**
      * Gets the top N movies with the most ratings, in order from most to least
-     * 
+     *
      * @param num The number of movies that should be returned
      * @return A sorted array of movie IDs with the most ratings. The array should be
      *         no larger than num. If there are less than num movies in the store,
      *         then the array should be the same length as the number of movies
      */
     @Override
-    public int[] getMostRatedMovies(int num) {
-        // TODO Implement this function
-        return null;
+    public synchronized int[] getMostRatedMovies(int num) {
+        if (approxMovies != null) {
+            return approxMovies.top(num);
+        }
+        return mostRatedMovies.top(num);
     }
 
     /**
      * Gets the top N users with the most ratings, in order from most to least
-     * 
+     *
      * @param num The number of users that should be returned
      * @return A sorted array of user IDs with the most ratings. The array should be
      *         no larger than num. If there are less than num users in the store,
      *         then the array should be the same length as the number of users
      */
     @Override
-    public int[] getMostRatedUsers(int num) {
-        // TODO Implement this function
-        return null;
+    public synchronized int[] getMostRatedUsers(int num) {
+        if (approxUsers != null) {
+            return approxUsers.top(num);
+        }
+        return mostRatedUsers.top(num);
     }
 
     /**
      * Gets the number of ratings in the data structure
-     * 
+     *
      * @return The number of ratings in the data structure
      */
     @Override
-    public int size() {
-        // TODO Implement this function
-        return -1;
+    public synchronized int size() {
+        return size;
     }
 
     /**
      * Get the number of ratings that a movie has
-     * 
+     *
      * @param movieid The movie id to be found
-     * @return The number of ratings the specified movie has. 
+     * @return The number of ratings the specified movie has.
      *         If the movie exists in the movies store, but there
      *         are no ratings for it, then return 0. If the movie
      *         does not exist in the ratings or movies store, then
      *         return -1
      */
     @Override
-    public int getNumRatings(int movieid) {
-        // TODO Implement this function
-        return -1;
+    public synchronized int getNumRatings(int movieid) {
+        int m = movieRows.getOrDefault(movieid, -1);
+        if (m < 0 || movieCounts[m] == 0) {
+            return filmExists(movieid) ? 0 : -1;
+        }
+        return movieCounts[m];
     }
 
     /**
      * Get the highest average rated film IDs, in order of there average rating
      * (hightst first).
-     * 
+     *
      * @param numResults The maximum number of results to be returned
      * @return An array of the film IDs with the highest average ratings, highest
      *         first. If there are less than num movies in the store,
      *         then the array should be the same length as the number of movies
      */
     @Override
-    public int[] getTopAverageRatedMovies(int numResults) {
-        // TODO Implement this function
-        return null;
+    public synchronized int[] getTopAverageRatedMovies(int numResults) {
+        return topAverageMovies.top(numResults);
+    }
+
+    //==========================================================================================================================
+    // Windows of time
+
+    /**
+     * Turns the start of a window into seconds. An open start still leaves out
+     * ratings with no time
+     */
+    private static long windowStart(LocalDateTime from) {
+        return (from == null) ? NO_TIME + 1 : from.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static long windowEnd(LocalDateTime to) {
+        return (to == null) ? Long.MAX_VALUE : to.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Gathers the ratings of a movie row made in a window, oldest first
+     * @param times filled with the time of each rating
+     * @param ratings filled with the ratings, both at least as long as the row's count
+     * @return the number of ratings found
+     */
+    private int movieWindow(int m, long from, long to, long[] times, float[] ratings) {
+        int count = 0;
+        if (m < baseMovies) {
+            // The base part is already in time order, so the read stops at the end of the window
+            timeCursor.reset(movieTimeBytes, movieTimeStarts[m], movieTimeStarts[m + 1]);
+            for (int q = movieOffsets[m]; q < movieOffsets[m + 1]; q++) {
+                long time = timeCursor.next();
+                if (time >= to) {
+                    break;
+                }
+                float rating = userRatings.get(movieTimeEntries[q]);
+                if (time >= from && !Float.isNaN(rating)) {
+                    times[count] = time;
+                    ratings[count] = rating;
+                    count = count + 1;
+                }
+            }
+        }
+        // The few delta ratings are put into place one at a time
+        for (int d = movieDeltaHead[m]; d >= 0; d = deltaNextByMovie[d]) {
+            if (!Float.isNaN(deltaRating[d]) && deltaTime[d] >= from && deltaTime[d] < to) {
+                int i = count;
+                while (i > 0 && times[i - 1] > deltaTime[d]) {
+                    times[i] = times[i - 1];
+                    ratings[i] = ratings[i - 1];
+                    i = i - 1;
+                }
+                times[i] = deltaTime[d];
+                ratings[i] = deltaRating[d];
+                count = count + 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the ratings a film was given in a window of time
+     *
+     * @param movieID The movie ID
+     * @param from    The start of the window (inclusive), or null for no start
+     * @param to      The end of the window (exclusive), or null for no end
+     * @return The ratings made in the window, oldest first. If there are none or
+     *         the film cannot be found, then return an empty array
+     */
+    @Override
+    public synchronized float[] getMovieRatingsBetween(int movieid, LocalDateTime from, LocalDateTime to) {
+        compactIfNeeded();
+        int m = movieRows.getOrDefault(movieid, -1);
+        if (m < 0) {
+            return new float[0];
+        }
+        long[] times = new long[movieCounts[m]];
+        float[] ratings = new float[movieCounts[m]];
+        int count = movieWindow(m, windowStart(from), windowEnd(to), times, ratings);
+        return Arrays.copyOf(ratings, count);
+    }
+
+    /**
+     * Get the average rating of a film over the days before a given time
+     *
+     * @param movieID The movie ID
+     * @param end     The end of the window (exclusive)
+     * @param days    The length of the window in days
+     * @return The average of the ratings made from days days before end up to end.
+     *         If the film has no ratings in that time, return -1
+     */
+    @Override
+    public synchronized float getMovieMovingAverage(int movieid, LocalDateTime end, int days) {
+        compactIfNeeded();
+        int m = movieRows.getOrDefault(movieid, -1);
+        if (m < 0 || end == null || days <= 0) {
+            return -1;
+        }
+        long[] times = new long[movieCounts[m]];
+        float[] ratings = new float[movieCounts[m]];
+        int count = movieWindow(m, windowStart(end.minusDays(days)), windowEnd(end), times, ratings);
+        if (count == 0) {
+            return -1;
+        }
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum = sum + ratings[i];
+        }
+        return (float) (sum / count);
+    }
+
+    /**
+     * Gets the top N movies with the most ratings made in a window of time, in
+     * order from most to least
+     *
+     * @param from The start of the window (inclusive), or null for no start
+     * @param to   The end of the window (exclusive), or null for no end
+     * @param num  The number of movies that should be returned
+     * @return A sorted array of movie IDs with the most ratings in the window. The
+     *         array should be no larger than num
+     */
+    @Override
+    public synchronized int[] getMostRatedMoviesBetween(LocalDateTime from, LocalDateTime to, int num) {
+        if (num <= 0) {
+            return new int[0];
+        }
+        compactIfNeeded();
+        long start = windowStart(from);
+        long end = windowEnd(to);
+        int[] counts = new int[numMovies];
+
+        // The tree hands back the base ratings in the window as one run of its leaves
+        for (int p : timeIndex.valuesInRange(start, end)) {
+            if (!Float.isNaN(userRatings.get(p))) {
+                counts[userMovies[p]]++;
+            }
+        }
+        for (int d = 0; d < deltaSize; d++) {
+            if (!Float.isNaN(deltaRating[d]) && deltaTime[d] >= start && deltaTime[d] < end) {
+                counts[deltaMovie[d]]++;
+            }
+        }
+
+        int[] ids = new int[numMovies];
+        int[] windowCounts = new int[numMovies];
+        int count = 0;
+        for (int m = 0; m < numMovies; m++) {
+            if (counts[m] > 0) {
+                ids[count] = movieIds[m];
+                windowCounts[count] = counts[m];
+                count = count + 1;
+            }
+        }
+        // Ties go to the lower id
+        return new RankedIds(ids, windowCounts, new double[count], count).next(num);
+    }
+
+    /**
+     * Gets the time of the newest rating. Removing that rating does not move this
+     * back until the store is next rebuilt
+     *
+     * @return The newest time a rating was made, or null if no rating has a time
+     */
+    @Override
+    public synchronized LocalDateTime getLatestRatingTime() {
+        if (latestTime == NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(latestTime, 0, ZoneOffset.UTC);
+    }
+
+    //==========================================================================================================================
+    // Similar films
+
+    /**
+     * Finds the films most like a given film, by the adjusted cosine similarity of
+     * their ratings: each rating has its user's average taken off, so a film is
+     * similar when the same users rate it above or below their own usual rating.
+     * Only the closest few films are kept for each film, so at most that many are
+     * returned
+     *
+     * @param movieID    The movie ID
+     * @param numResults The number of films that should be returned
+     * @return A sorted array of movie IDs, most similar first. If the film cannot
+     *         be found, or has no ratings, return an empty array
+     */
+    @Override
+    public synchronized int[] getSimilarMovies(int movieid, int numResults) {
+        return similarMovies().getSimilarMovies(movieid, numResults);
+    }
+
+    /**
+     * Finds the films rated by the most users who also rated a given film. Only
+     * the first few films are kept for each film, so at most that many are returned
+     *
+     * @param movieID    The movie ID
+     * @param numResults The number of films that should be returned
+     * @return A sorted array of movie IDs, most shared users first. If the film
+     *         cannot be found, or has no ratings, return an empty array
+     */
+    @Override
+    public synchronized int[] getAlsoRatedMovies(int movieid, int numResults) {
+        return similarMovies().getAlsoRatedMovies(movieid, numResults);
+    }
+
+    private MovieSimilarity similarMovies() {
+        if (similarMovies == null) {
+            similarMovies = new MovieSimilarity(this, similar_k, true);
+        }
+        return similarMovies;
+    }
+
+    // Rows read by MovieSimilarity. None of these build the base, so they are
+    // safe to call from many threads at once while nothing is being added
+
+    int numMovieRows() {
+        return numMovies;
+    }
+
+    int movieRowOf(int movieID) {
+        return movieRows.getOrDefault(movieID, -1);
+    }
+
+    int movieIdOf(int m) {
+        return movieIds[m];
+    }
+
+    int movieRatingCount(int m) {
+        return movieCounts[m];
+    }
+
+    int movieVersion(int m) {
+        return movieVersions[m];
+    }
+
+    long movieChanges() {
+        return movieChanges;
+    }
+
+    int userRatingCount(int u) {
+        return userCounts[u];
+    }
+
+    double userMean(int u) {
+        return (userCounts[u] == 0) ? 0 : userSums[u] / userCounts[u];
+    }
+
+    /**
+     * Copies out the live ratings of a movie row, base first and then the delta
+     * @param users filled with the user row of each rating, at least movieRatingCount long
+     * @param ratings filled with the ratings
+     * @return the number of ratings copied
+     */
+    int readMovieRow(int m, int[] users, float[] ratings) {
+        int count = 0;
+        if (m < baseMovies) {
+            for (int q = movieOffsets[m]; q < movieOffsets[m + 1]; q++) {
+                float rating = movieRatings.get(q);
+                if (!Float.isNaN(rating)) {
+                    users[count] = movieUsers[q];
+                    ratings[count] = rating;
+                    count = count + 1;
+                }
+            }
+        }
+        for (int d = movieDeltaHead[m]; d >= 0; d = deltaNextByMovie[d]) {
+            if (!Float.isNaN(deltaRating[d])) {
+                users[count] = deltaUser[d];
+                ratings[count] = deltaRating[d];
+                count = count + 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Copies out the live ratings of a user row, base first and then the delta
+     * @param movies filled with the movie row of each rating, at least userRatingCount long
+     * @param ratings filled with the ratings
+     * @return the number of ratings copied
+     */
+    int readUserRow(int u, int[] movies, float[] ratings) {
+        int count = 0;
+        if (u < baseUsers) {
+            for (int p = userOffsets[u]; p < userOffsets[u + 1]; p++) {
+                float rating = userRatings.get(p);
+                if (!Float.isNaN(rating)) {
+                    movies[count] = userMovies[p];
+                    ratings[count] = rating;
+                    count = count + 1;
+                }
+            }
+        }
+        for (int d = userDeltaHead[u]; d >= 0; d = deltaNextByUser[d]) {
+            if (!Float.isNaN(deltaRating[d])) {
+                movies[count] = deltaMovie[d];
+                ratings[count] = deltaRating[d];
+                count = count + 1;
+            }
+        }
+        return count;
     }
 }
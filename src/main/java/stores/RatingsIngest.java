@@ -0,0 +1,149 @@
+package stores;
+
+import interfaces.IRatings;
+
+/**
+ * Takes a stream of rating events from any number of threads and applies them to
+ * a ratings store in batches, through IRatings.addAll. The store then updates its
+ * totals, leaderboards and indexes once per batch rather than once per rating.
+ *
+ * Events go into one of two buffers of primitive arrays. When the filling buffer
+ * is full, it is swapped for the spare and applied by the thread that filled it,
+ * so other threads can keep adding to the fresh buffer while the batch is applied.
+ * Only one batch is applied at a time, in the order they were filled. If a batch
+ * fills while the one before it is still being applied, offer waits for it.
+ *
+ * Gathering takes no lock on the store. Applying a batch holds the store's lock,
+ * so readers on other threads wait for at most one batch. The loader does not go
+ * through here: it has the whole file at once and hands it to addAll in one call.
+ */
+public class RatingsIngest {
+    private final IRatings ratings;
+    private final int batchSize;
+
+    // The buffer offer adds to
+    private Batch filling;
+    // The other buffer, null while it is being applied
+    private Batch spare;
+    // The number of ratings the store has taken, not counting repeats it skipped
+    private long applied;
+
+    private static final class Batch {
+        private final int[] users;
+        private final int[] movies;
+        private final float[] ratings;
+        private final long[] times;
+        private int size;
+
+        private Batch(int capacity) {
+            users = new int[capacity];
+            movies = new int[capacity];
+            ratings = new float[capacity];
+            times = new long[capacity];
+        }
+    }
+
+    /**
+     * @param ratings   The store to add the ratings to
+     * @param batchSize The number of ratings gathered before they are applied
+     */
+    public RatingsIngest(IRatings ratings, int batchSize) {
+        this.ratings = ratings;
+        this.batchSize = Math.max(1, batchSize);
+        filling = new Batch(this.batchSize);
+        spare = new Batch(this.batchSize);
+    }
+
+    /**
+     * Adds a rating to the current batch, applying the batch if this fills it
+     *
+     * @param userID       The user ID
+     * @param movieID      The movie ID
+     * @param rating       The rating (between 0 and 5 inclusive)
+     * @param epochSeconds The time of the rating in seconds since the epoch (UTC)
+     * @throws InterruptedException If the thread is interrupted while waiting for the previous batch
+     */
+    public void offer(int userID, int movieID, float rating, long epochSeconds) throws InterruptedException {
+        Batch full = null;
+        synchronized (this) {
+            // A full buffer is waiting to be swapped by the thread that filled it
+            while (filling.size == batchSize) {
+                wait();
+            }
+            Batch batch = filling;
+            batch.users[batch.size] = userID;
+            batch.movies[batch.size] = movieID;
+            batch.ratings[batch.size] = rating;
+            batch.times[batch.size] = epochSeconds;
+            batch.size = batch.size + 1;
+            if (batch.size == batchSize) {
+                full = takeFilling();
+            }
+        }
+        if (full != null) {
+            apply(full);
+        }
+    }
+
+    /**
+     * Applies whatever has been gathered so far, even if the batch is not full
+     * @throws InterruptedException If the thread is interrupted while waiting for the previous batch
+     */
+    public void flush() throws InterruptedException {
+        Batch full;
+        synchronized (this) {
+            // Waits for any batch being applied first, so everything offered before this call is in the store after it
+            while (spare == null) {
+                wait();
+            }
+            if (filling.size == 0) {
+                return;
+            }
+            full = takeFilling();
+        }
+        apply(full);
+    }
+
+    /**
+     * Swaps the filling buffer for the spare, waiting for the spare to come back if
+     * it is still being applied. Called while holding the lock
+     */
+    private Batch takeFilling() throws InterruptedException {
+        while (spare == null) {
+            wait();
+        }
+        Batch full = filling;
+        filling = spare;
+        spare = null;
+        notifyAll();
+        return full;
+    }
+
+    /**
+     * Applies a full buffer to the store and hands it back as the spare
+     */
+    private void apply(Batch batch) {
+        int added = 0;
+        try {
+            added = ratings.addAll(batch.users, batch.movies, batch.ratings, batch.times, batch.size);
+        }
+        finally {
+            // Handed back even if the store fails, so the other threads are not left waiting
+            batch.size = 0;
+            synchronized (this) {
+                applied = applied + added;
+                spare = batch;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of ratings applied to the store so far
+     * @return The number of ratings the store has taken. Ratings it skipped as
+     *         repeats are not counted
+     */
+    public synchronized long getApplied() {
+        return applied;
+    }
+}
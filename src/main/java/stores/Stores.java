@@ -1,5 +1,7 @@
 package stores;
 
+import java.io.IOException;
+
 import interfaces.*;
 
 public class Stores extends AbstractStores{
@@ -9,4 +11,28 @@ public class Stores extends AbstractStores{
         movies   = new Movies(this);
         ratings  = new Ratings(this);
     }
+
+    /**
+     * Keeps the films in memory-mapped files instead of on the heap. If the files
+     * were written before, the films in them are there straight away
+     * @param moviesPath The path of the movies files, without the ".rec"/".str" endings
+     * @throws IOException if the files can not be opened or are not a movies store
+     */
+    public Stores(String moviesPath) throws IOException{
+        credits  = new Credits(this);
+        keywords = new Keywords(this);
+        movies   = new MappedMovies(this, moviesPath);
+        ratings  = new Ratings(this);
+    }
+
+    /**
+     * Writes a memory-mapped movies store to disk and closes its files. Nothing
+     * needs doing for the stores that are only in memory
+     * @throws IOException if the files can not be closed
+     */
+    public void close() throws IOException{
+        if (movies instanceof MappedMovies){
+            ((MappedMovies) movies).close();
+        }
+    }
 }
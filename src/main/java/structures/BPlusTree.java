@@ -0,0 +1,363 @@
+package structures;
+
+import java.util.Arrays;
+
+/**
+ * A B+-tree holding a sorted set of (long key, int value) pairs, for example a
+ * timestamp or a release day with the id it belongs to. Pairs are ordered by key
+ * and then by value, so the same key can appear with many values.
+ *
+ * Every node holds up to ORDER pairs in primitive arrays, so a lookup touches a
+ * handful of nodes rather than one per level of a binary tree. All the pairs live
+ * in the leaves, which are linked in order, so a range query finds its first leaf
+ * and then reads the leaves one after another.
+ *
+ * A sorted load can be built bottom up with bulkLoad, which fills each leaf in
+ * one pass instead of splitting its way there. Removes do not merge nodes, so a
+ * leaf can be left part full or empty. Lookups and scans stay correct, and a
+ * tree that has shrunk a lot can be rebuilt with bulkLoad.
+ */
+public class BPlusTree {
+    // The most pairs a node holds
+    private static final int ORDER = 64;
+
+    private static final class Node {
+        // Leaves hold the pairs. Inner nodes hold the smallest pair of each child after the first
+        private long[] keys;
+        private int[] values;
+        private int size;
+        // Null for a leaf
+        private Node[] children;
+        // The next leaf in order, null for the last one and for inner nodes
+        private Node next;
+
+        private Node(boolean leaf){
+            // One spare place, so a node can overflow before it is split
+            keys = new long[ORDER + 1];
+            values = new int[ORDER + 1];
+            if (!leaf) {
+                children = new Node[ORDER + 2];
+            }
+        }
+
+        private boolean isLeaf(){
+            return children == null;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    // The pair moved up by the last split
+    private long splitKey;
+    private int splitValue;
+
+    public BPlusTree(){
+        root = new Node(true);
+    }
+
+    /**
+     * Compares the pair (k1, v1) with (k2, v2)
+     */
+    private static int compare(long k1, int v1, long k2, int v2){
+        if (k1 != k2) {
+            return (k1 < k2) ? -1 : 1;
+        }
+        return Integer.compare(v1, v2);
+    }
+
+    /**
+     * Finds the first pair in a node that is not less than (key, value)
+     * @return the position, or the node's size if every pair is less
+     */
+    private static int lowerBound(Node node, long key, int value){
+        int low = 0;
+        int high = node.size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(node.keys[mid], node.values[mid], key, value) < 0) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the child of an inner node that would hold (key, value)
+     */
+    private static int childFor(Node node, long key, int value){
+        int pos = lowerBound(node, key, value);
+        // A pair equal to a separator is the first pair of the child to its right
+        if (pos < node.size && node.keys[pos] == key && node.values[pos] == value) {
+            pos = pos + 1;
+        }
+        return pos;
+    }
+
+    /**
+     * Finds the leaf that would hold (key, value)
+     */
+    private Node leafFor(long key, int value){
+        Node node = root;
+        while (!node.isLeaf()) {
+            node = node.children[childFor(node, key, value)];
+        }
+        return node;
+    }
+
+    /**
+     * Gives back the number of pairs
+     * @return the number of pairs in the tree
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Checks if a pair is in the tree
+     * @param key the key
+     * @param value the value
+     * @return true if the pair is in the tree
+     */
+    public boolean contains(long key, int value){
+        Node leaf = leafFor(key, value);
+        int pos = lowerBound(leaf, key, value);
+        return pos < leaf.size && leaf.keys[pos] == key && leaf.values[pos] == value;
+    }
+
+    //=============================================================================================================
+    // Changes
+
+    /**
+     * Adds a pair to the tree
+     * @param key the key
+     * @param value the value
+     * @return true if the pair was added, false if it was already there
+     */
+    public boolean add(long key, int value){
+        int before = size;
+        Node right = insert(root, key, value);
+        if (right != null) {
+            // The root split, so the tree grows a level
+            Node newRoot = new Node(false);
+            newRoot.keys[0] = splitKey;
+            newRoot.values[0] = splitValue;
+            newRoot.children[0] = root;
+            newRoot.children[1] = right;
+            newRoot.size = 1;
+            root = newRoot;
+        }
+        return size != before;
+    }
+
+    /**
+     * Adds a pair under a node
+     * @return the new right half if the node split, with its first pair in splitKey
+     *         and splitValue, or null if it did not
+     */
+    private Node insert(Node node, long key, int value){
+        if (node.isLeaf()) {
+            int pos = lowerBound(node, key, value);
+            if (pos < node.size && node.keys[pos] == key && node.values[pos] == value) {
+                return null;
+            }
+            insertAt(node, pos, key, value);
+            size = size + 1;
+            if (node.size <= ORDER) {
+                return null;
+            }
+            // Splits the leaf in half, the right half starting with the pair moved up
+            Node right = new Node(true);
+            int half = node.size >>> 1;
+            right.size = node.size - half;
+            System.arraycopy(node.keys, half, right.keys, 0, right.size);
+            System.arraycopy(node.values, half, right.values, 0, right.size);
+            node.size = half;
+            right.next = node.next;
+            node.next = right;
+            splitKey = right.keys[0];
+            splitValue = right.values[0];
+            return right;
+        }
+
+        int child = childFor(node, key, value);
+        Node newChild = insert(node.children[child], key, value);
+        if (newChild == null) {
+            return null;
+        }
+        System.arraycopy(node.children, child + 1, node.children, child + 2, node.size - child);
+        node.children[child + 1] = newChild;
+        insertAt(node, child, splitKey, splitValue);
+        if (node.size <= ORDER) {
+            return null;
+        }
+        // Splits the inner node. The middle pair moves up and is not kept in either half
+        Node right = new Node(false);
+        int mid = node.size >>> 1;
+        right.size = node.size - mid - 1;
+        System.arraycopy(node.keys, mid + 1, right.keys, 0, right.size);
+        System.arraycopy(node.values, mid + 1, right.values, 0, right.size);
+        System.arraycopy(node.children, mid + 1, right.children, 0, right.size + 1);
+        Arrays.fill(node.children, mid + 1, node.size + 1, null);
+        splitKey = node.keys[mid];
+        splitValue = node.values[mid];
+        node.size = mid;
+        return right;
+    }
+
+    private static void insertAt(Node node, int pos, long key, int value){
+        System.arraycopy(node.keys, pos, node.keys, pos + 1, node.size - pos);
+        System.arraycopy(node.values, pos, node.values, pos + 1, node.size - pos);
+        node.keys[pos] = key;
+        node.values[pos] = value;
+        node.size = node.size + 1;
+    }
+
+    /**
+     * Removes a pair from the tree
+     * @param key the key
+     * @param value the value
+     * @return true if the pair was found and removed
+     */
+    public boolean remove(long key, int value){
+        Node leaf = leafFor(key, value);
+        int pos = lowerBound(leaf, key, value);
+        if (pos == leaf.size || leaf.keys[pos] != key || leaf.values[pos] != value) {
+            return false;
+        }
+        System.arraycopy(leaf.keys, pos + 1, leaf.keys, pos, leaf.size - pos - 1);
+        System.arraycopy(leaf.values, pos + 1, leaf.values, pos, leaf.size - pos - 1);
+        leaf.size = leaf.size - 1;
+        size = size - 1;
+        return true;
+    }
+
+    /**
+     * Replaces the contents of the tree with sorted pairs, building it from the
+     * leaves up. Every leaf and inner node is filled, so this is O(n) and leaves
+     * no room to spare in any node
+     * @param keys the keys, in increasing order
+     * @param values the values, increasing wherever keys repeat
+     * @param n the number of pairs used in the arrays
+     */
+    public void bulkLoad(long[] keys, int[] values, int n){
+        size = n;
+        if (n == 0) {
+            root = new Node(true);
+            return;
+        }
+
+        // Spreads the pairs evenly so the last leaf is not left nearly empty
+        int numLeaves = (n + ORDER - 1) / ORDER;
+        Node[] level = new Node[numLeaves];
+        long[] firstKeys = new long[numLeaves];
+        int[] firstValues = new int[numLeaves];
+        int start = 0;
+        for (int i = 0; i < numLeaves; i++) {
+            int end = (int) ((long) n * (i + 1) / numLeaves);
+            Node leaf = new Node(true);
+            leaf.size = end - start;
+            System.arraycopy(keys, start, leaf.keys, 0, leaf.size);
+            System.arraycopy(values, start, leaf.values, 0, leaf.size);
+            if (i > 0) {
+                level[i - 1].next = leaf;
+            }
+            level[i] = leaf;
+            firstKeys[i] = keys[start];
+            firstValues[i] = values[start];
+            start = end;
+        }
+
+        // Builds each level of inner nodes over the one below until one node is left
+        int count = numLeaves;
+        while (count > 1) {
+            int numNodes = (count + ORDER) / (ORDER + 1);
+            Node[] parents = new Node[numNodes];
+            start = 0;
+            for (int i = 0; i < numNodes; i++) {
+                int end = (int) ((long) count * (i + 1) / numNodes);
+                Node node = new Node(false);
+                System.arraycopy(level, start, node.children, 0, end - start);
+                // The smallest pair of every child but the first separates it from the one before
+                for (int c = start + 1; c < end; c++) {
+                    node.keys[c - start - 1] = firstKeys[c];
+                    node.values[c - start - 1] = firstValues[c];
+                }
+                node.size = end - start - 1;
+                parents[i] = node;
+                firstKeys[i] = firstKeys[start];
+                firstValues[i] = firstValues[start];
+                start = end;
+            }
+            level = parents;
+            count = numNodes;
+        }
+        root = level[0];
+    }
+
+    //=============================================================================================================
+    // Range queries
+
+    /**
+     * Gives back the value of every pair with a key from fromInclusive up to but not
+     * including toExclusive, in order
+     * @param fromInclusive the lowest key to include
+     * @param toExclusive the first key not to include
+     * @return the values in the range
+     */
+    public int[] valuesInRange(long fromInclusive, long toExclusive){
+        int[] arr = new int[16];
+        int count = 0;
+        Node leaf = leafFor(fromInclusive, Integer.MIN_VALUE);
+        int pos = lowerBound(leaf, fromInclusive, Integer.MIN_VALUE);
+        // Reads along the leaves until a key reaches the end of the range
+        while (leaf != null) {
+            for (; pos < leaf.size; pos++) {
+                if (leaf.keys[pos] >= toExclusive) {
+                    return Arrays.copyOf(arr, count);
+                }
+                if (count == arr.length) {
+                    arr = Arrays.copyOf(arr, count * 2);
+                }
+                arr[count] = leaf.values[pos];
+                count = count + 1;
+            }
+            leaf = leaf.next;
+            pos = 0;
+        }
+        return Arrays.copyOf(arr, count);
+    }
+
+    /**
+     * Counts the pairs with a key from fromInclusive up to but not including toExclusive
+     * @param fromInclusive the lowest key to include
+     * @param toExclusive the first key not to include
+     * @return the number of pairs in the range
+     */
+    public int countInRange(long fromInclusive, long toExclusive){
+        int count = 0;
+        Node leaf = leafFor(fromInclusive, Integer.MIN_VALUE);
+        int pos = lowerBound(leaf, fromInclusive, Integer.MIN_VALUE);
+        while (leaf != null) {
+            // Whole leaves inside the range are counted without reading each key
+            if (leaf.size > 0 && leaf.keys[leaf.size - 1] < toExclusive) {
+                count = count + leaf.size - pos;
+            }
+            else {
+                while (pos < leaf.size && leaf.keys[pos] < toExclusive) {
+                    pos = pos + 1;
+                    count = count + 1;
+                }
+                if (pos < leaf.size) {
+                    return count;
+                }
+            }
+            leaf = leaf.next;
+            pos = 0;
+        }
+        return count;
+    }
+}
@@ -57,6 +57,21 @@ public class Collection {
         filmIDs = newArr;
     }
 
+    //To take a film out of the array
+    public void removeFilmID(int filmID){
+        for (int i = 0; i < filmIDs.length; i++){
+            if (filmIDs[i] == filmID){
+                // Moves the later ids down over it, keeping them in the order they were added
+                int[] newArr = new int[filmIDs.length - 1];
+                System.arraycopy(filmIDs, 0, newArr, 0, i);
+                System.arraycopy(filmIDs, i + 1, newArr, i, filmIDs.length - i - 1);
+                filmIDs = newArr;
+                size = newArr.length;
+                return;
+            }
+        }
+    }
+
     // Resizes the array if it is full
     // Makes it one space bigger and copies over all items 
     public void resize(){
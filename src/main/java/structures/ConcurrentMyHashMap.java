@@ -0,0 +1,373 @@
+package structures;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A thread safe version of MyHashMap, so that stores can be filled and read
+ * from several threads at once.
+ *
+ * The map is split into segments (lock striping). Each segment is its own
+ * chained hash table with its own lock, so writers only block each other when
+ * their keys land in the same segment. Reads never take a lock: the nodes of a
+ * chain are never changed once they are published (apart from the value, which
+ * is volatile), removes copy the front of the chain instead of unlinking in
+ * place, and every change to a segment finishes with a write to its volatile
+ * count, which a reader always reads first.
+ *
+ * Null keys and null values are not allowed, as get gives back null for a
+ * missing key.
+ */
+public class ConcurrentMyHashMap<K,V> {
+    private static final int initial_cap = 16;
+    private static final float initial_lf = 0.75f;
+    // The number of segments, a power of two
+    private static final int default_concurrency = 16;
+
+    private final Segment<K, V>[] segments;
+    // The number of bits used to pick the segment
+    private final int segmentShift;
+    private final int segmentMask;
+
+    public ConcurrentMyHashMap(){
+        this(initial_cap, initial_lf, default_concurrency);
+    }
+
+    /**
+     * Makes a map big enough to hold the expected number of keys without resizing
+     * @param expectedSize the number of keys that are going to be added
+     */
+    public ConcurrentMyHashMap(int expectedSize){
+        this((int) (expectedSize / initial_lf) + 1, initial_lf, default_concurrency);
+    }
+
+    /**
+     * @param capacity the starting number of buckets across all segments
+     * @param loadFactor the load factor above which a segment doubles its array
+     * @param concurrency the number of writers expected to run at once, rounded up to a power of two
+     */
+    public ConcurrentMyHashMap(int capacity, float loadFactor, int concurrency) {
+        int numSegments = 1;
+        int bits = 0;
+        while (numSegments < concurrency && numSegments < (1 << 16)) {
+            numSegments = numSegments << 1;
+            bits = bits + 1;
+        }
+        segmentShift = 32 - bits;
+        segmentMask = numSegments - 1;
+
+        // Splits the capacity between the segments, each one a power of two
+        int perSegment = 2;
+        while (perSegment * numSegments < capacity) {
+            perSegment = perSegment << 1;
+        }
+
+        // Generic arrays can not be made directly, so the raw array is cast
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Segment<K, V>[] made = (Segment<K, V>[]) new Segment[numSegments];
+        segments = made;
+        for (int i = 0; i < numSegments; i++) {
+            segments[i] = new Segment<>(perSegment, loadFactor);
+        }
+    }
+
+    /**
+     * The class for the nodes. The key, hash and next pointer never change after
+     * the node is made, which is what lets readers walk a chain without a lock.
+     */
+    private static final class Node<K, V> {
+        final K key;
+        final int hash;
+        volatile V value;
+        final Node<K, V> next;
+
+        Node(K key, int hash, V value, Node<K, V> next) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /**
+     * One stripe of the map: a chained hash table guarded by its own lock
+     */
+    private static final class Segment<K, V> {
+        // Written last by every change, read first by every reader
+        volatile int count;
+        volatile Node<K, V>[] table;
+        private final float loadFactor;
+        private int threshold;
+
+        Segment(int capacity, float loadFactor) {
+            this.loadFactor = loadFactor;
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Node<K, V>[] made = (Node<K, V>[]) new Node[capacity];
+            this.table = made;
+            this.threshold = (int) (capacity * loadFactor);
+        }
+
+        /**
+         * Finds the node for the key without taking the lock
+         */
+        Node<K, V> find(Object key, int hash) {
+            // Reading count first makes every earlier change to this segment visible
+            if (count != 0) {
+                Node<K, V>[] tab = table;
+                Node<K, V> node = tab[hash & (tab.length - 1)];
+                while (node != null) {
+                    if (node.hash == hash && node.key.equals(key)) {
+                        return node;
+                    }
+                    node = node.next;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Adds or replaces a value under the lock
+         * @param onlyIfAbsent true to leave an existing value alone
+         * @return the value that was already stored, or null if the key was added
+         */
+        synchronized V put(K key, int hash, V value, boolean onlyIfAbsent) {
+            Node<K, V>[] tab = table;
+            int loc = hash & (tab.length - 1);
+            Node<K, V> node = tab[loc];
+            while (node != null) {
+                if (node.hash == hash && node.key.equals(key)) {
+                    V old = node.value;
+                    if (!onlyIfAbsent) {
+                        node.value = value;
+                    }
+                    return old;
+                }
+                node = node.next;
+            }
+
+            int c = count + 1;
+            if (c > threshold) {
+                tab = rehash();
+                loc = hash & (tab.length - 1);
+            }
+            tab[loc] = new Node<>(key, hash, value, tab[loc]);
+            // Publishes the change
+            count = c;
+            return null;
+        }
+
+        /**
+         * Makes the value from the key and adds it, unless the key is already stored.
+         * The whole check and add is done under the lock so the function runs at most once per key
+         */
+        synchronized V computeIfAbsent(K key, int hash, Function<? super K, ? extends V> function) {
+            Node<K, V> node = find(key, hash);
+            if (node != null) {
+                return node.value;
+            }
+            V value = function.apply(key);
+            if (value == null) {
+                return null;
+            }
+            put(key, hash, value, true);
+            return value;
+        }
+
+        /**
+         * Removes the key under the lock. The nodes before the removed one are
+         * copied, so a reader part way along the old chain still sees a whole chain
+         * @return true if the key was removed
+         */
+        synchronized boolean remove(Object key, int hash) {
+            Node<K, V>[] tab = table;
+            int loc = hash & (tab.length - 1);
+            Node<K, V> first = tab[loc];
+            Node<K, V> node = first;
+            while (node != null && (node.hash != hash || !node.key.equals(key))) {
+                node = node.next;
+            }
+            if (node == null) {
+                return false;
+            }
+
+            // Everything after the removed node is reused as it is
+            Node<K, V> newFirst = node.next;
+            for (Node<K, V> p = first; p != node; p = p.next) {
+                newFirst = new Node<>(p.key, p.hash, p.value, newFirst);
+            }
+            tab[loc] = newFirst;
+            // Publishes the change
+            count = count - 1;
+            return true;
+        }
+
+        /**
+         * Doubles the table. New nodes are made for every entry so the old table,
+         * which readers may still be walking, is left exactly as it was
+         * @return the new table
+         */
+        private Node<K, V>[] rehash() {
+            Node<K, V>[] oldTab = table;
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Node<K, V>[] newTab = (Node<K, V>[]) new Node[oldTab.length * 2];
+            int newMask = newTab.length - 1;
+            for (int i = 0; i < oldTab.length; i++) {
+                for (Node<K, V> node = oldTab[i]; node != null; node = node.next) {
+                    int loc = node.hash & newMask;
+                    newTab[loc] = new Node<>(node.key, node.hash, node.value, newTab[loc]);
+                }
+            }
+            threshold = (int) (newTab.length * loadFactor);
+            table = newTab;
+            return newTab;
+        }
+    }
+
+    /**
+     * Spreads the bits of the hash code, as the top bits pick the segment
+     * and the bottom bits pick the bucket
+     * @param key the key
+     * @return the mixed hash
+     */
+    private static int hash(Object key){
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Gives back the segment a hash belongs to
+     */
+    private Segment<K, V> segmentFor(int hash){
+        if (segmentMask == 0) {
+            return segments[0];
+        }
+        return segments[(hash >>> segmentShift) & segmentMask];
+    }
+
+    /**
+     * Adds a key value pair to the map, replacing the value if the key is already stored
+     * @param key the unique identifier being passed in
+     * @param value the value being stored with that key
+     */
+    public void put(K key, V value){
+        if (value == null) {
+            throw new NullPointerException("ConcurrentMyHashMap does not store null values");
+        }
+        int h = hash(key);
+        segmentFor(h).put(key, h, value, false);
+    }
+
+    /**
+     * Adds the key value pair only if the key is not already stored, as one atomic step
+     * @param key the unique identifier being passed in
+     * @param value the value being stored with that key
+     * @return the value already stored with the key, or null if the pair was added
+     */
+    public V putIfAbsent(K key, V value){
+        if (value == null) {
+            throw new NullPointerException("ConcurrentMyHashMap does not store null values");
+        }
+        int h = hash(key);
+        return segmentFor(h).put(key, h, value, true);
+    }
+
+    /**
+     * Gets the value for the key, creating and storing it first if the key is not stored.
+     * The function is called at most once per key, even with other threads adding the same key
+     * @param key the unique identifier being passed in
+     * @param function makes the value from the key when it is missing
+     * @return the value now stored with the key, or null if the function gave back null
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> function){
+        int h = hash(key);
+        Segment<K, V> segment = segmentFor(h);
+        // Most calls find the key, which needs no lock
+        Node<K, V> node = segment.find(key, h);
+        if (node != null) {
+            return node.value;
+        }
+        return segment.computeIfAbsent(key, h, function);
+    }
+
+    /**
+     * Takes in a key and returns the associated value. Never blocks
+     * @param key the unique identifier passed in
+     * @return gives back the value if found and null if not
+     */
+    public V get(K key){
+        int h = hash(key);
+        Node<K, V> node = segmentFor(h).find(key, h);
+        if (node == null) {
+            return null;
+        }
+        return node.value;
+    }
+
+    /**
+     * Takes in a key and returns the associated value, or the given default if the key is not stored
+     * @param key the unique identifier passed in
+     * @param defaultValue the value to give back if the key is not found
+     * @return the value if found and defaultValue if not
+     */
+    public V getOrDefault(K key, V defaultValue){
+        V value = get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        return value;
+    }
+
+    /**
+     * Checks if the key is in the map
+     * @param key the id
+     * @return true if the key is in the map and false if it is not
+     */
+    public boolean hasKey(K key){
+        int h = hash(key);
+        return segmentFor(h).find(key, h) != null;
+    }
+
+    /**
+     * Takes in a key and removes it, along with its value, from the map
+     * @param key the id
+     * @return true if the key is removed and false if it was not in the map
+     */
+    public boolean remove(K key){
+        int h = hash(key);
+        return segmentFor(h).remove(key, h);
+    }
+
+    /**
+     * Gives back the size of the map. With other threads writing this is only a snapshot
+     * @return the number of keys stored
+     */
+    public int size(){
+        long total = 0;
+        for (int i = 0; i < segments.length; i++) {
+            total = total + segments[i].count;
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Passes every key and value to the action, one segment at a time, without locking.
+     * The walk is weakly consistent: it never fails or sees a half made change, and
+     * shows every entry that was in the map for the whole walk, but entries added or
+     * removed while it runs may or may not be seen
+     * @param action called once for each key value pair
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action){
+        for (int s = 0; s < segments.length; s++) {
+            Segment<K, V> segment = segments[s];
+            if (segment.count == 0) {
+                continue;
+            }
+            Node<K, V>[] tab = segment.table;
+            for (int i = 0; i < tab.length; i++) {
+                for (Node<K, V> node = tab[i]; node != null; node = node.next) {
+                    action.accept(node.key, node.value);
+                }
+            }
+        }
+    }
+}
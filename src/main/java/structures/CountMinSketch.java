@@ -0,0 +1,113 @@
+package structures;
+
+/**
+ * Estimates how often each key has been counted, in a fixed amount of memory
+ * however many keys there are. Each key is hashed to one counter in each of a
+ * few rows, and its estimate is the smallest of those counters. Other keys only
+ * ever add to a key's counters, so an estimate is never below the true count.
+ *
+ * With a width of e / epsilon and a depth of ln(1 / delta), an estimate is more
+ * than epsilon times the total of all counts too high with a chance of at most
+ * delta. Taking counts back out is allowed, as long as no key goes below zero.
+ */
+public class CountMinSketch {
+    // The most counters a sketch may have, 32 MB of longs
+    public static final int max_counters = 1 << 22;
+
+    private final int width;
+    private final int depth;
+    // Row r is at [r * width, (r + 1) * width)
+    private final long[] counters;
+    // The sum of every count added
+    private long total;
+
+    /**
+     * @param epsilon the error, as a share of the total count, from 0 to 1
+     * @param delta the chance of an estimate being further out than that, from 0 to 1
+     */
+    public CountMinSketch(double epsilon, double delta){
+        if (counters(epsilon, delta) > max_counters) {
+            throw new IllegalArgumentException("A sketch for epsilon " + epsilon + " and delta " + delta + " needs more than " + max_counters + " counters");
+        }
+        width = (int) Math.ceil(Math.E / epsilon);
+        depth = Math.max(1, (int) Math.ceil(Math.log(1 / delta)));
+        counters = new long[width * depth];
+    }
+
+    /**
+     * Works out the number of counters a sketch needs, without the int overflow a
+     * tiny epsilon or delta would give
+     * @param epsilon the error, as a share of the total count
+     * @param delta the chance of an estimate being further out than that
+     * @return the number of counters, or Long.MAX_VALUE if it is too big for a long
+     */
+    public static long counters(double epsilon, double delta){
+        double size = Math.ceil(Math.E / epsilon) * Math.max(1, Math.ceil(Math.log(1 / delta)));
+        // Also catches NaN, from bounds that are not numbers
+        if (!(size < Long.MAX_VALUE)) {
+            return Long.MAX_VALUE;
+        }
+        return (long) size;
+    }
+
+    /**
+     * Finds a key's counter in one row. Each row mixes the key with a different
+     * seed, so two keys that share a counter in one row rarely do in the next
+     */
+    private int slot(long key, int row){
+        long h = key + (row + 1) * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h = h ^ (h >>> 31);
+        return row * width + (int) ((h >>> 1) % width);
+    }
+
+    /**
+     * Adds to a key's count
+     * @param key the key
+     * @param amount the amount to add, negative to take counts back out
+     */
+    public void add(long key, long amount){
+        for (int row = 0; row < depth; row++) {
+            counters[slot(key, row)] += amount;
+        }
+        total = total + amount;
+    }
+
+    /**
+     * Estimates a key's count
+     * @param key the key
+     * @return the count, never less than the true count
+     */
+    public long estimate(long key){
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[slot(key, row)]);
+        }
+        return min;
+    }
+
+    /**
+     * Gets the sum of every count added, which the error is a share of
+     * @return the total
+     */
+    public long total(){
+        return total;
+    }
+
+    /**
+     * Gets the number of counters in each row
+     * @return the width
+     */
+    public int width(){
+        return width;
+    }
+
+    /**
+     * Gets the number of rows
+     * @return the depth
+     */
+    public int depth(){
+        return depth;
+    }
+}
@@ -0,0 +1,133 @@
+package structures;
+
+import java.util.Arrays;
+
+/**
+ * The credits of one person, as (film id, billing order) pairs sorted by film.
+ * Each pair is packed into one long with the film in the top half, so sorting
+ * the longs sorts by film and then by order. A person with two roles in a film
+ * has two pairs for it.
+ *
+ * Adds go on the end and the list is only sorted again when it is next read, so
+ * building the lists from a bulk load sorts each one once.
+ */
+public class FilmCredits {
+    private static final int initial_cap = 2;
+
+    private long[] credits;
+    private int size;
+    // False after an add until the next read sorts the list
+    private boolean sorted;
+
+    public FilmCredits(){
+        credits = new long[initial_cap];
+        sorted = true;
+    }
+
+    private static long pack(int filmID, int order){
+        return ((long) filmID << 32) | (order & 0xFFFFFFFFL);
+    }
+
+    private static int film(long credit){
+        return (int) (credit >> 32);
+    }
+
+    private static int order(long credit){
+        return (int) credit;
+    }
+
+    /**
+     * Adds a credit
+     * @param filmID the film
+     * @param order the billing order, lower is billed higher. Crew credits have none and pass 0
+     */
+    public void add(int filmID, int order){
+        if (size == credits.length) {
+            credits = Arrays.copyOf(credits, size * 2);
+        }
+        long credit = pack(filmID, order);
+        // Credits added in increasing order keep the list sorted for free
+        if (sorted && size > 0 && credits[size - 1] > credit) {
+            sorted = false;
+        }
+        credits[size] = credit;
+        size = size + 1;
+    }
+
+    /**
+     * Removes every credit for a film
+     * @param filmID the film
+     * @return the number of credits removed
+     */
+    public int removeFilm(int filmID){
+        sort();
+        int from = firstOfFilm(filmID);
+        int to = from;
+        while (to < size && film(credits[to]) == filmID) {
+            to = to + 1;
+        }
+        System.arraycopy(credits, to, credits, from, size - to);
+        size = size - (to - from);
+        return to - from;
+    }
+
+    /**
+     * Finds the first credit for a film, or where it would go, by binary search
+     */
+    private int firstOfFilm(int filmID){
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (film(credits[mid]) < filmID) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void sort(){
+        if (!sorted) {
+            Arrays.sort(credits, 0, size);
+            sorted = true;
+        }
+    }
+
+    /**
+     * Gives back the films, each once
+     * @return the film ids in increasing order
+     */
+    public int[] films(){
+        return filmsBilledAbove(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gives back the films with at least one credit billed higher than an order
+     * @param order the order a credit must be below, so 3 keeps orders 0, 1 and 2
+     * @return the film ids in increasing order, each once
+     */
+    public int[] filmsBilledAbove(int order){
+        sort();
+        int[] arr = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int film = film(credits[i]);
+            if (order(credits[i]) < order && (count == 0 || arr[count - 1] != film)) {
+                arr[count] = film;
+                count = count + 1;
+            }
+        }
+        return (count == arr.length) ? arr : Arrays.copyOf(arr, count);
+    }
+
+    /**
+     * Gives back the number of credits, counting each role in a film
+     * @return the number of credits
+     */
+    public int size(){
+        return size;
+    }
+}
@@ -0,0 +1,259 @@
+package structures;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of the ids counted most often, in a fixed amount of memory however
+ * many ids there are. It is a space saving table of 1 / epsilon ids with a
+ * count-min sketch behind it.
+ *
+ * The table holds the ids with the biggest counts seen so far. An id not in the
+ * table takes the place of the one with the smallest count, and starts from that
+ * count, so no count in the table is ever below the true one. Any id counted more
+ * than epsilon times the total is always in the table. The sketch's estimate is
+ * never below the true count either, so an id is reported and ranked by the
+ * smaller of the two, and one that only just made it in is not ranked far above
+ * where it belongs.
+ *
+ * Counts can be taken back out. The table counts then drift from the guarantee
+ * by at most the amount taken out, as an id that was pushed out and came back
+ * does not know how much it lost.
+ */
+public class HeavyHitters {
+    private final int capacity;
+    private final CountMinSketch sketch;
+
+    // The ids in the table, one slot each
+    private final int[] ids;
+    private final long[] counts;
+    private int size;
+    // Ids to the slot holding them
+    private final IntIntMap slots;
+    // The slots as a min heap on count, and the place of each slot in it
+    private final int[] heap;
+    private final int[] heapPos;
+
+    // The last answer from top, kept until the next change
+    private int[] lastTop;
+    private boolean changed;
+
+    /**
+     * @param epsilon the error, as a share of the total count, from 0 to 1. The
+     *                table holds 1 / epsilon ids
+     * @param delta the chance of a sketch estimate being further out than that, from 0 to 1
+     */
+    public HeavyHitters(double epsilon, double delta){
+        if (!fits(epsilon, delta)) {
+            throw new IllegalArgumentException("Epsilon " + epsilon + " and delta " + delta + " need too big a table or sketch");
+        }
+        capacity = (int) Math.ceil(1 / epsilon);
+        sketch = new CountMinSketch(epsilon, delta);
+        ids = new int[capacity];
+        counts = new long[capacity];
+        slots = new IntIntMap(capacity);
+        heap = new int[capacity];
+        heapPos = new int[capacity];
+        lastTop = new int[0];
+    }
+
+    /**
+     * Checks that the table and sketch for the given bounds are small enough to make.
+     * A tiny epsilon would otherwise ask for arrays bigger than an int can count
+     * @param epsilon the error, as a share of the total count
+     * @param delta the chance of a sketch estimate being further out than that
+     * @return true if the table and the sketch each need at most CountMinSketch.max_counters entries
+     */
+    public static boolean fits(double epsilon, double delta){
+        return Math.ceil(1 / epsilon) <= CountMinSketch.max_counters
+            && CountMinSketch.counters(epsilon, delta) <= CountMinSketch.max_counters;
+    }
+
+    /**
+     * Adds to an id's count
+     * @param id the id
+     * @param amount the amount to add, negative to take counts back out
+     */
+    public void add(int id, long amount){
+        sketch.add(id, amount);
+        changed = true;
+        int slot = slots.getOrDefault(id, -1);
+        if (slot >= 0) {
+            if (Math.min(counts[slot] + amount, sketch.estimate(id)) <= 0) {
+                removeSlot(slot);
+                return;
+            }
+            setCount(slot, counts[slot] + amount);
+            return;
+        }
+        if (amount <= 0) {
+            // Ids not in the table are only in the sketch
+            return;
+        }
+
+        if (size < capacity) {
+            slot = size;
+            size = size + 1;
+            heap[slot] = slot;
+            heapPos[slot] = slot;
+            ids[slot] = id;
+            counts[slot] = amount;
+            slots.put(id, slot);
+            // Starts as the last leaf, so it can only go up
+            siftUp(slot);
+            return;
+        }
+        // Takes over the slot with the smallest count
+        slot = heap[0];
+        long floor = counts[slot];
+        slots.remove(ids[slot]);
+        ids[slot] = id;
+        slots.put(id, slot);
+        setCount(slot, floor + amount);
+    }
+
+    /**
+     * Takes an id out of the table, for a caller that knows its true count has
+     * gone back to zero. Its count stays in the sketch
+     * @param id the id
+     * @return true if the id was in the table
+     */
+    public boolean remove(int id){
+        int slot = slots.getOrDefault(id, -1);
+        if (slot < 0) {
+            return false;
+        }
+        changed = true;
+        removeSlot(slot);
+        return true;
+    }
+
+    /**
+     * Estimates an id's count
+     * @param id the id
+     * @return the smaller of the count in the table and the sketch's estimate,
+     *         never below the true count unless counts have been taken back out
+     */
+    public long estimate(int id){
+        int slot = slots.getOrDefault(id, -1);
+        return (slot >= 0) ? Math.min(counts[slot], sketch.estimate(id)) : sketch.estimate(id);
+    }
+
+    /**
+     * Gets the ids with the biggest counts
+     * @param n the number of ids wanted
+     * @return the ids, biggest count first with ties going to the lower id. There
+     *         are never more than the table holds
+     */
+    public int[] top(int n){
+        if (!changed && (n <= lastTop.length || lastTop.length == size)) {
+            return Arrays.copyOf(lastTop, Math.max(0, Math.min(n, lastTop.length)));
+        }
+        double[] scores = new double[size];
+        for (int i = 0; i < size; i++) {
+            scores[i] = Math.min(counts[i], sketch.estimate(ids[i]));
+        }
+        lastTop = new RankedIds(Arrays.copyOf(ids, size), new int[size], scores, size).next(n);
+        changed = false;
+        return Arrays.copyOf(lastTop, lastTop.length);
+    }
+
+    /**
+     * Gets the number of ids in the table
+     * @return the size
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Gets the most ids the table can hold
+     * @return the capacity
+     */
+    public int capacity(){
+        return capacity;
+    }
+
+    /**
+     * Gets the sum of every count added
+     * @return the total
+     */
+    public long total(){
+        return sketch.total();
+    }
+
+    /**
+     * Changes the count in a slot and moves it to its new place in the heap
+     */
+    private void setCount(int slot, long count){
+        long old = counts[slot];
+        counts[slot] = count;
+        if (count < old) {
+            siftUp(heapPos[slot]);
+        }
+        else {
+            siftDown(heapPos[slot]);
+        }
+    }
+
+    /**
+     * Takes a slot out of the table, moving the last slot into its place so the
+     * slots in use stay at the front
+     */
+    private void removeSlot(int slot){
+        slots.remove(ids[slot]);
+        // Takes it out of the heap first
+        int i = heapPos[slot];
+        int lastHeap = heap[size - 1];
+        heap[i] = lastHeap;
+        heapPos[lastHeap] = i;
+        size = size - 1;
+        if (i < size) {
+            siftUp(i);
+            siftDown(heapPos[lastHeap]);
+        }
+        // Then fills the gap with the last slot
+        if (slot != size) {
+            ids[slot] = ids[size];
+            counts[slot] = counts[size];
+            slots.put(ids[slot], slot);
+            heap[heapPos[size]] = slot;
+            heapPos[slot] = heapPos[size];
+        }
+    }
+
+    private void siftUp(int i){
+        int slot = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[slot]) {
+                break;
+            }
+            heap[i] = heap[parent];
+            heapPos[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = slot;
+        heapPos[slot] = i;
+    }
+
+    private void siftDown(int i){
+        int slot = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+                child = child + 1;
+            }
+            if (counts[slot] <= counts[heap[child]]) {
+                break;
+            }
+            heap[i] = heap[child];
+            heapPos[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = slot;
+        heapPos[slot] = i;
+    }
+}
@@ -0,0 +1,282 @@
+package structures;
+
+/**
+ * A hash map from primitive ints to primitive ints, for things like id to
+ * array index lookups where boxing both sides would cost more than the data.
+ * Uses the same layout as IntObjectMap: linear probing over parallel arrays
+ * with a power of two capacity.
+ */
+public class IntIntMap {
+    // Must be a power of two
+    private static final int initial_cap = 16;
+    private static final float initial_lf = 0.5f;
+
+    // 0 marks an empty slot, so the key 0 is stored separately
+    private static final int FREE_KEY = 0;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private float loadFactor;
+    // The size at which the arrays need to grow
+    private int threshold;
+
+    // Storage for the key 0 as it can not be stored in the arrays
+    private boolean hasFreeKey;
+    private int freeValue;
+
+    public IntIntMap(){
+        this(initial_cap, initial_lf);
+    }
+
+    /**
+     * Makes a map big enough to hold the expected number of keys without resizing
+     * @param expectedSize the number of keys that are going to be added
+     */
+    public IntIntMap(int expectedSize){
+        this((int) (expectedSize / initial_lf) + 1, initial_lf);
+    }
+
+    public IntIntMap(int capacity, float loadFactor) {
+        this.loadFactor = loadFactor;
+        int cap = 2;
+        while (cap < capacity && cap < (1 << 30)) {
+            cap = cap << 1;
+        }
+        this.keys = new int[cap];
+        this.values = new int[cap];
+        this.mask = cap - 1;
+        this.threshold = (int) (cap * loadFactor);
+    }
+
+    /**
+     * Mixes the bits of the key so that ids which are close together
+     * do not all land in neighbouring slots
+     */
+    private static int mix(int key){
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Finds the slot holding the key
+     * @return the slot index, or -1 if the key is not stored
+     */
+    private int findSlot(int key){
+        int loc = mix(key) & mask;
+        int k;
+        while ((k = keys[loc]) != FREE_KEY) {
+            if (k == key) {
+                return loc;
+            }
+            loc = (loc + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a key value pair to the map, replacing the value if the key is already stored
+     * @param key the unique identifier being passed in
+     * @param value the value being stored with that key
+     */
+    public void put(int key, int value){
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size = size + 1;
+            }
+            freeValue = value;
+            return;
+        }
+
+        int loc = mix(key) & mask;
+        int k;
+        while ((k = keys[loc]) != FREE_KEY) {
+            if (k == key) {
+                values[loc] = value;
+                return;
+            }
+            loc = (loc + 1) & mask;
+        }
+
+        keys[loc] = key;
+        values[loc] = value;
+        size = size + 1;
+        if (size > threshold) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * Adds delta to the value stored with the key, starting from 0 if the key is not stored
+     * @param key the unique identifier being passed in
+     * @param delta the amount to add
+     * @return the value now stored with the key
+     */
+    public int addTo(int key, int delta){
+        if (key == FREE_KEY) {
+            int value = (hasFreeKey ? freeValue : 0) + delta;
+            put(key, value);
+            return value;
+        }
+
+        int loc = mix(key) & mask;
+        int k;
+        while ((k = keys[loc]) != FREE_KEY) {
+            if (k == key) {
+                values[loc] = values[loc] + delta;
+                return values[loc];
+            }
+            loc = (loc + 1) & mask;
+        }
+
+        keys[loc] = key;
+        values[loc] = delta;
+        size = size + 1;
+        if (size > threshold) {
+            resize(keys.length * 2);
+        }
+        return delta;
+    }
+
+    /**
+     * Doubles the arrays and puts every entry back in
+     * @param newCap the new number of slots, a power of two
+     */
+    private void resize(int newCap){
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+
+        keys = new int[newCap];
+        values = new int[newCap];
+        mask = newCap - 1;
+        threshold = (int) (newCap * loadFactor);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int loc = mix(key) & mask;
+                while (keys[loc] != FREE_KEY) {
+                    loc = (loc + 1) & mask;
+                }
+                keys[loc] = key;
+                values[loc] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Grows the map, if needed, so that it can hold the expected number of keys without resizing
+     * @param expectedSize the number of keys that are going to be stored
+     */
+    public void ensureCapacity(int expectedSize){
+        int needed = 2;
+        while (needed < (int) (expectedSize / loadFactor) + 1 && needed < (1 << 30)) {
+            needed = needed << 1;
+        }
+        if (needed > keys.length) {
+            resize(needed);
+        }
+    }
+
+    /**
+     * Takes in a key and returns the associated value, or the given default if the key is not stored
+     * @param key the unique identifier passed in
+     * @param defaultValue the value to give back if the key is not found
+     * @return the value if found and defaultValue if not
+     */
+    public int getOrDefault(int key, int defaultValue){
+        if (key == FREE_KEY) {
+            return hasFreeKey ? freeValue : defaultValue;
+        }
+        int loc = findSlot(key);
+        if (loc < 0) {
+            return defaultValue;
+        }
+        return values[loc];
+    }
+
+    /**
+     * Checks if the key is already in the map
+     * @param key the id
+     * @return true if the key is in the map and false if it is not
+     */
+    public boolean hasKey(int key){
+        if (key == FREE_KEY) {
+            return hasFreeKey;
+        }
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Takes in a key and removes it, along with its value, from the map
+     * @param key the id
+     * @return true if the key is removed and false if it was not in the map
+     */
+    public boolean remove(int key){
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                return false;
+            }
+            hasFreeKey = false;
+            size = size - 1;
+            return true;
+        }
+
+        int loc = findSlot(key);
+        if (loc < 0) {
+            return false;
+        }
+
+        // Moves later entries in the same run back so lookups never stop early at a hole
+        int last;
+        int k;
+        while (true) {
+            last = loc;
+            loc = (loc + 1) & mask;
+            while (true) {
+                if ((k = keys[loc]) == FREE_KEY) {
+                    keys[last] = FREE_KEY;
+                    size = size - 1;
+                    return true;
+                }
+                int ideal = mix(k) & mask;
+                if (last <= loc ? (last >= ideal || ideal > loc) : (last >= ideal && ideal > loc)) {
+                    break;
+                }
+                loc = (loc + 1) & mask;
+            }
+            keys[last] = k;
+            values[last] = values[loc];
+        }
+    }
+
+    /**
+     * Makes an array of all of the keys in the map
+     * @return gives back the array
+     */
+    public int[] keyArray(){
+        int[] arr = new int[size];
+        int index = 0;
+        if (hasFreeKey) {
+            arr[index] = FREE_KEY;
+            index = index + 1;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE_KEY) {
+                arr[index] = keys[i];
+                index = index + 1;
+            }
+        }
+        return arr;
+    }
+
+    /**
+     * Gives back the size of the map
+     * @return the number of keys stored
+     */
+    public int size(){
+        return size;
+    }
+}
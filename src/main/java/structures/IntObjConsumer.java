@@ -0,0 +1,13 @@
+package structures;
+
+/**
+ * An action taking an int key and its value, so maps keyed by ints can be walked
+ * without boxing the key.
+ */
+@FunctionalInterface
+public interface IntObjConsumer<V> {
+
+    // Called once for each key value pair.
+    public void accept(int key, V value);
+
+}
@@ -0,0 +1,443 @@
+package structures;
+
+import java.util.function.IntFunction;
+
+/**
+ * A hash map keyed by primitive ints.
+ * Uses open addressing with linear probing over two parallel arrays (one for
+ * the keys and one for the values), so there is no boxing of the key and no
+ * node object per entry.
+ * The capacity is always a power of two so the slot can be found with a mask
+ * instead of a modulo.
+ */
+public class IntObjectMap<V> {
+    // Must be a power of two
+    private static final int initial_cap = 16;
+    // Kept low so that most lookups only touch one or two slots
+    private static final float initial_lf = 0.5f;
+
+    // 0 marks an empty slot, so the key 0 is stored separately
+    private static final int FREE_KEY = 0;
+
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private float loadFactor;
+    // The size at which the arrays need to grow
+    private int threshold;
+
+    // Storage for the key 0 as it can not be stored in the arrays
+    private boolean hasFreeKey;
+    private Object freeValue;
+
+    public IntObjectMap(){
+        this(initial_cap, initial_lf);
+    }
+
+    /**
+     * Makes a map big enough to hold the expected number of keys without resizing
+     * @param expectedSize the number of keys that are going to be added
+     */
+    public IntObjectMap(int expectedSize){
+        this((int) (expectedSize / initial_lf) + 1, initial_lf);
+    }
+
+    public IntObjectMap(int capacity, float loadFactor) {
+        this.loadFactor = loadFactor;
+        // Rounds the capacity up to the next power of two
+        int cap = tableSizeFor(capacity);
+        this.keys = new int[cap];
+        this.values = new Object[cap];
+        this.mask = cap - 1;
+        this.threshold = (int) (cap * loadFactor);
+    }
+
+    /**
+     * Gives back the smallest power of two that is at least the given capacity
+     * @param capacity the requested number of slots
+     * @return the power of two
+     */
+    private static int tableSizeFor(int capacity){
+        int cap = 2;
+        while (cap < capacity && cap < (1 << 30)) {
+            cap = cap << 1;
+        }
+        return cap;
+    }
+
+    /**
+     * Mixes the bits of the key so that ids which are close together
+     * do not all land in neighbouring slots
+     * @param key the key which is the ID
+     * @return the mixed hash
+     */
+    private static int mix(int key){
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Finds the slot holding the key
+     * @param key the key to find
+     * @return the slot index, or -1 if the key is not stored
+     */
+    private int findSlot(int key){
+        int loc = mix(key) & mask;
+        int k;
+        // Walks along the run until an empty slot is reached
+        while ((k = keys[loc]) != FREE_KEY) {
+            if (k == key) {
+                return loc;
+            }
+            loc = (loc + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a key value pair to the map, replacing the value if the key is already stored
+     * @param key the unique identifier being passed in
+     * @param value the value being stored with that key
+     */
+    public void put(int key, V value){
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size = size + 1;
+            }
+            freeValue = value;
+            return;
+        }
+
+        int loc = mix(key) & mask;
+        int k;
+        while ((k = keys[loc]) != FREE_KEY) {
+            // If the keys are the same, it updates the value
+            if (k == key) {
+                values[loc] = value;
+                return;
+            }
+            loc = (loc + 1) & mask;
+        }
+
+        // Stores the pair in the first empty slot in the run
+        insertAt(loc, key, value);
+    }
+
+    /**
+     * Doubles the arrays and puts every entry back in
+     * @param newCap the new number of slots, a power of two
+     */
+    private void resize(int newCap){
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        keys = new int[newCap];
+        values = new Object[newCap];
+        mask = newCap - 1;
+        threshold = (int) (newCap * loadFactor);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int loc = mix(key) & mask;
+                while (keys[loc] != FREE_KEY) {
+                    loc = (loc + 1) & mask;
+                }
+                keys[loc] = key;
+                values[loc] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Grows the map, if needed, so that it can hold the expected number of keys without resizing.
+     * Used to presize a map before a bulk load
+     * @param expectedSize the number of keys that are going to be stored
+     */
+    public void ensureCapacity(int expectedSize){
+        int needed = tableSizeFor((int) (expectedSize / loadFactor) + 1);
+        if (needed > keys.length) {
+            resize(needed);
+        }
+    }
+
+    /**
+     * Takes in a key and returns the associated value
+     * @param key the unique identifier passed in
+     * @return gives back the value if found and null if not
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key){
+        if (key == FREE_KEY) {
+            return hasFreeKey ? (V) freeValue : null;
+        }
+        int loc = findSlot(key);
+        if (loc < 0) {
+            return null;
+        }
+        return (V) values[loc];
+    }
+
+    /**
+     * Takes in a key and returns the associated value, or the given default if the key is not stored.
+     * Lets callers do a null check and a read with a single probe
+     * @param key the unique identifier passed in
+     * @param defaultValue the value to give back if the key is not found
+     * @return the value if found and defaultValue if not
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(int key, V defaultValue){
+        if (key == FREE_KEY) {
+            return hasFreeKey ? (V) freeValue : defaultValue;
+        }
+        int loc = findSlot(key);
+        if (loc < 0) {
+            return defaultValue;
+        }
+        return (V) values[loc];
+    }
+
+    /**
+     * Adds the key value pair only if the key is not already stored.
+     * Checking and adding is done in one walk along the run
+     * @param key the unique identifier being passed in
+     * @param value the value being stored with that key
+     * @return the value already stored with the key, or null if the pair was added
+     */
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(int key, V value){
+        if (key == FREE_KEY) {
+            if (hasFreeKey) {
+                return (V) freeValue;
+            }
+            put(key, value);
+            return null;
+        }
+
+        int loc = mix(key) & mask;
+        int k;
+        while ((k = keys[loc]) != FREE_KEY) {
+            // If the key is already there, its value is left alone
+            if (k == key) {
+                return (V) values[loc];
+            }
+            loc = (loc + 1) & mask;
+        }
+        insertAt(loc, key, value);
+        return null;
+    }
+
+    /**
+     * Gets the value for the key, creating and storing it first if the key is not stored.
+     * Checking and adding is done in one walk along the run
+     * @param key the unique identifier being passed in
+     * @param function makes the value from the key when it is missing
+     * @return the value now stored with the key
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(int key, IntFunction<? extends V> function){
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                put(key, function.apply(key));
+            }
+            return (V) freeValue;
+        }
+
+        int loc = mix(key) & mask;
+        int k;
+        while ((k = keys[loc]) != FREE_KEY) {
+            if (k == key) {
+                return (V) values[loc];
+            }
+            loc = (loc + 1) & mask;
+        }
+        V value = function.apply(key);
+        insertAt(loc, key, value);
+        return value;
+    }
+
+    /**
+     * Stores a new pair in an empty slot, growing the arrays if needed
+     * @param loc the empty slot at the end of the key's run
+     * @param key the unique identifier being passed in
+     * @param value the value being stored with that key
+     */
+    private void insertAt(int loc, int key, Object value){
+        keys[loc] = key;
+        values[loc] = value;
+        size = size + 1;
+
+        if (size > threshold) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * Checks if the key is already in the map
+     * @param key the id
+     * @return true if the key is in the map and false if it is not
+     */
+    public boolean hasKey(int key){
+        if (key == FREE_KEY) {
+            return hasFreeKey;
+        }
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Takes in a key and removes it, along with its value, from the map
+     * @param key the id
+     * @return true if the key is removed and false if it was not in the map
+     */
+    public boolean remove(int key){
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                return false;
+            }
+            hasFreeKey = false;
+            freeValue = null;
+            size = size - 1;
+            return true;
+        }
+
+        int loc = findSlot(key);
+        if (loc < 0) {
+            return false;
+        }
+        shiftKeys(loc);
+        size = size - 1;
+        return true;
+    }
+
+    /**
+     * Empties the slot and moves later entries in the same run back into it,
+     * so that lookups never stop early at a hole (no tombstones are needed)
+     * @param loc the slot being emptied
+     */
+    private void shiftKeys(int loc){
+        int last;
+        int k;
+        while (true) {
+            last = loc;
+            loc = (loc + 1) & mask;
+            while (true) {
+                if ((k = keys[loc]) == FREE_KEY) {
+                    keys[last] = FREE_KEY;
+                    values[last] = null;
+                    return;
+                }
+                // The slot this entry would ideally be in
+                int ideal = mix(k) & mask;
+                // Moves the entry back if its ideal slot is not between last and loc (cyclically)
+                if (last <= loc ? (last >= ideal || ideal > loc) : (last >= ideal && ideal > loc)) {
+                    break;
+                }
+                loc = (loc + 1) & mask;
+            }
+            keys[last] = k;
+            values[last] = values[loc];
+        }
+    }
+
+    /**
+     * Makes an array of all of the keys in the map
+     * @return gives back the array
+     */
+    public int[] keyArray(){
+        int[] arr = new int[size];
+        int index = 0;
+        if (hasFreeKey) {
+            arr[index] = FREE_KEY;
+            index = index + 1;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE_KEY) {
+                arr[index] = keys[i];
+                index = index + 1;
+            }
+        }
+        return arr;
+    }
+
+    /**
+     * Passes every key and value to the action, reading each slot once and
+     * allocating nothing. The map must not be changed while this runs
+     * @param action called once for each key value pair
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(IntObjConsumer<? super V> action){
+        if (hasFreeKey) {
+            action.accept(FREE_KEY, (V) freeValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE_KEY) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * Gives back a cursor over the entries of the map, for loops that need to
+     * keep local state (which a lambda passed to forEach can not change)
+     * @return a cursor placed before the first entry
+     */
+    public EntryCursor entryCursor(){
+        return new EntryCursor();
+    }
+
+    /**
+     * Walks the slots of the map in place. Call advance() to move onto the next
+     * entry, then read it with key() and value(). No objects are made per entry.
+     * The map must not be changed while a cursor is in use
+     */
+    public class EntryCursor {
+        // -2 is before the start, -1 is the key 0, 0 and above are slots
+        private int index = -2;
+
+        /**
+         * Moves onto the next entry
+         * @return true if there is an entry to read, false once every entry has been seen
+         */
+        public boolean advance(){
+            if (index == -2) {
+                index = -1;
+                if (hasFreeKey) {
+                    return true;
+                }
+            }
+            index = index + 1;
+            while (index < keys.length) {
+                if (keys[index] != FREE_KEY) {
+                    return true;
+                }
+                index = index + 1;
+            }
+            return false;
+        }
+
+        /**
+         * @return the key of the current entry
+         */
+        public int key(){
+            return index < 0 ? FREE_KEY : keys[index];
+        }
+
+        /**
+         * @return the value of the current entry
+         */
+        @SuppressWarnings("unchecked")
+        public V value(){
+            return (V) (index < 0 ? freeValue : values[index]);
+        }
+    }
+
+    /**
+     * Gives back the size of the map
+     * @return the number of keys stored
+     */
+    public int size(){
+        return size;
+    }
+}
@@ -0,0 +1,299 @@
+package structures;
+
+import java.util.Arrays;
+
+/**
+ * A live ranking of ids by a double score, highest first with ties going to the
+ * lower id. The entries are kept in an AVL tree held in parallel arrays, and each
+ * node also stores the size of its subtree so the rank of an id can be found.
+ *
+ * Changing the score of an id moves it in O(log n), so a store can keep the
+ * ranking up to date on every change. Reading the best n is then an in order walk
+ * of O(log n + n), rather than a sort of every id.
+ */
+public class Leaderboard {
+    private static final int initial_cap = 16;
+    // Marks a missing child
+    private static final int NIL = -1;
+
+    // The nodes, one slot each
+    private int[] ids;
+    private double[] scores;
+    private int[] left;
+    private int[] right;
+    private int[] heights;
+    // The number of nodes in the subtree under each node, the node included
+    private int[] sizes;
+
+    private int root;
+    // The number of slots handed out, free ones included
+    private int used;
+    // A chain of free slots linked through left, NIL at the end
+    private int free;
+    // Ids to the slot holding them
+    private IntIntMap slots;
+
+    public Leaderboard(){
+        ids = new int[initial_cap];
+        scores = new double[initial_cap];
+        left = new int[initial_cap];
+        right = new int[initial_cap];
+        heights = new int[initial_cap];
+        sizes = new int[initial_cap];
+        root = NIL;
+        free = NIL;
+        slots = new IntIntMap();
+    }
+
+    /**
+     * Puts an id on the board, or moves it if it is already there
+     * @param id the id
+     * @param score the new score of the id, higher is better
+     */
+    public void set(int id, double score){
+        int slot = slots.getOrDefault(id, -1);
+        if (slot >= 0) {
+            // Nothing to move if the score is the same
+            if (scores[slot] == score) {
+                return;
+            }
+            root = delete(root, id, scores[slot]);
+        }
+        slot = newSlot(id, score);
+        slots.put(id, slot);
+        root = insert(root, slot);
+    }
+
+    /**
+     * Takes an id off the board
+     * @param id the id
+     * @return true if the id was on the board
+     */
+    public boolean remove(int id){
+        int slot = slots.getOrDefault(id, -1);
+        if (slot < 0) {
+            return false;
+        }
+        root = delete(root, id, scores[slot]);
+        slots.remove(id);
+        return true;
+    }
+
+    /**
+     * Checks if an id is on the board
+     * @param id the id
+     * @return true if the id is on the board
+     */
+    public boolean contains(int id){
+        return slots.hasKey(id);
+    }
+
+    /**
+     * Gives back the number of ids on the board
+     * @return the number of ids
+     */
+    public int size(){
+        return (root == NIL) ? 0 : sizes[root];
+    }
+
+    /**
+     * Gives back the best ids on the board
+     * @param n the most ids wanted
+     * @return up to n ids, best first
+     */
+    public int[] top(int n){
+        int[] arr = new int[Math.max(0, Math.min(n, size()))];
+        if (arr.length == 0) {
+            return arr;
+        }
+        // An in order walk with its own stack, no deeper than the tree
+        int[] stack = new int[heights[root] + 1];
+        int depth = 0;
+        int node = root;
+        int count = 0;
+        while (count < arr.length) {
+            while (node != NIL) {
+                stack[depth] = node;
+                depth = depth + 1;
+                node = left[node];
+            }
+            depth = depth - 1;
+            node = stack[depth];
+            arr[count] = ids[node];
+            count = count + 1;
+            node = right[node];
+        }
+        return arr;
+    }
+
+    /**
+     * Finds how many ids are ahead of an id on the board
+     * @param id the id
+     * @return the number of ids ranked above it (0 for the best), or -1 if it is not on the board
+     */
+    public int rank(int id){
+        int slot = slots.getOrDefault(id, -1);
+        if (slot < 0) {
+            return -1;
+        }
+        double score = scores[slot];
+        int ahead = 0;
+        int node = root;
+        while (node != slot) {
+            if (before(id, score, node)) {
+                node = left[node];
+            }
+            else {
+                ahead = ahead + size(left[node]) + 1;
+                node = right[node];
+            }
+        }
+        return ahead + size(left[node]);
+    }
+
+    //=============================================================================================================
+    // The tree
+
+    /**
+     * Checks if an entry with the given id and score comes before the node
+     */
+    private boolean before(int id, double score, int node){
+        if (score != scores[node]) {
+            return score > scores[node];
+        }
+        return id < ids[node];
+    }
+
+    private int height(int node){
+        return (node == NIL) ? 0 : heights[node];
+    }
+
+    private int size(int node){
+        return (node == NIL) ? 0 : sizes[node];
+    }
+
+    private void update(int node){
+        heights[node] = Math.max(height(left[node]), height(right[node])) + 1;
+        sizes[node] = size(left[node]) + size(right[node]) + 1;
+    }
+
+    private int rotateRight(int node){
+        int child = left[node];
+        left[node] = right[child];
+        right[child] = node;
+        update(node);
+        update(child);
+        return child;
+    }
+
+    private int rotateLeft(int node){
+        int child = right[node];
+        right[node] = left[child];
+        left[child] = node;
+        update(node);
+        update(child);
+        return child;
+    }
+
+    /**
+     * Updates a node after one of its subtrees changed, rotating it if the heights
+     * of its subtrees are now more than one apart
+     * @return the node now at the top of this subtree
+     */
+    private int balance(int node){
+        update(node);
+        int factor = height(right[node]) - height(left[node]);
+        if (factor < -1) {
+            if (height(right[left[node]]) > height(left[left[node]])) {
+                left[node] = rotateLeft(left[node]);
+            }
+            return rotateRight(node);
+        }
+        if (factor > 1) {
+            if (height(left[right[node]]) > height(right[right[node]])) {
+                right[node] = rotateRight(right[node]);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private int insert(int node, int slot){
+        if (node == NIL) {
+            return slot;
+        }
+        if (before(ids[slot], scores[slot], node)) {
+            left[node] = insert(left[node], slot);
+        }
+        else {
+            right[node] = insert(right[node], slot);
+        }
+        return balance(node);
+    }
+
+    /**
+     * Deletes the entry with the given id and score from a subtree
+     * @return the node now at the top of this subtree
+     */
+    private int delete(int node, int id, double score){
+        if (ids[node] == id && scores[node] == score) {
+            if (left[node] == NIL || right[node] == NIL) {
+                int child = (left[node] == NIL) ? right[node] : left[node];
+                freeSlot(node);
+                return child;
+            }
+            // Two children, so the next entry in order takes this node's place
+            int next = right[node];
+            while (left[next] != NIL) {
+                next = left[next];
+            }
+            ids[node] = ids[next];
+            scores[node] = scores[next];
+            slots.put(ids[node], node);
+            right[node] = delete(right[node], ids[node], scores[node]);
+        }
+        else if (before(id, score, node)) {
+            left[node] = delete(left[node], id, score);
+        }
+        else {
+            right[node] = delete(right[node], id, score);
+        }
+        return balance(node);
+    }
+
+    //=============================================================================================================
+    // Slots
+
+    private int newSlot(int id, double score){
+        int slot;
+        if (free != NIL) {
+            slot = free;
+            free = left[slot];
+        }
+        else {
+            if (used == ids.length) {
+                int cap = used * 2;
+                ids = Arrays.copyOf(ids, cap);
+                scores = Arrays.copyOf(scores, cap);
+                left = Arrays.copyOf(left, cap);
+                right = Arrays.copyOf(right, cap);
+                heights = Arrays.copyOf(heights, cap);
+                sizes = Arrays.copyOf(sizes, cap);
+            }
+            slot = used;
+            used = used + 1;
+        }
+        ids[slot] = id;
+        scores[slot] = score;
+        left[slot] = NIL;
+        right[slot] = NIL;
+        heights[slot] = 1;
+        sizes[slot] = 1;
+        return slot;
+    }
+
+    private void freeSlot(int slot){
+        left[slot] = free;
+        free = slot;
+    }
+}
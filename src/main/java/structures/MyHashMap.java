@@ -1,24 +1,66 @@
 package structures;
 
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
 public class MyHashMap<K,V> {
     // Prime number to reduce collisions
-    private static int initial_cap = 13; 
+    private static int initial_cap = 13;
     private static float initial_lf = 0.75f;
+    // The number of old buckets moved into the new array on each put/get while resizing
+    private static final int migrate_step = 4;
     private int capacity;
     private float loadFactor;
     private int size;
     //Makes an array of nodes
-    private Node<K, V> [] array; 
+    private Node<K, V> [] array;
+
+    // Whether resizing is spread over later operations instead of done all at once
+    private boolean incremental;
+    // The array being emptied into array during an incremental resize, null when not resizing
+    private Node<K, V> [] oldArray;
+    // The next bucket of oldArray to be moved across
+    private int migrateIndex;
 
     public MyHashMap(){
         this(initial_cap, initial_lf);
     }
 
+    /**
+     * Makes a hash map big enough to hold the expected number of keys without resizing
+     * @param expectedSize the number of keys that are going to be added
+     */
+    public MyHashMap(int expectedSize){
+        this(capacityFor(expectedSize, initial_lf), initial_lf);
+    }
+
     public MyHashMap(int capacity, float loadFactor) {
-        this.capacity = capacity;
+        this(capacity, loadFactor, true);
+    }
+
+    /**
+     * @param capacity the starting number of buckets
+     * @param loadFactor the load factor above which the array is doubled
+     * @param incremental true to move the old buckets across a few at a time on later
+     *                    puts and gets, false to rehash everything in one go when resizing
+     */
+    @SuppressWarnings("unchecked")
+    public MyHashMap(int capacity, float loadFactor, boolean incremental) {
+        this.capacity = Math.max(capacity, 1);
         this.loadFactor = loadFactor;
+        this.incremental = incremental;
         //Makes an array of nodes with the given capacity
-        this.array = (Node<K, V> []) new Node[capacity]; 
+        this.array = (Node<K, V> []) new Node[this.capacity];
+    }
+
+    /**
+     * Works out how many buckets are needed to hold a number of keys under the load factor
+     * @param expectedSize the number of keys
+     * @param loadFactor the load factor
+     * @return the number of buckets
+     */
+    private static int capacityFor(int expectedSize, float loadFactor){
+        return Math.max(initial_cap, (int) (expectedSize / loadFactor) + 1);
     }
 
 
@@ -46,73 +88,100 @@ public class MyHashMap<K,V> {
      */
     protected int hash(K key){
         int code = key.hashCode();
-        return Math.abs(code);
+        // Clears the sign bit (Math.abs would leave Integer.MIN_VALUE negative)
+        return code & 0x7fffffff;
     }
 
     //Can overide the .hashCode() function if it is slow
 
     /**
-     * Adds a key value pair to the hash map.
-     * Makes use of chaining when collisons occur
-     * @param key the unique identifier being passed in
-     * @param value The value being stored with that key
+     * Finds the node holding the key, looking in the old array too if a resize is in progress
+     * @param key the key to find
+     * @return the node, or null if the key is not stored
      */
-    public void put(K key, V value){
+    private Node<K, V> findNode(K key){
         int hash_code = hash(key);
-        int loc = (hash_code % array.length);
-        Node<K, V> node = array[loc];
+        Node<K, V> node = array[hash_code % array.length];
 
-        //If there is a collison
         while (node != null){
-            // If the keys are the same, it updates the value
             if (node.key.equals(key)) {
-                node.value = value;
-                return;
+                return node;
             }
-            // Checks the next node 
             node = node.next;
         }
 
+        // The key may not have been moved across yet
+        if (oldArray != null) {
+            node = oldArray[hash_code % oldArray.length];
+            while (node != null){
+                if (node.key.equals(key)) {
+                    return node;
+                }
+                node = node.next;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a key value pair to the hash map.
+     * Makes use of chaining when collisons occur
+     * @param key the unique identifier being passed in
+     * @param value The value being stored with that key
+     */
+    public void put(K key, V value){
+        migrate();
+        Node<K, V> node = findNode(key);
+
+        // If the keys are the same, it updates the value
+        if (node != null) {
+            node.value = value;
+            return;
+        }
+
         // If the node is null, creates a new node
+        addNode(key, value);
+    }
+
+    /**
+     * Puts a new node at the head of its chain in the current array, resizing if needed
+     * @param key the unique identifier being passed in
+     * @param value the value being stored with that key
+     */
+    private void addNode(K key, V value){
+        int loc = hash(key) % array.length;
         Node <K, V> nNode = new Node<>(key, value, array[loc]);
         array[loc] = nNode;
         size = size + 1;
-        
 
         //Resizes if the load factor goes above 0.75
         if (((float) size / capacity) > loadFactor){
-            resize();
+            resize(capacity * 2);
         }
-
-
     }
 
     /**
-     * To resize the hashmap if its load factor goes above 0.75
+     * To resize the hashmap if its load factor goes above 0.75.
+     * In incremental mode the new array is just swapped in, and the old buckets are
+     * moved across a few at a time by migrate(), so no single put pays for the whole rehash
+     * @param newCap the new number of buckets
      */
-    private void resize(){
-        // Doubles capacity
-        int newCap = capacity * 2; //+1
-        Node<K, V> [] newArray = new Node[newCap];
+    @SuppressWarnings("unchecked")
+    private void resize(int newCap){
+        // A resize that is still in progress has to be finished first
+        while (oldArray != null) {
+            migrateBuckets(Integer.MAX_VALUE);
+        }
 
-        for (int i=0; i < capacity; i++) {
-            // Gets the node at that index
-            Node<K, V> node = array[i];
+        Node<K, V> [] newArray = new Node[newCap];
 
-            // While that node exists and is not null
-            while (node != null) {
-                // Finds the location that it should be stored at
-                int hash_code = hash(node.key);
-                int loc = hash_code % newCap;
-
-                // Stores the pointer to the next node
-                Node<K, V> nextNodePointer = node.next;
-                // Updates the pointer to the next node to its location in the new array
-                node.next = newArray[loc];
-                // Inserts the node in the bigger array
-                newArray[loc] = node;
-                // Sets the node to the next node
-                node = nextNodePointer;
+        if (incremental) {
+            oldArray = array;
+            migrateIndex = 0;
+        }
+        else {
+            for (int i=0; i < array.length; i++) {
+                moveChain(array[i], newArray);
             }
         }
     capacity = newCap;
@@ -120,25 +189,81 @@ public class MyHashMap<K,V> {
     }
 
     /**
-     * Checks if the key is already in the hash map. This is then used to check if the item should be added or not.
-     * @param key the movie id 
-     * @return a boolean value, true if the value is in the hah map and false if it is not
+     * Moves a bounded number of buckets across if an incremental resize is in progress
      */
-    public boolean hasKey(K key){
-        int hash_code = hash(key);
-        int loc = (hash_code % array.length);
-        Node<K, V> node = array[loc];
+    private void migrate(){
+        if (oldArray != null) {
+            migrateBuckets(migrate_step);
+        }
+    }
 
-        //If there is a collison
-        while (node != null){
-            // If the keys are the same, it updates the value
-            if (node.key.equals(key)) {
-                return true;
+    /**
+     * Moves buckets from the old array into the current one
+     * @param count the maximum number of buckets to move
+     */
+    private void migrateBuckets(int count){
+        int end = (int) Math.min((long) migrateIndex + count, oldArray.length);
+        for (int i = migrateIndex; i < end; i++) {
+            moveChain(oldArray[i], array);
+            oldArray[i] = null;
+        }
+        migrateIndex = end;
+
+        // Once every bucket has been moved the old array is dropped
+        if (migrateIndex == oldArray.length) {
+            oldArray = null;
+        }
+    }
+
+    /**
+     * Rehashes every node of a chain into the given array
+     * @param node the head of the chain
+     * @param newArray the array the nodes are moved into
+     */
+    private void moveChain(Node<K, V> node, Node<K, V> [] newArray){
+        // While that node exists and is not null
+        while (node != null) {
+            // Finds the location that it should be stored at
+            int loc = hash(node.key) % newArray.length;
+
+            // Stores the pointer to the next node
+            Node<K, V> nextNodePointer = node.next;
+            // Updates the pointer to the next node to its location in the new array
+            node.next = newArray[loc];
+            // Inserts the node in the bigger array
+            newArray[loc] = node;
+            // Sets the node to the next node
+            node = nextNodePointer;
+        }
+    }
+
+    /**
+     * Grows the hash map, if needed, so that it can hold the expected number of keys without resizing.
+     * Used to presize a map before a bulk load
+     * @param expectedSize the number of keys that are going to be stored
+     */
+    public void ensureCapacity(int expectedSize){
+        int needed = capacityFor(expectedSize, loadFactor);
+        if (needed > capacity) {
+            // Rehashes in one go, as nothing else is waiting on this map yet
+            while (oldArray != null) {
+                migrateBuckets(Integer.MAX_VALUE);
             }
-            // Checks the next node 
-            node = node.next;
+            boolean wasIncremental = incremental;
+            incremental = false;
+            resize(needed);
+            incremental = wasIncremental;
         }
-        return false;
+    }
+
+    /**
+     * Checks if the key is already in the hash map. This is then used to check if the item should be added or not.
+     * @param key the movie id
+     * @return a boolean value, true if the value is in the hah map and false if it is not
+     */
+    public boolean hasKey(K key){
+        migrate();
+        return findNode(key) != null;
     }
 
     /**
@@ -147,10 +272,27 @@ public class MyHashMap<K,V> {
      * @return true if the movie is removed and false if the movie is not removed
      */
     public boolean remove(K key) {
-        // Finds the node with the given key
+        migrate();
         int hash_code = hash(key);
-        int loc = (hash_code % array.length);
-        Node<K, V> node = array[loc];
+        if (removeFromChain(array, hash_code % array.length, key)) {
+            return true;
+        }
+        // The key may still be in the old array
+        if (oldArray != null) {
+            return removeFromChain(oldArray, hash_code % oldArray.length, key);
+        }
+        return false;
+    }
+
+    /**
+     * Unlinks the node with the given key from one chain
+     * @param nodes the array the chain is in
+     * @param loc the index of the chain
+     * @param key the key to remove
+     * @return true if the node was found and removed
+     */
+    private boolean removeFromChain(Node<K, V> [] nodes, int loc, K key){
+        Node<K, V> node = nodes[loc];
 
         Node<K, V> prevNode = null;
 
@@ -160,7 +302,7 @@ public class MyHashMap<K,V> {
             if (node.key.equals(key) == true) {
                 // If the node is at the head of the array, sets the head of the array to point to the next node
                 if (prevNode == null){
-                    array[loc] = node.next; }
+                    nodes[loc] = node.next; }
                 // If the node is not at the head, sets the previous node to skip the node
                 else {
                     prevNode.next = node.next;
@@ -182,23 +324,75 @@ public class MyHashMap<K,V> {
      * @return gives back the value if found and null if not
      */
     public V get(K key){
+        migrate();
         //Finds a node with the key passed in
-        int hash_code = hash(key);
-        int loc = (hash_code % array.length);
-        Node<K, V> node = array[loc];
+        Node<K, V> node = findNode(key);
 
-        // If the node is not empty, and the keys match it returns the value
-        while (node != null){
-            if (node.key.equals(key) == true) {
-                return node.value;
-            }
-        }
         //If no node is found, it returns null
+        if (node == null) {
+            return null;
+        }
+        return node.value;
+    }
+
+    /**
+     * Takes in a key and returns the associated value, or the given default if the key is not stored.
+     * Lets callers do a null check and a read with a single lookup
+     * @param key the unique identifier passed in
+     * @param defaultValue the value to give back if the key is not found
+     * @return the value if found and defaultValue if not
+     */
+    public V getOrDefault(K key, V defaultValue){
+        migrate();
+        Node<K, V> node = findNode(key);
+        if (node == null) {
+            return defaultValue;
+        }
+        return node.value;
+    }
+
+    /**
+     * Adds the key value pair only if the key is not already stored.
+     * Checking and adding is done in one lookup
+     * @param key the unique identifier being passed in
+     * @param value the value being stored with that key
+     * @return the value already stored with the key, or null if the pair was added
+     */
+    public V putIfAbsent(K key, V value){
+        migrate();
+        Node<K, V> node = findNode(key);
+
+        // If the key is already there, its value is left alone
+        if (node != null) {
+            return node.value;
+        }
+
+        addNode(key, value);
         return null;
     }
 
     /**
-     * Makes an array of all of the keys in the hashmap. It works by looping through each node and if its existent, it's key value is stored 
+     * Gets the value for the key, creating and storing it first if the key is not stored.
+     * Checking and adding is done in one lookup
+     * @param key the unique identifier being passed in
+     * @param function makes the value from the key when it is missing
+     * @return the value now stored with the key
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> function){
+        migrate();
+        Node<K, V> node = findNode(key);
+
+        if (node != null) {
+            return node.value;
+        }
+
+        V value = function.apply(key);
+        addNode(key, value);
+        return value;
+    }
+
+    /**
+     * Makes an array of all of the keys in the hashmap. It works by looping through each node and if its existent, it's key value is stored
      * @return gives back the array
      */
     public int[] keyArray(){
@@ -206,10 +400,25 @@ public class MyHashMap<K,V> {
         int [] arr = new int[size];
 
         // Loops through each node in the array of nodes and if it is not empty, it's key is added to the array of keys
-        // Needs an extra index variable for when it is inside the for loop
-        int index = 0;
-        for (int i=0; i < array.length ; i++) {
-            Node<K, V> node = array[i];
+        int index = copyKeys(array, arr, 0);
+        // Keys not yet moved across by an incremental resize are still in the old array
+        if (oldArray != null) {
+            copyKeys(oldArray, arr, index);
+        }
+        return arr;
+
+    }
+
+    /**
+     * Copies the keys of every chain in an array of nodes
+     * @param nodes the array of chains
+     * @param arr the array the keys are copied into
+     * @param index the first free index in arr
+     * @return the next free index in arr
+     */
+    private int copyKeys(Node<K, V> [] nodes, int[] arr, int index){
+        for (int i=0; i < nodes.length ; i++) {
+            Node<K, V> node = nodes[i];
 
             while (node != null) {
                 arr[index] = (int)node.key;
@@ -217,8 +426,90 @@ public class MyHashMap<K,V> {
                 node = node.next;
             }
         }
-        return arr;
-        
+        return index;
+    }
+
+    /**
+     * Passes every key and value to the action, visiting each node once and
+     * allocating nothing. Works for any key type, unlike keyArray().
+     * The map must not be changed while this runs
+     * @param action called once for each key value pair
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action){
+        visitChains(array, action);
+        // Keys not yet moved across by an incremental resize are still in the old array
+        if (oldArray != null) {
+            visitChains(oldArray, action);
+        }
+    }
+
+    // Passes every node in every chain of the array to the action
+    private void visitChains(Node<K, V> [] nodes, BiConsumer<? super K, ? super V> action){
+        for (int i = 0; i < nodes.length; i++) {
+            for (Node<K, V> node = nodes[i]; node != null; node = node.next) {
+                action.accept(node.key, node.value);
+            }
+        }
+    }
+
+    /**
+     * Gives back a cursor over the entries of the hash map, for loops that need to
+     * keep local state (which a lambda passed to forEach can not change).
+     * Any incremental resize in progress is finished first, so that the reads a
+     * loop makes with get() can not move entries the cursor has yet to reach
+     * @return a cursor placed before the first entry
+     */
+    public EntryCursor entryCursor(){
+        while (oldArray != null) {
+            migrateBuckets(Integer.MAX_VALUE);
+        }
+        return new EntryCursor();
+    }
+
+    /**
+     * Walks the chains of the hash map in place. Call advance() to move onto the
+     * next entry, then read it with key() and value(). No objects are made per entry.
+     * Reading the map with get() while a cursor is in use is fine, but the map must
+     * not be changed
+     */
+    public class EntryCursor {
+        private final Node<K, V> [] nodes = array;
+        private int index = -1;
+        private Node<K, V> node = null;
+
+        /**
+         * Moves onto the next entry
+         * @return true if there is an entry to read, false once every entry has been seen
+         */
+        public boolean advance(){
+            if (node != null) {
+                node = node.next;
+            }
+            while (node == null) {
+                // Stays at the end, so calling again after the last entry is still false
+                if (index + 1 >= nodes.length) {
+                    index = nodes.length;
+                    return false;
+                }
+                index = index + 1;
+                node = nodes[index];
+            }
+            return true;
+        }
+
+        /**
+         * @return the key of the current entry
+         */
+        public K key(){
+            return node.key;
+        }
+
+        /**
+         * @return the value of the current entry
+         */
+        public V value(){
+            return node.value;
+        }
     }
 
     /**
@@ -228,5 +519,5 @@ public class MyHashMap<K,V> {
     public int size(){
         return size;
     }
-    
+
 }
@@ -0,0 +1,462 @@
+package structures;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A map kept in key order, as an AVL tree. Every node stores the size of its
+ * subtree as well as its height, so besides the usual lookups the map can give
+ * the rank of a key, the key at a rank and the number of keys in a range, each
+ * in O(log n).
+ *
+ * Insert and delete walk down the tree in a loop and then back up the parent
+ * links, rotating where needed, so neither one recurses and both are O(log n)
+ * however the keys arrive.
+ *
+ * Iterators walk the parent links too. They are not safe against changes made
+ * to the map while they are in use.
+ */
+public class OrderedMap<K extends Comparable<K>, V> implements Iterable<OrderedMap.Entry<K, V>> {
+    private Entry<K, V> root;
+
+    public OrderedMap(){
+        root = null;
+    }
+
+    //=============================================================================================================
+    // A node of the tree, which is also what iterators hand out
+
+    public static final class Entry<K, V> {
+        private K key;
+        private V value;
+        private Entry<K, V> left;
+        private Entry<K, V> right;
+        private Entry<K, V> parent;
+        private int height;
+        // The number of entries in the subtree under this one, itself included
+        private int size;
+
+        private Entry(K key, V value, Entry<K, V> parent){
+            this.key = key;
+            this.value = value;
+            this.parent = parent;
+            this.height = 1;
+            this.size = 1;
+        }
+
+        public K getKey(){
+            return key;
+        }
+
+        public V getValue(){
+            return value;
+        }
+    }
+
+    //=============================================================================================================
+    // Lookups
+
+    /**
+     * Gives back the number of entries
+     * @return the number of keys in the map
+     */
+    public int size(){
+        return size(root);
+    }
+
+    public boolean isEmpty(){
+        return root == null;
+    }
+
+    /**
+     * Finds the value stored with a key
+     * @param key the key
+     * @return the value, or null if the key is not in the map
+     */
+    public V get(K key){
+        Entry<K, V> entry = findEntry(key);
+        return (entry == null) ? null : entry.value;
+    }
+
+    /**
+     * Checks if a key is in the map
+     * @param key the key
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(K key){
+        return findEntry(key) != null;
+    }
+
+    private Entry<K, V> findEntry(K key){
+        Entry<K, V> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0) {
+                return node;
+            }
+            node = (cmp < 0) ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * @return the entry with the smallest key, or null if the map is empty
+     */
+    public Entry<K, V> firstEntry(){
+        return (root == null) ? null : min(root);
+    }
+
+    /**
+     * @return the entry with the largest key, or null if the map is empty
+     */
+    public Entry<K, V> lastEntry(){
+        if (root == null) {
+            return null;
+        }
+        Entry<K, V> node = root;
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    /**
+     * Finds the entry with the largest key not above the given key
+     * @param key the key
+     * @return the entry, or null if every key is above it
+     */
+    public Entry<K, V> floorEntry(K key){
+        Entry<K, V> best = null;
+        Entry<K, V> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0) {
+                return node;
+            }
+            if (cmp > 0) {
+                best = node;
+                node = node.right;
+            }
+            else {
+                node = node.left;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the entry with the smallest key not below the given key
+     * @param key the key
+     * @return the entry, or null if every key is below it
+     */
+    public Entry<K, V> ceilingEntry(K key){
+        Entry<K, V> best = null;
+        Entry<K, V> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0) {
+                return node;
+            }
+            if (cmp < 0) {
+                best = node;
+                node = node.left;
+            }
+            else {
+                node = node.right;
+            }
+        }
+        return best;
+    }
+
+    //=============================================================================================================
+    // Order statistics
+
+    /**
+     * Counts the keys below the given key. The key itself does not have to be in the map
+     * @param key the key
+     * @return the number of keys in the map that are less than key
+     */
+    public int rank(K key){
+        int rank = 0;
+        Entry<K, V> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp < 0) {
+                node = node.left;
+            }
+            else if (cmp > 0) {
+                rank = rank + size(node.left) + 1;
+                node = node.right;
+            }
+            else {
+                return rank + size(node.left);
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Finds the entry at a position in key order
+     * @param index the position, 0 for the smallest key
+     * @return the entry, or null if index is not between 0 and size() - 1
+     */
+    public Entry<K, V> select(int index){
+        if (index < 0 || index >= size()) {
+            return null;
+        }
+        Entry<K, V> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            }
+            else if (index > leftSize) {
+                index = index - leftSize - 1;
+                node = node.right;
+            }
+            else {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * Counts the keys in a range
+     * @param from the lowest key counted
+     * @param to the key the range stops before
+     * @return the number of keys from from (inclusive) up to to (exclusive)
+     */
+    public int countInRange(K from, K to){
+        return Math.max(0, rank(to) - rank(from));
+    }
+
+    //=============================================================================================================
+    // Iterators
+
+    /**
+     * Walks every entry in key order
+     */
+    @Override
+    public Iterator<Entry<K, V>> iterator(){
+        return new EntryIterator(firstEntry(), null);
+    }
+
+    /**
+     * Walks the entries of a range in key order
+     * @param from the lowest key wanted, or null to start at the first key
+     * @param to the key to stop before, or null to run to the last key
+     * @return the entries from from (inclusive) up to to (exclusive)
+     */
+    public Iterable<Entry<K, V>> range(K from, K to){
+        return () -> new EntryIterator((from == null) ? firstEntry() : ceilingEntry(from), to);
+    }
+
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+        private Entry<K, V> next;
+        private final K to;
+
+        EntryIterator(Entry<K, V> first, K to){
+            this.to = to;
+            this.next = stopped(first) ? null : first;
+        }
+
+        private boolean stopped(Entry<K, V> entry){
+            return entry == null || (to != null && entry.key.compareTo(to) >= 0);
+        }
+
+        @Override
+        public boolean hasNext(){
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next(){
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> entry = next;
+            Entry<K, V> after = successor(entry);
+            next = stopped(after) ? null : after;
+            return entry;
+        }
+    }
+
+    /**
+     * Finds the entry after the given one in key order, or null if it is the last
+     */
+    private static <K, V> Entry<K, V> successor(Entry<K, V> node){
+        if (node.right != null) {
+            return min(node.right);
+        }
+        // Climbs until the walk comes up out of a left subtree
+        Entry<K, V> parent = node.parent;
+        while (parent != null && node == parent.right) {
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    private static <K, V> Entry<K, V> min(Entry<K, V> node){
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    //=============================================================================================================
+    // Changes
+
+    /**
+     * Stores a value with a key, replacing any value the key already had
+     * @param key the key, not null
+     * @param value the value
+     * @return the value the key had before, or null if it was not in the map
+     */
+    public V put(K key, V value){
+        if (root == null) {
+            root = new Entry<>(key, value, null);
+            return null;
+        }
+
+        // Walks down to where the key is, or where it should hang
+        Entry<K, V> parent;
+        Entry<K, V> node = root;
+        int cmp;
+        do {
+            parent = node;
+            cmp = key.compareTo(node.key);
+            if (cmp == 0) {
+                V old = node.value;
+                node.value = value;
+                return old;
+            }
+            node = (cmp < 0) ? node.left : node.right;
+        } while (node != null);
+
+        Entry<K, V> entry = new Entry<>(key, value, parent);
+        if (cmp < 0) {
+            parent.left = entry;
+        }
+        else {
+            parent.right = entry;
+        }
+        rebalanceUp(parent);
+        return null;
+    }
+
+    /**
+     * Takes a key out of the map
+     * @param key the key
+     * @return the value the key had, or null if it was not in the map
+     */
+    public V remove(K key){
+        Entry<K, V> entry = findEntry(key);
+        if (entry == null) {
+            return null;
+        }
+        V old = entry.value;
+
+        // With two children, the next entry in order moves up and its old node is unlinked instead
+        if (entry.left != null && entry.right != null) {
+            Entry<K, V> next = min(entry.right);
+            entry.key = next.key;
+            entry.value = next.value;
+            entry = next;
+        }
+
+        // The entry now has one child at most, which takes its place
+        Entry<K, V> child = (entry.left != null) ? entry.left : entry.right;
+        Entry<K, V> parent = entry.parent;
+        replaceChild(entry, child);
+        rebalanceUp(parent);
+        return old;
+    }
+
+    //=============================================================================================================
+    // Keeping the tree balanced
+
+    private static int height(Entry<?, ?> node){
+        return (node == null) ? 0 : node.height;
+    }
+
+    private static int size(Entry<?, ?> node){
+        return (node == null) ? 0 : node.size;
+    }
+
+    private static void update(Entry<?, ?> node){
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    /**
+     * Puts a new node where an old one hung from its parent, or at the root
+     */
+    private void replaceChild(Entry<K, V> old, Entry<K, V> node){
+        Entry<K, V> parent = old.parent;
+        if (node != null) {
+            node.parent = parent;
+        }
+        if (parent == null) {
+            root = node;
+        }
+        else if (parent.left == old) {
+            parent.left = node;
+        }
+        else {
+            parent.right = node;
+        }
+    }
+
+    private Entry<K, V> rotateLeft(Entry<K, V> node){
+        Entry<K, V> child = node.right;
+        node.right = child.left;
+        if (child.left != null) {
+            child.left.parent = node;
+        }
+        replaceChild(node, child);
+        child.left = node;
+        node.parent = child;
+        update(node);
+        update(child);
+        return child;
+    }
+
+    private Entry<K, V> rotateRight(Entry<K, V> node){
+        Entry<K, V> child = node.left;
+        node.left = child.right;
+        if (child.right != null) {
+            child.right.parent = node;
+        }
+        replaceChild(node, child);
+        child.right = node;
+        node.parent = child;
+        update(node);
+        update(child);
+        return child;
+    }
+
+    /**
+     * Walks from a node up to the root, fixing the height and size of each node
+     * on the way and rotating any that have become unbalanced
+     */
+    private void rebalanceUp(Entry<K, V> node){
+        while (node != null) {
+            update(node);
+            int factor = height(node.right) - height(node.left);
+            if (factor < -1) {
+                if (height(node.left.right) > height(node.left.left)) {
+                    rotateLeft(node.left);
+                }
+                node = rotateRight(node);
+            }
+            else if (factor > 1) {
+                if (height(node.right.left) > height(node.right.right)) {
+                    rotateRight(node.right);
+                }
+                node = rotateLeft(node);
+            }
+            node = node.parent;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package structures;
+
+import java.util.Arrays;
+
+/**
+ * A sorted list of ids, one per index term. Adds go on the end and the list is
+ * only sorted again when it is next read, so building an index from a bulk load
+ * sorts each list once.
+ */
+public class PostingList {
+    private static final int initial_cap = 4;
+
+    private int[] ids;
+    private int size;
+    // False after an add until the next read sorts the list
+    private boolean sorted;
+
+    public PostingList(){
+        ids = new int[initial_cap];
+        sorted = true;
+    }
+
+    /**
+     * Adds an id to the list. The caller makes sure each id is only added once
+     * @param id the id to add
+     */
+    public void add(int id){
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        // Ids added in increasing order keep the list sorted for free
+        if (sorted && size > 0 && ids[size - 1] > id) {
+            sorted = false;
+        }
+        ids[size] = id;
+        size = size + 1;
+    }
+
+    /**
+     * Removes an id from the list, keeping the rest in order
+     * @param id the id to remove
+     * @return true if the id was in the list
+     */
+    public boolean remove(int id){
+        sort();
+        int loc = Arrays.binarySearch(ids, 0, size, id);
+        if (loc < 0) {
+            return false;
+        }
+        System.arraycopy(ids, loc + 1, ids, loc, size - loc - 1);
+        size = size - 1;
+        return true;
+    }
+
+    /**
+     * Checks if the id is in the list
+     * @param id the id
+     * @return true if the id is in the list
+     */
+    public boolean contains(int id){
+        sort();
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    private void sort(){
+        if (!sorted) {
+            Arrays.sort(ids, 0, size);
+            sorted = true;
+        }
+    }
+
+    /**
+     * Gives back the ids in increasing order. The array is the list's own storage,
+     * so only the first size() entries are used and it must not be changed
+     * @return the backing array, sorted up to size()
+     */
+    public int[] sortedIds(){
+        sort();
+        return ids;
+    }
+
+    /**
+     * Gives back the size of the list
+     * @return the number of ids stored
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Finds the first position in arr, from the given start, holding a value not less
+     * than target. Jumps 1, 2, 4, ... places ahead before a binary search, so it costs
+     * O(log d) for a match d places ahead rather than O(log n)
+     * @param arr a sorted array
+     * @param from the position to start from
+     * @param to the end of the used part of arr
+     * @param target the value being looked for
+     * @return the position, or to if every value left is less than target
+     */
+    static int gallop(int[] arr, int from, int to, int target){
+        int low = from;
+        int high = from;
+        int step = 1;
+        while (high < to && arr[high] < target) {
+            low = high + 1;
+            high = from + step;
+            step = step << 1;
+        }
+        high = Math.min(high, to);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (arr[mid] < target) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Intersects two sorted id arrays. Walks the shorter one and gallops through the
+     * longer one, so a short list against a long one skips most of the long one
+     * @param a the first sorted array
+     * @param aSize the number of ids used in a
+     * @param b the second sorted array
+     * @param bSize the number of ids used in b
+     * @return the ids in both, sorted
+     */
+    public static int[] intersect(int[] a, int aSize, int[] b, int bSize){
+        if (aSize > bSize) {
+            return intersect(b, bSize, a, aSize);
+        }
+        int[] arr = new int[aSize];
+        int count = 0;
+        int pos = 0;
+        for (int i = 0; i < aSize && pos < bSize; i++) {
+            pos = gallop(b, pos, bSize, a[i]);
+            if (pos < bSize && b[pos] == a[i]) {
+                arr[count] = a[i];
+                count = count + 1;
+                pos = pos + 1;
+            }
+        }
+        return Arrays.copyOf(arr, count);
+    }
+}
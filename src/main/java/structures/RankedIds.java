@@ -0,0 +1,126 @@
+package structures;
+
+/**
+ * Ids handed out best first, one at a time. The ids are put in a binary
+ * max-heap in O(n), and each call to next only pops one of them in O(log n),
+ * so taking the top k never pays for sorting all n.
+ *
+ * Ids are ranked by an int rank, then by a double score, then by the lower id.
+ * For a film search the rank is the number of search terms matched and the
+ * score is the popularity. Lists that only need one of the two leave the other
+ * as all zeros.
+ */
+public class RankedIds {
+    private int[] ids;
+    private int[] ranks;
+    private double[] scores;
+    // The number of ids not handed out yet. The heap is the first size entries
+    private int size;
+
+    /**
+     * @param ids the ids, taken over by this object
+     * @param ranks the first thing ranked on, higher first
+     * @param scores the second thing ranked on, higher first
+     * @param size the number of ids used in the arrays
+     */
+    public RankedIds(int[] ids, int[] ranks, double[] scores, int size) {
+        this.ids = ids;
+        this.ranks = ranks;
+        this.scores = scores;
+        this.size = size;
+        // Builds the heap from the bottom up
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * Checks if entry i should come out before entry j
+     */
+    private boolean before(int i, int j) {
+        if (ranks[i] != ranks[j]) {
+            return ranks[i] > ranks[j];
+        }
+        if (scores[i] != scores[j]) {
+            return scores[i] > scores[j];
+        }
+        return ids[i] < ids[j];
+    }
+
+    private void swap(int i, int j) {
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        int rank = ranks[i];
+        ranks[i] = ranks[j];
+        ranks[j] = rank;
+        double score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+
+    /**
+     * Moves an entry down the heap until both of its children come after it
+     */
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int best = left;
+            if (left + 1 < size && before(left + 1, left)) {
+                best = left + 1;
+            }
+            if (!before(best, i)) {
+                return;
+            }
+            swap(i, best);
+            i = best;
+        }
+    }
+
+    /**
+     * Checks if there are any ids left
+     * @return true if next can be called
+     */
+    public boolean hasNext() {
+        return size > 0;
+    }
+
+    /**
+     * Hands out the best id left
+     * @return the id, or -1 if there are none left
+     */
+    public int next() {
+        if (size == 0) {
+            return -1;
+        }
+        int id = ids[0];
+        size = size - 1;
+        swap(0, size);
+        siftDown(0);
+        return id;
+    }
+
+    /**
+     * Hands out up to n of the best ids left
+     * @param n the most ids wanted
+     * @return the ids, best first
+     */
+    public int[] next(int n) {
+        int[] arr = new int[Math.max(0, Math.min(n, size))];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = next();
+        }
+        return arr;
+    }
+
+    /**
+     * Gives back the number of ids not handed out yet
+     * @return the number of ids left
+     */
+    public int remaining() {
+        return size;
+    }
+}
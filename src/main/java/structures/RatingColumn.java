@@ -0,0 +1,93 @@
+package structures;
+
+/**
+ * A fixed length column of ratings stored one byte each. Ratings are almost always
+ * half star steps from 0 to 5, so those are kept as a code of twice the rating.
+ * Any other value, such as 3.7, is kept exactly in a side map from its position
+ * to its float bits, so nothing is lost. NaN has its own code, for stores that
+ * use it to mark a removed rating.
+ *
+ * Reading a half star rating is a byte load and a table lookup, with nothing allocated.
+ */
+public class RatingColumn {
+    // Codes 0 to 10 are the half star steps
+    private static final int steps = 10;
+    private static final byte NOT_A_NUMBER = steps + 1;
+    // The rating is in the side map
+    private static final byte EXACT = steps + 2;
+
+    private static final float[] DECODE = new float[steps + 2];
+    static {
+        for (int i = 0; i <= steps; i++) {
+            DECODE[i] = i / 2.0f;
+        }
+        DECODE[NOT_A_NUMBER] = Float.NaN;
+    }
+
+    private byte[] codes;
+    // Positions with the EXACT code to the bits of their rating
+    private IntIntMap exact;
+
+    /**
+     * @param size the number of ratings in the column, all 0 to start with
+     */
+    public RatingColumn(int size){
+        codes = new byte[size];
+        exact = new IntIntMap();
+    }
+
+    /**
+     * Finds the code for a rating, or EXACT if it is not a half star step
+     */
+    private static byte encode(float rating){
+        if (Float.isNaN(rating)) {
+            return NOT_A_NUMBER;
+        }
+        float twice = rating * 2;
+        if (twice >= 0 && twice <= steps && twice == (int) twice) {
+            // Checks the bits as well, so -0.0 is not turned into 0.0
+            int code = (int) twice;
+            if (Float.floatToIntBits(DECODE[code]) == Float.floatToIntBits(rating)) {
+                return (byte) code;
+            }
+        }
+        return EXACT;
+    }
+
+    /**
+     * Gives back a rating
+     * @param i the position
+     * @return the rating stored there
+     */
+    public float get(int i){
+        byte code = codes[i];
+        if (code != EXACT) {
+            return DECODE[code];
+        }
+        return Float.intBitsToFloat(exact.getOrDefault(i, 0));
+    }
+
+    /**
+     * Stores a rating
+     * @param i the position
+     * @param rating the rating, any float
+     */
+    public void set(int i, float rating){
+        byte code = encode(rating);
+        if (code == EXACT) {
+            exact.put(i, Float.floatToIntBits(rating));
+        }
+        else if (codes[i] == EXACT) {
+            exact.remove(i);
+        }
+        codes[i] = code;
+    }
+
+    /**
+     * Gives back the length of the column
+     * @return the number of ratings
+     */
+    public int size(){
+        return codes.length;
+    }
+}
@@ -0,0 +1,130 @@
+package structures;
+
+import java.util.Arrays;
+
+/**
+ * A sorted array of longs used as a secondary index, for example a date packed
+ * into the top half of the long with an id in the bottom half. Range queries
+ * are two binary searches and a contiguous copy.
+ *
+ * Adds go on the end and only mark the array as unsorted, so a bulk load costs
+ * one sort at the first query instead of a shift per add. Removes from a sorted
+ * array close the gap, so the order is kept.
+ */
+public class SortedLongIndex {
+    private static final int initial_cap = 16;
+
+    private long[] values;
+    private int size;
+    // False after an add until the next query sorts the array
+    private boolean sorted;
+
+    public SortedLongIndex(){
+        this(initial_cap);
+    }
+
+    /**
+     * @param capacity the number of values that can be stored before the array grows
+     */
+    public SortedLongIndex(int capacity){
+        values = new long[Math.max(capacity, 2)];
+        sorted = true;
+    }
+
+    /**
+     * Grows the array, if needed, so that it can hold the expected number of values
+     * @param expectedSize the number of values that are going to be stored
+     */
+    public void ensureCapacity(int expectedSize){
+        if (expectedSize > values.length) {
+            values = Arrays.copyOf(values, expectedSize);
+        }
+    }
+
+    /**
+     * Adds a value to the index. Duplicates are kept
+     * @param value the value to add
+     */
+    public void add(long value){
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        // Only stays sorted if the value goes at the end anyway, which is the case for loads in order
+        if (sorted && size > 0 && values[size - 1] > value) {
+            sorted = false;
+        }
+        values[size] = value;
+        size = size + 1;
+    }
+
+    /**
+     * Removes one copy of a value from the index
+     * @param value the value to remove
+     * @return true if the value was found and removed
+     */
+    public boolean remove(long value){
+        sort();
+        int loc = lowerBound(value);
+        if (loc == size || values[loc] != value) {
+            return false;
+        }
+        System.arraycopy(values, loc + 1, values, loc, size - loc - 1);
+        size = size - 1;
+        return true;
+    }
+
+    /**
+     * Sorts the array if anything has been added since the last sort
+     */
+    private void sort(){
+        if (!sorted) {
+            Arrays.sort(values, 0, size);
+            sorted = true;
+        }
+    }
+
+    /**
+     * Finds the first position holding a value that is not less than the given value
+     * @return the position, or size if every value is less
+     */
+    private int lowerBound(long value){
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < value) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gives back the bottom 32 bits of every value from fromInclusive up to but not
+     * including toExclusive, in sorted order. Used when an id is packed into the bottom half
+     * @param fromInclusive the lowest value to include
+     * @param toExclusive the first value not to include
+     * @return the low halves of the values in the range
+     */
+    public int[] lowBitsInRange(long fromInclusive, long toExclusive){
+        sort();
+        int start = lowerBound(fromInclusive);
+        int end = Math.max(start, lowerBound(toExclusive));
+        int[] arr = new int[end - start];
+        for (int i = start; i < end; i++) {
+            arr[i - start] = (int) values[i];
+        }
+        return arr;
+    }
+
+    /**
+     * Gives back the size of the index
+     * @return the number of values stored
+     */
+    public int size(){
+        return size;
+    }
+}
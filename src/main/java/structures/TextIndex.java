@@ -0,0 +1,347 @@
+package structures;
+
+import java.util.Arrays;
+
+/**
+ * A full text index over a few string fields per id, used to answer substring
+ * searches without reading every string.
+ *
+ * Text is case folded one char at a time, so a folded string is always the same
+ * length as the original. Two indexes are kept, both mapping to sorted posting lists:
+ *  - terms: every run of letters and digits, so "Toy Story 2" gives "toy", "story", "2"
+ *  - trigrams: every three char window of each field, spaces and punctuation included
+ *
+ * A search of three or more chars intersects the posting lists of its trigrams.
+ * Shorter searches made only of letters and digits must sit inside a single term,
+ * so they are answered from the term list instead. Both only narrow the films down:
+ * the caller still checks the real text of each candidate, which keeps the exact
+ * substring meaning and covers trigram codes that share a hash.
+ *
+ * Searches of several words use the term lists directly: matchAll intersects
+ * them with galloping search and matchAny counts how many terms each id has.
+ */
+public class TextIndex {
+    private MyHashMap<String, PostingList> terms;
+    private IntObjectMap<PostingList> trigrams;
+
+    public TextIndex(){
+        terms = new MyHashMap<>();
+        trigrams = new IntObjectMap<>();
+    }
+
+    /**
+     * Case folds a string one char at a time
+     * @param text the string to fold
+     * @return the folded string, the same length as text
+     */
+    public static String fold(String text){
+        char[] chars = new char[text.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(text.charAt(i));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Checks if the text contains the query, ignoring case in the same way as fold
+     * @param text the text to search, may be null
+     * @param foldedQuery a query that has already been folded
+     * @return true if the folded text contains the query
+     */
+    public static boolean containsFolded(String text, String foldedQuery){
+        if (text == null) {
+            return false;
+        }
+        int last = text.length() - foldedQuery.length();
+        for (int i = 0; i <= last; i++) {
+            int j = 0;
+            while (j < foldedQuery.length() && Character.toLowerCase(text.charAt(i + j)) == foldedQuery.charAt(j)) {
+                j = j + 1;
+            }
+            if (j == foldedQuery.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Packs three folded chars into an int. Chars below 1024 are packed exactly,
+     * anything else is hashed into a range the packed codes never use
+     */
+    private static int trigram(char a, char b, char c){
+        if (a < 1024 && b < 1024 && c < 1024) {
+            return (a << 20) | (b << 10) | c;
+        }
+        return ((a * 31 + b) * 31 + c) | (1 << 30);
+    }
+
+    private static boolean isTermChar(char c){
+        return Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * Gives back every distinct trigram code of the fields, sorted
+     */
+    private static int[] trigramsOf(String[] fields){
+        int total = 0;
+        for (String field : fields) {
+            if (field != null) {
+                total = total + Math.max(0, field.length() - 2);
+            }
+        }
+        int[] codes = new int[total];
+        int count = 0;
+        for (String field : fields) {
+            if (field == null) {
+                continue;
+            }
+            String folded = fold(field);
+            for (int i = 0; i + 2 < folded.length(); i++) {
+                codes[count] = trigram(folded.charAt(i), folded.charAt(i + 1), folded.charAt(i + 2));
+                count = count + 1;
+            }
+        }
+        Arrays.sort(codes, 0, count);
+        // Removes the repeats so each id goes in each list once
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || codes[unique - 1] != codes[i]) {
+                codes[unique] = codes[i];
+                unique = unique + 1;
+            }
+        }
+        return Arrays.copyOf(codes, unique);
+    }
+
+    /**
+     * Gives back every distinct folded term of the fields, sorted
+     */
+    private static String[] termsOf(String[] fields){
+        int total = 0;
+        for (String field : fields) {
+            if (field != null) {
+                total = total + (field.length() + 1) / 2;
+            }
+        }
+        String[] found = new String[total];
+        int count = 0;
+        for (String field : fields) {
+            if (field == null) {
+                continue;
+            }
+            String folded = fold(field);
+            int start = -1;
+            for (int i = 0; i <= folded.length(); i++) {
+                boolean inTerm = i < folded.length() && isTermChar(folded.charAt(i));
+                if (inTerm && start < 0) {
+                    start = i;
+                }
+                else if (!inTerm && start >= 0) {
+                    found[count] = folded.substring(start, i);
+                    count = count + 1;
+                    start = -1;
+                }
+            }
+        }
+        Arrays.sort(found, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || !found[unique - 1].equals(found[i])) {
+                found[unique] = found[i];
+                unique = unique + 1;
+            }
+        }
+        return Arrays.copyOf(found, unique);
+    }
+
+    /**
+     * Indexes the fields of an id. Null fields are skipped
+     * @param id the id the text belongs to, added once
+     * @param fields the text to index
+     */
+    public void add(int id, String... fields){
+        for (int code : trigramsOf(fields)) {
+            trigrams.computeIfAbsent(code, key -> new PostingList()).add(id);
+        }
+        for (String term : termsOf(fields)) {
+            terms.computeIfAbsent(term, key -> new PostingList()).add(id);
+        }
+    }
+
+    /**
+     * Takes an id back out of the index
+     * @param id the id to remove
+     * @param fields the same text that was given to add
+     */
+    public void remove(int id, String... fields){
+        for (int code : trigramsOf(fields)) {
+            PostingList list = trigrams.get(code);
+            if (list != null) {
+                list.remove(id);
+                // Drops lists that are now empty so they are not searched again
+                if (list.size() == 0) {
+                    trigrams.remove(code);
+                }
+            }
+        }
+        for (String term : termsOf(fields)) {
+            PostingList list = terms.get(term);
+            if (list != null) {
+                list.remove(id);
+                if (list.size() == 0) {
+                    terms.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the ids that may contain the query. Every id whose text contains the
+     * query is in the result, but a few that do not may be too
+     * @param foldedQuery a query that has already been folded
+     * @return the candidate ids in increasing order, or null if the index can not
+     *         narrow this query down and every id has to be checked
+     */
+    public int[] candidates(String foldedQuery){
+        if (foldedQuery.length() >= 3) {
+            return trigramCandidates(foldedQuery);
+        }
+        if (foldedQuery.isEmpty()) {
+            return null;
+        }
+        for (int i = 0; i < foldedQuery.length(); i++) {
+            if (!isTermChar(foldedQuery.charAt(i))) {
+                return null;
+            }
+        }
+        return termCandidates(foldedQuery);
+    }
+
+    /**
+     * Intersects the posting lists of every trigram in the query, smallest list first
+     */
+    private int[] trigramCandidates(String foldedQuery){
+        int[] codes = trigramsOf(new String[] {foldedQuery});
+        PostingList[] lists = new PostingList[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            lists[i] = trigrams.get(codes[i]);
+            // A trigram no text has means nothing can match
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+
+        return intersectAll(lists);
+    }
+
+    /**
+     * Intersects posting lists, shortest first so the running result stays as small as possible
+     * @param lists the lists, none of them null. Reordered by this method
+     * @return the ids in every list, sorted
+     */
+    private static int[] intersectAll(PostingList[] lists){
+        // Sorts the lists by size, there are only ever a handful
+        for (int i = 1; i < lists.length; i++) {
+            PostingList list = lists[i];
+            int j = i - 1;
+            while (j >= 0 && lists[j].size() > list.size()) {
+                lists[j + 1] = lists[j];
+                j = j - 1;
+            }
+            lists[j + 1] = list;
+        }
+
+        int[] result = Arrays.copyOf(lists[0].sortedIds(), lists[0].size());
+        for (int i = 1; i < lists.length && result.length > 0; i++) {
+            result = PostingList.intersect(result, result.length, lists[i].sortedIds(), lists[i].size());
+        }
+        return result;
+    }
+
+    /**
+     * Joins the posting lists of every term that contains the query. The term list
+     * is much smaller than the text, so this is far less to read than a full scan
+     */
+    private int[] termCandidates(String foldedQuery){
+        IntIntMap seen = new IntIntMap();
+        terms.forEach((term, list) -> {
+            if (term.contains(foldedQuery)) {
+                int[] ids = list.sortedIds();
+                for (int i = 0; i < list.size(); i++) {
+                    seen.put(ids[i], 1);
+                }
+            }
+        });
+        int[] arr = seen.keyArray();
+        Arrays.sort(arr);
+        return arr;
+    }
+
+    /**
+     * Splits a search into its distinct folded terms, the same way text is split when it is indexed
+     * @param query the search as typed
+     * @return the terms, sorted
+     */
+    public static String[] queryTerms(String query){
+        return termsOf(new String[] {query});
+    }
+
+    /**
+     * Counts how many of the terms appear as whole terms in the fields. Used by stores
+     * that do not keep an index and have to check every film
+     * @param queryTerms terms from queryTerms
+     * @param fields the text to check
+     * @return the number of the terms found
+     */
+    public static int countTerms(String[] queryTerms, String... fields){
+        String[] found = termsOf(fields);
+        int count = 0;
+        for (String term : queryTerms) {
+            if (Arrays.binarySearch(found, term) >= 0) {
+                count = count + 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the ids whose text has every one of the terms
+     * @param queryTerms terms from queryTerms
+     * @return the ids, sorted. Empty if there are no terms
+     */
+    public int[] matchAll(String[] queryTerms){
+        if (queryTerms.length == 0) {
+            return new int[0];
+        }
+        PostingList[] lists = new PostingList[queryTerms.length];
+        for (int i = 0; i < queryTerms.length; i++) {
+            lists[i] = terms.get(queryTerms[i]);
+            // A term no text has means nothing can have them all
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+        return intersectAll(lists);
+    }
+
+    /**
+     * Finds the ids whose text has at least one of the terms
+     * @param queryTerms terms from queryTerms
+     * @return a map from each id to the number of the terms its text has
+     */
+    public IntIntMap matchAny(String[] queryTerms){
+        IntIntMap counts = new IntIntMap();
+        for (String term : queryTerms) {
+            PostingList list = terms.get(term);
+            if (list == null) {
+                continue;
+            }
+            int[] ids = list.sortedIds();
+            for (int i = 0; i < list.size(); i++) {
+                counts.addTo(ids[i], 1);
+            }
+        }
+        return counts;
+    }
+}
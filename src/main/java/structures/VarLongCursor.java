@@ -0,0 +1,93 @@
+package structures;
+
+/**
+ * Reads a run of longs stored as the differences between neighbours, each one
+ * zigzag coded and then written seven bits a byte with the top bit set on every
+ * byte but the last. A sorted run of timestamps a few hours apart takes two or
+ * three bytes a value instead of eight.
+ *
+ * One cursor is reset onto each run in turn, so decoding allocates nothing.
+ * The static methods write the same coding.
+ */
+public class VarLongCursor {
+    private byte[] bytes;
+    private int pos;
+    private int end;
+    // The last value read, which the next difference is added to
+    private long value;
+
+    /**
+     * Points the cursor at a run
+     * @param bytes the coded bytes
+     * @param start where the run starts
+     * @param end where the run stops
+     */
+    public void reset(byte[] bytes, int start, int end){
+        this.bytes = bytes;
+        this.pos = start;
+        this.end = end;
+        this.value = 0;
+    }
+
+    /**
+     * @return true if there is another value in the run
+     */
+    public boolean hasNext(){
+        return pos < end;
+    }
+
+    /**
+     * Reads the next value. Only call this if hasNext is true
+     * @return the value
+     */
+    public long next(){
+        long coded = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[pos];
+            pos = pos + 1;
+            coded = coded | ((long) (b & 0x7F) << shift);
+            shift = shift + 7;
+        } while (b < 0);
+        // Undoes the zigzag, then the difference. Both wrap around, so any long comes back exactly
+        value = value + ((coded >>> 1) ^ -(coded & 1));
+        return value;
+    }
+
+    private static long zigzag(long delta){
+        return (delta << 1) ^ (delta >> 63);
+    }
+
+    /**
+     * Counts the bytes needed for one difference
+     * @param delta the value minus the one before it, or the first value of a run
+     * @return the number of bytes, 1 to 10
+     */
+    public static int length(long delta){
+        long coded = zigzag(delta);
+        int length = 1;
+        while ((coded >>>= 7) != 0) {
+            length = length + 1;
+        }
+        return length;
+    }
+
+    /**
+     * Writes one difference
+     * @param out the array to write to, with room for length(delta) bytes
+     * @param pos where to write
+     * @param delta the value minus the one before it, or the first value of a run
+     * @return the position after the bytes written
+     */
+    public static int write(byte[] out, int pos, long delta){
+        long coded = zigzag(delta);
+        while ((coded & ~0x7FL) != 0) {
+            out[pos] = (byte) ((coded & 0x7F) | 0x80);
+            pos = pos + 1;
+            coded = coded >>> 7;
+        }
+        out[pos] = (byte) coded;
+        return pos + 1;
+    }
+}
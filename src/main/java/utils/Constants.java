@@ -49,6 +49,8 @@ public final class Constants {
 
     public static final int mostUserRatingCount = 100;
     public static final int topMoviesCount = 100;
+    // The trending reel counts the ratings made in this many days before the newest one
+    public static final int trendingDays = 30;
 
     public static final String defaultCreditsPath       = "data/credits.csv";
     public static final String defaultKeywordsPath      = "data/keywords.csv";
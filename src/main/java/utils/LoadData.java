@@ -30,6 +30,8 @@ import stores.Company;
 import stores.CrewCredit;
 import stores.Genre;
 import stores.Keyword;
+import stores.MappedMovies;
+import stores.Person;
 import interfaces.AbstractStores;
 
 public class LoadData implements Runnable {
@@ -158,6 +160,12 @@ public class LoadData implements Runnable {
     ArrayList<RatingRecord> backendRatings = new ArrayList<>();
     HashMap<Integer, ArrayList<RatingRecord>> backendRatingsByMovieId = new HashMap<>();
 
+    // Kept so the movie metadata can still be loaded later if it was skipped and is needed after all
+    private String movieMetadataPath;
+    private File moviesFile;
+    private FileLoadUiUpdater loadingUiUpdater;
+    private boolean metadataLoaded = false;
+
     private class FileLoadUiUpdater {
         int totalNumLines = 0;
         int totalNumCurrentlyProcessed = 0;
@@ -171,7 +179,8 @@ public class LoadData implements Runnable {
                 // Populate numLines with how many lines each file has
                 numLines.put(StoreType.CREDITS,  (Files.lines(creditsFile.toPath()).count() - 2));
                 numLines.put(StoreType.KEYWORDS, (Files.lines(keywordsFile.toPath()).count() - 2));
-                numLines.put(StoreType.METADATA, (Files.lines(movieFile.toPath()).count() - 2));
+                // No movie file is given when the metadata is not going to be parsed
+                numLines.put(StoreType.METADATA, (movieFile == null) ? 0 : (Files.lines(movieFile.toPath()).count() - 2));
                 numLines.put(StoreType.RATINGS,  (Files.lines(ratingsFile.toPath()).count() - 2));
                 for (long fileNumLines : numLines.values()){
                     totalNumLines += fileNumLines;
@@ -216,6 +225,14 @@ public class LoadData implements Runnable {
         this(null, null, creditsPath, keywordsPath, movieMetadataPath, ratingsPath);
     }
     public LoadData(JProgressBar loadingBar, JLabel loadingText, String creditsPath, String keywordsPath, String movieMetadataPath, String ratingsPath) throws DataLoadException{
+        this(loadingBar, loadingText, creditsPath, keywordsPath, movieMetadataPath, ratingsPath, false);
+    }
+    /**
+     * @param skipMetadata true to not parse the movie metadata, for when the movies store
+     *                     already holds the films (see holdsMovies). The other files are
+     *                     then not checked against the films, as they are not known yet
+     */
+    public LoadData(JProgressBar loadingBar, JLabel loadingText, String creditsPath, String keywordsPath, String movieMetadataPath, String ratingsPath, boolean skipMetadata) throws DataLoadException{
         this.loadingBar = loadingBar;
         this.loadingText = loadingText;
         System.out.println("Loading data into record structures (backend)");
@@ -235,15 +252,53 @@ public class LoadData implements Runnable {
         if (!ratingsFile.isFile())  { throw new DataLoadException(String.format(formatString, "ratings", ratingsPath)); }
 
         // class to set total number of lines and number of lines for each type so that the actual load function can just do updateUI with what type it is and how many it has loaded
-        FileLoadUiUpdater loadingUiUpdater = new FileLoadUiUpdater(loadingBar, loadingText, creditsFile, keywordsFile, moviesFile, ratingsFile);
+        FileLoadUiUpdater loadingUiUpdater = new FileLoadUiUpdater(loadingBar, loadingText, creditsFile, keywordsFile, skipMetadata ? null : moviesFile, ratingsFile);
+        this.movieMetadataPath = movieMetadataPath;
+        this.moviesFile = moviesFile;
+        this.loadingUiUpdater = loadingUiUpdater;
 
         //Load Metadata first to load validMovieIds
-        Set<Integer> validMovies = loadMetadata(moviesFile, loadingUiUpdater);
+        Set<Integer> validMovies = null;
+        if (skipMetadata){
+            System.out.println("\nThe movies store already holds the films from \"" + moviesFile.getPath() + "\", not loading them...");
+        }
+        else {
+            validMovies = loadMetadata(moviesFile, loadingUiUpdater);
+            metadataLoaded = true;
+        }
         loadCredits(creditsFile, loadingUiUpdater, validMovies);
         loadKeywords(keywordsFile, loadingUiUpdater, validMovies);
         loadRatings(ratingsFile, loadingUiUpdater, validMovies);
     }
 
+    /**
+     * Describes a section of a movie metadata file, with the file's size and last
+     * change so that an edited file does not match
+     */
+    private static String movieSource(String movieMetadataPath, boolean loadSection, int firstMovieIndex, int numMovies){
+        File file = new File(movieMetadataPath);
+        String section = loadSection ? (firstMovieIndex + "+" + numMovies) : "all";
+        return file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified() + "|" + section;
+    }
+
+    /**
+     * Checks whether the movies store already holds the films that populating it from
+     * this metadata file would add, so that the file need not be parsed. Only a
+     * memory-mapped store that was loaded from the same file and section can
+     * @param stores The stores about to be populated
+     * @param movieMetadataPath The movie metadata file
+     * @param numMovies The number of movies to load from the start of the file, or null for all of them
+     * @return true if the films are already there
+     */
+    public static boolean holdsMovies(AbstractStores stores, String movieMetadataPath, Integer numMovies){
+        IMovies movies = stores.getMovies();
+        if (!(movies instanceof MappedMovies) || movies.size() == 0){
+            return false;
+        }
+        String source = movieSource(movieMetadataPath, numMovies != null, 0, (numMovies == null) ? -1 : numMovies);
+        return source.equals(((MappedMovies) movies).getSource());
+    }
+
     public int getNumMovieRecords(){
         return backendMovies.size();
     }
@@ -342,6 +397,21 @@ public class LoadData implements Runnable {
 
         Instant start = Instant.now();
 
+        // A memory-mapped movies store that was loaded from this file and section before
+        // already holds the films, so they are kept and the metadata is not needed
+        MappedMovies mapped = (movies instanceof MappedMovies) ? (MappedMovies) movies : null;
+        String source = movieSource(movieMetadataPath, loadSection, firstMovieIndex, numMovies);
+        boolean reused = mapped != null && mapped.size() != 0 && source.equals(mapped.getSource());
+        if (!reused && !metadataLoaded){
+            try{
+                loadMetadata(moviesFile, loadingUiUpdater);
+                metadataLoaded = true;
+            }
+            catch (DataLoadException e){
+                System.err.println("Unable to load the movie metadata: " + e.getMessage());
+                return null;
+            }
+        }
 
         //Add all of the items for those movies into the other stores for consistency:
 
@@ -352,7 +422,7 @@ public class LoadData implements Runnable {
 
         if (!loadSection){
             //Load in the whole dataset
-            movieRecords   = backendMovies;
+            movieRecords   = reused ? new ArrayList<>() : backendMovies;
             creditRecords  = backendCredits;
             keywordRecords = backendKeywords;
             ratingRecords  = backendRatings;
@@ -361,18 +431,26 @@ public class LoadData implements Runnable {
             if (firstMovieIndex < 0 || numMovies <=0){
                 System.err.println("Invalid parameters for loading a section of the dataset. first movie index must be >=0, num movies must be > 0");
             }
-            if (firstMovieIndex + numMovies > backendMovies.size()){
+            if (!reused && firstMovieIndex + numMovies > backendMovies.size()){
                 System.err.println("Invalid parameters for loading a section of the dataset. Asking to load past the end of the dataset");
             }
             //Load in a subset of the dataset, restricted to a range of movies
             movieRecords = new ArrayList<>();
             ArrayList<Integer> movieIds = new ArrayList<>();
-    
-            //For all of the items in the 'numMovies' chunk after the current pointer 
-            for (int i = firstMovieIndex; i < firstMovieIndex + numMovies; i++){
-                MovieRecord mr = backendMovies.get(i);
-                movieRecords.add(mr);
-                movieIds.add(mr.id);
+
+            if (reused){
+                // The store holds exactly the films of this section
+                for (int id : movies.getAllIDs()){
+                    movieIds.add(id);
+                }
+            }
+            else {
+                //For all of the items in the 'numMovies' chunk after the current pointer 
+                for (int i = firstMovieIndex; i < firstMovieIndex + numMovies; i++){
+                    MovieRecord mr = backendMovies.get(i);
+                    movieRecords.add(mr);
+                    movieIds.add(mr.id);
+                }
             }
     
             //update the other stores
@@ -386,9 +464,31 @@ public class LoadData implements Runnable {
             }
         }
 
-        populateMovies(movies, movieRecords);
+        // Presize each store just before it is populated so that none of its maps resize part way through the load.
+        // For a full load these sizes are the same as getNumRecords(StoreType).
+        // Ratings is presized after movies are added as it sizes itself from the movies store
+        // Adding the films of a reused store again would repeat their companies and countries.
+        // A mapped store holding films from another file or section is emptied and loaded again
+        int numMoviesAdded = movieRecords.size();
+        if (reused){
+            System.out.println("Movies Store already holds " + movies.size() + " films from this file, not populating it...");
+            numMoviesAdded = movies.size();
+        }
+        else {
+            if (mapped != null && mapped.size() != 0){
+                System.out.println("Movies Store holds films from a different file or section, reloading it...");
+                mapped.clear();
+            }
+            movies.presize(movieRecords.size());
+            populateMovies(movies, movieRecords);
+            if (mapped != null){
+                mapped.setSource(source);
+            }
+        }
+        credits.presize(creditRecords.size());
         populateCredits(credits, creditRecords);
         populateKeywords(keywords, keywordRecords);
+        ratings.presize(ratingRecords.size());
         populateRatings(ratings, ratingRecords);
 
         Instant end = Instant.now();
@@ -396,7 +496,7 @@ public class LoadData implements Runnable {
         System.out.println("Overall time to populate stores:");
         System.out.println(d.toMillis() + "ms");
 
-        return new NumRecordsAdded(creditRecords.size(), keywordRecords.size(), movieRecords.size(), ratingRecords.size());
+        return new NumRecordsAdded(creditRecords.size(), keywordRecords.size(), numMoviesAdded, ratingRecords.size());
     }
 
 
@@ -435,9 +535,20 @@ public class LoadData implements Runnable {
 
     private void populateRatings(IRatings ratings, ArrayList<RatingRecord> ratingRecords){
         System.out.println("Populating Ratings Store...");
-        for (RatingRecord rr : ratingRecords){
-            ratings.add(rr.userId, rr.movieId, rr.rating, rr.timestamp);
-        }
+        // Handed over as one batch, so the store updates its leaderboards once per user and movie
+        int n = ratingRecords.size();
+        int[] users = new int[n];
+        int[] movies = new int[n];
+        float[] values = new float[n];
+        long[] times = new long[n];
+        for (int i = 0; i < n; i++){
+            RatingRecord rr = ratingRecords.get(i);
+            users[i] = rr.userId;
+            movies[i] = rr.movieId;
+            values[i] = rr.rating;
+            times[i] = rr.timestamp.toEpochSecond(ZoneOffset.UTC);
+        }
+        ratings.addAll(users, movies, values, times, n);
     }
 
 
@@ -456,8 +567,28 @@ public class LoadData implements Runnable {
     /*                                                  */
     /****************************************************/
 
+    /**
+     * Gives back the Person already made for an id if the name and profile path
+     * match, so the credits store can share it without making a copy. A person
+     * named differently in another film gets their own
+     */
+    private static Person person(HashMap<Integer, Person> people, int id, String name, String profilePath){
+        Person known = people.get(id);
+        if (known != null && name.equals(known.getName()) && profilePath.equals(known.getProfilePath())){
+            return known;
+        }
+        Person person = new Person(id, name.intern(), profilePath.intern());
+        if (known == null){
+            people.put(id, person);
+        }
+        return person;
+    }
+
     private void loadCredits(File creditsCsvFile, FileLoadUiUpdater loadingUiUpdater, Set<Integer> validMovies) throws DataLoadException {
         System.out.println("\nLoading credits from \"" + creditsCsvFile.getPath() + "\"...");
+        // The people made so far, so that each person's credits share one Person
+        HashMap<Integer, Person> castPeople = new HashMap<>();
+        HashMap<Integer, Person> crewPeople = new HashMap<>();
 
         CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
                             .setHeader()
@@ -487,7 +618,7 @@ public class LoadData implements Runnable {
                     String profilePath = castJsonObject.getString("profile_path");
 
                     castArray[i] = new CastCredit(castElementId, character, creditId, 
-                                            castId, name, order, profilePath);
+                                            person(castPeople, castId, name, profilePath), order);
                 }
 
                 // Parse crew
@@ -504,13 +635,13 @@ public class LoadData implements Runnable {
                     String name          = crewJsonObject.getString("name");
                     String profilePath   = crewJsonObject.getString("profile_path");
 
-                    crewArray[i] = new CrewCredit(crewElementId, department, crewId, job, name, profilePath);
+                    crewArray[i] = new CrewCredit(crewElementId, department, person(crewPeople, crewId, name, profilePath), job);
                 }
 
                 // Parse top level id in csv file (never empty)
                 int movieId = Integer.parseInt(csvRecord.get("tmdb_id"));
 
-                if (!validMovies.contains(movieId)){
+                if (validMovies != null && !validMovies.contains(movieId)){
                     String message = "Credits file contains a credit for a movie (id:" + movieId + ") that doesn't exist in the movie metadata file!";
                     throw new DataLoadException(message);
                 }
@@ -569,7 +700,7 @@ public class LoadData implements Runnable {
                 }
 
                 // Check if this line in the keywords file is referring to a movie that actually exists
-                if (!validMovies.contains(movieId)){
+                if (validMovies != null && !validMovies.contains(movieId)){
                     String message = "Keywords file contains a keyword record for a movie (id:" + movieId + ") that doesn't exist in the movie metadata file!";
                     throw new DataLoadException(message);
                 }
@@ -783,7 +914,7 @@ public class LoadData implements Runnable {
      * Load the Ratings file into RatingRecord objects in backend datastructures
      * @param ratingsCsvFile The file to load in
      * @param loadUiUpdater
-     * @param validMovies The set of movies that have been parsed from the movies file
+     * @param validMovies The set of movies that have been parsed from the movies file, or null if it was not parsed
      * @throws DataLoadException When the file is of the incorrect format
      */
     private void loadRatings(File ratingsCsvFile, FileLoadUiUpdater loadUiUpdater, Set<Integer> validMovies) throws DataLoadException {
@@ -804,7 +935,7 @@ public class LoadData implements Runnable {
                 int movieId  = Integer.parseInt(csvRecord.get("tmdbId"));
 
                 // Check if this line in the ratings file is referring to a movie that actually exists
-                if (!validMovies.contains(movieId)){
+                if (validMovies != null && !validMovies.contains(movieId)){
                     String message = "Ratings file contains a rating for a movie (id:" + movieId + ") that doesn't exist in the movie metadata file!";
                     throw new DataLoadException(message);
                 }
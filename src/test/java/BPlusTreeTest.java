@@ -0,0 +1,119 @@
+import structures.BPlusTree;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BPlusTreeTest {
+
+    /**
+     * Packs a pair the same way the tree orders it, for a TreeSet to compare against
+     */
+    private static long[] pair(long key, int value) {
+        return new long[] {key, value};
+    }
+
+    private static TreeSet<long[]> newExpected() {
+        return new TreeSet<>((a, b) -> (a[0] != b[0]) ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+    }
+
+    /**
+     * Checks a range query against the expected pairs
+     */
+    private static void assertRange(TreeSet<long[]> expected, BPlusTree tree, long from, long to) {
+        ArrayList<Integer> values = new ArrayList<>();
+        for (long[] p : expected.subSet(pair(from, Integer.MIN_VALUE), true, pair(to, Integer.MIN_VALUE), false)) {
+            values.add((int) p[1]);
+        }
+        int[] got = tree.valuesInRange(from, to);
+        assertEquals(values.size(), got.length);
+        for (int i = 0; i < got.length; i++) {
+            assertEquals((int) values.get(i), got[i]);
+        }
+        assertEquals(values.size(), tree.countInRange(from, to));
+    }
+
+    /**
+     * The same key can be stored with many values, but each pair only once
+     */
+    @Test void testAddRemoveDuplicateKeys() {
+        System.out.println("\nStarting testAddRemoveDuplicateKeys...");
+        BPlusTree tree = new BPlusTree();
+        for (int i = 0; i < 500; i++) {
+            assertTrue(tree.add(7, i));
+        }
+        assertFalse(tree.add(7, 3));
+        assertEquals(500, tree.size());
+        assertEquals(500, tree.valuesInRange(7, 8).length);
+        assertEquals(0, tree.countInRange(8, 100));
+
+        assertTrue(tree.remove(7, 3));
+        assertFalse(tree.remove(7, 3));
+        assertFalse(tree.contains(7, 3));
+        assertTrue(tree.contains(7, 4));
+        assertEquals(499, tree.countInRange(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    /**
+     * A bulk loaded tree should answer the same as one built by adds, and keep
+     * working as pairs are added and removed afterwards
+     */
+    @Test void testBulkLoadThenChanges() {
+        System.out.println("\nStarting testBulkLoadThenChanges...");
+        Random random = new Random(15);
+        TreeSet<long[]> expected = newExpected();
+        while (expected.size() < 50000) {
+            expected.add(pair(random.nextInt(20000), random.nextInt(1000)));
+        }
+        long[] keys = new long[expected.size()];
+        int[] values = new int[expected.size()];
+        int n = 0;
+        for (long[] p : expected) {
+            keys[n] = p[0];
+            values[n] = (int) p[1];
+            n = n + 1;
+        }
+        BPlusTree tree = new BPlusTree();
+        tree.bulkLoad(keys, values, n);
+        assertEquals(n, tree.size());
+        assertRange(expected, tree, 0, 20000);
+        assertRange(expected, tree, 1234, 1300);
+
+        for (int i = 0; i < 100000; i++) {
+            long key = random.nextInt(20000);
+            int value = random.nextInt(1000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(pair(key, value)), tree.add(key, value));
+            }
+            else {
+                assertEquals(expected.remove(pair(key, value)), tree.remove(key, value));
+            }
+        }
+        assertEquals(expected.size(), tree.size());
+        for (int i = 0; i < 200; i++) {
+            long from = random.nextInt(21000) - 500;
+            assertRange(expected, tree, from, from + random.nextInt(3000));
+        }
+    }
+
+    /**
+     * Adds in increasing order split the same edge of the tree every time
+     */
+    @Test void testSortedAdds() {
+        System.out.println("\nStarting testSortedAdds...");
+        BPlusTree tree = new BPlusTree();
+        TreeSet<long[]> expected = newExpected();
+        for (int i = 0; i < 100000; i++) {
+            tree.add(i * 3L, i);
+            expected.add(pair(i * 3L, i));
+        }
+        assertRange(expected, tree, 0, 300000);
+        assertRange(expected, tree, 1000, 1001);
+        assertRange(expected, tree, -5, 2);
+        assertTrue(tree.contains(29997, 9999));
+        assertFalse(tree.contains(29998, 9999));
+    }
+}
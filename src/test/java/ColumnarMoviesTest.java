@@ -0,0 +1,63 @@
+import interfaces.IMovies;
+import stores.*;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.MethodName.class)
+
+class ColumnarMoviesTest {
+
+    /**
+     * Every method should give back the same as Movies, including after films
+     * are removed from the middle of the columns and more are added
+     */
+    @Test void testAgainstMoviesPos() {
+        System.out.println("\nStarting testAgainstMoviesPos...");
+        Stores stores = new Stores();
+        IMovies reference = stores.getMovies();
+        IMovies columnar = new ColumnarMovies(stores);
+        MoviesChecks.fill(reference, columnar, new Random(7));
+        MoviesChecks.check(reference, columnar);
+
+        // Removing moves the last row into the hole, so the moved films should be unchanged
+        for (int i = 1; i < MoviesChecks.numFilms; i += 5) {
+            assertEquals(reference.remove(MoviesChecks.firstID + i), columnar.remove(MoviesChecks.firstID + i), "The remove result is incorrect");
+        }
+        for (IMovies movies : new IMovies[] {reference, columnar}) {
+            movies.presize(10);
+            assertTrue(movies.add(1, "Added Later", "Added Later", "An overview", "", "Released", new Genre[] {new Genre(1, "Drama")}, LocalDate.of(2020, 2, 2), 1, 2, new String[] {"en"}, "en", 90, "", false, true, ""));
+            assertTrue(movies.addToCollection(1, 5001, "Collection 5001", "/cp5001", "/cb5001"));
+        }
+        MoviesChecks.check(reference, columnar);
+    }
+
+    /**
+     * Films that are not stored should be turned away the same way as by Movies
+     */
+    @Test void testAgainstMoviesNeg() {
+        System.out.println("\nStarting testAgainstMoviesNeg...");
+        Stores stores = new Stores();
+        IMovies reference = stores.getMovies();
+        IMovies columnar = new ColumnarMovies(stores);
+        MoviesChecks.fill(reference, columnar, new Random(8));
+
+        int fakeID = MoviesChecks.firstID + MoviesChecks.numFilms + 10;
+        assertEquals(reference.remove(fakeID), columnar.remove(fakeID), "Removing a film that is not stored is incorrect");
+        assertEquals(reference.setVote(fakeID, 5.0, 10), columnar.setVote(fakeID, 5.0, 10), "Voting on a film that is not stored is incorrect");
+        assertEquals(reference.setIMDB(fakeID, "tt1"), columnar.setIMDB(fakeID, "tt1"), "Setting the IMDB ID of a film that is not stored is incorrect");
+        assertEquals(reference.setPopularity(fakeID, 1.0), columnar.setPopularity(fakeID, 1.0), "Setting the popularity of a film that is not stored is incorrect");
+        assertEquals(reference.addToCollection(fakeID, 5001, "C", "", ""), columnar.addToCollection(fakeID, 5001, "C", "", ""), "Adding a film that is not stored to a collection is incorrect");
+        assertEquals(reference.addProductionCompany(fakeID, new Company(1, "C")), columnar.addProductionCompany(fakeID, new Company(1, "C")), "Adding a company to a film that is not stored is incorrect");
+        assertEquals(reference.addProductionCountry(fakeID, "C"), columnar.addProductionCountry(fakeID, "C"), "Adding a country to a film that is not stored is incorrect");
+        assertFalse(columnar.add(MoviesChecks.firstID + 1, "Again", "Again", "", "", "", new Genre[0], null, 0, 0, new String[0], "", 0, "", false, false, ""), "A film that is already stored should not be added again.");
+        MoviesChecks.check(reference, columnar);
+    }
+}
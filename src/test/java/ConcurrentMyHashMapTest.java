@@ -0,0 +1,165 @@
+import structures.ConcurrentMyHashMap;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentMyHashMapTest {
+    private int numThreads = 16;
+    private int keysPerThread = 20000;
+
+    /**
+     * Starts every worker at the same moment and waits for all of them to finish.
+     * Any exception thrown by a worker fails the test
+     */
+    void runConcurrently(Runnable[] workers) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        ArrayList<Throwable> errors = new ArrayList<>();
+        ArrayList<Thread> threads = new ArrayList<>();
+        for (Runnable worker : workers) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    worker.run();
+                } catch (Throwable t) {
+                    synchronized (errors) {
+                        errors.add(t);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(errors.isEmpty(), "A worker thread failed: " + errors);
+    }
+
+    /**
+     * Many writers adding different keys at once should lose nothing
+     */
+    @Test void testConcurrentPutDisjoint() throws InterruptedException {
+        System.out.println("\nStarting testConcurrentPutDisjoint...");
+        // Starts small so that every segment resizes many times while the writers run
+        ConcurrentMyHashMap<Integer, Integer> map = new ConcurrentMyHashMap<>();
+
+        Runnable[] writers = new Runnable[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            int base = t * keysPerThread;
+            writers[t] = () -> {
+                for (int i = 0; i < keysPerThread; i++) {
+                    map.put(base + i, base + i);
+                }
+            };
+        }
+        runConcurrently(writers);
+
+        assertEquals(numThreads * keysPerThread, map.size(), "Every key added should be counted once");
+        for (int key = 0; key < numThreads * keysPerThread; key++) {
+            assertEquals(Integer.valueOf(key), map.get(key), "Value lost or corrupted for key " + key);
+        }
+    }
+
+    /**
+     * Writers fighting over the same keys with putIfAbsent should have exactly one winner per key
+     */
+    @Test void testConcurrentPutIfAbsentSameKeys() throws InterruptedException {
+        System.out.println("\nStarting testConcurrentPutIfAbsentSameKeys...");
+        ConcurrentMyHashMap<Integer, Integer> map = new ConcurrentMyHashMap<>();
+        AtomicInteger wins = new AtomicInteger();
+
+        Runnable[] writers = new Runnable[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            int thread = t;
+            writers[t] = () -> {
+                for (int i = 0; i < keysPerThread; i++) {
+                    if (map.putIfAbsent(i, thread) == null) {
+                        wins.incrementAndGet();
+                    }
+                }
+            };
+        }
+        runConcurrently(writers);
+
+        assertEquals(keysPerThread, wins.get(), "Each key should only be added by one thread");
+        assertEquals(keysPerThread, map.size(), "Each key should only be stored once");
+    }
+
+    /**
+     * computeIfAbsent should only run the function once per key, however many threads ask
+     */
+    @Test void testConcurrentComputeIfAbsent() throws InterruptedException {
+        System.out.println("\nStarting testConcurrentComputeIfAbsent...");
+        ConcurrentMyHashMap<Integer, Integer> map = new ConcurrentMyHashMap<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        Runnable[] writers = new Runnable[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            writers[t] = () -> {
+                for (int i = 0; i < keysPerThread; i++) {
+                    int value = map.computeIfAbsent(i, key -> {
+                        calls.incrementAndGet();
+                        return key * 2;
+                    });
+                    assertEquals(i * 2, value, "Wrong value given back by computeIfAbsent");
+                }
+            };
+        }
+        runConcurrently(writers);
+
+        assertEquals(keysPerThread, calls.get(), "The function should run once per key");
+    }
+
+    /**
+     * Writers, removers and readers all running at once. Readers must never see a
+     * value that was not put for that key, and at the end the map must hold exactly
+     * the keys that were not removed
+     */
+    @Test void testConcurrentMixedReadWriteRemove() throws InterruptedException {
+        System.out.println("\nStarting testConcurrentMixedReadWriteRemove...");
+        ConcurrentMyHashMap<Integer, Integer> map = new ConcurrentMyHashMap<>();
+        int half = numThreads / 2;
+
+        Runnable[] workers = new Runnable[numThreads + 4];
+        for (int t = 0; t < half; t++) {
+            int base = t * keysPerThread;
+            // Adds its keys, then removes the odd ones
+            workers[t] = () -> {
+                for (int i = 0; i < keysPerThread; i++) {
+                    map.put(base + i, -(base + i));
+                }
+                for (int i = 1; i < keysPerThread; i += 2) {
+                    assertTrue(map.remove(base + i), "A key that was added should be removable");
+                }
+            };
+        }
+        for (int t = half; t < numThreads + 4; t++) {
+            // Readers and iterators run alongside the writers
+            workers[t] = () -> {
+                for (int round = 0; round < 5; round++) {
+                    for (int key = 0; key < half * keysPerThread; key++) {
+                        Integer value = map.get(key);
+                        if (value != null) {
+                            assertEquals(-key, (int) value, "A reader saw a value that was never put for key " + key);
+                        }
+                    }
+                    map.forEach((key, value) -> assertEquals(-key, (int) value, "Iteration saw a corrupted entry"));
+                }
+            };
+        }
+        runConcurrently(workers);
+
+        assertEquals(half * (keysPerThread / 2), map.size(), "Only the even keys should be left");
+        int[] seen = {0};
+        map.forEach((key, value) -> {
+            assertTrue(key % 2 == 0, "An odd key survived its removal");
+            seen[0]++;
+        });
+        assertEquals(map.size(), seen[0], "Iteration should visit every entry once when no one is writing");
+    }
+}
@@ -134,6 +134,23 @@ public class CreditsTest {
         assertFalse(oneCreditsStores.getCredits().add(tmpCast, tmpCrew, 201), "This film has been added to the credits store, so should not be able to be added");
     }
 
+    /**
+     * A film added with no cast is still stored, so its id can not be added again
+     */
+    @Test void testAddNegNullCast() {
+        System.out.println("\nStarting testAddNegNullCast...");
+        Stores nullCastStores = new Stores();
+        CastCredit[] laterCast = {new CastCredit(8, "Jessie(Voice)", "8", 8, "Joan Cusack", 0, "Jessie profilepath")};
+        CrewCredit[] laterCrew = {new CrewCredit("8", "Directing", 8, "Director", "Lee Unkrich", "Lee Unkrich profilepath")};
+
+        assertTrue(nullCastStores.getCredits().add(null, new CrewCredit[] {johnLasseter}, 5));
+        assertFalse(nullCastStores.getCredits().add(laterCast, laterCrew, 5), "This film has been added to the credits store, so should not be able to be added");
+        assertNull(nullCastStores.getCredits().getFilmCast(5), "The first cast should be kept.");
+        assertEquals(1, nullCastStores.getCredits().getFilmCrew(5).length, "The first crew should be kept.");
+        assertEquals(0, nullCastStores.getCredits().getCastFilms(8).length, "The turned away cast should not be indexed.");
+        assertEquals(0, nullCastStores.getCredits().getCrewFilms(8).length, "The turned away crew should not be indexed.");
+    }
+
     /**
      * Checks that the cast for cast id 1 is the same using compareTo
      */
@@ -213,6 +230,79 @@ public class CreditsTest {
     }
     
 
+    /**
+     * Removing a film should take it out of each person's films, and forget a
+     * person left with none. Two roles in one film count as two credits
+     */
+    @Test void testRemovePosPeople(){
+        System.out.println("\nStarting testRemovePosPeople...");
+        Stores peopleStores = new Stores();
+        CastCredit woodyAgain = new CastCredit(5, "Sheriff Woody(Voice)", "5", 1, "Tom Hanks", 4, "Woody profilepath");
+        CastCredit[] twoRoles = {woody, woodyAgain};
+        CastCredit[] tmpCast = {buzz};
+        CrewCredit[] tmpCrew = {johnLasseter};
+        peopleStores.getCredits().add(twoRoles, tmpCrew, 301);
+        peopleStores.getCredits().add(tmpCast, tmpCrew, 302);
+
+        assertEquals(2, peopleStores.getCredits().getNumCastCredits(1), "Each role should count as a credit.");
+        assertArrayEquals(new int[] {301}, peopleStores.getCredits().getCastFilms(1), "Each film should only be given once.");
+        assertArrayEquals(new int[] {301}, peopleStores.getCredits().getCastStarsInFilms(1), "One starring role should be enough.");
+        assertArrayEquals(new int[] {301, 302}, peopleStores.getCredits().getCrewFilms(1), "Incorrect values returned.");
+
+        assertTrue(peopleStores.getCredits().remove(301));
+        assertNull(peopleStores.getCredits().getCast(1), "A person with no films left should be forgotten.");
+        assertEquals(-1, peopleStores.getCredits().getNumCastCredits(1), "A person with no films left should be forgotten.");
+        assertArrayEquals(new int[0], peopleStores.getCredits().getCastFilms(1), "A person with no films left should have none.");
+        assertArrayEquals(new int[] {302}, peopleStores.getCredits().getCrewFilms(1), "The other film should be kept.");
+        assertNotNull(peopleStores.getCredits().getCrew(1), "A person with films left should be kept.");
+    }
+
+    /**
+     * A person in several films should be stored once, and listed once
+     */
+    @Test void testAddPosSharedPeople(){
+        System.out.println("\nStarting testAddPosSharedPeople...");
+        Stores sharedStores = new Stores();
+        CastCredit first = new CastCredit(6, "Sheriff Woody(Voice)", "6", 1, new String("Tom Hanks"), 0, new String("Woody profilepath"));
+        CastCredit second = new CastCredit(7, "Sheriff Woody(Voice)", "7", 1, new String("Tom Hanks"), 0, new String("Woody profilepath"));
+        sharedStores.getCredits().add(new CastCredit[] {first}, new CrewCredit[0], 401);
+        sharedStores.getCredits().add(new CastCredit[] {second}, new CrewCredit[0], 402);
+
+        assertSame(first.getName(), second.getName(), "The name should only be stored once.");
+        assertSame(first.getProfilePath(), second.getProfilePath(), "The profile path should only be stored once.");
+        assertSame(sharedStores.getCredits().getCast(1), sharedStores.getCredits().getCast(1), "The same person should be given back each time.");
+        assertEquals(1, sharedStores.getCredits().getUniqueCast().length, "The person should only be listed once.");
+    }
+
+    /**
+     * A person only shares the stored details when their name and profile path match.
+     * A credit that names them differently keeps what it was made with, and the
+     * registry keeps the details the id was first added with
+     */
+    @Test void testAddPosDifferentDetails(){
+        System.out.println("\nStarting testAddPosDifferentDetails...");
+        Stores detailStores = new Stores();
+        Person ann = new Person(9, "Ann", "/a.jpg");
+        CastCredit first = new CastCredit(1, "Lead", "1", ann, 0);
+        CastCredit again = new CastCredit(2, "Lead", "2", ann, 0);
+        CastCredit renamed = new CastCredit(3, "Lead", "3", 9, "Ann B", 0, "/b.jpg");
+        detailStores.getCredits().add(new CastCredit[] {first}, new CrewCredit[0], 5);
+        detailStores.getCredits().add(new CastCredit[] {again}, new CrewCredit[0], 7);
+        detailStores.getCredits().add(new CastCredit[] {renamed}, new CrewCredit[0], 6);
+
+        assertEquals("Ann B", detailStores.getCredits().getFilmCast(6)[0].getName(), "The name is incorrect");
+        assertEquals("/b.jpg", detailStores.getCredits().getFilmCast(6)[0].getProfilePath(), "The profile path is incorrect");
+        assertSame(detailStores.getCredits().getCast(9), ann, "Credits built from the same Person should share it.");
+        assertEquals("Ann", detailStores.getCredits().getFilmCast(7)[0].getName(), "The name is incorrect");
+        assertEquals(3, detailStores.getCredits().getNumCastCredits(9), "The credits should all count for the one id.");
+
+        detailStores.getCredits().remove(5);
+        assertEquals("Ann B", detailStores.getCredits().getFilmCast(6)[0].getName(), "The name should not change when another film is removed.");
+        assertEquals("/b.jpg", detailStores.getCredits().getFilmCast(6)[0].getProfilePath(), "The profile path should not change when another film is removed.");
+        assertEquals("Ann", detailStores.getCredits().getCast(9).getName(), "The registry should keep the first details while the person has credits.");
+        assertEquals(1, detailStores.getCredits().findCast("Ann").length);
+    }
+
     /**
      * Removing a not valid id should return a False
      */
@@ -481,6 +571,33 @@ public class CreditsTest {
     }
 
     
+    /**
+     * Names should match whatever their case, the most credited first, and stop
+     * matching once the person has no films left
+     */
+    @Test void testFindCastPosRanked(){
+        System.out.println("\nStarting testFindCastPosRanked...");
+        Stores rankedStores = new Stores();
+        CastCredit tom = new CastCredit(1, "Woody(Voice)", "1", 10, "Tom Hanks", 0, "Tom profilepath");
+        CastCredit tim = new CastCredit(2, "Buzz(Voice)", "2", 11, "Tim Allen", 1, "Tim profilepath");
+        CastCredit tomAgain = new CastCredit(3, "Woody(Voice)", "3", 10, "Tom Hanks", 0, "Tom profilepath");
+        CastCredit tommy = new CastCredit(4, "Andy(Voice)", "4", 12, "Tommy Lee", 2, "Tommy profilepath");
+        rankedStores.getCredits().add(new CastCredit[] {tommy, tim}, new CrewCredit[0], 501);
+        rankedStores.getCredits().add(new CastCredit[] {tom}, new CrewCredit[0], 502);
+        rankedStores.getCredits().add(new CastCredit[] {tomAgain}, new CrewCredit[0], 503);
+
+        Person[] result = rankedStores.getCredits().findCast("tOM");
+        assertEquals(2, result.length, "Both people with tom in their name should be found.");
+        assertEquals(10, result[0].getID(), "The most credited should be first.");
+        assertEquals(12, result[1].getID(), "The less credited should be second.");
+        assertEquals(3, rankedStores.getCredits().findCast("m").length, "A single letter should be found anywhere in a name.");
+
+        assertTrue(rankedStores.getCredits().remove(501));
+        result = rankedStores.getCredits().findCast("tom");
+        assertEquals(1, result.length, "A person with no films left should not be found.");
+        assertEquals(10, result[0].getID(), "The ID is not correct.");
+    }
+
     /**
      * Checks that the cast array returned has length equal to 0, so is empty.
      */
@@ -564,6 +681,139 @@ public class CreditsTest {
         }
     }
 
+    /**
+     * The ranking should follow films being added and removed, ties going to the lower id
+     */
+    @Test void testGetMostCastCreditsPosAfterRemove() {
+        System.out.println("\nStarting testGetMostCastCreditsPosAfterRemove...");
+        Stores rankedStores = new Stores();
+        CastCredit woodyAgain = new CastCredit(5, "Sheriff Woody(Voice)", "5", 1, "Tom Hanks", 4, "Woody profilepath");
+        rankedStores.getCredits().add(new CastCredit[] {woody, buzz}, new CrewCredit[0], 601);
+        rankedStores.getCredits().add(new CastCredit[] {buzz, isastar}, new CrewCredit[0], 602);
+        rankedStores.getCredits().add(new CastCredit[] {buzz}, new CrewCredit[0], 603);
+        rankedStores.getCredits().add(new CastCredit[] {woody, woodyAgain}, new CrewCredit[0], 604);
+
+        Person[] result = rankedStores.getCredits().getMostCastCredits(10);
+        assertEquals(3, result.length, "There should only be 3 cast members.");
+        assertEquals(1, result[0].getID(), "Two roles in one film should count twice.");
+        assertEquals(2, result[1].getID(), "ID in element 1 is not correct");
+        assertEquals(3, result[2].getID(), "ID in element 2 is not correct");
+
+        assertTrue(rankedStores.getCredits().remove(604));
+        result = rankedStores.getCredits().getMostCastCredits(10);
+        assertEquals(2, result[0].getID(), "The most credited should now be first.");
+        assertEquals(1, result[1].getID(), "ID in element 1 is not correct");
+
+        assertEquals(3, result[2].getID(), "Ties should go to the lower ID.");
+
+        assertTrue(rankedStores.getCredits().remove(603));
+        assertTrue(rankedStores.getCredits().remove(602));
+        result = rankedStores.getCredits().getMostCastCredits(10);
+        assertEquals(2, result.length, "A person with no films left should not be ranked.");
+        assertEquals(1, result[0].getID(), "Ties should go to the lower ID.");
+        assertEquals(2, result[1].getID(), "ID in element 1 is not correct");
+    }
+
+    /**
+     * Builds a small network: 10 and 11 star together twice, 12 is with 11 once,
+     * director 20 made a film with 12 and 13, and 14 and 15 are on their own in a
+     * film directed by crew member 10, who is not cast member 10
+     */
+    private Stores collaborationStores(){
+        Stores graphStores = new Stores();
+        CastCredit a = new CastCredit(1, "A", "1", 10, "Actor Ten", 0, "");
+        CastCredit b = new CastCredit(2, "B", "2", 11, "Actor Eleven", 1, "");
+        CastCredit c = new CastCredit(3, "C", "3", 12, "Actor Twelve", 0, "");
+        CastCredit d = new CastCredit(4, "D", "4", 13, "Actor Thirteen", 0, "");
+        CastCredit e = new CastCredit(5, "E", "5", 14, "Actor Fourteen", 0, "");
+        CastCredit f = new CastCredit(6, "F", "6", 15, "Actor Fifteen", 1, "");
+        CrewCredit director = new CrewCredit("7", "Directing", 20, "Director", "Director Twenty", "");
+        CrewCredit mixer = new CrewCredit("8", "Sound", 21, "Sound Mixer", "Mixer Twentyone", "");
+        CrewCredit directorTen = new CrewCredit("9", "Directing", 10, "Director", "Director Ten", "");
+        graphStores.getCredits().add(new CastCredit[] {a, b}, new CrewCredit[] {mixer}, 701);
+        graphStores.getCredits().add(new CastCredit[] {b, a}, new CrewCredit[0], 702);
+        graphStores.getCredits().add(new CastCredit[] {b, c}, new CrewCredit[0], 703);
+        graphStores.getCredits().add(new CastCredit[] {c, d}, new CrewCredit[] {director, mixer}, 704);
+        graphStores.getCredits().add(new CastCredit[] {e, f}, new CrewCredit[] {directorTen}, 705);
+        return graphStores;
+    }
+
+    /**
+     * The people who have made the most films with someone should come first
+     */
+    @Test void testGetFrequentCoStarsPos() {
+        System.out.println("\nStarting testGetFrequentCoStarsPos...");
+        Stores graphStores = collaborationStores();
+
+        assertArrayEquals(new int[] {10, 12}, graphStores.getCredits().getFrequentCoStars(11, 5), "The most films together should be first.");
+        assertArrayEquals(new int[] {10}, graphStores.getCredits().getFrequentCoStars(11, 1), "Only the number asked for should be given back.");
+        assertArrayEquals(new int[] {11, 13}, graphStores.getCredits().getFrequentCoStars(12, 5), "Directors should not be co-stars.");
+        assertArrayEquals(new int[] {20}, graphStores.getCredits().getFrequentDirectors(12, 5), "Directors should be linked to their cast.");
+        assertArrayEquals(new int[] {12, 13}, graphStores.getCredits().getFrequentCast(20, 5), "Directors should be linked to their cast.");
+
+        assertTrue(graphStores.getCredits().remove(703));
+        assertArrayEquals(new int[] {10}, graphStores.getCredits().getFrequentCoStars(11, 5), "A removed film should no longer link people.");
+    }
+
+    /**
+     * A cast ID and a crew ID that are the same number should be two people
+     */
+    @Test void testGetFrequentCoStarsPosSharedID() {
+        System.out.println("\nStarting testGetFrequentCoStarsPosSharedID...");
+        Stores graphStores = collaborationStores();
+
+        assertArrayEquals(new int[] {11}, graphStores.getCredits().getFrequentCoStars(10, 5), "Cast member 10 should only have their own co-stars.");
+        assertArrayEquals(new int[0], graphStores.getCredits().getFrequentDirectors(10, 5), "Cast member 10 has not been directed.");
+        assertArrayEquals(new int[] {10}, graphStores.getCredits().getFrequentDirectors(14, 5), "Crew member 10 directed cast member 14.");
+        assertArrayEquals(new int[] {14, 15}, graphStores.getCredits().getFrequentCast(10, 5), "Crew member 10 should only have their own cast.");
+        assertArrayEquals(new int[0], graphStores.getCredits().getCastCollaborationPath(10, 14), "Cast member 10 should not be linked through crew member 10.");
+    }
+
+    /**
+     * Unknown people, and crew who are not directing, have no collaborators
+     */
+    @Test void testGetFrequentCoStarsNeg() {
+        System.out.println("\nStarting testGetFrequentCoStarsNeg...");
+        Stores graphStores = collaborationStores();
+
+        assertArrayEquals(new int[0], graphStores.getCredits().getFrequentCoStars(99, 5), "An unknown person should have no collaborators.");
+        assertArrayEquals(new int[0], graphStores.getCredits().getFrequentDirectors(99, 5), "An unknown person should have no collaborators.");
+        assertArrayEquals(new int[0], graphStores.getCredits().getFrequentCast(21, 5), "Only directors should be linked from the crew.");
+        assertArrayEquals(new int[0], graphStores.getCredits().getFrequentCast(12, 5), "A cast ID should not be taken as a crew ID.");
+    }
+
+    /**
+     * The shortest chain should be found, and people in separate groups should not be linked
+     */
+    @Test void testGetCastCollaborationPathPos() {
+        System.out.println("\nStarting testGetCastCollaborationPathPos...");
+        Stores graphStores = collaborationStores();
+
+        assertArrayEquals(new int[] {10, 11, 12, 13}, graphStores.getCredits().getCastCollaborationPath(10, 13), "The shortest chain should be given back.");
+        assertArrayEquals(new int[] {13, 12, 11}, graphStores.getCredits().getCastCollaborationPath(13, 11), "The shortest chain should be given back.");
+        assertArrayEquals(new int[] {14}, graphStores.getCredits().getCastCollaborationPath(14, 14), "A person is linked to themselves.");
+        assertEquals(4, graphStores.getCredits().getCastCollaborationGroupSize(10), "Everyone linked should be counted.");
+        assertEquals(2, graphStores.getCredits().getCastCollaborationGroupSize(15), "Everyone linked should be counted.");
+
+        assertTrue(graphStores.getCredits().remove(703));
+        assertArrayEquals(new int[0], graphStores.getCredits().getCastCollaborationPath(10, 13), "A removed film should no longer link people.");
+        assertEquals(2, graphStores.getCredits().getCastCollaborationGroupSize(10), "The group should split when a film is removed.");
+    }
+
+    /**
+     * People who cannot be found, or are not linked, have no chain
+     */
+    @Test void testGetCastCollaborationPathNeg() {
+        System.out.println("\nStarting testGetCastCollaborationPathNeg...");
+        Stores graphStores = collaborationStores();
+
+        assertArrayEquals(new int[0], graphStores.getCredits().getCastCollaborationPath(10, 14), "People in separate groups should not be linked.");
+        assertArrayEquals(new int[0], graphStores.getCredits().getCastCollaborationPath(10, 99), "An unknown person should not be linked.");
+        assertArrayEquals(new int[0], graphStores.getCredits().getCastCollaborationPath(12, 20), "A director's crew ID should not be taken as a cast ID.");
+        assertEquals(-1, graphStores.getCredits().getCastCollaborationGroupSize(20), "A director should have no cast group.");
+        assertEquals(-1, emptyCreditsStores.getCredits().getCastCollaborationGroupSize(10), "An unknown person should have no group.");
+    }
+
     /**
      * Shoudl return an empty array, as no elements
      */
@@ -0,0 +1,135 @@
+import structures.CountMinSketch;
+import structures.HeavyHitters;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeavyHittersTest {
+
+    /**
+     * Draws ids 0 to n - 1 with a Zipf-like skew, id 0 the most common
+     */
+    private static int skewed(Random random, int n) {
+        return (int) Math.min(n - 1, Math.floor(Math.pow(n, random.nextDouble())) - 1);
+    }
+
+    /**
+     * Estimates are never below the true count, and almost always within epsilon of the total
+     */
+    @Test void testCountMinSketchBounds() {
+        System.out.println("\nStarting testCountMinSketchBounds...");
+        Random random = new Random(20);
+        CountMinSketch sketch = new CountMinSketch(0.001, 0.01);
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            int id = skewed(random, 100000);
+            sketch.add(id, 1);
+            expected.merge(id, 1, Integer::sum);
+        }
+        assertEquals(200000, sketch.total());
+
+        int far = 0;
+        for (int id = 0; id < 100000; id++) {
+            long count = expected.getOrDefault(id, 0);
+            long estimate = sketch.estimate(id);
+            assertTrue(estimate >= count, "Estimate below the count of " + id);
+            if (estimate - count > 0.001 * sketch.total()) {
+                far = far + 1;
+            }
+        }
+        assertTrue(far < 1000, far + " estimates are too far out");
+    }
+
+    /**
+     * Bounds small enough to need more counters than an int can count are turned
+     * away before anything is allocated
+     */
+    @Test void testSizeNeg() {
+        System.out.println("\nStarting testSizeNeg...");
+        assertEquals(2719L * 5, CountMinSketch.counters(0.001, 0.01), "The number of counters is incorrect");
+        assertTrue(CountMinSketch.counters(1e-9, 0.01) > Integer.MAX_VALUE, "The number of counters should not overflow.");
+        assertEquals(Long.MAX_VALUE, CountMinSketch.counters(Double.MIN_VALUE, 0.01), "The number of counters should saturate.");
+        assertTrue(HeavyHitters.fits(0.001, 0.01));
+        assertFalse(HeavyHitters.fits(1e-9, 0.01), "A tiny epsilon should not fit.");
+        assertFalse(HeavyHitters.fits(0.001, Double.MIN_VALUE), "A tiny delta should not fit.");
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(1e-9, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new HeavyHitters(1e-9, 0.01));
+    }
+
+    /**
+     * The ids counted most often are found in order, even with some counts taken back out
+     */
+    @Test void testHeavyHittersTop() {
+        System.out.println("\nStarting testHeavyHittersTop...");
+        Random random = new Random(21);
+        HeavyHitters hitters = new HeavyHitters(0.001, 0.01);
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 300000; i++) {
+            int id = skewed(random, 100000);
+            if (random.nextInt(10) == 0 && expected.getOrDefault(id, 0) > 0) {
+                hitters.add(id, -1);
+                expected.merge(id, -1, Integer::sum);
+            }
+            else {
+                hitters.add(id, 1);
+                expected.merge(id, 1, Integer::sum);
+            }
+        }
+        assertEquals(1000, hitters.capacity());
+        assertEquals(1000, hitters.size());
+
+        // Ids 0 to 4 are far enough apart that the order is certain, and were never
+        // pushed out, so their counts are exact
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, hitters.top(5));
+        for (int id = 0; id < 5; id++) {
+            assertEquals((long) expected.get(id), hitters.estimate(id));
+        }
+
+        // Every id well over epsilon of the total is in the table, removals allowing
+        int[] top = hitters.top(hitters.capacity());
+        HashMap<Integer, Integer> found = new HashMap<>();
+        for (int id : top) {
+            found.put(id, 1);
+        }
+        for (HashMap.Entry<Integer, Integer> e : expected.entrySet()) {
+            if (e.getValue() > 0.002 * hitters.total()) {
+                assertTrue(found.containsKey(e.getKey()), "Missing heavy id " + e.getKey());
+            }
+        }
+    }
+
+    /**
+     * A small table taking far more ids than it can hold keeps the one with more
+     * than a quarter of the total, and ids can be dropped once their counts are
+     * taken back out
+     */
+    @Test void testHeavyHittersSmallTable() {
+        System.out.println("\nStarting testHeavyHittersSmallTable...");
+        HeavyHitters hitters = new HeavyHitters(0.25, 0.01);
+        assertEquals(4, hitters.capacity());
+        hitters.add(7, 100);
+        hitters.add(8, 5);
+        assertArrayEquals(new int[] {7, 8}, hitters.top(10));
+
+        hitters.add(8, -5);
+        assertArrayEquals(new int[] {7}, hitters.top(10));
+        assertEquals(1, hitters.size());
+
+        for (int id = 100; id < 200; id++) {
+            hitters.add(id, 1);
+        }
+        assertEquals(4, hitters.size());
+        assertEquals(7, hitters.top(1)[0]);
+        assertEquals(100, hitters.estimate(7));
+
+        // Taking its whole count out drops it, so there is nothing left to remove
+        hitters.add(7, -100);
+        assertFalse(hitters.remove(7));
+        assertEquals(3, hitters.size());
+        assertTrue(hitters.remove(hitters.top(1)[0]));
+        assertEquals(100, hitters.total());
+    }
+}
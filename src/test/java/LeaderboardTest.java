@@ -0,0 +1,117 @@
+import structures.Leaderboard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTest {
+
+    /**
+     * The best score comes first and ties go to the lower id
+     */
+    @Test void testSetTopRank() {
+        System.out.println("\nStarting testSetTopRank...");
+        Leaderboard board = new Leaderboard();
+        board.set(5, 1.0);
+        board.set(3, 2.0);
+        board.set(9, 2.0);
+        board.set(1, 0.5);
+        assertEquals(4, board.size());
+        assertArrayEquals(new int[] {3, 9, 5, 1}, board.top(10), "The order is incorrect");
+        assertArrayEquals(new int[] {3, 9}, board.top(2), "Only the number asked for should be given back.");
+        assertEquals(0, board.rank(3));
+        assertEquals(1, board.rank(9));
+        assertEquals(3, board.rank(1));
+
+        // Moving an id takes it out of its old place
+        board.set(1, 3.0);
+        assertEquals(4, board.size());
+        assertArrayEquals(new int[] {1, 3, 9, 5}, board.top(10), "A moved id should be in its new place.");
+    }
+
+    /**
+     * Ids that are not on the board cannot be removed or ranked
+     */
+    @Test void testRemoveNeg() {
+        System.out.println("\nStarting testRemoveNeg...");
+        Leaderboard board = new Leaderboard();
+        assertFalse(board.remove(1));
+        assertEquals(-1, board.rank(1));
+        assertArrayEquals(new int[0], board.top(5));
+        board.set(1, 1.0);
+        assertTrue(board.remove(1));
+        assertFalse(board.remove(1));
+        assertFalse(board.contains(1));
+        assertEquals(0, board.size());
+        assertArrayEquals(new int[0], board.top(0));
+    }
+
+    /**
+     * Removing a node with two children swaps in the next entry in order, which
+     * then has to be taken out of the right subtree
+     */
+    @Test void testRemoveTwoChildren() {
+        System.out.println("\nStarting testRemoveTwoChildren...");
+        Leaderboard board = new Leaderboard();
+        // 4 is at the top with 2 and 6 under it, and each of those has two children of its own
+        int[] ids = {4, 2, 6, 1, 3, 5, 7};
+        for (int id : ids) {
+            board.set(id, 10 - id);
+        }
+        assertTrue(board.remove(4));
+        assertArrayEquals(new int[] {1, 2, 3, 5, 6, 7}, board.top(10), "The order is incorrect after removing the top node.");
+        assertTrue(board.remove(2));
+        assertTrue(board.remove(6));
+        assertArrayEquals(new int[] {1, 3, 5, 7}, board.top(10), "The order is incorrect after removing inner nodes.");
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, board.rank(new int[] {1, 3, 5, 7}[i]), "The rank is incorrect");
+        }
+    }
+
+    /**
+     * Random sets and removes, with many ties, checked against a sorted list after
+     * every few changes
+     */
+    @Test void testRandomAgainstSorted() {
+        System.out.println("\nStarting testRandomAgainstSorted...");
+        Leaderboard board = new Leaderboard();
+        HashMap<Integer, Double> scores = new HashMap<>();
+        Random random = new Random(13);
+        int numIDs = 300;
+
+        for (int op = 0; op < 60000; op++) {
+            int id = random.nextInt(numIDs);
+            if (random.nextInt(3) == 0) {
+                assertEquals(scores.containsKey(id), board.remove(id), "Incorrect remove result.");
+                scores.remove(id);
+            }
+            else {
+                // Few distinct scores, so there are plenty of ties
+                double score = random.nextInt(20) / 4.0;
+                board.set(id, score);
+                scores.put(id, score);
+            }
+
+            if (op % 1000 == 999) {
+                List<Integer> expected = new ArrayList<>(scores.keySet());
+                expected.sort((a, b) -> !scores.get(a).equals(scores.get(b)) ? Double.compare(scores.get(b), scores.get(a)) : Integer.compare(a, b));
+                int[] sorted = expected.stream().mapToInt(i -> i).toArray();
+
+                assertEquals(sorted.length, board.size(), "The size is incorrect");
+                assertArrayEquals(sorted, board.top(numIDs), "The order is incorrect");
+                assertArrayEquals(Arrays.copyOf(sorted, Math.min(10, sorted.length)), board.top(10), "The best 10 are incorrect");
+                for (int i = 0; i < sorted.length; i++) {
+                    assertEquals(i, board.rank(sorted[i]), "The rank is incorrect");
+                }
+                for (int other = 0; other < numIDs; other++) {
+                    assertEquals(scores.containsKey(other), board.contains(other), "Incorrect contains result.");
+                }
+            }
+        }
+    }
+}
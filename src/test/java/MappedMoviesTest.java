@@ -0,0 +1,127 @@
+import stores.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.MethodName.class)
+
+class MappedMoviesTest {
+    /**
+     * Makes a new path for a store in its own directory
+     */
+    private String newPath() throws IOException {
+        Path dir = Files.createTempDirectory("mappedmovies");
+        dir.toFile().deleteOnExit();
+        return dir.resolve("movies").toString();
+    }
+
+    /**
+     * The films written to a path should all be there after it is closed and opened again
+     */
+    @Test void testReopenPos() throws IOException {
+        System.out.println("\nStarting testReopenPos...");
+        String path = newPath();
+        Stores reference = new Stores();
+        Stores mapped = new Stores(path);
+        MoviesChecks.fill(reference.getMovies(), mapped.getMovies(), new Random(6));
+        MoviesChecks.check(reference.getMovies(), mapped.getMovies());
+        mapped.close();
+
+        // The string heap should have grown past its first mapping of 1 MB
+        assertTrue(Files.size(Path.of(path + ".str")) > (1 << 20), "The string heap should have grown");
+
+        Stores reopened = new Stores(path);
+        MoviesChecks.check(reference.getMovies(), reopened.getMovies());
+
+        // Films added after reopening should be kept too
+        for (Stores stores : new Stores[] {reference, reopened}) {
+            assertTrue(stores.getMovies().add(1, "Added Later", "Added Later", "", "", "Released", new Genre[0], LocalDate.of(2020, 2, 2), 1, 2, new String[0], "en", 90, "", false, false, ""));
+            assertTrue(stores.getMovies().addProductionCompany(MoviesChecks.firstID + 1, new Company(99, "Late Studio")));
+        }
+        reopened.close();
+        MoviesChecks.check(reference.getMovies(), new Stores(path).getMovies());
+    }
+
+    /**
+     * A file that is not a movies store should not be opened, and removed films should stay removed
+     */
+    @Test void testReopenNeg() throws IOException {
+        System.out.println("\nStarting testReopenNeg...");
+        String path = newPath();
+        Files.write(Path.of(path + ".rec"), new String(new char[100]).replace('\0', 'x').getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> new Stores(path), "A file that is not a movies store should not be opened.");
+
+        String otherPath = newPath();
+        Stores mapped = new Stores(otherPath);
+        assertTrue(mapped.getMovies().add(1, "Gone", "Gone", "", "", "Released", new Genre[0], null, 0, 0, new String[0], "en", 0, "", false, false, ""));
+        assertTrue(mapped.getMovies().remove(1));
+        mapped.close();
+
+        Stores reopened = new Stores(otherPath);
+        assertEquals(0, reopened.getMovies().size(), "A removed film should not come back.");
+        assertNull(reopened.getMovies().getTitle(1), "A removed film should not come back.");
+        assertFalse(reopened.getMovies().remove(1), "A removed film should not come back.");
+        reopened.close();
+    }
+
+    /**
+     * The source kept in the header should come back after reopening, and clearing
+     * should empty the store and forget the source
+     */
+    @Test void testSourcePos() throws IOException {
+        System.out.println("\nStarting testSourcePos...");
+        String path = newPath();
+        Stores mapped = new Stores(path);
+        MappedMovies movies = (MappedMovies) mapped.getMovies();
+        assertNull(movies.getSource(), "A new store should not have a source.");
+        assertTrue(movies.add(1, "Kept", "Kept", "", "", "Released", new Genre[0], null, 0, 0, new String[0], "en", 0, "", false, false, ""));
+        movies.setSource("movies_metadata.csv|all");
+        mapped.close();
+
+        Stores reopened = new Stores(path);
+        movies = (MappedMovies) reopened.getMovies();
+        assertEquals("movies_metadata.csv|all", movies.getSource(), "The source is incorrect");
+        assertEquals(1, movies.size());
+
+        movies.clear();
+        assertEquals(0, movies.size(), "A cleared store should be empty.");
+        assertNull(movies.getSource(), "A cleared store should not have a source.");
+        assertNull(movies.getTitle(1));
+        assertTrue(movies.add(1, "Again", "Again", "", "", "Released", new Genre[0], null, 0, 0, new String[0], "en", 0, "", false, false, ""));
+        reopened.close();
+        assertEquals("Again", new Stores(path).getMovies().getTitle(1), "The title is incorrect");
+    }
+
+    /**
+     * Strings written by the setters should be kept even if the store is never
+     * closed, as happens when the program is killed
+     */
+    @Test void testSettersWithoutClosePos() throws IOException {
+        System.out.println("\nStarting testSettersWithoutClosePos...");
+        String path = newPath();
+        Stores mapped = new Stores(path);
+        assertTrue(mapped.getMovies().add(1, "First", "First", "", "", "Released", new Genre[0], null, 0, 0, new String[0], "en", 0, "", false, false, ""));
+        assertTrue(mapped.getMovies().setIMDB(1, "tt0000001"));
+        assertTrue(mapped.getMovies().addProductionCountry(1, "Wales"));
+        assertTrue(mapped.getMovies().addToCollection(1, 9, "Collection 9", "/p9", "/b9"));
+
+        // Opened again without closing, then given more strings that must go after the old ones
+        Stores reopened = new Stores(path);
+        assertTrue(reopened.getMovies().add(2, "Second title that is long", "Second", "An overview", "", "Released", new Genre[0], null, 0, 0, new String[0], "en", 0, "", false, false, ""));
+        assertEquals("tt0000001", reopened.getMovies().getIMDB(1), "The IMDB ID is incorrect");
+        assertArrayEquals(new String[] {"Wales"}, reopened.getMovies().getProductionCountries(1), "The countries are incorrect");
+        assertEquals("Collection 9", reopened.getMovies().getCollectionName(9), "The collection name is incorrect");
+        reopened.close();
+    }
+}
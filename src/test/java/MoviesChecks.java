@@ -0,0 +1,209 @@
+import interfaces.IMovies;
+import stores.*;
+import structures.RankedIds;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fills another movies store the same way as Movies, and checks every IMovies
+ * method of it against Movies. Shared by the tests of the other movies stores
+ */
+class MoviesChecks {
+    // Enough films, with long enough overviews, that stores which grow have to grow a few times
+    static final int numFilms = 3000;
+    static final int firstID = 100;
+
+    private static String[] statuses = {"Released", "Rumored", "Post Production", ""};
+    private static String[] languages = {"en", "fr", "ja", "de", "es"};
+    // Strings that are more than one byte a character in UTF-8
+    private static String[] titles = {"Amélie", "千と千尋の神隠し", "Crouching Tiger, Hidden Dragon", "Léon", "Ænima", ""};
+
+    /**
+     * Adds the same random films to both stores, with some removed again
+     */
+    static void fill(IMovies reference, IMovies other, Random random) {
+        for (int i = 0; i < numFilms; i++) {
+            int id = firstID + i;
+            String title = titles[random.nextInt(titles.length)] + " " + i;
+            StringBuilder overview = new StringBuilder();
+            for (int j = 0; j < 600; j++) {
+                overview.append((char) ('a' + random.nextInt(26)));
+            }
+            Genre[] genres = new Genre[random.nextInt(3)];
+            for (int j = 0; j < genres.length; j++) {
+                genres[j] = new Genre(j * 7 + 1, "Genre ñ" + j);
+            }
+            String[] filmLanguages = new String[random.nextInt(3)];
+            for (int j = 0; j < filmLanguages.length; j++) {
+                filmLanguages[j] = languages[random.nextInt(languages.length)];
+            }
+            LocalDate release = random.nextInt(10) == 0 ? null : LocalDate.of(1900 + random.nextInt(120), 1 + random.nextInt(12), 1 + random.nextInt(28));
+            String tagline = random.nextInt(5) == 0 ? null : "Tagline " + i;
+            long budget = random.nextInt(1000000) * 100L;
+            long revenue = random.nextLong();
+            double runtime = random.nextInt(2000) / 10.0;
+            boolean adult = random.nextBoolean();
+            boolean video = random.nextBoolean();
+
+            for (IMovies movies : new IMovies[] {reference, other}) {
+                assertTrue(movies.add(id, title, "Original " + title, overview.toString(), tagline, statuses[i % statuses.length], genres, release, budget, revenue, filmLanguages, languages[i % languages.length], runtime, "https://example.org/" + i, adult, video, "/poster" + i + ".jpg"));
+            }
+            double voteAverage = random.nextInt(100) / 10.0;
+            int voteCount = random.nextInt(10000);
+            boolean hasIMDB = random.nextBoolean();
+            boolean hasPopularity = random.nextBoolean();
+            double popularity = random.nextDouble() * 100;
+            int collectionID = random.nextInt(4) == 0 ? 5000 + random.nextInt(50) : -1;
+            int numCompanies = random.nextInt(3);
+            int numCountries = random.nextInt(3);
+            for (IMovies movies : new IMovies[] {reference, other}) {
+                movies.setVote(id, voteAverage, voteCount);
+                if (hasIMDB) {
+                    movies.setIMDB(id, "tt" + (1000000 + i));
+                }
+                if (hasPopularity) {
+                    movies.setPopularity(id, popularity);
+                }
+                if (collectionID >= 0) {
+                    movies.addToCollection(id, collectionID, "Collection " + collectionID, "/cp" + collectionID, "/cb" + collectionID);
+                }
+                for (int j = 0; j < numCompanies; j++) {
+                    movies.addProductionCompany(id, new Company(j + 1, "Studio ü" + j));
+                }
+                for (int j = 0; j < numCountries; j++) {
+                    movies.addProductionCountry(id, "Country " + j);
+                }
+            }
+        }
+        for (int i = 0; i < numFilms; i += 7) {
+            assertTrue(reference.remove(firstID + i));
+            assertTrue(other.remove(firstID + i));
+        }
+    }
+
+    /**
+     * Drops the empty spaces Movies leaves on the end of its company and country arrays
+     */
+    private static <T> T[] filled(T[] arr) {
+        if (arr == null) {
+            return null;
+        }
+        int count = 0;
+        while (count < arr.length && arr[count] != null) {
+            count = count + 1;
+        }
+        return Arrays.copyOf(arr, count);
+    }
+
+    /**
+     * Checks every getter of another store against the in-memory store
+     */
+    static void check(IMovies reference, IMovies other) {
+        assertEquals(reference.size(), other.size(), "The size is incorrect");
+        int[] expectedIDs = reference.getAllIDs();
+        int[] actualIDs = other.getAllIDs();
+        Arrays.sort(expectedIDs);
+        Arrays.sort(actualIDs);
+        assertArrayEquals(expectedIDs, actualIDs, "The IDs are incorrect");
+
+        for (int id = firstID - 1; id <= firstID + numFilms; id++) {
+            assertEquals(reference.getTitle(id), other.getTitle(id), "The title is incorrect");
+            assertEquals(reference.getOriginalTitle(id), other.getOriginalTitle(id), "The original title is incorrect");
+            assertEquals(reference.getOverview(id), other.getOverview(id), "The overview is incorrect");
+            assertEquals(reference.getTagline(id), other.getTagline(id), "The tagline is incorrect");
+            assertEquals(reference.getStatus(id), other.getStatus(id), "The status is incorrect");
+            assertEquals(reference.getRelease(id), other.getRelease(id), "The release is incorrect");
+            assertEquals(reference.getBudget(id), other.getBudget(id), "The budget is incorrect");
+            assertEquals(reference.getRevenue(id), other.getRevenue(id), "The revenue is incorrect");
+            assertArrayEquals(reference.getLanguages(id), other.getLanguages(id), "The languages are incorrect");
+            assertEquals(reference.getOriginalLanguage(id), other.getOriginalLanguage(id), "The original language is incorrect");
+            assertEquals(reference.getRuntime(id), other.getRuntime(id), "The runtime is incorrect");
+            assertEquals(reference.getHomepage(id), other.getHomepage(id), "The homepage is incorrect");
+            assertEquals(reference.getAdult(id), other.getAdult(id), "The adult flag is incorrect");
+            assertEquals(reference.getVideo(id), other.getVideo(id), "The video flag is incorrect");
+            assertEquals(reference.getPoster(id), other.getPoster(id), "The poster is incorrect");
+            assertEquals(reference.getVoteAverage(id), other.getVoteAverage(id), "The vote average is incorrect");
+            assertEquals(reference.getVoteCount(id), other.getVoteCount(id), "The vote count is incorrect");
+            assertEquals(reference.getIMDB(id), other.getIMDB(id), "The IMDB ID is incorrect");
+            assertEquals(reference.getPopularity(id), other.getPopularity(id), "The popularity is incorrect");
+            assertEquals(reference.getCollectionID(id), other.getCollectionID(id), "The collection ID is incorrect");
+            assertArrayEquals(filled(reference.getProductionCountries(id)), filled(other.getProductionCountries(id)), "The countries are incorrect");
+
+            Genre[] expectedGenres = reference.getGenres(id);
+            Genre[] actualGenres = other.getGenres(id);
+            assertEquals(expectedGenres == null, actualGenres == null, "The genres are incorrect");
+            if (expectedGenres != null) {
+                assertEquals(expectedGenres.length, actualGenres.length, "The number of genres is incorrect");
+                for (int i = 0; i < expectedGenres.length; i++) {
+                    assertEquals(expectedGenres[i].getID(), actualGenres[i].getID(), "The genre ID is incorrect");
+                    assertEquals(expectedGenres[i].getName(), actualGenres[i].getName(), "The genre name is incorrect");
+                }
+            }
+            Company[] expectedCompanies = filled(reference.getProductionCompanies(id));
+            Company[] actualCompanies = filled(other.getProductionCompanies(id));
+            assertEquals(expectedCompanies == null, actualCompanies == null, "The companies are incorrect");
+            if (expectedCompanies != null) {
+                assertEquals(expectedCompanies.length, actualCompanies.length, "The number of companies is incorrect");
+                for (int i = 0; i < expectedCompanies.length; i++) {
+                    assertEquals(expectedCompanies[i].getID(), actualCompanies[i].getID(), "The company ID is incorrect");
+                    assertEquals(expectedCompanies[i].getName(), actualCompanies[i].getName(), "The company name is incorrect");
+                }
+            }
+        }
+
+        for (int collectionID = 4999; collectionID < 5051; collectionID++) {
+            int[] expectedFilms = reference.getFilmsInCollection(collectionID);
+            int[] actualFilms = other.getFilmsInCollection(collectionID);
+            Arrays.sort(expectedFilms);
+            Arrays.sort(actualFilms);
+            assertArrayEquals(expectedFilms, actualFilms, "The films in the collection are incorrect");
+            assertEquals(reference.getCollectionName(collectionID), other.getCollectionName(collectionID), "The collection name is incorrect");
+            assertEquals(reference.getCollectionPoster(collectionID), other.getCollectionPoster(collectionID), "The collection poster is incorrect");
+            assertEquals(reference.getCollectionBackdrop(collectionID), other.getCollectionBackdrop(collectionID), "The collection backdrop is incorrect");
+        }
+
+        int[] expectedRange = reference.getAllIDsReleasedInRange(LocalDate.of(1950, 1, 1), LocalDate.of(2000, 1, 1));
+        int[] actualRange = other.getAllIDsReleasedInRange(LocalDate.of(1950, 1, 1), LocalDate.of(2000, 1, 1));
+        Arrays.sort(expectedRange);
+        Arrays.sort(actualRange);
+        assertArrayEquals(expectedRange, actualRange, "The films released in the range are incorrect");
+
+        for (String term : new String[] {"千と千尋", "amélie", "léon 12", "original"}) {
+            int[] expectedFound = reference.findFilms(term);
+            int[] actualFound = other.findFilms(term);
+            Arrays.sort(expectedFound);
+            Arrays.sort(actualFound);
+            assertArrayEquals(expectedFound, actualFound, "The films found are incorrect");
+
+            // A bounded search gives back as many films as it can, none of them skipped
+            int[] skip = Arrays.copyOf(expectedFound, expectedFound.length / 2);
+            for (IMovies movies : new IMovies[] {reference, other}) {
+                for (int maxResults : new int[] {0, 1, 5, expectedFound.length}) {
+                    int[] bounded = movies.findFilms(term, skip, maxResults);
+                    assertEquals(Math.min(maxResults, expectedFound.length - skip.length), bounded.length, "The number of films found is incorrect");
+                    for (int id : bounded) {
+                        assertTrue(Arrays.binarySearch(expectedFound, id) >= 0, "A film found does not have the term.");
+                        assertTrue(Arrays.binarySearch(skip, id) < 0, "A skipped film should not be found.");
+                    }
+                    assertEquals(bounded.length, Arrays.stream(bounded).distinct().count(), "A film should only be found once.");
+                }
+            }
+        }
+
+        // The ranked search should hand the films out in the same order
+        for (String query : new String[] {"amélie", "original léon", "léon 12", "tiger 7"}) {
+            for (boolean matchAll : new boolean[] {true, false}) {
+                RankedIds expectedRanked = reference.searchFilms(query, matchAll);
+                RankedIds actualRanked = other.searchFilms(query, matchAll);
+                assertEquals(expectedRanked.remaining(), actualRanked.remaining(), "The number of films ranked is incorrect");
+                while (expectedRanked.hasNext()) {
+                    assertEquals(expectedRanked.next(), actualRanked.next(), "The ranked films are incorrect");
+                }
+            }
+        }
+    }
+}
@@ -1,4 +1,5 @@
 import stores.*;
+import structures.RankedIds;
 
 import java.time.LocalDate;
 import java.util.Collections;
@@ -1626,6 +1627,16 @@ class MoviesTest {
 
     }
 
+    /**
+     * A bounded search should leave out the skipped films and stop at the limit.
+     */
+    @Test void testfindFilmsBounded(){
+        System.out.println("\nStarting testfindFilmsBounded...");
+        assertArrayEquals(new int[] {2}, stores.getMovies().findFilms("Toy", new int[0], 5), "Could not find a valid film.");
+        assertArrayEquals(new int[0], stores.getMovies().findFilms("Toy", new int[] {2}, 5), "A skipped film should not be found.");
+        assertArrayEquals(new int[0], stores.getMovies().findFilms("Toy", new int[0], 0), "No films should be found with no room for them.");
+    }
+
     /**
      * If there are no films matching string there should be an empty array.
      */
@@ -1636,6 +1647,33 @@ class MoviesTest {
 
     }
 
+    /**
+     * The search should ignore case, and match part of a word.
+     */
+    @Test void testfindFilmsIgnoresCase(){
+        System.out.println("\nStarting testfindFilmsIgnoresCase...");
+        int[] toyFilms = {2};
+        assertArrayEquals(toyFilms, stores.getMovies().findFilms("tOY sTO"), "Search should not depend on case.");
+        assertArrayEquals(toyFilms, stores.getMovies().findFilms("oy"), "Short searches should still match inside words.");
+
+    }
+
+    /**
+     * A film should only match every word if it has them all, and the best match should come first.
+     */
+    @Test void testSearchFilms(){
+        System.out.println("\nStarting testSearchFilms...");
+        int[] toyFilms = {2};
+        assertArrayEquals(toyFilms, stores.getMovies().searchFilms("STORY toy", true).next(10), "Both words are in Toy Story.");
+        assertFalse(stores.getMovies().searchFilms("toy title", true).hasNext(), "No film has both words.");
+
+        RankedIds any = stores.getMovies().searchFilms("toy story title", false);
+        assertEquals(2, any.remaining(), "Each film has at least one of the words.");
+        assertEquals(2, any.next(), "Toy Story matches more words, so should come first.");
+        assertEquals(1, any.next(), "The other film should come second.");
+
+    }
+
     /**
      * Compare size to 2.
      */
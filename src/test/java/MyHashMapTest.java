@@ -0,0 +1,112 @@
+import structures.MyHashMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyHashMapTest {
+
+    /**
+     * Every entry is seen once, even when the cursor is made part way through an
+     * incremental resize and the loop reads the map with get()
+     */
+    @Test void testEntryCursorPos() {
+        System.out.println("\nStarting testEntryCursorPos...");
+        MyHashMap<Integer, String> map = new MyHashMap<>(13, 0.75f, true);
+        // The tenth put takes the map past its load factor, and the old buckets are still to move
+        for (int key = 0; key < 10; key++) {
+            map.put(key, "v" + key);
+        }
+
+        HashSet<Integer> seen = new HashSet<>();
+        MyHashMap<Integer, String>.EntryCursor cursor = map.entryCursor();
+        while (cursor.advance()) {
+            assertTrue(seen.add(cursor.key()), "The key " + cursor.key() + " was seen twice.");
+            assertEquals("v" + cursor.key(), cursor.value(), "The value is incorrect");
+            for (int key = 0; key < 10; key++) {
+                assertEquals("v" + key, map.get(key), "The value is incorrect");
+            }
+        }
+        assertEquals(10, seen.size(), "Every key should be seen.");
+    }
+
+    /**
+     * A cursor that has run off the end keeps saying so
+     */
+    @Test void testEntryCursorNeg() {
+        System.out.println("\nStarting testEntryCursorNeg...");
+        MyHashMap<Integer, String> map = new MyHashMap<>();
+        MyHashMap<Integer, String>.EntryCursor empty = map.entryCursor();
+        assertFalse(empty.advance());
+        assertFalse(empty.advance(), "An empty cursor should stay at the end.");
+
+        map.put(1, "one");
+        MyHashMap<Integer, String>.EntryCursor cursor = map.entryCursor();
+        assertTrue(cursor.advance());
+        assertEquals(1, (int) cursor.key());
+        assertFalse(cursor.advance());
+        assertFalse(cursor.advance(), "A finished cursor should stay at the end.");
+        assertFalse(cursor.advance(), "A finished cursor should stay at the end.");
+    }
+
+    /**
+     * Random puts, gets and removes while the map grows through many resizes,
+     * checked against java.util.HashMap. The keys in use keep growing, so reads and
+     * removes land on buckets both before and after they are moved across
+     */
+    @Test void testIncrementalResizeRandom() {
+        System.out.println("\nStarting testIncrementalResizeRandom...");
+        for (boolean incremental : new boolean[] {true, false}) {
+            MyHashMap<Integer, Integer> map = new MyHashMap<>(13, 0.75f, incremental);
+            HashMap<Integer, Integer> expected = new HashMap<>();
+            Random random = new Random(3);
+
+            for (int op = 0; op < 100000; op++) {
+                // Starts with a few keys and ends with tens of thousands, some of them negative
+                int key = random.nextInt(op / 2 + 10) - 100;
+                int choice = random.nextInt(10);
+                if (choice < 4) {
+                    map.put(key, op);
+                    expected.put(key, op);
+                }
+                else if (choice == 4) {
+                    assertEquals(expected.putIfAbsent(key, op), map.putIfAbsent(key, op), "Incorrect putIfAbsent result.");
+                }
+                else if (choice == 5) {
+                    final int value = op;
+                    assertEquals(expected.computeIfAbsent(key, k -> value), map.computeIfAbsent(key, k -> value), "Incorrect computeIfAbsent result.");
+                }
+                else if (choice == 6) {
+                    assertEquals(expected.remove(key) != null, map.remove(key), "Incorrect remove result.");
+                }
+                else if (choice == 7) {
+                    assertEquals(expected.containsKey(key), map.hasKey(key), "Incorrect hasKey result.");
+                }
+                else if (choice == 8) {
+                    assertEquals(expected.getOrDefault(key, -1), map.getOrDefault(key, -1), "The value is incorrect");
+                }
+                else {
+                    assertEquals(expected.get(key), map.get(key), "The value is incorrect");
+                }
+                assertEquals(expected.size(), map.size(), "The size is incorrect");
+
+                if (op % 5000 == 4999) {
+                    int[] keys = map.keyArray();
+                    Arrays.sort(keys);
+                    assertArrayEquals(expected.keySet().stream().mapToInt(i -> i).sorted().toArray(), keys, "The keys are incorrect");
+                    HashMap<Integer, Integer> visited = new HashMap<>();
+                    map.forEach((k, v) -> assertNull(visited.put(k, v), "The key " + k + " was visited twice."));
+                    assertEquals(expected, visited, "The entries are incorrect");
+                }
+            }
+            // Every key still stored can be read back
+            for (Integer key : expected.keySet()) {
+                assertEquals(expected.get(key), map.get(key), "The value is incorrect");
+            }
+        }
+    }
+}
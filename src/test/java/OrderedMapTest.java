@@ -0,0 +1,135 @@
+import structures.OrderedMap;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderedMapTest {
+
+    /**
+     * Putting a key twice replaces its value and gives the old one back
+     */
+    @Test void testPutGetRemove() {
+        System.out.println("\nStarting testPutGetRemove...");
+        OrderedMap<Integer, String> map = new OrderedMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.put(5, "five"));
+        assertNull(map.put(2, "two"));
+        assertEquals("five", map.put(5, "FIVE"));
+        assertEquals(2, map.size());
+        assertEquals("FIVE", map.get(5));
+        assertNull(map.get(3));
+
+        assertEquals("two", map.remove(2));
+        assertNull(map.remove(2));
+        assertFalse(map.containsKey(2));
+        assertEquals(1, map.size());
+    }
+
+    /**
+     * Keys added in order would make an unbalanced tree a list. The order
+     * statistics should still be right afterwards
+     */
+    @Test void testSortedInsertsRankSelect() {
+        System.out.println("\nStarting testSortedInsertsRankSelect...");
+        OrderedMap<Integer, Integer> map = new OrderedMap<>();
+        int n = 200000;
+        for (int i = 0; i < n; i++) {
+            map.put(i * 2, i);
+        }
+        assertEquals(n, map.size());
+        for (int i = 0; i < n; i += 997) {
+            assertEquals(i, map.rank(i * 2));
+            // A missing key ranks where it would go
+            assertEquals(i + 1, map.rank(i * 2 + 1));
+            assertEquals(i * 2, (int) map.select(i).getKey());
+        }
+        assertNull(map.select(-1));
+        assertNull(map.select(n));
+        assertEquals(5, map.countInRange(10, 20));
+        assertEquals(0, map.countInRange(20, 10));
+    }
+
+    /**
+     * Floor, ceiling and range iteration around keys that are and are not in the map
+     */
+    @Test void testFloorCeilingRange() {
+        System.out.println("\nStarting testFloorCeilingRange...");
+        OrderedMap<Integer, Integer> map = new OrderedMap<>();
+        for (int i = 10; i <= 100; i += 10) {
+            map.put(i, i);
+        }
+        assertEquals(30, (int) map.floorEntry(35).getKey());
+        assertEquals(40, (int) map.ceilingEntry(35).getKey());
+        assertEquals(40, (int) map.floorEntry(40).getKey());
+        assertNull(map.floorEntry(5));
+        assertNull(map.ceilingEntry(101));
+        assertEquals(10, (int) map.firstEntry().getKey());
+        assertEquals(100, (int) map.lastEntry().getKey());
+
+        ArrayList<Integer> keys = new ArrayList<>();
+        for (OrderedMap.Entry<Integer, Integer> entry : map.range(25, 60)) {
+            keys.add(entry.getKey());
+        }
+        assertEquals(List.of(30, 40, 50), keys);
+
+        keys.clear();
+        for (OrderedMap.Entry<Integer, Integer> entry : map.range(null, null)) {
+            keys.add(entry.getKey());
+        }
+        assertEquals(10, keys.size());
+    }
+
+    /**
+     * Random puts and removes should leave the map the same as a TreeMap
+     */
+    @Test void testRandomAgainstTreeMap() {
+        System.out.println("\nStarting testRandomAgainstTreeMap...");
+        Random random = new Random(14);
+        OrderedMap<Integer, Integer> map = new OrderedMap<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+
+            // The order queries and ranges should agree with the TreeMap part way through too
+            if (i % 1000 == 999) {
+                int from = random.nextInt(5200) - 100;
+                int to = from + random.nextInt(600);
+                assertEquals(expected.subMap(from, to).size(), map.countInRange(from, to), "The count is incorrect");
+                assertEquals(expected.headMap(from).size(), map.rank(from), "The rank is incorrect");
+                assertEquals(expected.floorKey(from), map.floorEntry(from) == null ? null : map.floorEntry(from).getKey(), "The floor is incorrect");
+                assertEquals(expected.ceilingKey(from), map.ceilingEntry(from) == null ? null : map.ceilingEntry(from).getKey(), "The ceiling is incorrect");
+                int index = random.nextInt(expected.size() + 1);
+                assertEquals(index < expected.size() ? expected.keySet().toArray()[index] : null, map.select(index) == null ? null : map.select(index).getKey(), "The selected key is incorrect");
+
+                Iterator<Integer> keys = expected.subMap(from, to).keySet().iterator();
+                for (OrderedMap.Entry<Integer, Integer> entry : map.range(from, to)) {
+                    assertEquals(keys.next(), entry.getKey(), "The range is incorrect");
+                }
+                assertFalse(keys.hasNext(), "The range is missing keys.");
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        int index = 0;
+        for (OrderedMap.Entry<Integer, Integer> entry : map) {
+            Integer key = expected.firstKey();
+            assertEquals(key, entry.getKey());
+            assertEquals(expected.remove(key), entry.getValue());
+            assertEquals(index, map.rank(key));
+            index = index + 1;
+        }
+        assertTrue(expected.isEmpty());
+    }
+}
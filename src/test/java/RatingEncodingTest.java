@@ -0,0 +1,70 @@
+import structures.RatingColumn;
+import structures.VarLongCursor;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RatingEncodingTest {
+
+    /**
+     * Half star steps are coded as bytes, and anything else comes back exactly
+     */
+    @Test void testRatingColumnRoundTrip() {
+        System.out.println("\nStarting testRatingColumnRoundTrip...");
+        float[] ratings = {0.0f, 0.5f, 2.5f, 5.0f, 3.7f, -0.0f, -1.0f, 5.5f, 1e-7f, Float.NaN};
+        RatingColumn column = new RatingColumn(ratings.length);
+        for (int i = 0; i < ratings.length; i++) {
+            column.set(i, ratings[i]);
+        }
+        for (int i = 0; i < ratings.length; i++) {
+            assertEquals(Float.floatToIntBits(ratings[i]), Float.floatToIntBits(column.get(i)), "Rating " + ratings[i] + " changed");
+        }
+
+        // Overwriting an exact rating with a half star step, and back again
+        column.set(4, 4.5f);
+        assertEquals(4.5f, column.get(4));
+        column.set(4, 4.25f);
+        assertEquals(4.25f, column.get(4));
+    }
+
+    /**
+     * Sorted times, a jump from the smallest long and repeats all come back exactly
+     */
+    @Test void testVarLongRoundTrip() {
+        System.out.println("\nStarting testVarLongRoundTrip...");
+        Random random = new Random(17);
+        long[] values = new long[1000];
+        values[0] = Long.MIN_VALUE;
+        values[1] = 0;
+        values[2] = Long.MAX_VALUE;
+        values[3] = -5;
+        long time = 946684800L;
+        for (int i = 4; i < values.length; i++) {
+            time = time + random.nextInt(100000) * (random.nextInt(10) == 0 ? 0 : 1);
+            values[i] = time;
+        }
+
+        byte[] bytes = new byte[values.length * 10];
+        int pos = 0;
+        long previous = 0;
+        int length = 0;
+        for (long value : values) {
+            length = length + VarLongCursor.length(value - previous);
+            pos = VarLongCursor.write(bytes, pos, value - previous);
+            previous = value;
+        }
+        assertEquals(length, pos);
+        // Small gaps should take a few bytes each, not eight
+        assertTrue(pos < values.length * 4);
+
+        VarLongCursor cursor = new VarLongCursor();
+        cursor.reset(bytes, 0, pos);
+        for (long value : values) {
+            assertTrue(cursor.hasNext());
+            assertEquals(value, cursor.next());
+        }
+        assertFalse(cursor.hasNext());
+    }
+}
@@ -1,3 +1,4 @@
+import interfaces.IRatings;
 import stores.*;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -296,6 +297,126 @@ public class RatingsTest {
 
     }
 
+    /**
+     * Movie 1 is rated 1, 2, 3 and 4 by users 1 to 4, and user 1 also rates movie 2 a 3.
+     * The variances are worked out by hand after each add, set and remove
+     */
+    @Test void testGetRatingVariancePos() {
+        System.out.println("\nStarting testGetRatingVariancePos...");
+        Stores varianceStores = new Stores();
+        IRatings ratings = varianceStores.getRatings();
+        for (int user = 1; user <= 4; user++) {
+            ratings.add(user, 1, user, LocalDateTime.of(2000 + user, 1, 1, 0, 0));
+        }
+        ratings.add(1, 2, 3.0f, LocalDateTime.of(2010, 1, 1, 0, 0));
+
+        assertEquals(1.25f, ratings.getMovieRatingVariance(1), 0.0001f, "Incorrect variance after add.");
+        assertEquals(1.0f, ratings.getUserRatingVariance(1), 0.0001f, "Incorrect variance after add.");
+        assertEquals(0.0f, ratings.getMovieRatingVariance(2), 0.0001f, "One rating should have no variance.");
+
+        // Movie 1 is now 4, 2, 3, 4 and user 1 is 4, 3
+        assertTrue(ratings.set(1, 1, 4.0f, LocalDateTime.of(2011, 1, 1, 0, 0)));
+        assertEquals(0.6875f, ratings.getMovieRatingVariance(1), 0.0001f, "Incorrect variance after set.");
+        assertEquals(0.25f, ratings.getUserRatingVariance(1), 0.0001f, "Incorrect variance after set.");
+
+        // Movie 1 is now 4, 3, 4
+        assertTrue(ratings.remove(2, 1));
+        assertEquals(2.0f / 9.0f, ratings.getMovieRatingVariance(1), 0.0001f, "Incorrect variance after remove.");
+        assertEquals(0.0f, ratings.getUserRatingVariance(3), 0.0001f, "One rating should have no variance.");
+    }
+
+    /**
+     * The running sums should match the ratings after many adds, sets and removes,
+     * enough for the buffer to be compacted into the base several times
+     */
+    @Test void testGetRatingVarianceRandom() {
+        System.out.println("\nStarting testGetRatingVarianceRandom...");
+        Stores varianceStores = new Stores();
+        IRatings ratings = varianceStores.getRatings();
+        int numUsers = 30;
+        int numMovies = 30;
+        float[][] expected = new float[numUsers][numMovies];
+        java.util.Random random = new java.util.Random(12);
+
+        for (int op = 0; op < 20000; op++) {
+            int user = random.nextInt(numUsers);
+            int movie = random.nextInt(numMovies);
+            float rating = (1 + random.nextInt(10)) / 2.0f;
+            LocalDateTime time = LocalDateTime.of(2000, 1, 1, 0, 0).plusMinutes(op);
+            int kind = random.nextInt(3);
+            if (kind == 0) {
+                assertEquals(expected[user][movie] == 0, ratings.add(user, movie, rating, time), "Incorrect add result.");
+                if (expected[user][movie] == 0) {
+                    expected[user][movie] = rating;
+                }
+            }
+            else if (kind == 1) {
+                // Sets add the rating if there is not one already
+                assertTrue(ratings.set(user, movie, rating, time), "Incorrect set result.");
+                expected[user][movie] = rating;
+            }
+            else {
+                assertEquals(expected[user][movie] != 0, ratings.remove(user, movie), "Incorrect remove result.");
+                expected[user][movie] = 0;
+            }
+
+            if (op % 500 == 499) {
+                for (int u = 0; u < numUsers; u++) {
+                    assertEquals(variance(expected[u]), ratings.getUserRatingVariance(u), 0.0001f, "Incorrect user variance.");
+                }
+                for (int m = 0; m < numMovies; m++) {
+                    float[] column = new float[numUsers];
+                    for (int u = 0; u < numUsers; u++) {
+                        column[u] = expected[u][m];
+                    }
+                    assertEquals(variance(column), ratings.getMovieRatingVariance(m), 0.0001f, "Incorrect movie variance.");
+                }
+            }
+        }
+    }
+
+    /**
+     * The population variance of the ratings that are not 0, or -1 if there are none
+     */
+    private float variance(float[] ratings) {
+        int count = 0;
+        double sum = 0;
+        for (float rating : ratings) {
+            if (rating != 0) {
+                count++;
+                sum += rating;
+            }
+        }
+        if (count == 0) {
+            return -1;
+        }
+        double mean = sum / count;
+        double squares = 0;
+        for (float rating : ratings) {
+            if (rating != 0) {
+                squares += (rating - mean) * (rating - mean);
+            }
+        }
+        return (float) (squares / count);
+    }
+
+    /**
+     * IDs that cannot be found, or have had all their ratings removed, have no variance
+     */
+    @Test void testGetRatingVarianceNeg() {
+        System.out.println("\nStarting testGetRatingVarianceNeg...");
+        Stores varianceStores = new Stores();
+        IRatings ratings = varianceStores.getRatings();
+
+        assertEquals(-1.0f, stores.getRatings().getMovieRatingVariance(fakeMovieID), "A movie with no ratings should have no variance.");
+        assertEquals(-1.0f, stores.getRatings().getUserRatingVariance(fakeUserID), "A user with no ratings should have no variance.");
+
+        ratings.add(1, 1, 3.0f, LocalDateTime.of(2000, 1, 1, 0, 0));
+        assertTrue(ratings.remove(1, 1));
+        assertEquals(-1.0f, ratings.getMovieRatingVariance(1), "A movie with all its ratings removed should have no variance.");
+        assertEquals(-1.0f, ratings.getUserRatingVariance(1), "A user with all their ratings removed should have no variance.");
+    }
+
     /**
      * Each movie has been added in a different number of times 
      *      201 --> 5
@@ -323,6 +444,251 @@ public class RatingsTest {
         assertEquals(-1, stores.getRatings().getNumRatings(206), "206 doesn't exist, so should return -1");
     }
 
+    /**
+     * Ratings in a window come back oldest first, and ratings outside it are left out
+     */
+    @Test void testGetMovieRatingsBetween() {
+        System.out.println("\nStarting testGetMovieRatingsBetween...");
+
+        float[] ratings = stores.getRatings().getMovieRatingsBetween(201, calendarYear(2000), calendarYear(2010));
+        assertEquals(2, ratings.length, "Movie 201 was rated twice in the 2000s");
+        assertEquals(2.2f, ratings[0], 0.0001f);
+        assertEquals(1.3f, ratings[1], 0.0001f);
+        assertEquals(0, stores.getRatings().getMovieRatingsBetween(201, calendarYear(2014), null).length);
+        assertEquals(0, stores.getRatings().getMovieRatingsBetween(fakeMovieID, null, null).length);
+
+        assertEquals(3.95f, stores.getRatings().getMovieMovingAverage(201, calendarYear(2013).plusDays(1), 30), 0.0001f);
+        assertEquals(-1, stores.getRatings().getMovieMovingAverage(205, calendarYear(2013).plusDays(1), 30));
+    }
+
+    /**
+     * Only the ratings made in 2013 count towards the window, ties go to the lower id
+     */
+    @Test void testGetMostRatedMoviesBetween() {
+        System.out.println("\nStarting testGetMostRatedMoviesBetween...");
+
+        int[] expected = {201, 202, 203, 204};
+        assertArrayEquals(expected, stores.getRatings().getMostRatedMoviesBetween(calendarYear(2012), calendarYear(2014), 10));
+        assertEquals(0, stores.getRatings().getMostRatedMoviesBetween(calendarYear(1900), calendarYear(1901), 10).length);
+    }
+
+    /**
+     * A batch skips ratings already in the store and repeats within itself
+     */
+    @Test void testAddAll() {
+        System.out.println("\nStarting testAddAll...");
+        Stores batchStores = new Stores();
+        batchStores.getRatings().add(1, 10, 2.0f, calendarYear(2000));
+
+        int[] users = {1, 1, 2, 2, 3};
+        int[] movies = {10, 11, 10, 10, 11};
+        float[] ratings = {5.0f, 4.0f, 3.0f, 1.0f, 2.0f};
+        long[] times = {0, 0, 0, 0, 0};
+        assertEquals(3, batchStores.getRatings().addAll(users, movies, ratings, times, users.length));
+        assertEquals(4, batchStores.getRatings().size());
+        assertEquals(2.5f, batchStores.getRatings().getMovieAverageRating(10), 0.0001f);
+        assertEquals(3.0f, batchStores.getRatings().getMovieAverageRating(11), 0.0001f);
+
+        int[] expected = {1};
+        assertArrayEquals(expected, batchStores.getRatings().getMostRatedUsers(1));
+    }
+
+    /**
+     * Many threads offering at once should lose nothing, and flush should apply the part batch left over
+     */
+    @Test void testRatingsIngest() throws InterruptedException {
+        System.out.println("\nStarting testRatingsIngest...");
+        Stores ingestStores = new Stores();
+        RatingsIngest ingest = new RatingsIngest(ingestStores.getRatings(), 1000);
+        int numThreads = 8;
+        int perThread = 12345;
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            int user = t + 1;
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < perThread; i++) {
+                        ingest.offer(user, i, 3.0f, i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        ingest.flush();
+
+        assertEquals(numThreads * perThread, ingest.getApplied());
+        assertEquals(numThreads * perThread, ingestStores.getRatings().size());
+        assertEquals(numThreads, ingestStores.getRatings().getNumRatings(0));
+    }
+
+    /**
+     * Readers on another thread should never see a batch half applied, even as
+     * their reads compact the store
+     */
+    @Test void testRatingsIngestWithReader() throws InterruptedException {
+        System.out.println("\nStarting testRatingsIngestWithReader...");
+        Stores ingestStores = new Stores();
+        IRatings ratings = ingestStores.getRatings();
+        RatingsIngest ingest = new RatingsIngest(ratings, 500);
+        int numUsers = 4;
+        int perUser = 20000;
+        Thread[] writers = new Thread[numUsers];
+        for (int t = 0; t < numUsers; t++) {
+            int user = t + 1;
+            writers[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < perUser; i++) {
+                        ingest.offer(user, i, 4.0f, i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            writers[t].start();
+        }
+
+        // Every rating is 4, so any other average or a count that is not a whole
+        // number of batches means a read saw the store part way through a change
+        boolean[] torn = new boolean[1];
+        Thread reader = new Thread(() -> {
+            boolean writing = true;
+            while (writing) {
+                writing = false;
+                for (Thread writer : writers) {
+                    writing = writing || writer.isAlive();
+                }
+                try {
+                    int size = ratings.size();
+                    float[] userRatings = ratings.getUserRatings(1);
+                    int[] mostRated = ratings.getMostRatedUsers(numUsers);
+                    if (size % 500 != 0 || mostRated.length > numUsers) {
+                        torn[0] = true;
+                    }
+                    for (float rating : userRatings) {
+                        torn[0] = torn[0] || rating != 4.0f;
+                    }
+                    if (userRatings.length > 0 && ratings.getUserAverageRating(1) != 4.0f) {
+                        torn[0] = true;
+                    }
+                } catch (RuntimeException e) {
+                    torn[0] = true;
+                    return;
+                }
+            }
+        });
+        reader.start();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        reader.join();
+        ingest.flush();
+
+        assertFalse(torn[0], "A reader saw a batch part way through being applied.");
+        assertEquals(numUsers * perUser, ratings.size());
+        assertArrayEquals(new int[] {1, 2, 3, 4}, ratings.getMostRatedUsers(numUsers));
+    }
+
+    /**
+     * Films 10 and 11 are rated alike and 12 the opposite way, by each user's own
+     * average. User 4 only rated 11 and 13
+     */
+    @Test void testGetSimilarMovies() {
+        System.out.println("\nStarting testGetSimilarMovies...");
+        Stores similarStores = new Stores();
+        IRatings ratings = similarStores.getRatings();
+        ratings.add(1, 10, 5.0f, null);
+        ratings.add(1, 11, 5.0f, null);
+        ratings.add(1, 12, 1.0f, null);
+        ratings.add(2, 10, 4.0f, null);
+        ratings.add(2, 11, 4.0f, null);
+        ratings.add(2, 12, 2.0f, null);
+        ratings.add(3, 10, 1.0f, null);
+        ratings.add(3, 11, 1.0f, null);
+        ratings.add(3, 12, 5.0f, null);
+        ratings.add(4, 11, 3.0f, null);
+        ratings.add(4, 13, 3.0f, null);
+
+        assertArrayEquals(new int[] {11}, ratings.getSimilarMovies(10, 5));
+        assertArrayEquals(new int[] {10}, ratings.getSimilarMovies(11, 5));
+        assertEquals(0, ratings.getSimilarMovies(13, 5).length);
+        assertEquals(0, ratings.getSimilarMovies(99, 5).length);
+        assertArrayEquals(new int[] {10, 12, 13}, ratings.getAlsoRatedMovies(11, 5));
+        assertArrayEquals(new int[] {10}, ratings.getAlsoRatedMovies(11, 1));
+
+        // Film 11 is worked out again once it changes, and now shares only user 3 with film 10
+        ratings.remove(1, 11);
+        ratings.remove(2, 11);
+        assertEquals(0, ratings.getSimilarMovies(11, 5).length);
+        assertArrayEquals(new int[] {10, 12, 13}, ratings.getAlsoRatedMovies(11, 5));
+
+        // A film added after the first build can be a neighbour of a film that is worked out again
+        ratings.add(3, 14, 1.0f, null);
+        ratings.add(4, 14, 3.0f, null);
+        ratings.set(4, 11, 2.0f, null);
+        assertArrayEquals(new int[] {14, 10, 12, 13}, ratings.getAlsoRatedMovies(11, 5));
+        assertArrayEquals(new int[] {11, 10, 12, 13}, ratings.getAlsoRatedMovies(14, 5));
+    }
+
+    /**
+     * Approximate counts should agree with the exact ones on the users and films
+     * with well over epsilon of the ratings, and switching back should give the
+     * exact lists again
+     */
+    @Test void testApproximateCounts() {
+        System.out.println("\nStarting testApproximateCounts...");
+        Stores countStores = new Stores();
+        IRatings ratings = countStores.getRatings();
+        // Users 1 to 5 rate the first 200, 150, 120, 100 and 80 films
+        int[] heavy = {200, 150, 120, 100, 80};
+        for (int u = 1; u <= heavy.length; u++) {
+            for (int f = 0; f < heavy[u - 1]; f++) {
+                ratings.add(u, f, 3.0f, null);
+            }
+        }
+
+        assertFalse(ratings.setApproximateCounts(1.5, 0.01));
+        // Too small to allocate, so the exact counts are kept
+        assertFalse(ratings.setApproximateCounts(1e-9, 0.01));
+        assertFalse(ratings.setApproximateCounts(0.05, Double.MIN_VALUE));
+        assertArrayEquals(new int[] {1, 2, 3, 4, 5}, ratings.getMostRatedUsers(5));
+        assertTrue(ratings.setApproximateCounts(0.05, 0.01));
+        // Users 100 to 299 each rate film 900, half of them film 901 and a quarter film 902
+        for (int u = 100; u < 300; u++) {
+            ratings.add(u, 900, 3.0f, null);
+            if (u % 2 == 0) {
+                ratings.add(u, 901, 3.0f, null);
+            }
+            if (u % 4 == 0) {
+                ratings.add(u, 902, 3.0f, null);
+            }
+        }
+        int[] expectedUsers = {1, 2, 3, 4, 5};
+        assertArrayEquals(expectedUsers, ratings.getMostRatedUsers(5));
+        assertArrayEquals(new int[] {900, 901}, ratings.getMostRatedMovies(2));
+        // The table only holds 1 / epsilon ids
+        assertEquals(20, ratings.getMostRatedUsers(100).length);
+
+        // User 6 overtakes everyone, then takes it all back
+        for (int f = 1000; f < 1300; f++) {
+            ratings.add(6, f, 3.0f, null);
+        }
+        assertEquals(6, ratings.getMostRatedUsers(1)[0]);
+        for (int f = 1000; f < 1300; f++) {
+            ratings.remove(6, f);
+        }
+        assertArrayEquals(expectedUsers, ratings.getMostRatedUsers(5));
+
+        assertTrue(ratings.setApproximateCounts(0, 0));
+        assertArrayEquals(expectedUsers, ratings.getMostRatedUsers(5));
+        assertArrayEquals(new int[] {900, 901, 902, 0, 1}, ratings.getMostRatedMovies(5));
+        assertEquals(100, ratings.getMostRatedUsers(100).length);
+    }
+
     @Test void testSize(){
         assertEquals(15, stores.getRatings().size(), "Incorrect size.");
     }
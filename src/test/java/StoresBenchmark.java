@@ -0,0 +1,293 @@
+import stores.*;
+import structures.IntObjectMap;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Random;
+
+/**
+ * Micro-benchmarks for the store lookups. Not a unit test: run with
+ * "gradle benchmark" and compare the ns/call figures printed for each case.
+ */
+public class StoresBenchmark {
+    private static final int numFilms = 45000;
+    private static final int rounds = 10;
+    private static final int callsPerRound = 2000000;
+    // Scans touch every film, so far fewer of them fit in a round
+    private static final int scansPerRound = 200;
+
+    // Stops the JIT from removing the loops being timed
+    private static long sink = 0;
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        Genre[] genres = {new Genre(1, "Drama")};
+        String[] languages = {"en"};
+
+        IntObjectMap<Movie> map = new IntObjectMap<>();
+        Stores stores = new Stores();
+        ColumnarMovies columnar = new ColumnarMovies(stores);
+
+        // Ids are spread out like the real dataset, and half of the lookups miss
+        int[] ids = new int[numFilms];
+        for (int i = 0; i < numFilms; i++) {
+            ids[i] = 2 + random.nextInt(470000);
+            Movie movie = new Movie("title" + i, "title" + i, "overview", "tagline", "Released", genres, LocalDate.of(1950 + (i % 70), 1, 1), i, i, languages, "en", 90.0, "", false, false, "");
+            map.put(ids[i], movie);
+            stores.getMovies().add(ids[i], "title" + i, "title" + i, "overview", "tagline", "Released", genres, LocalDate.of(1950 + (i % 70), 1, 1), i, i, languages, "en", 90.0, "", false, false, "");
+            columnar.add(ids[i], "title" + i, "title" + i, "overview", "tagline", "Released", genres, LocalDate.of(1950 + (i % 70), 1, 1), i, i, languages, "en", 90.0, "", false, false, "");
+        }
+        int[] queries = new int[1 << 16];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = (i % 2 == 0) ? ids[random.nextInt(numFilms)] : -1 - random.nextInt(470000);
+        }
+
+        report("getTitle, two probes (get for the null check, get for the value)", () -> {
+            for (int i = 0; i < callsPerRound; i++) {
+                int id = queries[i & (queries.length - 1)];
+                String title = (map.get(id) == null) ? null : map.get(id).getTitle();
+                sink += (title == null) ? 0 : title.length();
+            }
+        });
+
+        report("getTitle, single probe", () -> {
+            for (int i = 0; i < callsPerRound; i++) {
+                int id = queries[i & (queries.length - 1)];
+                Movie movie = map.get(id);
+                String title = (movie == null) ? null : movie.getTitle();
+                sink += (title == null) ? 0 : title.length();
+            }
+        });
+
+        report("getBudget through the Movies store", () -> {
+            for (int i = 0; i < callsPerRound; i++) {
+                sink += stores.getMovies().getBudget(queries[i & (queries.length - 1)]);
+            }
+        });
+
+        LocalDate from = LocalDate.of(1970, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 1);
+
+        report("getAllIDsReleasedInRange, Movies release index", scansPerRound, () -> {
+            for (int i = 0; i < scansPerRound; i++) {
+                sink += stores.getMovies().getAllIDsReleasedInRange(from, to).length;
+            }
+        });
+
+        report("getAllIDsReleasedInRange, columns", scansPerRound, () -> {
+            for (int i = 0; i < scansPerRound; i++) {
+                sink += columnar.getAllIDsReleasedInRange(from, to).length;
+            }
+        });
+
+        report("total revenue in range, Movie objects (range then getRevenue)", scansPerRound, () -> {
+            for (int i = 0; i < scansPerRound; i++) {
+                for (int id : stores.getMovies().getAllIDsReleasedInRange(from, to)) {
+                    sink += stores.getMovies().getRevenue(id);
+                }
+            }
+        });
+
+        report("total revenue in range, columns", scansPerRound, () -> {
+            for (int i = 0; i < scansPerRound; i++) {
+                sink += columnar.getTotalRevenueReleasedInRange(from, to);
+            }
+        });
+
+        report("findFilms, Movies text index", scansPerRound, () -> {
+            for (int i = 0; i < scansPerRound; i++) {
+                sink += stores.getMovies().findFilms("title4321").length;
+            }
+        });
+
+        report("findFilms, columns", scansPerRound, () -> {
+            for (int i = 0; i < scansPerRound; i++) {
+                sink += columnar.findFilms("title4321").length;
+            }
+        });
+
+        // A million ratings spread over the films, 20k users and 20 years
+        int numRatings = 1000000;
+        int[] raters = new int[numRatings];
+        int[] rated = new int[numRatings];
+        float[] values = new float[numRatings];
+        long[] times = new long[numRatings];
+        for (int i = 0; i < numRatings; i++) {
+            raters[i] = 1 + random.nextInt(20000);
+            rated[i] = ids[random.nextInt(numFilms)];
+            values[i] = random.nextInt(11) / 2.0f;
+            times[i] = 946684800L + random.nextInt(20 * 365 * 86400);
+        }
+
+        long start = System.nanoTime();
+        stores.getRatings().presize(numRatings);
+        for (int i = 0; i < numRatings; i++) {
+            stores.getRatings().add(raters[i], rated[i], values[i], LocalDateTime.ofEpochSecond(times[i], 0, ZoneOffset.UTC));
+        }
+        System.out.printf("%-70s %8.2f ms%n", "adding " + numRatings + " ratings one at a time", (System.nanoTime() - start) / 1e6);
+
+        Stores approxStores = new Stores();
+        approxStores.getRatings().setApproximateCounts(0.0001, 0.01);
+        start = System.nanoTime();
+        approxStores.getRatings().presize(numRatings);
+        for (int i = 0; i < numRatings; i++) {
+            approxStores.getRatings().add(raters[i], rated[i], values[i], LocalDateTime.ofEpochSecond(times[i], 0, ZoneOffset.UTC));
+        }
+        System.out.printf("%-70s %8.2f ms%n", "adding " + numRatings + " ratings one at a time, approximate counts", (System.nanoTime() - start) / 1e6);
+
+        report("getMostRatedUsers(100), exact counts", scansPerRound, () -> {
+            for (int i = 0; i < scansPerRound; i++) {
+                sink += stores.getRatings().getMostRatedUsers(100).length;
+            }
+        });
+
+        report("getMostRatedUsers(100), approximate counts", scansPerRound, () -> {
+            for (int i = 0; i < scansPerRound; i++) {
+                sink += approxStores.getRatings().getMostRatedUsers(100).length;
+            }
+        });
+
+        Stores batchStores = new Stores();
+        start = System.nanoTime();
+        batchStores.getRatings().addAll(raters, rated, values, times, numRatings);
+        System.out.printf("%-70s %8.2f ms%n", "adding " + numRatings + " ratings with addAll", (System.nanoTime() - start) / 1e6);
+        sink += batchStores.getRatings().size();
+
+        start = System.nanoTime();
+        sink += stores.getRatings().getMovieRatings(ids[0]).length;
+        System.out.printf("%-70s %8.2f ms%n", "building the ratings index from " + numRatings + " adds", (System.nanoTime() - start) / 1e6);
+
+        report("getMovieRatings for every film (per rating read)", numRatings, () -> {
+            for (int i = 0; i < numFilms; i++) {
+                sink += stores.getRatings().getMovieRatings(ids[i]).length;
+            }
+        });
+
+        LocalDateTime latest = stores.getRatings().getLatestRatingTime();
+        report("getMostRatedMoviesBetween(100) over the last 30 days", scansPerRound, () -> {
+            for (int i = 0; i < scansPerRound; i++) {
+                sink += stores.getRatings().getMostRatedMoviesBetween(latest.minusDays(30), latest.plusSeconds(1), 100).length;
+            }
+        });
+
+        report("getMovieMovingAverage(30 days) for every film", numFilms, () -> {
+            for (int i = 0; i < numFilms; i++) {
+                sink += (long) stores.getRatings().getMovieMovingAverage(ids[i], latest, 30);
+            }
+        });
+
+        report("getTopAverageRatedMovies(100) after a rating changes", scansPerRound, () -> {
+            for (int i = 0; i < scansPerRound; i++) {
+                stores.getRatings().set(1 + i, ids[i], (i % 11) / 2.0f, null);
+                sink += stores.getRatings().getTopAverageRatedMovies(100).length;
+            }
+        });
+
+        start = System.nanoTime();
+        sink += stores.getRatings().getSimilarMovies(ids[0], 10).length;
+        System.out.printf("%-70s %8.2f ms%n", "building the similar films of " + numFilms + " films", (System.nanoTime() - start) / 1e6);
+
+        report("getSimilarMovies(10) for every film", numFilms, () -> {
+            for (int i = 0; i < numFilms; i++) {
+                sink += stores.getRatings().getSimilarMovies(ids[i], 10).length;
+            }
+        });
+
+        report("getSimilarMovies(10) after one of its ratings changes", scansPerRound, () -> {
+            for (int i = 0; i < scansPerRound; i++) {
+                stores.getRatings().set(1 + i, ids[i], (i % 11) / 2.0f, null);
+                sink += stores.getRatings().getSimilarMovies(ids[i], 10).length;
+            }
+        });
+
+        // 15 cast and 15 crew a film, drawn with a skew from 150k people so a few
+        // are in many films, like the real credits
+        int numPeople = 150000;
+        CastCredit[][] filmCast = new CastCredit[numFilms][];
+        CrewCredit[][] filmCrew = new CrewCredit[numFilms][];
+        for (int i = 0; i < numFilms; i++) {
+            CastCredit[] cast = new CastCredit[15];
+            CrewCredit[] crew = new CrewCredit[15];
+            for (int j = 0; j < 15; j++) {
+                int p = (int) Math.min(numPeople - 1, Math.floor(Math.pow(numPeople, random.nextDouble())) - 1);
+                cast[j] = new CastCredit(j, "role" + j, "c" + i + "_" + j, p, "Person Name" + p, j, "/" + p + ".jpg");
+                int q = (int) Math.min(numPeople - 1, Math.floor(Math.pow(numPeople, random.nextDouble())) - 1);
+                crew[j] = new CrewCredit("e" + i + "_" + j, "Directing", q, "Director", "Person Name" + q, "/" + q + ".jpg");
+            }
+            filmCast[i] = cast;
+            filmCrew[i] = crew;
+        }
+        start = System.nanoTime();
+        for (int i = 0; i < numFilms; i++) {
+            stores.getCredits().add(filmCast[i], filmCrew[i], ids[i]);
+        }
+        System.out.printf("%-70s %8.2f ms%n", "adding the credits of " + numFilms + " films", (System.nanoTime() - start) / 1e6);
+
+        report("findCast, name index", scansPerRound, () -> {
+            for (int i = 0; i < scansPerRound; i++) {
+                sink += stores.getCredits().findCast("name4321").length;
+            }
+        });
+
+        report("findCast with a two char search, name index", scansPerRound, () -> {
+            for (int i = 0; i < scansPerRound; i++) {
+                sink += stores.getCredits().findCast("43").length;
+            }
+        });
+
+        report("getMostCastCredits(100), credits leaderboard", scansPerRound, () -> {
+            for (int i = 0; i < scansPerRound; i++) {
+                sink += stores.getCredits().getMostCastCredits(100).length;
+            }
+        });
+
+        start = System.nanoTime();
+        sink += stores.getCredits().getCastCollaborationGroupSize(0);
+        System.out.printf("%-70s %8.2f ms%n", "building the collaboration graph of " + numFilms + " films", (System.nanoTime() - start) / 1e6);
+
+        report("getFrequentCoStars(10)", scansPerRound, () -> {
+            for (int i = 0; i < scansPerRound; i++) {
+                sink += stores.getCredits().getFrequentCoStars(i * 701 % numPeople, 10).length;
+            }
+        });
+
+        report("getCastCollaborationPath between two cast members", scansPerRound, () -> {
+            for (int i = 0; i < scansPerRound; i++) {
+                sink += stores.getCredits().getCastCollaborationPath(i * 701 % numPeople, i * 1409 % numPeople).length;
+            }
+        });
+
+        System.out.println("(sink " + sink + ")");
+    }
+
+    /**
+     * Runs the case a number of times and prints the fastest round, which is
+     * the least affected by GC and JIT compilation
+     * @param name what is being measured
+     * @param body one round of calls
+     */
+    static void report(String name, Runnable body) {
+        report(name, callsPerRound, body);
+    }
+
+    /**
+     * Runs the case a number of times and prints the fastest round
+     * @param name what is being measured
+     * @param calls the number of calls made by one round
+     * @param body one round of calls
+     */
+    static void report(String name, int calls, Runnable body) {
+        // Warm up so the JIT has compiled the loop
+        for (int i = 0; i < 3; i++) {
+            body.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            body.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-70s %8.2f ns/call%n", name, best / (double) calls);
+    }
+}